@@ -0,0 +1,122 @@
+package com.yammer.metrics.agent;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Finds the methods of a class which are annotated with Metrics annotations.
+ */
+class AnnotationScanner extends EmptyVisitor {
+    static final String TIMED = "Lcom/yammer/metrics/annotation/Timed;";
+    static final String METERED = "Lcom/yammer/metrics/annotation/Metered;";
+    static final String EXCEPTION_METERED = "Lcom/yammer/metrics/annotation/ExceptionMetered;";
+    static final String GAUGE = "Lcom/yammer/metrics/annotation/Gauge;";
+
+    /**
+     * The Metrics annotations on a single method.
+     */
+    static class AnnotatedMethod {
+        final String name, desc;
+        boolean timed, metered, exceptionMetered, gauge;
+
+        AnnotatedMethod(String name, String desc) {
+            this.name = name;
+            this.desc = desc;
+        }
+
+        boolean isWrapped() {
+            return timed || metered || exceptionMetered;
+        }
+    }
+
+    private final Map<String, AnnotatedMethod> methods = new LinkedHashMap<String, AnnotatedMethod>();
+    private int version;
+    private boolean isInterface;
+    private boolean hasStaticInitializer;
+    private boolean hasStaticGauges, hasInstanceGauges;
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        this.version = version;
+        this.isInterface = (access & Opcodes.ACC_INTERFACE) != 0;
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String desc, String signature, String[] exceptions) {
+        if ("<clinit>".equals(name)) {
+            this.hasStaticInitializer = true;
+        }
+        if (name.startsWith("<") || (access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE)) != 0) {
+            return null;
+        }
+        return new EmptyVisitor() {
+            @Override
+            public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                if (TIMED.equals(annotation)) {
+                    get().timed = true;
+                } else if (METERED.equals(annotation)) {
+                    get().metered = true;
+                } else if (EXCEPTION_METERED.equals(annotation)) {
+                    get().exceptionMetered = true;
+                } else if (GAUGE.equals(annotation)) {
+                    get().gauge = true;
+                    if ((access & Opcodes.ACC_STATIC) != 0) {
+                        hasStaticGauges = true;
+                    } else {
+                        hasInstanceGauges = true;
+                    }
+                }
+                return null;
+            }
+
+            private AnnotatedMethod get() {
+                AnnotatedMethod method = methods.get(name + desc);
+                if (method == null) {
+                    method = new AnnotatedMethod(name, desc);
+                    methods.put(name + desc, method);
+                }
+                return method;
+            }
+        };
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    boolean isInterface() {
+        return isInterface;
+    }
+
+    boolean hasStaticInitializer() {
+        return hasStaticInitializer;
+    }
+
+    boolean hasStaticGauges() {
+        return hasStaticGauges;
+    }
+
+    boolean hasInstanceGauges() {
+        return hasInstanceGauges;
+    }
+
+    boolean isEmpty() {
+        return methods.isEmpty();
+    }
+
+    AnnotatedMethod getMethod(String name, String desc) {
+        return methods.get(name + desc);
+    }
+
+    /**
+     * Returns the annotated methods, in the order in which they are declared.
+     */
+    Collection<AnnotatedMethod> getMethods() {
+        return methods.values();
+    }
+}
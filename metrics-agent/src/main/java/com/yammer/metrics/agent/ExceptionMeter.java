@@ -0,0 +1,27 @@
+package com.yammer.metrics.agent;
+
+import com.yammer.metrics.core.Meter;
+
+/**
+ * A {@link Meter} which is only marked for exceptions of a given type.
+ */
+public final class ExceptionMeter {
+    private final Meter meter;
+    private final Class<? extends Throwable> cause;
+
+    ExceptionMeter(Meter meter, Class<? extends Throwable> cause) {
+        this.meter = meter;
+        this.cause = cause;
+    }
+
+    /**
+     * Marks the meter if {@code e} is an instance of the metered exception type.
+     *
+     * @param e    an exception thrown by an instrumented method
+     */
+    public void mark(Throwable e) {
+        if (cause.isInstance(e)) {
+            meter.mark();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.yammer.metrics.agent;
+
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.annotation.ExceptionMetered;
+import com.yammer.metrics.annotation.Gauge;
+import com.yammer.metrics.annotation.Metered;
+import com.yammer.metrics.annotation.Timed;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Creates the metrics used by classes instrumented by {@link MetricsAgent}. These methods are
+ * called from the static initializers and constructors of instrumented classes, so each metric is
+ * looked up once and then held in a static field of the instrumented class.
+ */
+public final class InstrumentedMethods {
+    private static final MetricsRegistry REGISTRY = Metrics.defaultRegistry();
+
+    private InstrumentedMethods() { /* unused */ }
+
+    /**
+     * Returns the {@link Timer} for a method annotated with {@link Timed}.
+     *
+     * @param klass         the declaring class
+     * @param name          the name of the method
+     * @param descriptor    the method's descriptor
+     * @return the method's {@link Timer}
+     */
+    public static Timer timer(Class<?> klass, String name, String descriptor) {
+        final Method method = findMethod(klass, name, descriptor);
+        final Timed annotation = method.getAnnotation(Timed.class);
+        return REGISTRY.newTimer(MetricName.forTimedMethod(klass, method, annotation),
+                                 annotation.durationUnit(),
+                                 annotation.rateUnit());
+    }
+
+    /**
+     * Returns the {@link Meter} for a method annotated with {@link Metered}.
+     *
+     * @param klass         the declaring class
+     * @param name          the name of the method
+     * @param descriptor    the method's descriptor
+     * @return the method's {@link Meter}
+     */
+    public static Meter meter(Class<?> klass, String name, String descriptor) {
+        final Method method = findMethod(klass, name, descriptor);
+        final Metered annotation = method.getAnnotation(Metered.class);
+        return REGISTRY.newMeter(MetricName.forMeteredMethod(klass, method, annotation),
+                                 annotation.eventType(),
+                                 annotation.rateUnit());
+    }
+
+    /**
+     * Returns the {@link ExceptionMeter} for a method annotated with {@link ExceptionMetered}.
+     *
+     * @param klass         the declaring class
+     * @param name          the name of the method
+     * @param descriptor    the method's descriptor
+     * @return the method's {@link ExceptionMeter}
+     */
+    public static ExceptionMeter exceptionMeter(Class<?> klass, String name, String descriptor) {
+        final Method method = findMethod(klass, name, descriptor);
+        final ExceptionMetered annotation = method.getAnnotation(ExceptionMetered.class);
+        final Meter meter = REGISTRY.newMeter(MetricName.forExceptionMeteredMethod(klass, method, annotation),
+                                              annotation.eventType(),
+                                              annotation.rateUnit());
+        return new ExceptionMeter(meter, annotation.cause());
+    }
+
+    /**
+     * Registers gauges for the static methods of a class which are annotated with {@link Gauge}.
+     *
+     * @param klass    the class
+     */
+    public static void registerGauges(Class<?> klass) {
+        registerGauges(klass, null);
+    }
+
+    /**
+     * Registers gauges for the instance methods of a class which are annotated with {@link Gauge},
+     * using the first instance of the class to be constructed.
+     *
+     * @param registered    whether or not the gauges have already been registered
+     * @param klass         the class
+     * @param instance      the newly-constructed instance
+     */
+    public static void registerGauges(AtomicBoolean registered, Class<?> klass, Object instance) {
+        if (!registered.get() && registered.compareAndSet(false, true)) {
+            registerGauges(klass, instance);
+        }
+    }
+
+    private static void registerGauges(Class<?> klass, final Object instance) {
+        for (final Method method : klass.getDeclaredMethods()) {
+            final Gauge annotation = method.getAnnotation(Gauge.class);
+            if (annotation != null && Modifier.isStatic(method.getModifiers()) == (instance == null)) {
+                method.setAccessible(true);
+                REGISTRY.newGauge(MetricName.forGaugeMethod(klass, method, annotation),
+                                  new com.yammer.metrics.core.Gauge<Object>() {
+                                      @Override
+                                      public Object getValue() {
+                                          try {
+                                              return method.invoke(instance);
+                                          } catch (IllegalAccessException e) {
+                                              throw new IllegalStateException(e);
+                                          } catch (InvocationTargetException e) {
+                                              throw new IllegalStateException(e.getCause());
+                                          }
+                                      }
+                                  });
+            }
+        }
+    }
+
+    private static Method findMethod(Class<?> klass, String name, String descriptor) {
+        for (Method method : klass.getDeclaredMethods()) {
+            if (method.getName().equals(name) && descriptor.equals(getDescriptor(method))) {
+                return method;
+            }
+        }
+        throw new IllegalStateException("No method " + name + descriptor + " in " + klass.getName());
+    }
+
+    private static String getDescriptor(Method method) {
+        final StringBuilder builder = new StringBuilder("(");
+        for (Class<?> type : method.getParameterTypes()) {
+            appendDescriptor(builder, type);
+        }
+        builder.append(')');
+        appendDescriptor(builder, method.getReturnType());
+        return builder.toString();
+    }
+
+    private static void appendDescriptor(StringBuilder builder, Class<?> type) {
+        if (type.isArray()) {
+            builder.append(type.getName().replace('.', '/'));
+        } else if (type.isPrimitive()) {
+            if (type == Integer.TYPE) {
+                builder.append('I');
+            } else if (type == Void.TYPE) {
+                builder.append('V');
+            } else if (type == Boolean.TYPE) {
+                builder.append('Z');
+            } else if (type == Byte.TYPE) {
+                builder.append('B');
+            } else if (type == Character.TYPE) {
+                builder.append('C');
+            } else if (type == Short.TYPE) {
+                builder.append('S');
+            } else if (type == Double.TYPE) {
+                builder.append('D');
+            } else if (type == Float.TYPE) {
+                builder.append('F');
+            } else {
+                builder.append('J');
+            }
+        } else {
+            builder.append('L').append(type.getName().replace('.', '/')).append(';');
+        }
+    }
+}
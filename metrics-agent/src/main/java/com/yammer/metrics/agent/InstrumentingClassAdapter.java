@@ -0,0 +1,279 @@
+package com.yammer.metrics.agent;
+
+import com.yammer.metrics.agent.AnnotationScanner.AnnotatedMethod;
+import org.objectweb.asm.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Weaves Metrics instrumentation into the annotated methods of a class.
+ * <p/>
+ * The body of each method annotated with {@code @Timed}, {@code @Metered}, or
+ * {@code @ExceptionMetered} is moved into a private synthetic method, and the original method is
+ * replaced with one which updates the metrics around a call to it. The metrics themselves are
+ * looked up once, in the class's static initializer, and held in private static fields, so an
+ * instrumented call costs only the metric updates.
+ * <p/>
+ * Instance methods annotated with {@code @Gauge} are registered when the first instance of the
+ * class is constructed; static ones when the class is initialized.
+ */
+class InstrumentingClassAdapter extends ClassAdapter implements Opcodes {
+    private static final String PREFIX = "metrics$";
+    private static final String INSTRUMENTED_METHODS = "com/yammer/metrics/agent/InstrumentedMethods";
+    private static final String EXCEPTION_METER = "com/yammer/metrics/agent/ExceptionMeter";
+    private static final String TIMER = "com/yammer/metrics/core/Timer";
+    private static final String TIMER_CONTEXT = "com/yammer/metrics/core/TimerContext";
+    private static final String METER = "com/yammer/metrics/core/Meter";
+    private static final String ATOMIC_BOOLEAN = "java/util/concurrent/atomic/AtomicBoolean";
+    private static final String GAUGES_FIELD = PREFIX + "gauges";
+
+    private final AnnotationScanner scanner;
+    private final Map<AnnotatedMethod, String> fields = new LinkedHashMap<AnnotatedMethod, String>();
+    private String owner;
+
+    InstrumentingClassAdapter(ClassVisitor cv, AnnotationScanner scanner) {
+        super(cv);
+        this.scanner = scanner;
+        for (AnnotatedMethod method : scanner.getMethods()) {
+            if (method.isWrapped()) {
+                fields.put(method, PREFIX + fields.size());
+            }
+        }
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        this.owner = name;
+        super.visit(version, access, name, signature, superName, interfaces);
+        for (Map.Entry<AnnotatedMethod, String> entry : fields.entrySet()) {
+            final AnnotatedMethod method = entry.getKey();
+            if (method.timed) {
+                addField(entry.getValue() + "$timer", TIMER);
+            }
+            if (method.metered) {
+                addField(entry.getValue() + "$meter", METER);
+            }
+            if (method.exceptionMetered) {
+                addField(entry.getValue() + "$exceptions", EXCEPTION_METER);
+            }
+        }
+        if (scanner.hasInstanceGauges()) {
+            addField(GAUGES_FIELD, ATOMIC_BOOLEAN);
+        }
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String desc, String signature, String[] exceptions) {
+        if ("<clinit>".equals(name)) {
+            return new MethodAdapter(super.visitMethod(access, name, desc, signature, exceptions)) {
+                @Override
+                public void visitCode() {
+                    super.visitCode();
+                    initializeMetrics(mv);
+                }
+            };
+        }
+
+        if ("<init>".equals(name) && scanner.hasInstanceGauges()) {
+            return new MethodAdapter(super.visitMethod(access, name, desc, signature, exceptions)) {
+                @Override
+                public void visitInsn(int opcode) {
+                    if (opcode == RETURN) {
+                        registerInstanceGauges(mv);
+                    }
+                    super.visitInsn(opcode);
+                }
+            };
+        }
+
+        final AnnotatedMethod annotations = scanner.getMethod(name, desc);
+        if (annotations == null || !annotations.isWrapped()) {
+            return super.visitMethod(access, name, desc, signature, exceptions);
+        }
+
+        final String field = fields.get(annotations);
+        final MethodVisitor wrapper = super.visitMethod(access & ~ACC_SYNCHRONIZED, name, desc, signature, exceptions);
+        final int delegateAccess = (access & ~(ACC_PUBLIC | ACC_PROTECTED | ACC_VARARGS | ACC_BRIDGE)) | ACC_PRIVATE | ACC_SYNTHETIC;
+        final MethodVisitor delegate = super.visitMethod(delegateAccess, PREFIX + name, desc, signature, exceptions);
+        return new MethodAdapter(delegate) {
+            // the annotations stay on the original method, where reflection expects them
+            @Override
+            public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+                return wrapper.visitAnnotation(annotation, visible);
+            }
+
+            @Override
+            public AnnotationVisitor visitParameterAnnotation(int parameter, String annotation, boolean visible) {
+                return wrapper.visitParameterAnnotation(parameter, annotation, visible);
+            }
+
+            @Override
+            public void visitEnd() {
+                super.visitEnd();
+                writeWrapper(wrapper, (access & ACC_STATIC) != 0, name, desc, field, annotations);
+            }
+        };
+    }
+
+    @Override
+    public void visitEnd() {
+        if (!scanner.hasStaticInitializer()) {
+            final MethodVisitor mv = super.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+            mv.visitCode();
+            initializeMetrics(mv);
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        super.visitEnd();
+    }
+
+    private void initializeMetrics(MethodVisitor mv) {
+        for (Map.Entry<AnnotatedMethod, String> entry : fields.entrySet()) {
+            final AnnotatedMethod method = entry.getKey();
+            if (method.timed) {
+                initializeField(mv, method, "timer", TIMER, entry.getValue() + "$timer");
+            }
+            if (method.metered) {
+                initializeField(mv, method, "meter", METER, entry.getValue() + "$meter");
+            }
+            if (method.exceptionMetered) {
+                initializeField(mv, method, "exceptionMeter", EXCEPTION_METER, entry.getValue() + "$exceptions");
+            }
+        }
+        if (scanner.hasStaticGauges()) {
+            mv.visitLdcInsn(Type.getObjectType(owner));
+            mv.visitMethodInsn(INVOKESTATIC, INSTRUMENTED_METHODS, "registerGauges", "(Ljava/lang/Class;)V");
+        }
+        if (scanner.hasInstanceGauges()) {
+            mv.visitTypeInsn(NEW, ATOMIC_BOOLEAN);
+            mv.visitInsn(DUP);
+            mv.visitMethodInsn(INVOKESPECIAL, ATOMIC_BOOLEAN, "<init>", "()V");
+            mv.visitFieldInsn(PUTSTATIC, owner, GAUGES_FIELD, "L" + ATOMIC_BOOLEAN + ";");
+        }
+    }
+
+    private void addField(String name, String type) {
+        super.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC, name, "L" + type + ";", null, null);
+    }
+
+    private void initializeField(MethodVisitor mv, AnnotatedMethod method, String factory, String type, String field) {
+        mv.visitLdcInsn(Type.getObjectType(owner));
+        mv.visitLdcInsn(method.name);
+        mv.visitLdcInsn(method.desc);
+        mv.visitMethodInsn(INVOKESTATIC, INSTRUMENTED_METHODS, factory,
+                           "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/String;)L" + type + ";");
+        mv.visitFieldInsn(PUTSTATIC, owner, field, "L" + type + ";");
+    }
+
+    private void registerInstanceGauges(MethodVisitor mv) {
+        mv.visitFieldInsn(GETSTATIC, owner, GAUGES_FIELD, "L" + ATOMIC_BOOLEAN + ";");
+        mv.visitLdcInsn(Type.getObjectType(owner));
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESTATIC, INSTRUMENTED_METHODS, "registerGauges",
+                           "(L" + ATOMIC_BOOLEAN + ";Ljava/lang/Class;Ljava/lang/Object;)V");
+    }
+
+    private void writeWrapper(MethodVisitor mv, boolean isStatic, String name, String desc,
+                              String field, AnnotatedMethod annotations) {
+        final Type[] arguments = Type.getArgumentTypes(desc);
+        final Type returnType = Type.getReturnType(desc);
+        int contextIndex = isStatic ? 0 : 1;
+        for (Type argument : arguments) {
+            contextIndex += argument.getSize();
+        }
+        final boolean handlesExceptions = annotations.timed || annotations.exceptionMetered;
+        final Label start = new Label();
+        final Label end = new Label();
+        final Label handler = new Label();
+
+        mv.visitCode();
+        if (handlesExceptions) {
+            mv.visitTryCatchBlock(start, end, handler, null);
+        }
+        if (annotations.metered) {
+            mv.visitFieldInsn(GETSTATIC, owner, field + "$meter", "L" + METER + ";");
+            mv.visitMethodInsn(INVOKEVIRTUAL, METER, "mark", "()V");
+        }
+        if (annotations.timed) {
+            mv.visitFieldInsn(GETSTATIC, owner, field + "$timer", "L" + TIMER + ";");
+            mv.visitMethodInsn(INVOKEVIRTUAL, TIMER, "time", "()L" + TIMER_CONTEXT + ";");
+            mv.visitVarInsn(ASTORE, contextIndex);
+        }
+
+        mv.visitLabel(start);
+        int index = 0;
+        if (!isStatic) {
+            mv.visitVarInsn(ALOAD, index++);
+        }
+        for (Type argument : arguments) {
+            mv.visitVarInsn(argument.getOpcode(ILOAD), index);
+            index += argument.getSize();
+        }
+        mv.visitMethodInsn(isStatic ? INVOKESTATIC : INVOKESPECIAL, owner, PREFIX + name, desc);
+        mv.visitLabel(end);
+        if (annotations.timed) {
+            stopTimer(mv, contextIndex);
+        }
+        mv.visitInsn(returnType.getOpcode(IRETURN));
+
+        if (handlesExceptions) {
+            mv.visitLabel(handler);
+            if ((scanner.getVersion() & 0xFFFF) >= V1_6) {
+                final List<Object> locals = new ArrayList<Object>();
+                if (!isStatic) {
+                    locals.add(owner);
+                }
+                for (Type argument : arguments) {
+                    locals.add(getFrameType(argument));
+                }
+                if (annotations.timed) {
+                    locals.add(TIMER_CONTEXT);
+                }
+                mv.visitFrame(F_FULL, locals.size(), locals.toArray(), 1, new Object[]{ "java/lang/Throwable" });
+            }
+            if (annotations.exceptionMetered) {
+                mv.visitInsn(DUP);
+                mv.visitFieldInsn(GETSTATIC, owner, field + "$exceptions", "L" + EXCEPTION_METER + ";");
+                mv.visitInsn(SWAP);
+                mv.visitMethodInsn(INVOKEVIRTUAL, EXCEPTION_METER, "mark", "(Ljava/lang/Throwable;)V");
+            }
+            if (annotations.timed) {
+                stopTimer(mv, contextIndex);
+            }
+            mv.visitInsn(ATHROW);
+        }
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static void stopTimer(MethodVisitor mv, int contextIndex) {
+        mv.visitVarInsn(ALOAD, contextIndex);
+        mv.visitMethodInsn(INVOKEVIRTUAL, TIMER_CONTEXT, "stop", "()J");
+        mv.visitInsn(POP2);
+    }
+
+    private static Object getFrameType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+            case Type.CHAR:
+            case Type.BYTE:
+            case Type.SHORT:
+            case Type.INT:
+                return INTEGER;
+            case Type.FLOAT:
+                return FLOAT;
+            case Type.LONG:
+                return LONG;
+            case Type.DOUBLE:
+                return DOUBLE;
+            case Type.ARRAY:
+                return type.getDescriptor();
+            default:
+                return type.getInternalName();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.yammer.metrics.agent;
+
+import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Java agent which instruments methods annotated with Metrics annotations as their classes are
+ * loaded, without requiring AOP or a dependency injection framework:
+ * <pre>
+ * java -javaagent:metrics-agent.jar=com.example.service,com.example.dao -jar service.jar
+ * </pre>
+ * The agent's options are an optional comma-separated list of packages to instrument. If none are
+ * given, classes in all packages are instrumented. {@code metrics-core} and
+ * {@code metrics-annotation} must be on the application's classpath.
+ * <p/>
+ * The agent is loaded by the system class loader, and so is {@link InstrumentedMethods}, which
+ * every instrumented method calls. Its metrics are registered in the {@code
+ * Metrics.defaultRegistry()} of the {@code metrics-core} the system class loader sees. If the
+ * application has its own copy of {@code metrics-core} in a child class loader (e.g., in a
+ * servlet container's {@code WEB-INF/lib}), that's a different registry from the one the
+ * application and its reporters use, and the agent's metrics won't appear in it.
+ */
+public final class MetricsAgent {
+    private MetricsAgent() { /* unused */ }
+
+    /**
+     * Installs the agent when the VM starts.
+     *
+     * @param options            the agent's options
+     * @param instrumentation    the VM's instrumentation
+     */
+    public static void premain(String options, Instrumentation instrumentation) {
+        instrumentation.addTransformer(new MetricsTransformer(parsePackages(options)));
+    }
+
+    /**
+     * Installs the agent in a running VM. Only classes loaded after the agent is installed are
+     * instrumented.
+     *
+     * @param options            the agent's options
+     * @param instrumentation    the VM's instrumentation
+     */
+    public static void agentmain(String options, Instrumentation instrumentation) {
+        premain(options, instrumentation);
+    }
+
+    static List<String> parsePackages(String options) {
+        final List<String> packages = new ArrayList<String>();
+        if (options != null) {
+            for (String name : options.split(",")) {
+                if (name.trim().length() > 0) {
+                    packages.add(name.trim());
+                }
+            }
+        }
+        return packages;
+    }
+}
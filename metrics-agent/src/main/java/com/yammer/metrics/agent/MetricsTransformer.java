@@ -0,0 +1,128 @@
+package com.yammer.metrics.agent;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link ClassFileTransformer} which weaves Metrics instrumentation into the methods of classes
+ * annotated with {@code @Timed}, {@code @Metered}, {@code @ExceptionMetered}, or {@code @Gauge}.
+ * <p/>
+ * Classes which don't refer to any Metrics annotations are rejected by a quick scan of their
+ * bytes and are never parsed. Interfaces, JDK classes, and class files newer than Java 7 are left
+ * untouched.
+ */
+public class MetricsTransformer implements ClassFileTransformer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsTransformer.class);
+    // the newest class file version ASM 3 can read, as long as it contains no invokedynamic
+    private static final int MAX_CLASS_VERSION = 51;
+    private static final byte[] ANNOTATION_PACKAGE = bytes("Lcom/yammer/metrics/annotation/");
+    private static final String[] EXCLUDED_PACKAGES = {
+            "java/", "javax/", "sun/", "com/sun/", "org/objectweb/asm/"
+    };
+
+    private final List<String> packages;
+
+    /**
+     * Creates a new {@link MetricsTransformer} which instruments classes in any package.
+     */
+    public MetricsTransformer() {
+        this(Collections.<String>emptyList());
+    }
+
+    /**
+     * Creates a new {@link MetricsTransformer} which instruments only classes in the given
+     * packages (e.g., {@code com.example}) and their subpackages.
+     *
+     * @param packages    the names of the packages to instrument, or an empty list to instrument
+     *                    classes in any package
+     */
+    public MetricsTransformer(List<String> packages) {
+        final String[] prefixes = new String[packages.size()];
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = packages.get(i).trim().replace('.', '/') + '/';
+        }
+        this.packages = Arrays.asList(prefixes);
+    }
+
+    @Override
+    public byte[] transform(ClassLoader loader,
+                            String className,
+                            Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain,
+                            byte[] classfileBuffer) {
+        if (className == null || classBeingRedefined != null || !isIncluded(className) ||
+                !contains(classfileBuffer, ANNOTATION_PACKAGE)) {
+            return null;
+        }
+
+        try {
+            final ClassReader reader = new ClassReader(classfileBuffer);
+            final AnnotationScanner scanner = new AnnotationScanner();
+            reader.accept(scanner, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            if (scanner.isEmpty() || scanner.isInterface()) {
+                return null;
+            }
+
+            final int version = scanner.getVersion() & 0xFFFF;
+            if (version < Opcodes.V1_5 || version > MAX_CLASS_VERSION) {
+                LOGGER.warn("Not instrumenting {}: unsupported class file version {}", className, version);
+                return null;
+            }
+
+            final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            reader.accept(new InstrumentingClassAdapter(writer, scanner), 0);
+            return writer.toByteArray();
+        } catch (Throwable e) {
+            LOGGER.warn("Error instrumenting " + className, e);
+            return null;
+        }
+    }
+
+    private boolean isIncluded(String className) {
+        for (String prefix : EXCLUDED_PACKAGES) {
+            if (className.startsWith(prefix)) {
+                return false;
+            }
+        }
+        if (packages.isEmpty()) {
+            return true;
+        }
+        for (String prefix : packages) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(byte[] bytes, byte[] pattern) {
+        final int last = bytes.length - pattern.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static byte[] bytes(String s) {
+        final byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,58 @@
+package com.yammer.metrics.agent.tests;
+
+import com.yammer.metrics.annotation.ExceptionMetered;
+import com.yammer.metrics.annotation.Gauge;
+import com.yammer.metrics.annotation.Metered;
+import com.yammer.metrics.annotation.Timed;
+
+import java.io.IOException;
+
+public class InstrumentedObject {
+    private static final String PREFIX = "value:";
+
+    private final int size;
+
+    public InstrumentedObject() {
+        this(12);
+    }
+
+    public InstrumentedObject(int size) {
+        this.size = size;
+    }
+
+    @Timed
+    public String timed(String value, long count, double ratio, boolean flag) {
+        return PREFIX + value + count + ratio + flag;
+    }
+
+    @Metered
+    public void metered() {
+    }
+
+    @ExceptionMetered(cause = IllegalStateException.class)
+    public void exceptionMetered(boolean fail) {
+        if (fail) {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    @Timed(name = "everything")
+    @Metered(name = "everythingRequests")
+    @ExceptionMetered(name = "everythingFailures")
+    public static synchronized int everything(int[] values) throws IOException {
+        if (values.length == 0) {
+            throw new IOException("empty");
+        }
+        return values[0];
+    }
+
+    @Gauge
+    public int size() {
+        return size;
+    }
+
+    @Gauge
+    public static String name() {
+        return "instrumented";
+    }
+}
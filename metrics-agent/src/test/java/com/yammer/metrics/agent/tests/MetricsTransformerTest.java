@@ -0,0 +1,214 @@
+package com.yammer.metrics.agent.tests;
+
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.agent.MetricsTransformer;
+import com.yammer.metrics.core.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class MetricsTransformerTest {
+    private static final String GROUP = "com.yammer.metrics.agent.tests";
+    private static final String TYPE = "InstrumentedObject";
+
+    /**
+     * Loads {@link InstrumentedObject} itself, transforming it on the way, and delegates
+     * everything else to the test's class loader.
+     */
+    private static class TransformingClassLoader extends ClassLoader {
+        private final MetricsTransformer transformer;
+
+        private TransformingClassLoader(MetricsTransformer transformer) {
+            super(MetricsTransformerTest.class.getClassLoader());
+            this.transformer = transformer;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(InstrumentedObject.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> klass = findLoadedClass(name);
+            if (klass == null) {
+                try {
+                    final String internalName = name.replace('.', '/');
+                    final byte[] original = read(internalName + ".class");
+                    final byte[] transformed = transformer.transform(this, internalName, null, null, original);
+                    final byte[] bytes = transformed == null ? original : transformed;
+                    klass = defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+            if (resolve) {
+                resolveClass(klass);
+            }
+            return klass;
+        }
+
+        private byte[] read(String resource) throws IOException {
+            final InputStream input = getParent().getResourceAsStream(resource);
+            try {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[4096];
+                int n;
+                while ((n = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, n);
+                }
+                return output.toByteArray();
+            } finally {
+                input.close();
+            }
+        }
+    }
+
+    private final MetricsRegistry registry = Metrics.defaultRegistry();
+    private Class<?> klass;
+    private Object instance;
+
+    @Before
+    public void setUp() throws Exception {
+        final ClassLoader loader = new TransformingClassLoader(new MetricsTransformer(Arrays.asList(GROUP)));
+        this.klass = loader.loadClass(InstrumentedObject.class.getName());
+        this.instance = klass.newInstance();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (MetricName name : registry.getAllMetrics().keySet()) {
+            if (name.getDomain().equals(GROUP) && name.getType().equals(TYPE)) {
+                registry.removeMetric(name);
+            }
+        }
+    }
+
+    @Test
+    public void timesAnnotatedMethods() throws Exception {
+        final Object result = invoke("timed", new Class<?>[]{ String.class, Long.TYPE, Double.TYPE, Boolean.TYPE },
+                                     "a", 2L, 0.5, true);
+
+        assertThat("the instrumented method still returns its result",
+                   result,
+                   is((Object) "value:a20.5true"));
+
+        assertThat("the method's timer has recorded the call",
+                   metric("timed", Timer.class).getCount(),
+                   is(1L));
+    }
+
+    @Test
+    public void metersAnnotatedMethods() throws Exception {
+        invoke("metered", new Class<?>[0]);
+        invoke("metered", new Class<?>[0]);
+
+        assertThat("the method's meter has recorded both calls",
+                   metric("metered", Meter.class).getCount(),
+                   is(2L));
+    }
+
+    @Test
+    public void metersExceptionsOfTheGivenCause() throws Exception {
+        invoke("exceptionMetered", new Class<?>[]{ Boolean.TYPE }, false);
+        try {
+            invoke("exceptionMetered", new Class<?>[]{ Boolean.TYPE }, true);
+            fail("should have thrown an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(),
+                       is("failed"));
+        }
+
+        assertThat("the method's exception meter has recorded the failed call",
+                   metric("exceptionMeteredExceptions", Meter.class).getCount(),
+                   is(1L));
+    }
+
+    @Test
+    public void instrumentsStaticMethodsWithSeveralAnnotations() throws Exception {
+        assertThat(invoke("everything", new Class<?>[]{ int[].class }, new int[]{ 5 }),
+                   is((Object) 5));
+        try {
+            invoke("everything", new Class<?>[]{ int[].class }, new int[0]);
+            fail("should have thrown an IOException");
+        } catch (IOException e) {
+            assertThat(e.getMessage(),
+                       is("empty"));
+        }
+
+        assertThat("the timer has recorded both calls",
+                   metric("everything", Timer.class).getCount(),
+                   is(2L));
+
+        assertThat("the meter has recorded both calls",
+                   metric("everythingRequests", Meter.class).getCount(),
+                   is(2L));
+
+        assertThat("the exception meter has recorded the failed call",
+                   metric("everythingFailures", Meter.class).getCount(),
+                   is(1L));
+    }
+
+    @Test
+    public void keepsTheMethodsModifiersAndAnnotations() throws Exception {
+        final Method method = klass.getDeclaredMethod("everything", int[].class);
+
+        assertThat("the method is still synchronized",
+                   java.lang.reflect.Modifier.isSynchronized(method.getModifiers()) ||
+                           java.lang.reflect.Modifier.isSynchronized(
+                                   klass.getDeclaredMethod("metrics$everything", int[].class).getModifiers()),
+                   is(true));
+
+        assertThat("the method is still annotated",
+                   method.getAnnotation(com.yammer.metrics.annotation.Timed.class),
+                   is(notNullValue()));
+    }
+
+    @Test
+    public void registersGauges() throws Exception {
+        klass.getConstructor(Integer.TYPE).newInstance(40);
+
+        assertThat("the instance gauge is registered for the first instance",
+                   metric("size", Gauge.class).getValue(),
+                   is((Object) 12));
+
+        assertThat("the static gauge is registered",
+                   metric("name", Gauge.class).getValue(),
+                   is((Object) "instrumented"));
+    }
+
+    @Test
+    public void ignoresClassesOutsideTheGivenPackages() throws Exception {
+        final MetricsTransformer transformer = new MetricsTransformer(Collections.singletonList("com.example"));
+
+        assertThat(transformer.transform(null, "com/yammer/metrics/agent/tests/InstrumentedObject",
+                                         null, null, new byte[0]),
+                   is(nullValue()));
+    }
+
+    private Object invoke(String name, Class<?>[] types, Object... args) throws Exception {
+        try {
+            return klass.getMethod(name, types).invoke(instance, args);
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    private <T extends Metric> T metric(String name, Class<T> type) {
+        final Metric metric = registry.getAllMetrics().get(new MetricName(GROUP, TYPE, name));
+        assertThat("there is a metric named " + name,
+                   metric,
+                   is(instanceOf(type)));
+        return type.cast(metric);
+    }
+}
@@ -0,0 +1,99 @@
+package com.yammer.metrics.annotation.processing;
+
+import com.yammer.metrics.annotation.ExceptionMetered;
+import com.yammer.metrics.annotation.Metered;
+import com.yammer.metrics.annotation.Timed;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * An annotation processor which generates an instrumented implementation of each interface with
+ * methods annotated with {@link Timed}, {@link Metered}, or {@link ExceptionMetered}.
+ * <p/>
+ * Given an interface {@code com.example.UserService}, the processor generates a class
+ * {@code com.example.InstrumentedUserService} which implements it by delegating to another
+ * implementation, updating the annotated methods' metrics around each call:
+ * <pre><code>
+ * final UserService users = new InstrumentedUserService(new DatabaseUserService(db), registry);
+ * </code></pre>
+ * The metrics are created once, in the generated class's constructor, so an instrumented call
+ * involves no reflection or lookups. Only the methods declared by the interface itself are
+ * instrumented; the methods it inherits from its superinterfaces are delegated as they are, and
+ * are instrumented by their own interfaces' generated classes. An interface is skipped, with a
+ * warning, if a type with its generated class's name already exists. Annotated methods of classes
+ * are left to runtime instrumentation and are ignored.
+ * <p/>
+ * The processor is in its own artifact, {@code metrics-annotation-processor}, so that it only
+ * runs for projects which add it (e.g., as a {@code provided} dependency). The generated code
+ * requires {@code metrics-core}.
+ */
+@SupportedAnnotationTypes({
+        "com.yammer.metrics.annotation.Timed",
+        "com.yammer.metrics.annotation.Metered",
+        "com.yammer.metrics.annotation.ExceptionMetered"
+})
+public class InstrumentedProcessor extends AbstractProcessor {
+    // the names of the classes generated so far, since later rounds may see their interfaces again
+    private final Set<String> generated = new HashSet<String>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Set<TypeElement> interfaces = new LinkedHashSet<TypeElement>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                final Element enclosing = element.getEnclosingElement();
+                if (element.getKind() == ElementKind.METHOD && enclosing.getKind() == ElementKind.INTERFACE) {
+                    interfaces.add((TypeElement) enclosing);
+                }
+            }
+        }
+
+        for (TypeElement type : interfaces) {
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                                                         "Private interfaces cannot be instrumented",
+                                                         type);
+                continue;
+            }
+            final InstrumentedSourceWriter writer = new InstrumentedSourceWriter(processingEnv, type);
+            final String name = writer.getQualifiedName();
+            if (generated.contains(name)) {
+                continue;
+            }
+            if (processingEnv.getElementUtils().getTypeElement(name) != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                                                         name + " already exists, so no instrumented implementation was generated",
+                                                         type);
+                continue;
+            }
+            try {
+                writer.write();
+                generated.add(name);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                                                         "Unable to generate an instrumented implementation: " + e.getMessage(),
+                                                         type);
+            }
+        }
+
+        // leave the annotations to any other processors which are interested in them
+        return false;
+    }
+}
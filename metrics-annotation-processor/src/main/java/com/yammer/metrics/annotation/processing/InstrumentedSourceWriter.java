@@ -0,0 +1,391 @@
+package com.yammer.metrics.annotation.processing;
+
+import com.yammer.metrics.annotation.ExceptionMetered;
+import com.yammer.metrics.annotation.Metered;
+import com.yammer.metrics.annotation.Timed;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Writes the source of an instrumented implementation of an interface, which delegates each of
+ * the interface's methods to another implementation, recording the metrics of the annotated
+ * methods the interface declares itself.
+ */
+class InstrumentedSourceWriter {
+    private static final String PREFIX = "Instrumented";
+    private static final String REGISTRY = "com.yammer.metrics.core.MetricsRegistry";
+    private static final String METRIC_NAME = "com.yammer.metrics.core.MetricName";
+    private static final String TIMER = "com.yammer.metrics.core.Timer";
+    private static final String TIMER_CONTEXT = "com.yammer.metrics.core.TimerContext";
+    private static final String METER = "com.yammer.metrics.core.Meter";
+    private static final String TIME_UNIT = "java.util.concurrent.TimeUnit";
+    private static final String GENERATED = "javax.annotation.Generated";
+
+    /**
+     * A method of the interface and the names of the fields holding its metrics.
+     */
+    private static class InstrumentedMethod {
+        private final ExecutableElement element;
+        private final ExecutableType type;
+        private final Timed timed;
+        private final Metered metered;
+        private final ExceptionMetered exceptionMetered;
+        private String timer, meter, exceptions;
+
+        private InstrumentedMethod(ExecutableElement element, ExecutableType type, boolean declared) {
+            this.element = element;
+            this.type = type;
+            // an inherited method's annotations belong to its own interface's generated class
+            this.timed = declared ? element.getAnnotation(Timed.class) : null;
+            this.metered = declared ? element.getAnnotation(Metered.class) : null;
+            this.exceptionMetered = declared ? element.getAnnotation(ExceptionMetered.class) : null;
+        }
+    }
+
+    private final ProcessingEnvironment env;
+    private final Elements elements;
+    private final Types types;
+    private final TypeElement type;
+    private final String packageName;
+    private final String className;
+    private final String typeName;
+    private final List<InstrumentedMethod> methods = new ArrayList<InstrumentedMethod>();
+
+    InstrumentedSourceWriter(ProcessingEnvironment env, TypeElement type) {
+        this.env = env;
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+        this.type = type;
+        this.packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        final String qualifiedName = type.getQualifiedName().toString();
+        final String nestedName = packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+        this.className = PREFIX + nestedName.replace(".", "");
+        this.typeName = qualifiedName + typeArguments(type.getTypeParameters());
+        collectMethods();
+    }
+
+    String getQualifiedName() {
+        return packageName.isEmpty() ? className : packageName + '.' + className;
+    }
+
+    void write() throws IOException {
+        final JavaFileObject file = env.getFiler().createSourceFile(getQualifiedName(), type);
+        final PrintWriter out = new PrintWriter(file.openWriter());
+        try {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * An implementation of {@link " + type.getQualifiedName() + "} which records the metrics of");
+            out.println(" * its annotated methods and delegates to another implementation.");
+            out.println(" */");
+            if (elements.getTypeElement(GENERATED) != null) {
+                out.println("@" + GENERATED + "(" + literal(InstrumentedProcessor.class.getName()) + ")");
+            }
+            out.println((type.getModifiers().contains(Modifier.PUBLIC) ? "public " : "") +
+                                "class " + className + typeParameters(type.getTypeParameters()) +
+                                " implements " + typeName + " {");
+            writeFields(out);
+            out.println();
+            writeConstructors(out);
+            for (InstrumentedMethod method : methods) {
+                out.println();
+                writeMethod(out, method);
+            }
+            out.println("}");
+        } finally {
+            out.close();
+        }
+    }
+
+    private void collectMethods() {
+        final DeclaredType declaredType = (DeclaredType) type.asType();
+        final Set<String> signatures = new HashSet<String>();
+        final Set<String> fields = new HashSet<String>();
+        // the inherited methods are needed too, since the generated class must implement them
+        for (ExecutableElement element : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            // skips the methods of Object, which every interface implicitly declares
+            if (element.getEnclosingElement().getKind() != ElementKind.INTERFACE ||
+                    element.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            final ExecutableType methodType = (ExecutableType) types.asMemberOf(declaredType, element);
+            if (!signatures.add(erasedSignature(element, methodType))) {
+                continue;
+            }
+            final InstrumentedMethod method = new InstrumentedMethod(element, methodType,
+                                                                     element.getEnclosingElement().equals(type));
+            final String name = element.getSimpleName().toString();
+            if (method.timed != null) {
+                method.timer = uniqueName(fields, name + "Timer");
+            }
+            if (method.metered != null) {
+                method.meter = uniqueName(fields, name + "Meter");
+            }
+            if (method.exceptionMetered != null) {
+                method.exceptions = uniqueName(fields, name + "Exceptions");
+            }
+            methods.add(method);
+        }
+    }
+
+    private void writeFields(PrintWriter out) {
+        out.println("    private final " + typeName + " delegate;");
+        for (InstrumentedMethod method : methods) {
+            if (method.timer != null) {
+                out.println("    private final " + TIMER + " " + method.timer + ";");
+            }
+            if (method.meter != null) {
+                out.println("    private final " + METER + " " + method.meter + ";");
+            }
+            if (method.exceptions != null) {
+                out.println("    private final " + METER + " " + method.exceptions + ";");
+            }
+        }
+    }
+
+    private void writeConstructors(PrintWriter out) {
+        out.println("    /**");
+        out.println("     * Creates a new instrumented implementation which records metrics in the default registry.");
+        out.println("     *");
+        out.println("     * @param delegate    the implementation to which calls are delegated");
+        out.println("     */");
+        out.println("    public " + className + "(" + typeName + " delegate) {");
+        out.println("        this(delegate, com.yammer.metrics.Metrics.defaultRegistry());");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * Creates a new instrumented implementation which records metrics in the given registry.");
+        out.println("     *");
+        out.println("     * @param delegate    the implementation to which calls are delegated");
+        out.println("     * @param registry    the registry in which to create the metrics");
+        out.println("     */");
+        out.println("    public " + className + "(" + typeName + " delegate, " + REGISTRY + " registry) {");
+        out.println("        this.delegate = delegate;");
+        for (InstrumentedMethod method : methods) {
+            final String methodName = method.element.getSimpleName().toString();
+            if (method.timed != null) {
+                final Timed timed = method.timed;
+                out.println("        this." + method.timer + " = registry.newTimer(" +
+                                    metricName(timed.group(), timed.type(), choose(timed.name(), methodName)) + ", " +
+                                    TIME_UNIT + "." + timed.durationUnit() + ", " +
+                                    TIME_UNIT + "." + timed.rateUnit() + ");");
+            }
+            if (method.metered != null) {
+                final Metered metered = method.metered;
+                out.println("        this." + method.meter + " = registry.newMeter(" +
+                                    metricName(metered.group(), metered.type(), choose(metered.name(), methodName)) + ", " +
+                                    literal(metered.eventType()) + ", " +
+                                    TIME_UNIT + "." + metered.rateUnit() + ");");
+            }
+            if (method.exceptionMetered != null) {
+                final ExceptionMetered metered = method.exceptionMetered;
+                final String name = choose(metered.name(), methodName + ExceptionMetered.DEFAULT_NAME_SUFFIX);
+                out.println("        this." + method.exceptions + " = registry.newMeter(" +
+                                    metricName(metered.group(), metered.type(), name) + ", " +
+                                    literal(metered.eventType()) + ", " +
+                                    TIME_UNIT + "." + metered.rateUnit() + ");");
+            }
+        }
+        out.println("    }");
+    }
+
+    private void writeMethod(PrintWriter out, InstrumentedMethod method) {
+        final ExecutableElement element = method.element;
+        final List<? extends VariableElement> parameters = element.getParameters();
+        final List<? extends TypeMirror> parameterTypes = method.type.getParameterTypes();
+        final Set<String> names = new HashSet<String>();
+        final StringBuilder declaration = new StringBuilder();
+        final StringBuilder arguments = new StringBuilder();
+        for (int i = 0; i < parameters.size(); i++) {
+            final String name = parameters.get(i).getSimpleName().toString();
+            names.add(name);
+            if (i > 0) {
+                declaration.append(", ");
+                arguments.append(", ");
+            }
+            final TypeMirror parameterType = parameterTypes.get(i);
+            if (element.isVarArgs() && i == parameters.size() - 1) {
+                declaration.append(((ArrayType) parameterType).getComponentType()).append("...");
+            } else {
+                declaration.append(parameterType);
+            }
+            declaration.append(' ').append(name);
+            arguments.append(name);
+        }
+
+        final StringBuilder throwsClause = new StringBuilder();
+        for (TypeMirror thrownType : method.type.getThrownTypes()) {
+            throwsClause.append(throwsClause.length() == 0 ? " throws " : ", ").append(thrownType);
+        }
+
+        final TypeMirror returnType = method.type.getReturnType();
+        final String call = "this.delegate." + element.getSimpleName() + "(" + arguments + ");";
+        out.println("    @Override");
+        out.println("    public " + typeParameters(element.getTypeParameters()) +
+                            (element.getTypeParameters().isEmpty() ? "" : " ") +
+                            returnType + " " + element.getSimpleName() + "(" + declaration + ")" + throwsClause + " {");
+        final String body = returnType.getKind() == TypeKind.VOID ? call : "return " + call;
+        if (method.meter != null) {
+            out.println("        this." + method.meter + ".mark();");
+        }
+        final Map<TypeMirror, Boolean> catches = method.exceptions == null ?
+                Collections.<TypeMirror, Boolean>emptyMap() : exceptionsToCatch(method);
+        if (method.timer == null && catches.isEmpty()) {
+            out.println("        " + body);
+        } else {
+            final String context = uniqueName(names, "context");
+            final String exception = uniqueName(names, "e");
+            if (method.timer != null) {
+                out.println("        final " + TIMER_CONTEXT + " " + context + " = this." + method.timer + ".time();");
+            }
+            out.println("        try {");
+            out.println("            " + body);
+            for (Map.Entry<TypeMirror, Boolean> entry : catches.entrySet()) {
+                out.println("        } catch (" + entry.getKey() + " " + exception + ") {");
+                if (entry.getValue()) {
+                    out.println("            this." + method.exceptions + ".mark();");
+                } else {
+                    out.println("            if (" + exception + " instanceof " + cause(method.exceptionMetered) + ") {");
+                    out.println("                this." + method.exceptions + ".mark();");
+                    out.println("            }");
+                }
+                out.println("            throw " + exception + ";");
+            }
+            if (method.timer != null) {
+                out.println("        } finally {");
+                out.println("            " + context + ".stop();");
+            }
+            out.println("        }");
+        }
+        out.println("    }");
+    }
+
+    /*
+     * Returns the exception types to catch in order to meter exceptions of the annotation's cause,
+     * mapped to whether every exception of that type is an instance of the cause. Checked
+     * exceptions can only be rethrown if the method declares them, so we catch unchecked
+     * exceptions and each declared exception type separately.
+     */
+    private Map<TypeMirror, Boolean> exceptionsToCatch(InstrumentedMethod method) {
+        final TypeMirror cause = cause(method.exceptionMetered);
+        final TypeMirror runtimeException = elements.getTypeElement(RuntimeException.class.getName()).asType();
+        final TypeMirror error = elements.getTypeElement(Error.class.getName()).asType();
+
+        final List<TypeMirror> candidates = new ArrayList<TypeMirror>();
+        candidates.add(runtimeException);
+        candidates.add(error);
+        for (TypeMirror thrownType : method.type.getThrownTypes()) {
+            if (thrownType.getKind() == TypeKind.DECLARED &&
+                    !types.isSubtype(thrownType, runtimeException) && !types.isSubtype(thrownType, error) &&
+                    !isSubtypeOfAnother(thrownType, method.type.getThrownTypes())) {
+                candidates.add(thrownType);
+            }
+        }
+
+        final Map<TypeMirror, Boolean> catches = new LinkedHashMap<TypeMirror, Boolean>();
+        for (TypeMirror candidate : candidates) {
+            if (types.isSubtype(candidate, cause)) {
+                catches.put(candidate, true);
+            } else if (types.isSubtype(cause, candidate)) {
+                catches.put(candidate, false);
+            }
+        }
+        return catches;
+    }
+
+    private boolean isSubtypeOfAnother(TypeMirror type, List<? extends TypeMirror> others) {
+        for (TypeMirror other : others) {
+            if (!types.isSameType(type, other) && other.getKind() == TypeKind.DECLARED && types.isSubtype(type, other)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static TypeMirror cause(ExceptionMetered annotation) {
+        try {
+            annotation.cause();
+            throw new IllegalStateException("the annotation's cause should be a mirrored type");
+        } catch (MirroredTypeException e) {
+            return e.getTypeMirror();
+        }
+    }
+
+    private String metricName(String group, String metricType, String name) {
+        return "new " + METRIC_NAME + "(" +
+                literal(choose(group, packageName)) + ", " +
+                literal(choose(metricType, type.getSimpleName().toString())) + ", " +
+                literal(name) + ")";
+    }
+
+    private String erasedSignature(ExecutableElement element, ExecutableType methodType) {
+        final StringBuilder signature = new StringBuilder(element.getSimpleName()).append('(');
+        for (TypeMirror parameterType : methodType.getParameterTypes()) {
+            signature.append(types.erasure(parameterType)).append(',');
+        }
+        return signature.append(')').toString();
+    }
+
+    private String literal(String value) {
+        return elements.getConstantExpression(value);
+    }
+
+    private static String choose(String value, String defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+
+    private static String uniqueName(Set<String> names, String name) {
+        String unique = name;
+        for (int i = 1; !names.add(unique); i++) {
+            unique = name + i;
+        }
+        return unique;
+    }
+
+    private static String typeParameters(List<? extends TypeParameterElement> parameters) {
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        final StringBuilder builder = new StringBuilder("<");
+        for (TypeParameterElement parameter : parameters) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(parameter.getSimpleName());
+            final List<? extends TypeMirror> bounds = parameter.getBounds();
+            for (int i = 0; i < bounds.size(); i++) {
+                final String bound = bounds.get(i).toString();
+                if (bounds.size() == 1 && bound.equals(Object.class.getName())) {
+                    break;
+                }
+                builder.append(i == 0 ? " extends " : " & ").append(bound);
+            }
+        }
+        return builder.append('>').toString();
+    }
+
+    private static String typeArguments(List<? extends TypeParameterElement> parameters) {
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        final StringBuilder builder = new StringBuilder("<");
+        for (TypeParameterElement parameter : parameters) {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(parameter.getSimpleName());
+        }
+        return builder.append('>').toString();
+    }
+}
@@ -0,0 +1,247 @@
+package com.yammer.metrics.annotation.processing.tests;
+
+import com.yammer.metrics.annotation.Timed;
+import com.yammer.metrics.annotation.processing.InstrumentedProcessor;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+public class InstrumentedProcessorTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+    private File output;
+    private ClassLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        this.output = File.createTempFile("instrumented-processor", "");
+        assertThat(output.delete() && output.mkdir(),
+                   is(true));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(output);
+    }
+
+    @Test
+    public void generatesAnInstrumentedImplementationOfAnInterface() throws Exception {
+        compile(source("com.example.Users",
+                       "package com.example;",
+                       "public interface Users {",
+                       "    @com.yammer.metrics.annotation.Timed String find(int id);",
+                       "    @com.yammer.metrics.annotation.ExceptionMetered void remove(int id);",
+                       "}"),
+                source("com.example.UsersImpl",
+                       "package com.example;",
+                       "public class UsersImpl implements Users {",
+                       "    public String find(int id) { return \"user\" + id; }",
+                       "    public void remove(int id) { throw new IllegalStateException(); }",
+                       "}"));
+
+        final Object users = instrument("com.example.Users", "com.example.UsersImpl");
+
+        assertThat(users.getClass().getMethod("find", int.class).invoke(users, 1),
+                   is((Object) "user1"));
+
+        try {
+            users.getClass().getMethod("remove", int.class).invoke(users, 1);
+        } catch (Exception ignored) {
+            // the delegate's exception, which is metered
+        }
+
+        final Timer timer = (Timer) registry.getAllMetrics()
+                                            .get(new MetricName("com.example", "Users", "find"));
+
+        assertThat(timer.getCount(),
+                   is(1L));
+
+        final Meter exceptions = (Meter) registry.getAllMetrics()
+                                                 .get(new MetricName("com.example", "Users", "removeExceptions"));
+
+        assertThat(exceptions.getCount(),
+                   is(1L));
+    }
+
+    @Test
+    public void onlyInstrumentsTheMethodsAnInterfaceDeclares() throws Exception {
+        compile(source("com.example.Base",
+                       "package com.example;",
+                       "public interface Base {",
+                       "    @com.yammer.metrics.annotation.Timed void inherited();",
+                       "}"),
+                source("com.example.Derived",
+                       "package com.example;",
+                       "public interface Derived extends Base {",
+                       "    @com.yammer.metrics.annotation.Timed void declared();",
+                       "}"),
+                source("com.example.DerivedImpl",
+                       "package com.example;",
+                       "public class DerivedImpl implements Derived {",
+                       "    public void inherited() {}",
+                       "    public void declared() {}",
+                       "}"));
+
+        final Object derived = instrument("com.example.Derived", "com.example.DerivedImpl");
+        derived.getClass().getMethod("inherited").invoke(derived);
+        derived.getClass().getMethod("declared").invoke(derived);
+
+        assertThat(registry.getAllMetrics().containsKey(new MetricName("com.example", "Derived", "declared")),
+                   is(true));
+
+        assertThat("the inherited method is delegated without metrics",
+                   registry.getAllMetrics().size(),
+                   is(1));
+    }
+
+    @Test
+    public void skipsInterfacesWhoseInstrumentedClassAlreadyExists() throws Exception {
+        compile(source("com.example.Base",
+                       "package com.example;",
+                       "public interface Base {",
+                       "    @com.yammer.metrics.annotation.Timed void run();",
+                       "}"),
+                source("com.example.InstrumentedBase",
+                       "package com.example;",
+                       "public class InstrumentedBase {",
+                       "    public String toString() { return \"handwritten\"; }",
+                       "}"));
+
+        final Class<?> existing = load("com.example.InstrumentedBase");
+
+        assertThat(existing.newInstance().toString(),
+                   is("handwritten"));
+
+        assertThat(warnings(),
+                   containsString("com.example.InstrumentedBase already exists"));
+    }
+
+    @Test
+    public void ignoresAnnotatedMethodsOfClasses() throws Exception {
+        compile(source("com.example.Service",
+                       "package com.example;",
+                       "public class Service {",
+                       "    @com.yammer.metrics.annotation.Timed public void run() {}",
+                       "}"));
+
+        assertThat(new File(output, "com/example/InstrumentedService.class").exists(),
+                   is(false));
+    }
+
+    private void compile(JavaFileObject... sources) throws Exception {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            final List<String> options = Arrays.asList("-d", output.getPath(),
+                                                       "-s", output.getPath(),
+                                                       "-classpath", classpath());
+            final JavaCompiler.CompilationTask task = compiler.getTask(null,
+                                                                       files,
+                                                                       diagnostics,
+                                                                       options,
+                                                                       null,
+                                                                       Arrays.asList(sources));
+            task.setProcessors(Arrays.asList(new InstrumentedProcessor()));
+
+            assertThat(errors(),
+                       task.call(),
+                       is(true));
+        } finally {
+            files.close();
+        }
+    }
+
+    private Object instrument(String interfaceName, String implementationName) throws Exception {
+        final Class<?> type = load(interfaceName);
+        final String simpleName = interfaceName.substring(interfaceName.lastIndexOf('.') + 1);
+        final Class<?> instrumented = load(interfaceName.replace(simpleName, "Instrumented" + simpleName));
+
+        assertThat(instrumented,
+                   is(notNullValue()));
+
+        final Object delegate = load(implementationName).newInstance();
+        return instrumented.getConstructor(type, MetricsRegistry.class).newInstance(delegate, registry);
+    }
+
+    private Class<?> load(String name) throws Exception {
+        if (loader == null) {
+            this.loader = new URLClassLoader(new URL[]{ output.toURI().toURL() },
+                                             getClass().getClassLoader());
+        }
+        return loader.loadClass(name);
+    }
+
+    private String errors() {
+        return messages(Diagnostic.Kind.ERROR);
+    }
+
+    private String warnings() {
+        return messages(Diagnostic.Kind.WARNING);
+    }
+
+    private String messages(Diagnostic.Kind kind) {
+        final StringBuilder messages = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == kind) {
+                messages.append(diagnostic.getMessage(null)).append('\n');
+            }
+        }
+        return messages.toString();
+    }
+
+    // surefire may hide the real classpath behind a manifest-only jar, so find the jars directly
+    private static String classpath() {
+        return location(Timed.class) + File.pathSeparatorChar + location(MetricsRegistry.class);
+    }
+
+    private static String location(Class<?> klass) {
+        return new File(klass.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath();
+    }
+
+    private static JavaFileObject source(String className, String... lines) {
+        final StringBuilder code = new StringBuilder();
+        for (String line : lines) {
+            code.append(line).append('\n');
+        }
+        final URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,171 @@
+package com.yammer.metrics.core;
+
+import com.yammer.metrics.core.HealthCheck.Result;
+import com.yammer.metrics.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link HealthCheckRegistry} which runs its health checks in the background and serves the most
+ * recent results from {@link #runHealthChecks()}, so the latency of reading the results does not
+ * depend on the latency of the health checks themselves.
+ * <p/>
+ * Health checks are run concurrently on a fixed pool of daemon threads, and any health check which
+ * takes longer than the timeout is reported as unhealthy. Cancelling a health check which is stuck
+ * (e.g., in I/O which can't be interrupted) doesn't free its thread, so a health check is not run
+ * again until its previous run has finished, and is reported as unhealthy until then. Health
+ * checks which don't fit in the pool's bounded queue are reported as unhealthy as well.
+ */
+public class CachedHealthCheckRegistry extends HealthCheckRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedHealthCheckRegistry.class);
+
+    private final ConcurrentMap<String, Run> running = new ConcurrentHashMap<String, Run>();
+    private final ExecutorService checks;
+    private final ScheduledExecutorService scheduler;
+    private final long timeout;
+    private final TimeUnit timeoutUnit;
+    private volatile SortedMap<String, Result> results;
+
+    /**
+     * Creates a new {@link CachedHealthCheckRegistry}.
+     *
+     * @param threads        the number of threads on which to run health checks
+     * @param queueSize      the number of health checks which can wait for a thread
+     * @param timeout        the maximum amount of time to wait for the health checks
+     * @param timeoutUnit    the unit of {@code timeout}
+     */
+    public CachedHealthCheckRegistry(int threads, int queueSize, long timeout, TimeUnit timeoutUnit) {
+        this.checks = new ThreadPoolExecutor(threads,
+                                             threads,
+                                             0,
+                                             TimeUnit.MILLISECONDS,
+                                             new ArrayBlockingQueue<Runnable>(queueSize),
+                                             new NamedThreadFactory("health-check")) {
+            @Override
+            protected void afterExecute(Runnable r, Throwable t) {
+                // only now is the thread free, even if the run was cancelled long ago
+                final Run run = (Run) r;
+                running.remove(run.name, run);
+            }
+        };
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("health-check-scheduler"));
+        this.timeout = timeout;
+        this.timeoutUnit = timeoutUnit;
+    }
+
+    /**
+     * Starts running the health checks at the given period.
+     *
+     * @param period    the amount of time between runs
+     * @param unit      the unit for {@code period}
+     */
+    public void start(long period, TimeUnit unit) {
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Error running health checks", e);
+                }
+            }
+        }, 0, period, unit);
+    }
+
+    /**
+     * Stops running the health checks.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        checks.shutdownNow();
+    }
+
+    /**
+     * Returns the results of the most recent run of the health checks. If the health checks have
+     * not yet been run, runs them on the calling thread's behalf.
+     *
+     * @return a map of the health check results
+     */
+    @Override
+    public SortedMap<String, Result> runHealthChecks() {
+        final SortedMap<String, Result> cached = results;
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            return refresh();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.unmodifiableSortedMap(new TreeMap<String, Result>());
+        }
+    }
+
+    private SortedMap<String, Result> refresh() throws InterruptedException {
+        final SortedMap<String, Result> fresh = runHealthChecks(checks, timeout, timeoutUnit);
+        this.results = fresh;
+        return fresh;
+    }
+
+    @Override
+    Future<Result> submit(ExecutorService executor, String name, HealthCheck healthCheck) {
+        if (executor != checks) {
+            return super.submit(executor, name, healthCheck);
+        }
+
+        final Run run = new Run(name, healthCheck);
+        final Run previous = running.putIfAbsent(name, run);
+        if (previous != null) {
+            if (!previous.isCancelled()) {
+                return previous;
+            }
+            final FutureTask<Result> stuck = new FutureTask<Result>(new Callable<Result>() {
+                @Override
+                public Result call() throws Exception {
+                    return Result.unhealthy("The previous run has not finished");
+                }
+            });
+            stuck.run();
+            return stuck;
+        }
+
+        try {
+            executor.execute(run);
+        } catch (RejectedExecutionException e) {
+            running.remove(name, run);
+            throw e;
+        }
+        return run;
+    }
+
+    private static class Run extends FutureTask<Result> {
+        private final String name;
+
+        private Run(String name, final HealthCheck healthCheck) {
+            super(new Callable<Result>() {
+                @Override
+                public Result call() throws Exception {
+                    return healthCheck.execute();
+                }
+            });
+            this.name = name;
+        }
+    }
+}
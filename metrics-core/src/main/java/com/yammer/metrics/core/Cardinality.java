@@ -0,0 +1,151 @@
+package com.yammer.metrics.core;
+
+import com.yammer.metrics.stats.HyperLogLog;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A metric which estimates the number of distinct values (e.g., users, IP addresses, or session
+ * IDs) seen, either ever or within a recent window of time, using a {@link HyperLogLog} sketch
+ * rather than a set of the values.
+ * <p/>
+ * A windowed cardinality keeps a sketch for each fifth of its window, and estimates the number of
+ * distinct values over the last four fifths to all of the window, depending on how far into the
+ * current fifth it is. Adding a value never blocks, except briefly when a fifth of the window has
+ * passed and its sketch must be reset.
+ */
+public class Cardinality implements Metric {
+    private static final int WINDOW_BUCKETS = 5;
+
+    private final int precision;
+    private final long bucketLength;
+    private final Clock clock;
+    private final HyperLogLog[] buckets;
+    private final AtomicLongArray epochs;
+
+    /**
+     * Creates a new {@link Cardinality}.
+     *
+     * @param precision     the precision of the sketches (see {@link HyperLogLog})
+     * @param window        the window of time in which to count distinct values, or {@code 0} to
+     *                      count them forever
+     * @param windowUnit    the unit of {@code window}
+     * @param clock         the clock used to move the window
+     */
+    Cardinality(int precision, long window, TimeUnit windowUnit, Clock clock) {
+        if (window < 0) {
+            throw new IllegalArgumentException("window must not be negative");
+        }
+        this.precision = precision;
+        this.bucketLength = windowUnit.toNanos(window) / WINDOW_BUCKETS;
+        if (window > 0 && bucketLength == 0) {
+            throw new IllegalArgumentException("window is too short");
+        }
+        this.clock = clock;
+        this.buckets = new HyperLogLog[window == 0 ? 1 : WINDOW_BUCKETS];
+        this.epochs = new AtomicLongArray(buckets.length);
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new HyperLogLog(precision);
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Returns the precision of the metric's sketches.
+     *
+     * @return the precision of the sketches
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value    a value
+     */
+    public void add(long value) {
+        currentBucket().add(value);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value    a value
+     */
+    public void add(String value) {
+        currentBucket().add(value);
+    }
+
+    /**
+     * Adds all the values of the given sketch (e.g., one read with {@link
+     * HyperLogLog#fromBytes(byte[])}) as though they had been added now.
+     *
+     * @param sketch    a sketch with the same precision as this metric's
+     */
+    public void merge(HyperLogLog sketch) {
+        currentBucket().merge(sketch);
+    }
+
+    /**
+     * Returns the estimated number of distinct values.
+     *
+     * @return the estimated number of distinct values
+     */
+    public long getCount() {
+        if (buckets.length == 1) {
+            return buckets[0].estimate();
+        }
+        return getSketch().estimate();
+    }
+
+    /**
+     * Returns a sketch of the distinct values, which can be merged with others or serialized.
+     *
+     * @return a copy of the metric's sketch of its values
+     */
+    public HyperLogLog getSketch() {
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        if (buckets.length == 1) {
+            sketch.merge(buckets[0]);
+        } else {
+            final long epoch = clock.getTick() / bucketLength;
+            for (int i = 0; i < buckets.length; i++) {
+                final long bucketEpoch = epochs.get(i);
+                if (bucketEpoch <= epoch && bucketEpoch > epoch - buckets.length) {
+                    sketch.merge(buckets[i]);
+                }
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * Forgets all values.
+     */
+    public void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            synchronized (buckets[i]) {
+                buckets[i].clear();
+            }
+        }
+    }
+
+    private HyperLogLog currentBucket() {
+        if (buckets.length == 1) {
+            return buckets[0];
+        }
+        final long epoch = clock.getTick() / bucketLength;
+        final int index = (int) (((epoch % buckets.length) + buckets.length) % buckets.length);
+        if (epochs.get(index) != epoch) {
+            synchronized (buckets[index]) {
+                if (epochs.get(index) < epoch) {
+                    buckets[index].clear();
+                    epochs.set(index, epoch);
+                }
+            }
+        }
+        return buckets[index];
+    }
+}
@@ -1,7 +1,11 @@
 package com.yammer.metrics.core;
 
+import com.yammer.metrics.util.NamedThreadFactory;
+
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * An abstraction for how time passes. It is passed to {@link Timer} to track timing.
@@ -58,4 +62,61 @@ public abstract class Clock {
             return THREAD_MX_BEAN.getCurrentThreadCpuTime();
         }
     }
+
+    /**
+     * A clock implementation which caches the current time and updates it from a background
+     * thread at a fixed resolution. Reading it is only a volatile read, which is much cheaper than
+     * {@link System#nanoTime()} on VMs without a fast clock source, but it is only accurate to
+     * within its resolution. It is best suited to measuring rates, rather than short durations.
+     */
+    public static class CachedClock extends Clock {
+        private final long resolution;
+        private final Thread updater;
+        private volatile boolean running = true;
+        private volatile long tick = System.nanoTime();
+        private volatile long time = System.currentTimeMillis();
+
+        /**
+         * Creates a new {@link CachedClock} and starts its background thread.
+         *
+         * @param resolution    the amount of time between updates
+         * @param unit          the unit of {@code resolution}
+         */
+        public CachedClock(long resolution, TimeUnit unit) {
+            this.resolution = unit.toNanos(resolution);
+            this.updater = new NamedThreadFactory("cached-clock").newThread(new Runnable() {
+                @Override
+                public void run() {
+                    update();
+                }
+            });
+            updater.start();
+        }
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+
+        @Override
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Stops the clock's background thread. The clock will no longer advance.
+         */
+        public void stop() {
+            this.running = false;
+            LockSupport.unpark(updater);
+        }
+
+        private void update() {
+            while (running) {
+                LockSupport.parkNanos(resolution);
+                this.tick = System.nanoTime();
+                this.time = System.currentTimeMillis();
+            }
+        }
+    }
 }
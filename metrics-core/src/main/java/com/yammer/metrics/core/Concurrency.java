@@ -0,0 +1,256 @@
+package com.yammer.metrics.core;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.Math.max;
+
+/**
+ * A metric which tracks how many things (e.g., requests or connections) are in flight, and also
+ * the most that were in flight at once and the time-weighted mean number in flight since a reader
+ * last {@link #read(Object) read} it, so that a reporter sees the bursts which happened between
+ * its polls rather than only the number in flight when it polls. Each reader has its own
+ * interval, so several reporters polling the same metric don't reset each other's.
+ * <p/>
+ * Incrementing and decrementing never lock. The count, the area under it over time since the
+ * metric was created, and the time of its last change are kept together in one immutable state,
+ * which each increment and decrement replaces with a compare-and-set, adding the area since the
+ * last change. A reader's interval only remembers the area and the time when it started. The
+ * area may overflow, but since areas are only ever subtracted from each other, the differences
+ * are still right.
+ */
+public class Concurrency implements Metric {
+    /**
+     * The values of a {@link Concurrency} over an interval.
+     */
+    public static class Reading {
+        private final long count;
+        private final long max;
+        private final double mean;
+
+        private Reading(long count, long max, double mean) {
+            this.count = count;
+            this.max = max;
+            this.mean = mean;
+        }
+
+        /**
+         * Returns the number in flight at the end of the interval.
+         *
+         * @return the number in flight
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the most in flight at once during the interval.
+         *
+         * @return the most in flight at once
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the mean number in flight during the interval, weighted by time.
+         *
+         * @return the time-weighted mean number in flight
+         */
+        public double getMean() {
+            return mean;
+        }
+    }
+
+    /**
+     * The start of a reader's interval, and the most in flight at once since then.
+     */
+    private static class Interval {
+        private final WeakReference<Object> reader;
+        private final AtomicLong max;
+        private long start;
+        private long area;
+
+        private Interval(Object reader, long max, long start, long area) {
+            this.reader = new WeakReference<Object>(reader);
+            this.max = new AtomicLong(max);
+            this.start = start;
+            this.area = area;
+        }
+    }
+
+    /**
+     * The count, the area under it since the metric was created, and the tick of its last change.
+     */
+    private static class State {
+        private final long count;
+        private final long area;
+        private final long tick;
+
+        private State(long count, long area, long tick) {
+            this.count = count;
+            this.area = area;
+            this.tick = tick;
+        }
+
+        // the area as of the given tick, which may be a little before the last change's if the
+        // threads read the clock in a different order than they changed the state
+        private long getArea(long now) {
+            return area + count * max(now - tick, 0);
+        }
+
+        private State add(long delta, long now) {
+            return new State(count + delta, getArea(now), max(now, tick));
+        }
+    }
+
+    private final AtomicReference<State> state;
+    private final AtomicLong max = new AtomicLong();
+    private final Clock clock;
+    private final long created;
+    // copied on write, so that increments can update the readers' maxes without locking
+    private volatile Interval[] intervals = new Interval[0];
+
+    /**
+     * Creates a new {@link Concurrency}.
+     *
+     * @param clock    the clock used to weight the mean
+     */
+    Concurrency(Clock clock) {
+        this.clock = clock;
+        this.created = clock.getTick();
+        this.state = new AtomicReference<State>(new State(0, 0, created));
+    }
+
+    /**
+     * Records that something started.
+     */
+    public void inc() {
+        final long current = change(1);
+        updateMax(max, current);
+        for (Interval interval : intervals) {
+            updateMax(interval.max, current);
+        }
+    }
+
+    /**
+     * Records that something finished.
+     */
+    public void dec() {
+        change(-1);
+    }
+
+    /**
+     * Returns the number in flight.
+     *
+     * @return the number in flight
+     */
+    public long getCount() {
+        return state.get().count;
+    }
+
+    /**
+     * Returns the most in flight at once since the metric was created.
+     *
+     * @return the most in flight at once
+     */
+    public long getMax() {
+        return max(max.get(), getCount());
+    }
+
+    /**
+     * Returns the time-weighted mean number in flight since the metric was created.
+     *
+     * @return the time-weighted mean number in flight
+     */
+    public double getMean() {
+        final long now = clock.getTick();
+        final State current = state.get();
+        return mean(current.count, now - created, current.getArea(now));
+    }
+
+    /**
+     * Returns the number in flight, and the most in flight at once and the time-weighted mean
+     * number in flight since the given reader's last call (or since the metric was created, for
+     * its first), and starts a new interval for the reader.
+     * <p/>
+     * Each reader (e.g., a polling reporter, which passes itself) has its own interval, which is
+     * forgotten once the reader is garbage collected. Other readers should use {@link
+     * #getCount()}, {@link #getMax()}, and {@link #getMean()}, which don't start a new interval.
+     *
+     * @param reader    the reader, compared by identity
+     * @return the values over the reader's interval
+     */
+    public synchronized Reading read(Object reader) {
+        final long now = clock.getTick();
+        final State snapshot = state.get();
+        final long current = snapshot.count;
+        final long area = snapshot.getArea(now);
+        Interval interval = getInterval(reader);
+        if (interval == null) {
+            interval = new Interval(reader, max.get(), created, 0);
+            addInterval(interval);
+        }
+        final long highest = max(interval.max.getAndSet(current), current);
+        final double mean = mean(current, now - interval.start, area - interval.area);
+        interval.start = now;
+        interval.area = area;
+        return new Reading(current, highest, mean);
+    }
+
+    private long change(long delta) {
+        while (true) {
+            final long now = clock.getTick();
+            final State current = state.get();
+            final State next = current.add(delta, now);
+            if (state.compareAndSet(current, next)) {
+                return next.count;
+            }
+        }
+    }
+
+    // also forgets the intervals of readers which have been garbage collected
+    private Interval getInterval(Object reader) {
+        Interval found = null;
+        final List<Interval> live = new ArrayList<Interval>(intervals.length);
+        for (Interval interval : intervals) {
+            final Object referent = interval.reader.get();
+            if (referent != null) {
+                live.add(interval);
+                if (referent == reader) {
+                    found = interval;
+                }
+            }
+        }
+        if (live.size() < intervals.length) {
+            this.intervals = live.toArray(new Interval[live.size()]);
+        }
+        return found;
+    }
+
+    private void addInterval(Interval interval) {
+        final Interval[] added = new Interval[intervals.length + 1];
+        System.arraycopy(intervals, 0, added, 0, intervals.length);
+        added[intervals.length] = interval;
+        this.intervals = added;
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        while (true) {
+            final long currentMax = max.get();
+            if (currentMax >= value || max.compareAndSet(currentMax, value)) {
+                return;
+            }
+        }
+    }
+
+    private static double mean(long current, long elapsed, long area) {
+        if (elapsed <= 0) {
+            return current;
+        }
+        return area / (double) elapsed;
+    }
+}
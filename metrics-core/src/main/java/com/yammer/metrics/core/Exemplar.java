@@ -0,0 +1,49 @@
+package com.yammer.metrics.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One of a timer's slowest recorded durations, with when it was recorded and the tag (e.g., a
+ * request ID) of what was being timed.
+ *
+ * @see Exemplars
+ */
+public class Exemplar {
+    private final long duration;
+    private final long timestamp;
+    private final String tag;
+
+    Exemplar(long duration, long timestamp, String tag) {
+        this.duration = duration;
+        this.timestamp = timestamp;
+        this.tag = tag;
+    }
+
+    /**
+     * Returns the duration.
+     *
+     * @param unit    the unit of the returned duration
+     * @return the duration, in {@code unit}
+     */
+    public double getDuration(TimeUnit unit) {
+        return duration / (double) unit.toNanos(1);
+    }
+
+    /**
+     * Returns the time at which the duration was recorded.
+     *
+     * @return the time at which the duration was recorded, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the tag of what was being timed.
+     *
+     * @return the tag, or {@code null} if there was none
+     */
+    public String getTag() {
+        return tag;
+    }
+}
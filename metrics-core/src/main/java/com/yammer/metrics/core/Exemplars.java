@@ -0,0 +1,285 @@
+package com.yammer.metrics.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The slowest recent durations recorded by a {@link Timer}, each with the time it was recorded and
+ * a small tag (e.g., a request ID) identifying what was being timed, so that a spike in the
+ * timer's upper percentiles can be traced back to the requests which caused it.
+ * <p/>
+ * The slowest durations are kept for each window of time (a minute, by default), and the slowest
+ * of the current and previous windows are reported, so a single huge outlier is forgotten after
+ * two windows rather than hiding every later incident.
+ * <p/>
+ * Durations which aren't slower than the current window's slowest few and which don't start a
+ * new window cost a volatile read and a clock read. The tag is either passed to {@link
+ * Timer#update(long, TimeUnit, String)} or set for the current thread with {@link
+ * #setTag(String)} (as {@code WebappMetricsFilter} does), and is truncated to {@value
+ * #MAX_TAG_LENGTH} characters.
+ */
+public class Exemplars {
+    /**
+     * The maximum length of a tag; longer tags are truncated.
+     */
+    public static final int MAX_TAG_LENGTH = 64;
+
+    private static final long DEFAULT_WINDOW = TimeUnit.MINUTES.toNanos(1);
+    private static final ThreadLocal<String> TAG = new ThreadLocal<String>();
+    private static final Comparator<Exemplar> SLOWEST_FIRST = new Comparator<Exemplar>() {
+        @Override
+        public int compare(Exemplar a, Exemplar b) {
+            return Double.compare(b.getDuration(TimeUnit.NANOSECONDS),
+                                  a.getDuration(TimeUnit.NANOSECONDS));
+        }
+    };
+
+    /**
+     * Sets the tag of whatever the current thread is doing, which is recorded with any of the
+     * durations it records that are among the slowest.
+     *
+     * @param tag    a short tag, such as a request ID
+     */
+    public static void setTag(String tag) {
+        TAG.set(truncate(tag));
+    }
+
+    /**
+     * Returns the tag of whatever the current thread is doing.
+     *
+     * @return the current thread's tag, or {@code null} if it has none
+     */
+    public static String getTag() {
+        return TAG.get();
+    }
+
+    /**
+     * Removes the current thread's tag.
+     */
+    public static void clearTag() {
+        TAG.remove();
+    }
+
+    private static String truncate(String tag) {
+        if (tag != null && tag.length() > MAX_TAG_LENGTH) {
+            return tag.substring(0, MAX_TAG_LENGTH);
+        }
+        return tag;
+    }
+
+    /**
+     * A min-heap of the slowest durations of a window, ordered by duration.
+     */
+    private static class Heap {
+        private final long[] durations;
+        private final long[] timestamps;
+        private final String[] tags;
+        private int used;
+
+        private Heap(int size) {
+            this.durations = new long[size];
+            this.timestamps = new long[size];
+            this.tags = new String[size];
+        }
+
+        private boolean isFull() {
+            return used == durations.length;
+        }
+
+        private long getFastest() {
+            return durations[0];
+        }
+
+        private void offer(long duration, long timestamp, String tag) {
+            if (used < durations.length) {
+                durations[used] = duration;
+                timestamps[used] = timestamp;
+                tags[used] = tag;
+                siftUp(used++);
+            } else if (duration > durations[0]) {
+                durations[0] = duration;
+                timestamps[0] = timestamp;
+                tags[0] = tag;
+                siftDown(0);
+            }
+        }
+
+        private void addTo(List<Exemplar> exemplars) {
+            for (int i = 0; i < used; i++) {
+                exemplars.add(new Exemplar(durations[i], timestamps[i], tags[i]));
+            }
+        }
+
+        private void clear() {
+            Arrays.fill(tags, null);
+            this.used = 0;
+        }
+
+        private void siftUp(int position) {
+            int child = position;
+            while (child > 0) {
+                final int parent = (child - 1) / 2;
+                if (durations[parent] <= durations[child]) {
+                    return;
+                }
+                swap(parent, child);
+                child = parent;
+            }
+        }
+
+        private void siftDown(int position) {
+            int parent = position;
+            while (true) {
+                final int left = parent * 2 + 1;
+                if (left >= used) {
+                    return;
+                }
+                final int right = left + 1;
+                final int child = right < used && durations[right] < durations[left] ? right : left;
+                if (durations[parent] <= durations[child]) {
+                    return;
+                }
+                swap(parent, child);
+                parent = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            final long duration = durations[a];
+            final long timestamp = timestamps[a];
+            final String tag = tags[a];
+            durations[a] = durations[b];
+            timestamps[a] = timestamps[b];
+            tags[a] = tags[b];
+            durations[b] = duration;
+            timestamps[b] = timestamp;
+            tags[b] = tag;
+        }
+    }
+
+    private final Clock clock;
+    private final int size;
+    private final long window;
+    private Heap current;
+    private Heap previous;
+    // the tick at which the current window ends
+    private volatile long windowEnd;
+    // the duration a new one must exceed to be kept in the current window
+    private volatile long threshold = -1;
+
+    /**
+     * Creates a new {@link Exemplars} with one-minute windows.
+     *
+     * @param size     the number of durations to keep
+     * @param clock    the clock used to timestamp durations and measure windows
+     */
+    Exemplars(int size, Clock clock) {
+        this(size, DEFAULT_WINDOW, TimeUnit.NANOSECONDS, clock);
+    }
+
+    /**
+     * Creates a new {@link Exemplars}.
+     *
+     * @param size          the number of durations to keep
+     * @param window        the length of each window
+     * @param windowUnit    the unit of {@code window}
+     * @param clock         the clock used to timestamp durations and measure windows
+     */
+    Exemplars(int size, long window, TimeUnit windowUnit, Clock clock) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.clock = clock;
+        this.size = size;
+        this.window = windowUnit.toNanos(window);
+        this.current = new Heap(size);
+        this.previous = new Heap(size);
+        this.windowEnd = clock.getTick() + this.window;
+    }
+
+    /**
+     * Offers a duration, tagged with the current thread's tag.
+     *
+     * @param duration    the duration, in nanoseconds
+     */
+    void update(long duration) {
+        if (duration > threshold || clock.getTick() - windowEnd >= 0) {
+            update(duration, TAG.get());
+        }
+    }
+
+    /**
+     * Offers a duration with the given tag.
+     *
+     * @param duration    the duration, in nanoseconds
+     * @param tag         the tag of what was timed
+     */
+    void update(long duration, String tag) {
+        final long now = clock.getTick();
+        if (duration <= threshold && now - windowEnd < 0) {
+            return;
+        }
+        final long timestamp = clock.getTime();
+        final String truncated = truncate(tag);
+        synchronized (this) {
+            rotateIfNecessary(now);
+            current.offer(duration, timestamp, truncated);
+            if (current.isFull()) {
+                this.threshold = current.getFastest();
+            }
+        }
+    }
+
+    /**
+     * Returns the slowest durations of the current and previous windows, from slowest to
+     * fastest.
+     *
+     * @return the slowest recent durations
+     */
+    public List<Exemplar> getSlowest() {
+        final List<Exemplar> exemplars = new ArrayList<Exemplar>(size * 2);
+        final long now = clock.getTick();
+        synchronized (this) {
+            rotateIfNecessary(now);
+            current.addTo(exemplars);
+            previous.addTo(exemplars);
+        }
+        Collections.sort(exemplars, SLOWEST_FIRST);
+        return exemplars.size() > size ? exemplars.subList(0, size) : exemplars;
+    }
+
+    /**
+     * Forgets all durations.
+     */
+    synchronized void clear() {
+        current.clear();
+        previous.clear();
+        this.threshold = -1;
+    }
+
+    private void rotateIfNecessary(long now) {
+        final long overdue = now - windowEnd;
+        if (overdue < 0) {
+            return;
+        }
+        final long windows = 1 + overdue / window;
+        final Heap retired = previous;
+        retired.clear();
+        if (windows == 1) {
+            this.previous = current;
+        } else {
+            current.clear();
+            this.previous = current;
+        }
+        this.current = retired;
+        this.windowEnd += windows * window;
+        this.threshold = -1;
+    }
+}
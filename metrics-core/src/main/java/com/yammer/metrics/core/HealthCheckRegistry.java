@@ -6,8 +6,7 @@ import java.util.Collections;
 import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.*;
 
 /**
  * A registry for health checks.
@@ -55,4 +54,75 @@ public class HealthCheckRegistry {
         }
         return Collections.unmodifiableSortedMap(results);
     }
+
+    /**
+     * Runs the registered health checks concurrently on the given executor and returns a map of
+     * the results. Any health check which has not completed within {@code timeout} of this method
+     * being called is cancelled and reported as unhealthy, as is any health check which the
+     * executor rejects.
+     * <p/>
+     * The executor should be bounded (e.g., {@link Executors#newFixedThreadPool(int)}) so that
+     * health checks which ignore being cancelled cannot exhaust the application's threads.
+     *
+     * @param executor       the executor on which the health checks will be run
+     * @param timeout        the maximum amount of time to wait for all the health checks
+     * @param timeoutUnit    the unit of {@code timeout}
+     * @return a map of the health check results
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public SortedMap<String, Result> runHealthChecks(ExecutorService executor,
+                                                     long timeout,
+                                                     TimeUnit timeoutUnit) throws InterruptedException {
+        final SortedMap<String, Future<Result>> futures = new TreeMap<String, Future<Result>>();
+        final SortedMap<String, Result> results = new TreeMap<String, Result>();
+        for (Entry<String, HealthCheck> entry : healthChecks.entrySet()) {
+            try {
+                futures.put(entry.getKey(), submit(executor, entry.getKey(), entry.getValue()));
+            } catch (RejectedExecutionException e) {
+                results.put(entry.getKey(), Result.unhealthy(e));
+            }
+        }
+
+        final long deadline = System.nanoTime() + timeoutUnit.toNanos(timeout);
+        for (Entry<String, Future<Result>> entry : futures.entrySet()) {
+            final Future<Result> future = entry.getValue();
+            try {
+                results.put(entry.getKey(),
+                            future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                results.put(entry.getKey(),
+                            Result.unhealthy("Timed out after %d %s",
+                                             timeout,
+                                             timeoutUnit.toString().toLowerCase()));
+            } catch (ExecutionException e) {
+                results.put(entry.getKey(), Result.unhealthy(e.getCause()));
+            } catch (CancellationException e) {
+                results.put(entry.getKey(), Result.unhealthy(e));
+            } catch (InterruptedException e) {
+                for (Future<Result> f : futures.values()) {
+                    f.cancel(true);
+                }
+                throw e;
+            }
+        }
+        return Collections.unmodifiableSortedMap(results);
+    }
+
+    /**
+     * Submits a health check to the executor.
+     *
+     * @param executor       the executor on which the health check will be run
+     * @param name           the name the health check is registered under
+     * @param healthCheck    the health check
+     * @return the future result of the health check
+     */
+    Future<Result> submit(ExecutorService executor, String name, final HealthCheck healthCheck) {
+        return executor.submit(new Callable<Result>() {
+            @Override
+            public Result call() throws Exception {
+                return healthCheck.execute();
+            }
+        });
+    }
 }
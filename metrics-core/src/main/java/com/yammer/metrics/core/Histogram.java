@@ -4,7 +4,9 @@ import com.yammer.metrics.stats.ExponentiallyDecayingSample;
 import com.yammer.metrics.stats.Sample;
 import com.yammer.metrics.stats.Snapshot;
 import com.yammer.metrics.stats.UniformSample;
+import com.yammer.metrics.stats.WindowedSummary;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -12,11 +14,21 @@ import static java.lang.Math.sqrt;
 
 /**
  * A metric which calculates the distribution of a value.
+ * <p/>
+ * By default, the histogram's minimum, maximum, mean, standard deviation, and sum cover every
+ * value recorded since it was created or last cleared. A windowed histogram summarizes only the
+ * values recorded within a recent window of time instead (see {@link WindowedSummary}); its count
+ * still covers every value.
  *
  * @see <a href="http://www.johndcook.com/standard_deviation.html">Accurately computing running
  *      variance</a>
  */
 public class Histogram implements Metric, Sampling, Summarizable {
+    /**
+     * The most values {@link #update(long, long)} back-fills for a single recorded value.
+     */
+    public static final int MAX_BACKFILLED_VALUES = 1000;
+
     private static final int DEFAULT_SAMPLE_SIZE = 1028;
     private static final double DEFAULT_ALPHA = 0.015;
 
@@ -51,6 +63,7 @@ public class Histogram implements Metric, Sampling, Summarizable {
     }
 
     private final Sample sample;
+    private final WindowedSummary window;
     private final AtomicLong min = new AtomicLong();
     private final AtomicLong max = new AtomicLong();
     private final AtomicLong sum = new AtomicLong();
@@ -75,7 +88,25 @@ public class Histogram implements Metric, Sampling, Summarizable {
      * @param sample the sample to create a histogram from
      */
     Histogram(Sample sample) {
+        this(sample, null);
+    }
+
+    /**
+     * Creates a new {@link Histogram} with the given sample, whose summary statistics cover only
+     * the given window of time.
+     *
+     * @param sample        the sample to create a histogram from
+     * @param window        the window of time the summary statistics cover
+     * @param windowUnit    the unit of {@code window}
+     * @param clock         the clock used to move the window
+     */
+    Histogram(Sample sample, long window, TimeUnit windowUnit, Clock clock) {
+        this(sample, new WindowedSummary(window, windowUnit, clock));
+    }
+
+    private Histogram(Sample sample, WindowedSummary window) {
         this.sample = sample;
+        this.window = window;
         clear();
     }
 
@@ -84,6 +115,9 @@ public class Histogram implements Metric, Sampling, Summarizable {
      */
     public void clear() {
         sample.clear();
+        if (window != null) {
+            window.clear();
+        }
         count.set(0);
         max.set(Long.MIN_VALUE);
         min.set(Long.MAX_VALUE);
@@ -108,12 +142,63 @@ public class Histogram implements Metric, Sampling, Summarizable {
     public void update(long value) {
         count.incrementAndGet();
         sample.update(value);
+        if (window != null) {
+            window.update(value);
+            return;
+        }
         setMax(value);
         setMin(value);
         sum.getAndAdd(value);
         updateVariance(value);
     }
 
+    /**
+     * Adds a recorded value which is expected to be recorded every {@code expectedInterval},
+     * correcting for coordinated omission: if the value is longer than the interval (e.g., because
+     * the process stalled), the values which would have been recorded in the meantime are added
+     * too, each one interval shorter than the last, as HdrHistogram's {@code
+     * recordValueWithExpectedInterval} does.
+     * <p/>
+     * Unlike HdrHistogram, each value added costs a sample update, so at most {@value
+     * #MAX_BACKFILLED_VALUES} values are back-filled for each recorded value. If more were missed,
+     * that many are spread evenly over the same range, which keeps the shape of the stall but
+     * caps its weight.
+     *
+     * @param value            the length of the value
+     * @param expectedInterval the expected interval between values, in the same unit as {@code
+     *                         value}, or {@code 0} to add only the value itself
+     */
+    public void update(long value, long expectedInterval) {
+        update(value);
+        final long missed = getBackfilledCount(value, expectedInterval);
+        for (long i = 0; i < missed; i++) {
+            update(getBackfilledValue(value, expectedInterval, i));
+        }
+    }
+
+    /**
+     * Returns the number of values to back-fill for a value recorded with an expected interval.
+     */
+    static long getBackfilledCount(long value, long expectedInterval) {
+        if (value < 0 || expectedInterval <= 0) {
+            return 0;
+        }
+        return Math.min(Math.max(value / expectedInterval - 1, 0), MAX_BACKFILLED_VALUES);
+    }
+
+    /**
+     * Returns the {@code i}th value to back-fill for a value recorded with an expected interval,
+     * from the longest to the shortest.
+     */
+    static long getBackfilledValue(long value, long expectedInterval, long i) {
+        final long missed = value / expectedInterval - 1;
+        if (missed <= MAX_BACKFILLED_VALUES) {
+            return value - (i + 1) * expectedInterval;
+        }
+        final long step = 1 + (long) ((double) i * (missed - 1) / (MAX_BACKFILLED_VALUES - 1));
+        return value - step * expectedInterval;
+    }
+
     /**
      * Returns the number of values recorded.
      *
@@ -128,6 +213,9 @@ public class Histogram implements Metric, Sampling, Summarizable {
      */
     @Override
     public double getMax() {
+        if (window != null) {
+            return window.getMax();
+        }
         if (getCount() > 0) {
             return max.get();
         }
@@ -139,6 +227,9 @@ public class Histogram implements Metric, Sampling, Summarizable {
      */
     @Override
     public double getMin() {
+        if (window != null) {
+            return window.getMin();
+        }
         if (getCount() > 0) {
             return min.get();
         }
@@ -150,6 +241,9 @@ public class Histogram implements Metric, Sampling, Summarizable {
      */
     @Override
     public double getMean() {
+        if (window != null) {
+            return window.getMean();
+        }
         if (getCount() > 0) {
             return sum.get() / (double) getCount();
         }
@@ -161,6 +255,9 @@ public class Histogram implements Metric, Sampling, Summarizable {
      */
     @Override
     public double getStdDev() {
+        if (window != null) {
+            return window.getStdDev();
+        }
         if (getCount() > 0) {
             return sqrt(getVariance());
         }
@@ -172,6 +269,9 @@ public class Histogram implements Metric, Sampling, Summarizable {
      */
     @Override
     public double getSum() {
+        if (window != null) {
+            return window.getSum();
+        }
         return (double) sum.get();
     }
 
@@ -0,0 +1,81 @@
+package com.yammer.metrics.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records values into a {@link Histogram} for the current interval, so that a reporter can report
+ * the distribution of each interval on its own (e.g., the last minute's latencies) instead of
+ * calling {@link Histogram#clear()} after reading, which loses values recorded in between.
+ * <p/>
+ * {@link #getIntervalHistogram()} atomically swaps in a fresh histogram and returns the retired
+ * one once every update which started before the swap has finished, so that no value is lost or
+ * counted twice. Updates never block: they only increment a counter before and after recording,
+ * and it's the reader which waits for them.
+ */
+public class HistogramRecorder {
+    private volatile Histogram active;
+    // the number of updates which have started, with the sign bit marking the current phase
+    private final AtomicLong startEpoch = new AtomicLong(0);
+    // the number of updates which have finished in each phase
+    private final AtomicLong evenEndEpoch = new AtomicLong(0);
+    private final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Creates a new {@link HistogramRecorder} which keeps a uniform sample of each interval.
+     */
+    public HistogramRecorder() {
+        this.active = newHistogram();
+    }
+
+    /**
+     * Adds a recorded value to the current interval.
+     *
+     * @param value the length of the value
+     */
+    public void update(long value) {
+        final long epoch = startEpoch.getAndIncrement();
+        try {
+            active.update(value);
+        } finally {
+            if (epoch < 0) {
+                oddEndEpoch.getAndIncrement();
+            } else {
+                evenEndEpoch.getAndIncrement();
+            }
+        }
+    }
+
+    /**
+     * Starts a new interval and returns the histogram of the one which just ended. No more values
+     * will be recorded into the returned histogram.
+     *
+     * @return the histogram of the values recorded since the last call
+     */
+    public synchronized Histogram getIntervalHistogram() {
+        final Histogram retired = active;
+        this.active = newHistogram();
+        flipPhase();
+        return retired;
+    }
+
+    private void flipPhase() {
+        final boolean nextPhaseIsEven = startEpoch.get() < 0;
+        final long initialEpoch = nextPhaseIsEven ? 0 : Long.MIN_VALUE;
+        if (nextPhaseIsEven) {
+            evenEndEpoch.set(initialEpoch);
+        } else {
+            oddEndEpoch.set(initialEpoch);
+        }
+        final long startedUpdates = startEpoch.getAndSet(initialEpoch);
+        // wait for the updates which started in the previous phase, and so may have read the
+        // retired histogram, to finish
+        final AtomicLong previousEndEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+        while (previousEndEpoch.get() != startedUpdates) {
+            Thread.yield();
+        }
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(Histogram.SampleType.UNIFORM);
+    }
+}
@@ -1,6 +1,6 @@
 package com.yammer.metrics.core;
 
-import com.yammer.metrics.stats.EWMA;
+import com.yammer.metrics.stats.MovingAverages;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -12,15 +12,11 @@ import java.util.concurrent.atomic.AtomicLong;
  * @see <a href="http://en.wikipedia.org/wiki/Moving_average#Exponential_moving_average">EMA</a>
  */
 public class Meter implements Metered {
-    private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
-
-    private final EWMA m1Rate = EWMA.oneMinuteEWMA();
-    private final EWMA m5Rate = EWMA.fiveMinuteEWMA();
-    private final EWMA m15Rate = EWMA.fifteenMinuteEWMA();
+    private static final int M1 = 0, M5 = 1, M15 = 2;
 
+    private final MovingAverages rates;
     private final AtomicLong count = new AtomicLong();
     private final long startTime;
-    private final AtomicLong lastTick;
     private final TimeUnit rateUnit;
     private final String eventType;
     private final Clock clock;
@@ -38,7 +34,7 @@ public class Meter implements Metered {
         this.eventType = eventType;
         this.clock = clock;
         this.startTime = this.clock.getTick();
-        this.lastTick = new AtomicLong(startTime);
+        this.rates = new MovingAverages(clock, TimeUnit.MINUTES, 1, 5, 15);
     }
 
     @Override
@@ -51,15 +47,6 @@ public class Meter implements Metered {
         return eventType;
     }
 
-    /**
-     * Updates the moving averages.
-     */
-    void tick() {
-        m1Rate.tick();
-        m5Rate.tick();
-        m15Rate.tick();
-    }
-
     /**
      * Mark the occurrence of an event.
      */
@@ -73,23 +60,8 @@ public class Meter implements Metered {
      * @param n the number of events
      */
     public void mark(long n) {
-        tickIfNecessary();
+        rates.update(n);
         count.addAndGet(n);
-        m1Rate.update(n);
-        m5Rate.update(n);
-        m15Rate.update(n);
-    }
-
-    private void tickIfNecessary() {
-        final long oldTick = lastTick.get();
-        final long newTick = clock.getTick();
-        final long age = newTick - oldTick;
-        if (age > TICK_INTERVAL && lastTick.compareAndSet(oldTick, newTick)) {
-            final long requiredTicks = age / TICK_INTERVAL;
-            for (long i = 0; i < requiredTicks; i++) {
-                tick();
-            }
-        }
     }
 
     @Override
@@ -99,14 +71,12 @@ public class Meter implements Metered {
 
     @Override
     public double getFifteenMinuteRate() {
-        tickIfNecessary();
-        return m15Rate.getRate(rateUnit);
+        return rates.getRate(M15, rateUnit);
     }
 
     @Override
     public double getFiveMinuteRate() {
-        tickIfNecessary();
-        return m5Rate.getRate(rateUnit);
+        return rates.getRate(M5, rateUnit);
     }
 
     @Override
@@ -121,8 +91,7 @@ public class Meter implements Metered {
 
     @Override
     public double getOneMinuteRate() {
-        tickIfNecessary();
-        return m1Rate.getRate(rateUnit);
+        return rates.getRate(M1, rateUnit);
     }
 
     private double convertNsRate(double ratePerNs) {
@@ -55,4 +55,44 @@ public interface MetricProcessor<T> {
      * @throws Exception if something goes wrong
      */
     void processGauge(MetricName name, Gauge<?> gauge, T context) throws Exception;
+
+    /**
+     * Process the given top-K metric.
+     *
+     * @param name       the name of the top-K metric
+     * @param topK       the top-K metric
+     * @param context    the context of the meter
+     * @throws Exception if something goes wrong
+     */
+    void processTopK(MetricName name, TopK topK, T context) throws Exception;
+
+    /**
+     * Process the given cardinality.
+     *
+     * @param name           the name of the cardinality
+     * @param cardinality    the cardinality
+     * @param context        the context of the meter
+     * @throws Exception if something goes wrong
+     */
+    void processCardinality(MetricName name, Cardinality cardinality, T context) throws Exception;
+
+    /**
+     * Process the given windowed meter.
+     *
+     * @param name       the name of the windowed meter
+     * @param meter      the windowed meter
+     * @param context    the context of the meter
+     * @throws Exception if something goes wrong
+     */
+    void processWindowedMeter(MetricName name, WindowedMeter meter, T context) throws Exception;
+
+    /**
+     * Process the given concurrency.
+     *
+     * @param name           the name of the concurrency
+     * @param concurrency    the concurrency
+     * @param context        the context of the meter
+     * @throws Exception if something goes wrong
+     */
+    void processConcurrency(MetricName name, Concurrency concurrency, T context) throws Exception;
 }
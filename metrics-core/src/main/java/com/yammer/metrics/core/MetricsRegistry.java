@@ -1,6 +1,7 @@
 package com.yammer.metrics.core;
 
 import com.yammer.metrics.core.Histogram.SampleType;
+import com.yammer.metrics.stats.Sample;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -11,6 +12,7 @@ import java.util.concurrent.*;
 public class MetricsRegistry {
     private static final int EXPECTED_METRIC_COUNT = 1024;
     private final Clock clock;
+    private final Clock rateClock;
     private final ConcurrentMap<MetricName, Metric> metrics;
     private final List<MetricsRegistryListener> listeners;
     private final String name;
@@ -47,8 +49,23 @@ public class MetricsRegistry {
      * @param clock    a {@link Clock} instance
      */
     public MetricsRegistry(String name, Clock clock) {
+        this(name, clock, clock);
+    }
+
+    /**
+     * Creates a new {@link MetricsRegistry} with the given name, a {@link Clock} instance for
+     * timing durations, and a separate {@link Clock} instance for measuring rates. This allows a
+     * cheaper, coarser clock (e.g., {@link Clock.CachedClock}) to be used by meters and by the
+     * rates of timers, while timers' durations are still measured precisely.
+     *
+     * @param name         the name of the registry
+     * @param clock        a {@link Clock} instance used to time durations
+     * @param rateClock    a {@link Clock} instance used to measure rates
+     */
+    public MetricsRegistry(String name, Clock clock, Clock rateClock) {
         this.name = name;
         this.clock = clock;
+        this.rateClock = rateClock;
         this.metrics = newMetricsMap();
         this.listeners = new CopyOnWriteArrayList<MetricsRegistryListener>();
     }
@@ -134,6 +151,46 @@ public class MetricsRegistry {
         return getOrAdd(metricName, new Counter());
     }
 
+    /**
+     * Creates a new {@link Concurrency} and registers it under the given class and name.
+     *
+     * @param klass the class which owns the metric
+     * @param name  the name of the metric
+     * @return a new {@link Concurrency}
+     */
+    public Concurrency newConcurrency(Class<?> klass,
+                                      String name) {
+        return newConcurrency(klass, name, null);
+    }
+
+    /**
+     * Creates a new {@link Concurrency} and registers it under the given class, name, and scope.
+     *
+     * @param klass the class which owns the metric
+     * @param name  the name of the metric
+     * @param scope the scope of the metric
+     * @return a new {@link Concurrency}
+     */
+    public Concurrency newConcurrency(Class<?> klass,
+                                      String name,
+                                      String scope) {
+        return newConcurrency(createName(klass, name, scope));
+    }
+
+    /**
+     * Creates a new {@link Concurrency} and registers it under the given metric name.
+     *
+     * @param metricName the name of the metric
+     * @return a new {@link Concurrency}
+     */
+    public Concurrency newConcurrency(MetricName metricName) {
+        final Metric existingMetric = metrics.get(metricName);
+        if (existingMetric != null) {
+            return (Concurrency) existingMetric;
+        }
+        return getOrAdd(metricName, new Concurrency(rateClock));
+    }
+
     /**
      * Creates a new {@link Histogram} and registers it under the given class and name.
      *
@@ -204,6 +261,42 @@ public class MetricsRegistry {
                         new Histogram(biased ? SampleType.BIASED : SampleType.UNIFORM));
     }
 
+    /**
+     * Creates a new {@link Histogram} backed by the given sample (e.g., a {@link
+     * com.yammer.metrics.stats.TDigestSample}) and registers it under the given metric name.
+     *
+     * @param metricName the name of the metric
+     * @param sample     the sample of the histogram's values
+     * @return a new {@link Histogram}
+     */
+    public Histogram newHistogram(MetricName metricName,
+                                  Sample sample) {
+        return getOrAdd(metricName, new Histogram(sample));
+    }
+
+    /**
+     * Creates a new {@link Histogram} whose minimum, maximum, mean, standard deviation, and sum
+     * cover only a recent window of time, and registers it under the given metric name.
+     *
+     * @param metricName the name of the metric
+     * @param biased     whether or not the histogram should be biased
+     * @param window     the window of time the summary statistics cover
+     * @param windowUnit the unit of {@code window}
+     * @return a new {@link Histogram}
+     */
+    public Histogram newHistogram(MetricName metricName,
+                                  boolean biased,
+                                  long window,
+                                  TimeUnit windowUnit) {
+        final Metric existingMetric = metrics.get(metricName);
+        if (existingMetric != null) {
+            return (Histogram) existingMetric;
+        }
+        final SampleType type = biased ? SampleType.BIASED : SampleType.UNIFORM;
+        return getOrAdd(metricName,
+                        new Histogram(type.newSample(), window, windowUnit, rateClock));
+    }
+
     /**
      * Creates a new {@link Meter} and registers it under the given class and name.
      *
@@ -256,7 +349,7 @@ public class MetricsRegistry {
         if (existingMetric != null) {
             return (Meter) existingMetric;
         }
-        return getOrAdd(metricName, new Meter(eventType, unit, clock));
+        return getOrAdd(metricName, new Meter(eventType, unit, rateClock));
     }
 
     /**
@@ -337,7 +430,155 @@ public class MetricsRegistry {
             return (Timer) existingMetric;
         }
         return getOrAdd(metricName,
-                        new Timer(durationUnit, rateUnit, clock));
+                        new Timer(durationUnit, rateUnit, clock, rateClock));
+    }
+
+    /**
+     * Creates a new {@link Timer} with the given optional features (e.g., a {@link
+     * com.yammer.metrics.stats.TDigestSample}, {@link Exemplar}s of its slowest durations, or a
+     * {@link ServiceLevel}) and registers it under the given metric name.
+     *
+     * @param metricName   the name of the metric
+     * @param durationUnit the duration scale unit of the new timer
+     * @param rateUnit     the rate scale unit of the new timer
+     * @param options      the timer's sample, slowest durations, and service level
+     * @return a new {@link Timer}
+     */
+    public Timer newTimer(MetricName metricName,
+                          TimeUnit durationUnit,
+                          TimeUnit rateUnit,
+                          TimerOptions options) {
+        final Metric existingMetric = metrics.get(metricName);
+        if (existingMetric != null) {
+            return (Timer) existingMetric;
+        }
+        return getOrAdd(metricName,
+                        new Timer(durationUnit, rateUnit, clock, rateClock, options));
+    }
+
+    /**
+     * Creates a new {@link WindowedMeter} and registers it under the given class and name.
+     *
+     * @param klass      the class which owns the metric
+     * @param name       the name of the metric
+     * @param eventType  the plural name of the type of events the meter is measuring (e.g., {@code
+     *                   "requests"})
+     * @param unit       the rate unit of the new meter
+     * @param windowUnit the unit of {@code windows}
+     * @param windows    the window of each of the meter's moving averages
+     * @return a new {@link WindowedMeter}
+     */
+    public WindowedMeter newWindowedMeter(Class<?> klass,
+                                          String name,
+                                          String eventType,
+                                          TimeUnit unit,
+                                          TimeUnit windowUnit,
+                                          long... windows) {
+        return newWindowedMeter(createName(klass, name, null), eventType, unit, windowUnit, windows);
+    }
+
+    /**
+     * Creates a new {@link WindowedMeter} and registers it under the given metric name.
+     *
+     * @param metricName the name of the metric
+     * @param eventType  the plural name of the type of events the meter is measuring (e.g., {@code
+     *                   "requests"})
+     * @param unit       the rate unit of the new meter
+     * @param windowUnit the unit of {@code windows}
+     * @param windows    the window of each of the meter's moving averages
+     * @return a new {@link WindowedMeter}
+     */
+    public WindowedMeter newWindowedMeter(MetricName metricName,
+                                          String eventType,
+                                          TimeUnit unit,
+                                          TimeUnit windowUnit,
+                                          long... windows) {
+        final Metric existingMetric = metrics.get(metricName);
+        if (existingMetric != null) {
+            return (WindowedMeter) existingMetric;
+        }
+        return getOrAdd(metricName,
+                        new WindowedMeter(eventType, unit, rateClock, windowUnit, windows));
+    }
+
+    /**
+     * Creates a new {@link TopK} and registers it under the given class and name, reporting the
+     * rates per second of the most frequent keys over the last five minutes or so.
+     *
+     * @param klass     the class which owns the metric
+     * @param name      the name of the metric
+     * @param eventType the plural name of the type of events being counted (e.g., {@code
+     *                  "queries"})
+     * @param size      the number of keys to report
+     * @return a new {@link TopK}
+     */
+    public TopK newTopK(Class<?> klass,
+                        String name,
+                        String eventType,
+                        int size) {
+        return newTopK(createName(klass, name, null), eventType, size, 5, TimeUnit.MINUTES,
+                       TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new {@link TopK} and registers it under the given metric name.
+     *
+     * @param metricName the name of the metric
+     * @param eventType  the plural name of the type of events being counted (e.g., {@code
+     *                   "queries"})
+     * @param size       the number of keys to report
+     * @param window     the time constant of the exponential decay of the keys' counts
+     * @param windowUnit the unit of {@code window}
+     * @param rateUnit   the rate unit of the keys' rates
+     * @return a new {@link TopK}
+     */
+    public TopK newTopK(MetricName metricName,
+                        String eventType,
+                        int size,
+                        long window,
+                        TimeUnit windowUnit,
+                        TimeUnit rateUnit) {
+        final Metric existingMetric = metrics.get(metricName);
+        if (existingMetric != null) {
+            return (TopK) existingMetric;
+        }
+        return getOrAdd(metricName,
+                        new TopK(size, eventType, window, windowUnit, rateUnit, rateClock));
+    }
+
+    /**
+     * Creates a new {@link Cardinality} and registers it under the given class and name, counting
+     * distinct values forever with a standard error of about 0.8%.
+     *
+     * @param klass the class which owns the metric
+     * @param name  the name of the metric
+     * @return a new {@link Cardinality}
+     */
+    public Cardinality newCardinality(Class<?> klass,
+                                      String name) {
+        return newCardinality(createName(klass, name, null), 14, 0, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new {@link Cardinality} and registers it under the given metric name.
+     *
+     * @param metricName the name of the metric
+     * @param precision  the precision of the metric's sketches (see {@link
+     *                   com.yammer.metrics.stats.HyperLogLog})
+     * @param window     the window of time in which to count distinct values, or {@code 0} to
+     *                   count them forever
+     * @param windowUnit the unit of {@code window}
+     * @return a new {@link Cardinality}
+     */
+    public Cardinality newCardinality(MetricName metricName,
+                                      int precision,
+                                      long window,
+                                      TimeUnit windowUnit) {
+        final Metric existingMetric = metrics.get(metricName);
+        if (existingMetric != null) {
+            return (Cardinality) existingMetric;
+        }
+        return getOrAdd(metricName, new Cardinality(precision, window, windowUnit, rateClock));
     }
 
     /**
@@ -0,0 +1,250 @@
+package com.yammer.metrics.core;
+
+import com.yammer.metrics.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A statistical profiler which periodically samples the stacks of all runnable threads and
+ * aggregates them into a tree of call paths.
+ * <p/>
+ * The tree is bounded: once it grows beyond its maximum number of nodes, the least-sampled leaves
+ * are folded into their callers until only the most frequently sampled paths remain. The profile
+ * is written in the collapsed-stack format used by flame graph tools, with one line per call path
+ * (e.g., {@code com.example.Server.run;com.example.Handler.handle 42}). Stacks deeper than the
+ * maximum depth keep their innermost frames under a {@code [truncated]} root, so that they aren't
+ * mistaken for call paths starting at whatever frame they were cut off at.
+ */
+public class SamplingProfiler implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SamplingProfiler.class);
+    private static final int DEFAULT_MAX_DEPTH = 128;
+    private static final int DEFAULT_MAX_NODES = 10000;
+    private static final String TRUNCATED = "[truncated]";
+
+    private static final SamplingProfiler INSTANCE = new SamplingProfiler(
+            ManagementFactory.getThreadMXBean(), DEFAULT_MAX_DEPTH, DEFAULT_MAX_NODES);
+
+    private static final Comparator<Node> BY_TOTAL = new Comparator<Node>() {
+        @Override
+        public int compare(Node a, Node b) {
+            return a.total < b.total ? -1 : (a.total == b.total ? 0 : 1);
+        }
+    };
+
+    /**
+     * The default instance of {@link SamplingProfiler}, which samples the current JVM.
+     *
+     * @return the default {@link SamplingProfiler} instance
+     */
+    public static SamplingProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    private static class Node {
+        private final String frame;
+        private final Node parent;
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private long samples, total;
+
+        private Node(String frame, Node parent) {
+            this.frame = frame;
+            this.parent = parent;
+        }
+    }
+
+    private final ThreadMXBean threads;
+    private final int maxDepth;
+    private final int maxNodes;
+    private Node root = new Node(null, null);
+    private int nodes;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Creates a new {@link SamplingProfiler}.
+     *
+     * @param threads     the {@link ThreadMXBean} to sample
+     * @param maxDepth    the maximum number of frames to sample from each stack
+     * @param maxNodes    the maximum number of call paths to keep
+     */
+    public SamplingProfiler(ThreadMXBean threads, int maxDepth, int maxNodes) {
+        if (maxNodes < 1) {
+            throw new IllegalArgumentException("maxNodes must be at least 1");
+        }
+        this.threads = threads;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Starts sampling stacks in the background at the given period.
+     *
+     * @param period    the amount of time between samples
+     * @param unit      the unit of {@code period}
+     */
+    public synchronized void start(long period, TimeUnit unit) {
+        if (executor == null) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("profiler"));
+            executor.scheduleAtFixedRate(this, period, period, unit);
+        }
+    }
+
+    /**
+     * Stops sampling stacks in the background. The profile collected so far is kept.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the profiler is sampling stacks in the background.
+     *
+     * @return whether or not the profiler is running
+     */
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error sampling stacks", e);
+        }
+    }
+
+    /**
+     * Samples the stacks of all runnable threads, other than the calling thread, once.
+     */
+    public void sample() {
+        final long self = Thread.currentThread().getId();
+        // sample one frame more than we keep, so that we can tell which stacks were truncated
+        final int depth = maxDepth == Integer.MAX_VALUE ? maxDepth : maxDepth + 1;
+        final ThreadInfo[] infos = threads.getThreadInfo(threads.getAllThreadIds(), depth);
+        synchronized (this) {
+            for (ThreadInfo info : infos) {
+                if (info != null && info.getThreadId() != self &&
+                        info.getThreadState() == Thread.State.RUNNABLE) {
+                    add(info.getStackTrace());
+                }
+            }
+            if (nodes > maxNodes) {
+                prune(maxNodes - maxNodes / 4);
+            }
+        }
+    }
+
+    /**
+     * Discards the profile collected so far.
+     */
+    public synchronized void reset() {
+        this.root = new Node(null, null);
+        this.nodes = 0;
+    }
+
+    /**
+     * Writes the profile in collapsed-stack format, with one line per sampled call path.
+     *
+     * @param out    the writer to which the profile will be written
+     * @throws IOException if there is an error writing the profile
+     */
+    public void writeCollapsedStacks(Writer out) throws IOException {
+        // render the profile under the lock, but don't hold it while waiting on a slow client
+        final StringBuilder profile = new StringBuilder();
+        synchronized (this) {
+            final StringBuilder path = new StringBuilder();
+            for (Node child : root.children.values()) {
+                render(child, path, profile);
+            }
+        }
+        out.append(profile);
+        out.flush();
+    }
+
+    private static void render(Node node, StringBuilder path, StringBuilder profile) {
+        final int length = path.length();
+        if (length > 0) {
+            path.append(';');
+        }
+        path.append(node.frame);
+        if (node.samples > 0) {
+            profile.append(path).append(' ').append(node.samples).append('\n');
+        }
+        for (Node child : node.children.values()) {
+            render(child, path, profile);
+        }
+        path.setLength(length);
+    }
+
+    private void add(StackTraceElement[] stack) {
+        if (stack.length == 0) {
+            return;
+        }
+        Node node = root;
+        int outermost = stack.length - 1;
+        if (stack.length > maxDepth) {
+            node = child(node, TRUNCATED);
+            outermost = maxDepth - 1;
+        }
+        for (int i = outermost; i >= 0; i--) {
+            node = child(node, stack[i].getClassName() + '.' + stack[i].getMethodName());
+        }
+        node.samples++;
+    }
+
+    private Node child(Node node, String frame) {
+        Node child = node.children.get(frame);
+        if (child == null) {
+            child = new Node(frame, node);
+            node.children.put(frame, child);
+            nodes++;
+        }
+        child.total++;
+        return child;
+    }
+
+    /*
+     * Folds the least-sampled leaves into their callers until at most target nodes remain. We
+     * prune below the maximum so that we don't have to prune again on every sample.
+     */
+    private void prune(int target) {
+        while (nodes > target) {
+            final List<Node> leaves = new ArrayList<Node>();
+            collectLeaves(root, leaves);
+            Collections.sort(leaves, BY_TOTAL);
+            for (Node leaf : leaves) {
+                if (nodes <= target) {
+                    break;
+                }
+                if (leaf.parent != root) {
+                    leaf.parent.samples += leaf.samples;
+                }
+                leaf.parent.children.remove(leaf.frame);
+                nodes--;
+            }
+        }
+    }
+
+    private static void collectLeaves(Node node, List<Node> leaves) {
+        for (Node child : node.children.values()) {
+            if (child.children.isEmpty()) {
+                leaves.add(child);
+            } else {
+                collectLeaves(child, leaves);
+            }
+        }
+    }
+}
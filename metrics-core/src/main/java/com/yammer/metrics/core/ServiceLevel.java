@@ -0,0 +1,123 @@
+package com.yammer.metrics.core;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A latency target for a {@link Timer} (e.g., 99% of requests within 200 milliseconds), plus any
+ * other latency thresholds whose exact counts should be kept.
+ * <p/>
+ * The timer counts every duration against the target, four times the target (the Apdex
+ * "tolerating" bound), and the other thresholds, from which it derives its Apdex score. The rate at
+ * which it's burning its error budget is derived from the durations recorded within the burn rate
+ * window (five minutes, by default), so that it reflects the current rate rather than the
+ * timer's whole lifetime.
+ *
+ * @see <a href="http://www.apdex.org/">Apdex</a>
+ */
+public class ServiceLevel {
+    private static final long DEFAULT_BURN_RATE_WINDOW = TimeUnit.MINUTES.toNanos(5);
+
+    private final long target;
+    private final double objective;
+    private final long[] thresholds;
+    private final TimeUnit unit;
+    private final long burnRateWindow;
+
+    /**
+     * Creates a new {@link ServiceLevel}.
+     *
+     * @param target        the latency within which durations are satisfactory
+     * @param objective     the fraction of durations which should be within {@code target}
+     *                      (e.g., {@code 0.99})
+     * @param unit          the unit of {@code target} and {@code thresholds}
+     * @param thresholds    any other latencies to count durations against
+     */
+    public ServiceLevel(long target, double objective, TimeUnit unit, long... thresholds) {
+        this(target, objective, unit, thresholds, DEFAULT_BURN_RATE_WINDOW);
+    }
+
+    private ServiceLevel(long target, double objective, TimeUnit unit, long[] thresholds,
+                         long burnRateWindow) {
+        if (target <= 0) {
+            throw new IllegalArgumentException("target must be positive");
+        }
+        if (objective <= 0 || objective >= 1) {
+            throw new IllegalArgumentException("objective must be between 0 and 1");
+        }
+        this.target = target;
+        this.objective = objective;
+        this.unit = unit;
+        this.thresholds = Arrays.copyOf(thresholds, thresholds.length);
+        this.burnRateWindow = burnRateWindow;
+    }
+
+    /**
+     * Returns a copy of this service level whose error budget burn rate is derived from the
+     * durations recorded within the given window.
+     *
+     * @param window        the window of time the burn rate covers
+     * @param windowUnit    the unit of {@code window}
+     * @return a service level with the given burn rate window
+     */
+    public ServiceLevel withBurnRateWindow(long window, TimeUnit windowUnit) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        return new ServiceLevel(target, objective, unit, thresholds, windowUnit.toNanos(window));
+    }
+
+    /**
+     * Returns the window of time the error budget burn rate covers.
+     *
+     * @param unit    the unit of the returned window
+     * @return the burn rate window
+     */
+    public long getBurnRateWindow(TimeUnit unit) {
+        return unit.convert(burnRateWindow, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the latency within which durations are satisfactory.
+     *
+     * @param unit    the unit of the returned latency
+     * @return the target latency
+     */
+    public long getTarget(TimeUnit unit) {
+        return unit.convert(target, this.unit);
+    }
+
+    /**
+     * Returns the fraction of durations which should be within the target.
+     *
+     * @return the objective
+     */
+    public double getObjective() {
+        return objective;
+    }
+
+    /**
+     * Returns every latency durations are counted against, in ascending order, without
+     * duplicates: the target, four times the target, and the other thresholds.
+     *
+     * @param unit    the unit of the returned latencies
+     * @return the latencies to count durations against
+     */
+    public long[] getThresholds(TimeUnit unit) {
+        final long[] all = Arrays.copyOf(thresholds, thresholds.length + 2);
+        all[thresholds.length] = target;
+        all[thresholds.length + 1] = target * 4;
+        Arrays.sort(all);
+        int size = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (size == 0 || all[i] != all[size - 1]) {
+                all[size++] = all[i];
+            }
+        }
+        final long[] converted = new long[size];
+        for (int i = 0; i < size; i++) {
+            converted[i] = unit.convert(all[i], this.unit);
+        }
+        return converted;
+    }
+}
@@ -0,0 +1,121 @@
+package com.yammer.metrics.core;
+
+import com.yammer.metrics.util.NamedThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.Thread.State;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the states of (a subset of) the live threads in the background, keeping a
+ * rolling distribution of thread states over the most recent samples.
+ */
+class ThreadStateSampler implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadStateSampler.class);
+    private static final State[] STATES = State.values();
+
+    private final ThreadMXBean threads;
+    private final int maxThreads;
+    private final long[][] samples;
+    private final long[] totals = new long[STATES.length];
+    private final Random random = new Random();
+    private final ScheduledExecutorService executor;
+    private int next;
+    private volatile Map<State, Double> percentages;
+
+    /**
+     * Creates a new {@link ThreadStateSampler}.
+     *
+     * @param threads       the {@link ThreadMXBean} to sample
+     * @param maxThreads    the maximum number of threads to sample each time, or {@code 0} to
+     *                      sample all live threads
+     * @param window        the number of samples over which the distribution is kept
+     */
+    ThreadStateSampler(ThreadMXBean threads, int maxThreads, int window) {
+        if (maxThreads < 0) {
+            throw new IllegalArgumentException("maxThreads must not be negative");
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        this.threads = threads;
+        this.maxThreads = maxThreads;
+        this.samples = new long[window][STATES.length];
+        this.executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("thread-state-sampler"));
+    }
+
+    void start(long period, TimeUnit unit) {
+        executor.scheduleWithFixedDelay(this, 0, period, unit);
+    }
+
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the rolling distribution of thread states, or {@code null} if no samples have been
+     * taken yet.
+     *
+     * @return a map of thread states to the percentage of sampled threads in that state
+     */
+    Map<State, Double> getPercentages() {
+        return percentages;
+    }
+
+    @Override
+    public void run() {
+        try {
+            sample();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Error sampling thread states", e);
+        }
+    }
+
+    void sample() {
+        final long[] sample = samples[next];
+        for (int i = 0; i < STATES.length; i++) {
+            totals[i] -= sample[i];
+            sample[i] = 0;
+        }
+
+        for (ThreadInfo info : threads.getThreadInfo(selectThreadIds())) {
+            if (info != null) {
+                sample[info.getThreadState().ordinal()]++;
+            }
+        }
+
+        long count = 0;
+        for (int i = 0; i < STATES.length; i++) {
+            totals[i] += sample[i];
+            count += totals[i];
+        }
+        next = (next + 1) % samples.length;
+
+        final Map<State, Double> distribution = new EnumMap<State, Double>(State.class);
+        for (int i = 0; i < STATES.length; i++) {
+            distribution.put(STATES[i], count == 0 ? 0.0 : totals[i] / (double) count);
+        }
+        this.percentages = Collections.unmodifiableMap(distribution);
+    }
+
+    private long[] selectThreadIds() {
+        final long[] ids = threads.getAllThreadIds();
+        if (maxThreads == 0 || ids.length <= maxThreads) {
+            return ids;
+        }
+        // a partial Fisher-Yates shuffle, leaving a random subset in the first maxThreads slots
+        for (int i = 0; i < maxThreads; i++) {
+            final int j = i + random.nextInt(ids.length - i);
+            final long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        return Arrays.copyOf(ids, maxThreads);
+    }
+}
@@ -0,0 +1,92 @@
+package com.yammer.metrics.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Measures the resources used by the current thread: its CPU time and, on VMs which provide
+ * {@code com.sun.management.ThreadMXBean}, the number of bytes it has allocated. That interface is
+ * only used reflectively, so that this class works on other VMs and without importing
+ * {@code com.sun.management}.
+ */
+public final class ThreadUsage {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME = isCpuTimeEnabled();
+    private static final Method GET_ALLOCATED_BYTES = getAllocatedBytesMethod();
+    private static final boolean ALLOCATED_BYTES = GET_ALLOCATED_BYTES != null;
+
+    private ThreadUsage() { /* unused */ }
+
+    /**
+     * Returns {@code true} if the current thread's CPU time can be measured.
+     *
+     * @return whether or not {@link #getCpuTime()} is supported
+     */
+    public static boolean isCpuTimeSupported() {
+        return CPU_TIME;
+    }
+
+    /**
+     * Returns {@code true} if the number of bytes allocated by the current thread can be measured.
+     *
+     * @return whether or not {@link #getAllocatedBytes()} is supported
+     */
+    public static boolean isAllocatedBytesSupported() {
+        return ALLOCATED_BYTES;
+    }
+
+    /**
+     * Returns the current thread's total CPU time in nanoseconds, or {@code -1} if it cannot be
+     * measured.
+     *
+     * @return the current thread's CPU time
+     */
+    public static long getCpuTime() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Returns the total number of bytes allocated by the current thread, or {@code -1} if it cannot
+     * be measured.
+     *
+     * @return the number of bytes allocated by the current thread
+     */
+    public static long getAllocatedBytes() {
+        if (ALLOCATED_BYTES) {
+            try {
+                return (Long) GET_ALLOCATED_BYTES.invoke(THREADS, Thread.currentThread().getId());
+            } catch (IllegalAccessException e) {
+                return -1;
+            } catch (InvocationTargetException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isCpuTimeEnabled() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+    }
+
+    private static Method getAllocatedBytesMethod() {
+        try {
+            final Class<?> klass = Class.forName("com.sun.management.ThreadMXBean");
+            if (klass.isInstance(THREADS) &&
+                    Boolean.TRUE.equals(klass.getMethod("isThreadAllocatedMemorySupported").invoke(THREADS)) &&
+                    Boolean.TRUE.equals(klass.getMethod("isThreadAllocatedMemoryEnabled").invoke(THREADS))) {
+                return klass.getMethod("getThreadAllocatedBytes", long.class);
+            }
+        } catch (ClassNotFoundException e) {
+            // not a Sun-derived VM
+        } catch (NoSuchMethodException e) {
+            // not a Sun-derived VM
+        } catch (IllegalAccessException e) {
+            // not a Sun-derived VM
+        } catch (InvocationTargetException e) {
+            // not a Sun-derived VM
+        }
+        return null;
+    }
+}
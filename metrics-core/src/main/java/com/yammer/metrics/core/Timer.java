@@ -1,20 +1,41 @@
 package com.yammer.metrics.core;
 
-import com.yammer.metrics.core.Histogram.SampleType;
+import com.yammer.metrics.stats.BucketCounts;
 import com.yammer.metrics.stats.Snapshot;
+import com.yammer.metrics.stats.WindowedCounts;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A timer metric which aggregates timing durations and provides duration statistics, plus
  * throughput statistics via {@link Meter}.
+ * <p/>
+ * A timer with a {@link ServiceLevel} also keeps exact counts of the durations within each of the
+ * service level's thresholds, from which it derives its Apdex score, and the fraction of recent
+ * durations which missed the service level's target, from which it derives its error budget burn
+ * rate.
  */
 public class Timer implements Metered, Sampling, Summarizable {
+    private static final int MET = 0;
+    private static final int MISSED = 1;
+
     private final TimeUnit durationUnit, rateUnit;
     private final Meter meter;
-    private final Histogram histogram = new Histogram(SampleType.BIASED);
+    private final Histogram histogram;
+    private final Exemplars exemplars;
+    private final ServiceLevel serviceLevel;
+    private final BucketCounts buckets;
+    // the recent durations which met and missed the service level's target
+    private final WindowedCounts outcomes;
+    private final long target;
     private final Clock clock;
+    // the number of durations in the histogram which were back-filled rather than timed
+    private final AtomicLong backfilled = new AtomicLong();
 
     /**
      * Creates a new {@link Timer}.
@@ -24,9 +45,50 @@ public class Timer implements Metered, Sampling, Summarizable {
      * @param clock        the clock used to calculate duration
      */
     Timer(TimeUnit durationUnit, TimeUnit rateUnit, Clock clock) {
+        this(durationUnit, rateUnit, clock, clock);
+    }
+
+    /**
+     * Creates a new {@link Timer}.
+     *
+     * @param durationUnit the scale unit for this timer's duration metrics
+     * @param rateUnit     the scale unit for this timer's rate metrics
+     * @param clock        the clock used to calculate duration
+     * @param rateClock    the clock used to calculate rates
+     */
+    Timer(TimeUnit durationUnit, TimeUnit rateUnit, Clock clock, Clock rateClock) {
+        this(durationUnit, rateUnit, clock, rateClock, new TimerOptions());
+    }
+
+    /**
+     * Creates a new {@link Timer} with the given optional features.
+     *
+     * @param durationUnit the scale unit for this timer's duration metrics
+     * @param rateUnit     the scale unit for this timer's rate metrics
+     * @param clock        the clock used to calculate duration
+     * @param rateClock    the clock used to calculate rates
+     * @param options      the timer's sample, slowest durations, and service level
+     */
+    Timer(TimeUnit durationUnit, TimeUnit rateUnit, Clock clock, Clock rateClock,
+          TimerOptions options) {
+        this.meter = new Meter("calls", rateUnit, rateClock);
+        this.histogram = new Histogram(options.getSample());
+        this.exemplars = options.getSlowest() > 0 ? new Exemplars(options.getSlowest(), clock) : null;
+        this.serviceLevel = options.getServiceLevel();
+        if (serviceLevel == null) {
+            this.buckets = null;
+            this.outcomes = null;
+            this.target = 0;
+        } else {
+            this.buckets = new BucketCounts(serviceLevel.getThresholds(TimeUnit.NANOSECONDS));
+            this.outcomes = new WindowedCounts(2,
+                                               serviceLevel.getBurnRateWindow(TimeUnit.NANOSECONDS),
+                                               TimeUnit.NANOSECONDS,
+                                               clock);
+            this.target = serviceLevel.getTarget(TimeUnit.NANOSECONDS);
+        }
         this.durationUnit = durationUnit;
         this.rateUnit = rateUnit;
-        this.meter = new Meter("calls", rateUnit, clock);
         this.clock = clock;
         clear();
     }
@@ -50,6 +112,14 @@ public class Timer implements Metered, Sampling, Summarizable {
      */
     public void clear() {
         histogram.clear();
+        backfilled.set(0);
+        if (exemplars != null) {
+            exemplars.clear();
+        }
+        if (buckets != null) {
+            buckets.clear();
+            outcomes.clear();
+        }
     }
 
     /**
@@ -62,6 +132,79 @@ public class Timer implements Metered, Sampling, Summarizable {
         update(unit.toNanos(duration));
     }
 
+    /**
+     * Adds a recorded duration of an operation which is expected to start every {@code
+     * expectedInterval} (e.g., in a load test or a batch worker), correcting for coordinated
+     * omission: if the operation took longer than the interval, the operations which should have
+     * started while it stalled are recorded too, with the durations they would have had.
+     * <p/>
+     * The back-filled durations count towards the timer's distribution (its minimum, maximum,
+     * mean, and percentiles) and service level, but not towards {@link #getCount()} or its rates,
+     * which only count the operations actually timed. As with {@link Histogram#update(long,
+     * long)}, at most {@value Histogram#MAX_BACKFILLED_VALUES} durations are back-filled for each
+     * duration recorded.
+     *
+     * @param duration         the length of the duration
+     * @param expectedInterval the expected interval between the starts of operations
+     * @param unit             the scale unit of {@code duration} and {@code expectedInterval}
+     * @see Histogram#update(long, long)
+     */
+    public void update(long duration, long expectedInterval, TimeUnit unit) {
+        final long nanos = unit.toNanos(duration);
+        final long interval = unit.toNanos(expectedInterval);
+        update(nanos);
+        final long missed = Histogram.getBackfilledCount(nanos, interval);
+        long missedTarget = 0;
+        for (long i = 0; i < missed; i++) {
+            final long missing = Histogram.getBackfilledValue(nanos, interval, i);
+            histogram.update(missing);
+            if (buckets != null) {
+                buckets.update(missing);
+                if (missing > target) {
+                    missedTarget++;
+                }
+            }
+        }
+        if (missed > 0) {
+            backfilled.addAndGet(missed);
+            if (outcomes != null) {
+                outcomes.add(MET, missed - missedTarget);
+                outcomes.add(MISSED, missedTarget);
+            }
+        }
+    }
+
+    /**
+     * Adds a recorded duration, with a tag (e.g., a request ID) which is kept if the duration is
+     * one of the timer's slowest.
+     *
+     * @param duration the length of the duration
+     * @param unit     the scale unit of {@code duration}
+     * @param tag      the tag of what was timed
+     */
+    public void update(long duration, TimeUnit unit, String tag) {
+        final long nanos = unit.toNanos(duration);
+        if (nanos >= 0) {
+            record(nanos);
+            if (exemplars != null) {
+                exemplars.update(nanos, tag);
+            }
+        }
+    }
+
+    /**
+     * Returns the slowest durations recorded in the last minute or two, from slowest to fastest,
+     * if the timer keeps them.
+     *
+     * @return the slowest recent durations, or an empty list if the timer doesn't keep them
+     */
+    public List<Exemplar> getSlowest() {
+        if (exemplars == null) {
+            return Collections.emptyList();
+        }
+        return exemplars.getSlowest();
+    }
+
     /**
      * Times and records the duration of event.
      *
@@ -89,9 +232,106 @@ public class Timer implements Metered, Sampling, Summarizable {
         return new TimerContext(this, clock);
     }
 
+    /**
+     * Returns the timer's service level.
+     *
+     * @return the timer's service level, or {@code null} if it has none
+     */
+    public ServiceLevel getServiceLevel() {
+        return serviceLevel;
+    }
+
+    /**
+     * Returns the latencies the timer counts durations against, in ascending order.
+     *
+     * @return the thresholds, in the timer's duration unit, or an empty array if the timer has no
+     *         service level
+     */
+    public double[] getThresholds() {
+        if (buckets == null) {
+            return new double[0];
+        }
+        final double[] thresholds = new double[buckets.size() - 1];
+        for (int i = 0; i < thresholds.length; i++) {
+            thresholds[i] = convertFromNS(buckets.getThreshold(i));
+        }
+        return thresholds;
+    }
+
+    /**
+     * Returns the exact number of recorded durations within each of {@link #getThresholds()}.
+     *
+     * @return the number of durations at or below each threshold
+     */
+    public long[] getThresholdCounts() {
+        if (buckets == null) {
+            return new long[0];
+        }
+        final long[] counts = buckets.getCounts();
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        return Arrays.copyOf(counts, counts.length - 1);
+    }
+
+    /**
+     * Returns the timer's Apdex score: the fraction of durations within the service level's
+     * target, plus half the fraction within four times the target.
+     *
+     * @return the Apdex score, from {@code 0} to {@code 1}, or {@code 1} if no durations have
+     *         been recorded or the timer has no service level
+     */
+    public double getApdex() {
+        if (buckets == null) {
+            return 1.0;
+        }
+        final long[] counts = buckets.getCounts();
+        long satisfied = 0, tolerating = 0, total = 0;
+        final long target = serviceLevel.getTarget(TimeUnit.NANOSECONDS);
+        for (int i = 0; i < counts.length; i++) {
+            if (i < counts.length - 1 && buckets.getThreshold(i) <= target) {
+                satisfied += counts[i];
+            } else if (i < counts.length - 1 && buckets.getThreshold(i) <= target * 4) {
+                tolerating += counts[i];
+            }
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 1.0;
+        }
+        return (satisfied + tolerating / 2.0) / total;
+    }
+
+    /**
+     * Returns the rate at which the timer is using up its error budget: the fraction of durations
+     * recorded within the service level's {@link ServiceLevel#getBurnRateWindow(TimeUnit) burn
+     * rate window} which missed its target, divided by the fraction allowed to. A rate above
+     * {@code 1} means the objective is being missed.
+     *
+     * @return the error budget burn rate, or {@code 0} if no durations have been recorded within
+     *         the window or the timer has no service level
+     */
+    public double getErrorBudgetBurnRate() {
+        if (outcomes == null) {
+            return 0.0;
+        }
+        final long[] counts = outcomes.getCounts();
+        final long total = counts[MET] + counts[MISSED];
+        if (total == 0) {
+            return 0.0;
+        }
+        return (counts[MISSED] / (double) total) / (1 - serviceLevel.getObjective());
+    }
+
+    /**
+     * Returns the number of operations timed, not counting any durations back-filled by {@link
+     * #update(long, long, TimeUnit)}.
+     *
+     * @return the number of operations timed
+     */
     @Override
     public long getCount() {
-        return histogram.getCount();
+        return Math.max(histogram.getCount() - backfilled.get(), 0);
     }
 
     @Override
@@ -166,12 +406,13 @@ public class Timer implements Metered, Sampling, Summarizable {
 
     @Override
     public Snapshot getSnapshot() {
-        final double[] values = histogram.getSnapshot().getValues();
+        final Snapshot snapshot = histogram.getSnapshot();
+        final double[] values = snapshot.getValues();
         final double[] converted = new double[values.length];
         for (int i = 0; i < values.length; i++) {
             converted[i] = convertFromNS(values[i]);
         }
-        return new Snapshot(converted);
+        return new Snapshot(converted, snapshot.getWeights());
     }
 
     @Override
@@ -181,8 +422,23 @@ public class Timer implements Metered, Sampling, Summarizable {
 
     private void update(long duration) {
         if (duration >= 0) {
-            histogram.update(duration);
-            meter.mark();
+            record(duration);
+            if (exemplars != null) {
+                exemplars.update(duration);
+            }
+        }
+    }
+
+    private void record(long duration) {
+        histogram.update(duration);
+        meter.mark();
+        countAgainstServiceLevel(duration);
+    }
+
+    private void countAgainstServiceLevel(long duration) {
+        if (buckets != null) {
+            buckets.update(duration);
+            outcomes.increment(duration > target ? MISSED : MET);
         }
     }
 
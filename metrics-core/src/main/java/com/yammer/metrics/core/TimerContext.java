@@ -32,4 +32,19 @@ public class TimerContext {
         timer.update(elapsedNanos, TimeUnit.NANOSECONDS);
         return elapsedNanos;
     }
+
+    /**
+     * Stops recording the elapsed time of an operation which is expected to start every {@code
+     * expectedInterval}, updates the timer, correcting for coordinated omission, and returns the
+     * elapsed time.
+     *
+     * @param expectedInterval the expected interval between the starts of operations
+     * @param unit             the unit of {@code expectedInterval}
+     * @see Timer#update(long, long, TimeUnit)
+     */
+    public long stop(long expectedInterval, TimeUnit unit) {
+        final long elapsedNanos = clock.getTick() - startTime;
+        timer.update(elapsedNanos, unit.toNanos(expectedInterval), TimeUnit.NANOSECONDS);
+        return elapsedNanos;
+    }
 }
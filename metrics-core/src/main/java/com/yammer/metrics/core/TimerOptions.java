@@ -0,0 +1,74 @@
+package com.yammer.metrics.core;
+
+import com.yammer.metrics.core.Histogram.SampleType;
+import com.yammer.metrics.stats.Sample;
+
+/**
+ * The optional features of a {@link Timer} created by {@link MetricsRegistry#newTimer(MetricName,
+ * java.util.concurrent.TimeUnit, java.util.concurrent.TimeUnit, TimerOptions)}, which can be
+ * combined:
+ * <pre>
+ * registry.newTimer(name, MILLISECONDS, SECONDS,
+ *                   new TimerOptions().sample(new TDigestSample())
+ *                                     .slowest(10)
+ *                                     .serviceLevel(new ServiceLevel(200, 0.99, MILLISECONDS)));
+ * </pre>
+ * By default, a timer keeps its durations in an exponentially decaying sample, keeps none of its
+ * slowest durations, and has no service level.
+ */
+public class TimerOptions {
+    private Sample sample;
+    private int slowest;
+    private ServiceLevel serviceLevel;
+
+    /**
+     * Keeps the timer's durations in the given sample (e.g., a {@link
+     * com.yammer.metrics.stats.TDigestSample}). Since a sample holds the durations, it must not be
+     * given to more than one timer.
+     *
+     * @param sample    the sample of the timer's durations, in nanoseconds
+     * @return {@code this}
+     */
+    public TimerOptions sample(Sample sample) {
+        this.sample = sample;
+        return this;
+    }
+
+    /**
+     * Keeps the timer's slowest recent durations as {@link Exemplar}s.
+     *
+     * @param slowest    the number of slowest durations to keep, or {@code 0} to keep none
+     * @return {@code this}
+     */
+    public TimerOptions slowest(int slowest) {
+        if (slowest < 0) {
+            throw new IllegalArgumentException("slowest must not be negative");
+        }
+        this.slowest = slowest;
+        return this;
+    }
+
+    /**
+     * Counts the timer's durations against the given service level.
+     *
+     * @param serviceLevel    the latency target and thresholds to count durations against, or
+     *                        {@code null} for none
+     * @return {@code this}
+     */
+    public TimerOptions serviceLevel(ServiceLevel serviceLevel) {
+        this.serviceLevel = serviceLevel;
+        return this;
+    }
+
+    Sample getSample() {
+        return sample == null ? SampleType.BIASED.newSample() : sample;
+    }
+
+    int getSlowest() {
+        return slowest;
+    }
+
+    ServiceLevel getServiceLevel() {
+        return serviceLevel;
+    }
+}
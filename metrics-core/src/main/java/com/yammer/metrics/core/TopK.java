@@ -0,0 +1,386 @@
+package com.yammer.metrics.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Math.exp;
+
+/**
+ * A metric which tracks the rates of the most frequent keys in a stream of events (e.g., the
+ * hottest SQL statements, URLs, or cache keys), using a fixed amount of memory however many
+ * distinct keys there are.
+ * <p/>
+ * Keys are counted with the Space-Saving algorithm: a fixed number of counters is kept, and a key
+ * which has no counter takes over the smallest one, inheriting its count as the upper bound of its
+ * error. Counts are exponentially decayed, so each key's rate means the same thing as a {@link
+ * Meter}'s moving average rate over the same window.
+ * <p/>
+ * The counters are kept in the paper's Stream-Summary: a list of buckets ordered by count, each
+ * holding the counters with that count, so that an update moves a counter to a neighbouring
+ * bucket instead of re-sorting anything, and the smallest counter is always at the head of the
+ * list. Rather than decaying every count, each event is weighted by how far the current tick is
+ * past a landmark, which is computed once per tick.
+ *
+ * @see <a href="http://www.cs.ucsb.edu/research/tech_reports/reports/2005-23.pdf">Metwally et al.
+ *      Efficient Computation of Frequent and Top-k Elements in Data Streams (2005)</a>
+ */
+public class TopK implements Metric {
+    /**
+     * A key and its estimated rate.
+     */
+    public static class Entry {
+        private final String key;
+        private final double rate;
+        private final double error;
+
+        private Entry(String key, double rate, double error) {
+            this.key = key;
+            this.rate = rate;
+            this.error = error;
+        }
+
+        /**
+         * Returns the key.
+         *
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Returns the estimated rate of the key's events, which may overestimate it by up to
+         * {@link #getError()}.
+         *
+         * @return the estimated rate of the key
+         */
+        public double getRate() {
+            return rate;
+        }
+
+        /**
+         * Returns the most by which {@link #getRate()} may overestimate the key's rate.
+         *
+         * @return the maximum error of the key's rate
+         */
+        public double getError() {
+            return error;
+        }
+    }
+
+    private static final int COUNTERS_PER_KEY = 4;
+    // rescale the counts before their weights get big enough to lose precision
+    private static final double RESCALE_THRESHOLD = 32;
+    // events in the same tick are given the same weight, as EWMA counts them in five-second ticks
+    private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    // a key's counter, in the list of counters of its bucket
+    private static class Counter {
+        private String key;
+        private double error;
+        private Bucket bucket;
+        private Counter previous, next;
+    }
+
+    // the counters which share a count, in the list of buckets ordered by count
+    private static class Bucket {
+        private double count;
+        private Counter first;
+        private Bucket previous, next;
+    }
+
+    private final int size;
+    private final String eventType;
+    private final TimeUnit rateUnit;
+    private final double window;
+    private final long tickInterval;
+    private final Clock clock;
+
+    private final Counter[] counters;
+    private final Map<String, Counter> index;
+    private Bucket smallest, largest, spare;
+    private int used;
+    private long landmark;
+    private long tick;
+    private double weight;
+
+    /**
+     * Creates a new {@link TopK}.
+     *
+     * @param size          the number of keys to report
+     * @param eventType     the plural name of the events being counted
+     * @param window        the time constant of the decay, as with {@link
+     *                      com.yammer.metrics.stats.EWMA}
+     * @param windowUnit    the unit of {@code window}
+     * @param rateUnit      the rate unit of the keys' rates
+     * @param clock         the clock to use for the decay
+     */
+    TopK(int size, String eventType, long window, TimeUnit windowUnit, TimeUnit rateUnit, Clock clock) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.size = size;
+        this.eventType = eventType;
+        this.rateUnit = rateUnit;
+        this.window = windowUnit.toNanos(window);
+        // keep a tick short enough that sharing a weight doesn't skew the rates of short windows
+        this.tickInterval = Math.min(TICK_INTERVAL, windowUnit.toNanos(window) / 60);
+        this.clock = clock;
+        this.counters = new Counter[size * COUNTERS_PER_KEY];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new Counter();
+        }
+        this.index = new HashMap<String, Counter>(counters.length * 4 / 3 + 1);
+        clear();
+    }
+
+    /**
+     * Returns the number of keys reported.
+     *
+     * @return the number of keys reported
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the plural name of the events being counted (e.g., {@code "queries"}).
+     *
+     * @return the type of events being counted
+     */
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Returns the rate unit of the keys' rates.
+     *
+     * @return the rate unit
+     */
+    public TimeUnit getRateUnit() {
+        return rateUnit;
+    }
+
+    /**
+     * Records an event for the given key.
+     *
+     * @param key    the key
+     */
+    public void update(String key) {
+        update(key, 1);
+    }
+
+    /**
+     * Records {@code n} events for the given key.
+     *
+     * @param key    the key
+     * @param n      the number of events
+     */
+    public synchronized void update(String key, long n) {
+        final long now = clock.getTick();
+        if (now - tick >= tickInterval) {
+            if (now - landmark > window * RESCALE_THRESHOLD) {
+                rescale(now);
+            }
+            this.tick = now;
+            this.weight = exp((now - landmark) / window);
+        }
+
+        Counter counter = index.get(key);
+        if (counter == null) {
+            if (used < counters.length) {
+                counter = counters[used++];
+                attachToSmallest(counter);
+            } else {
+                // take over the smallest counter, inheriting its count as the error
+                counter = smallest.first;
+                index.remove(counter.key);
+                counter.error = smallest.count;
+            }
+            counter.key = key;
+            index.put(key, counter);
+        }
+        increment(counter, n * weight);
+    }
+
+    /**
+     * Returns the keys with the highest rates, from highest to lowest.
+     *
+     * @return at most {@link #getSize()} keys and their rates
+     */
+    public List<Entry> getTop() {
+        final int count;
+        final String[] topKeys = new String[size];
+        final double[] topCounts = new double[size];
+        final double[] topErrors = new double[size];
+        final long now;
+        final long start;
+        synchronized (this) {
+            int i = 0;
+            for (Bucket bucket = largest; bucket != null && i < size; bucket = bucket.previous) {
+                for (Counter counter = bucket.first; counter != null && i < size; counter = counter.next) {
+                    topKeys[i] = counter.key;
+                    topCounts[i] = bucket.count;
+                    topErrors[i] = counter.error;
+                    i++;
+                }
+            }
+            count = i;
+            now = clock.getTick();
+            start = landmark;
+        }
+
+        // counts are in units of events at the landmark; decay them to now and make them rates
+        final double decay = exp(-(now - start) / window);
+        final double unit = rateUnit.toNanos(1);
+        final List<Entry> entries = new ArrayList<Entry>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Entry(topKeys[i],
+                                  topCounts[i] * decay * unit / window,
+                                  topErrors[i] * decay * unit / window));
+        }
+        return entries;
+    }
+
+    /**
+     * Forgets all keys.
+     */
+    public synchronized void clear() {
+        for (Counter counter : counters) {
+            counter.key = null;
+            counter.bucket = null;
+            counter.previous = null;
+            counter.next = null;
+        }
+        index.clear();
+        this.smallest = null;
+        this.largest = null;
+        this.spare = null;
+        this.used = 0;
+        this.landmark = clock.getTick();
+        this.tick = landmark;
+        this.weight = 1;
+    }
+
+    private void rescale(long now) {
+        // scaling every count by the same factor keeps the buckets in order
+        final double factor = exp(-(now - landmark) / window);
+        for (Bucket bucket = smallest; bucket != null; bucket = bucket.next) {
+            bucket.count *= factor;
+        }
+        for (int i = 0; i < used; i++) {
+            counters[i].error *= factor;
+        }
+        this.landmark = now;
+    }
+
+    private void attachToSmallest(Counter counter) {
+        counter.error = 0;
+        if (smallest == null || smallest.count > 0) {
+            insertAfter(null, newBucket(0));
+        }
+        attach(counter, smallest);
+    }
+
+    /*
+     * Moves a counter to the bucket of its new count, which for the usual update is the next one,
+     * or its own if no other counter shares it. Only an update big enough to overtake other
+     * buckets walks past them.
+     */
+    private void increment(Counter counter, double delta) {
+        final Bucket current = counter.bucket;
+        final double count = current.count + delta;
+        Bucket next = current.next;
+        while (next != null && next.count < count) {
+            next = next.next;
+        }
+
+        if (next != null && next.count == count) {
+            detach(counter);
+            attach(counter, next);
+        } else if (next == current.next && current.first == counter && counter.next == null) {
+            current.count = count;
+        } else {
+            final Bucket bucket = newBucket(count);
+            insertAfter(next == null ? largest : next.previous, bucket);
+            detach(counter);
+            attach(counter, bucket);
+        }
+    }
+
+    private void attach(Counter counter, Bucket bucket) {
+        counter.bucket = bucket;
+        counter.previous = null;
+        counter.next = bucket.first;
+        if (bucket.first != null) {
+            bucket.first.previous = counter;
+        }
+        bucket.first = counter;
+    }
+
+    private void detach(Counter counter) {
+        final Bucket bucket = counter.bucket;
+        if (counter.previous == null) {
+            bucket.first = counter.next;
+        } else {
+            counter.previous.next = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.previous = counter.previous;
+        }
+        counter.bucket = null;
+        counter.previous = null;
+        counter.next = null;
+        if (bucket.first == null) {
+            remove(bucket);
+        }
+    }
+
+    private void insertAfter(Bucket previous, Bucket bucket) {
+        final Bucket next = previous == null ? smallest : previous.next;
+        bucket.previous = previous;
+        bucket.next = next;
+        if (previous == null) {
+            this.smallest = bucket;
+        } else {
+            previous.next = bucket;
+        }
+        if (next == null) {
+            this.largest = bucket;
+        } else {
+            next.previous = bucket;
+        }
+    }
+
+    private void remove(Bucket bucket) {
+        if (bucket.previous == null) {
+            this.smallest = bucket.next;
+        } else {
+            bucket.previous.next = bucket.next;
+        }
+        if (bucket.next == null) {
+            this.largest = bucket.previous;
+        } else {
+            bucket.next.previous = bucket.previous;
+        }
+        // keep it for reuse, so that updates don't make garbage
+        bucket.previous = null;
+        bucket.next = spare;
+        this.spare = bucket;
+    }
+
+    private Bucket newBucket(double count) {
+        Bucket bucket = spare;
+        if (bucket == null) {
+            bucket = new Bucket();
+        } else {
+            this.spare = bucket.next;
+            bucket.next = null;
+        }
+        bucket.count = count;
+        return bucket;
+    }
+}
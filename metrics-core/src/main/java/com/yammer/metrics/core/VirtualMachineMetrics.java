@@ -15,6 +15,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class VirtualMachineMetrics {
     private static final int MAX_STACK_TRACE_DEPTH = 100;
+    private static final int THREAD_DUMP_CHUNK_SIZE = 256;
 
     private static final VirtualMachineMetrics INSTANCE = new VirtualMachineMetrics(
             ManagementFactory.getMemoryMXBean(),
@@ -121,6 +122,7 @@ public class VirtualMachineMetrics {
     private final List<GarbageCollectorMXBean> garbageCollectors;
     private final RuntimeMXBean runtime;
     private final MBeanServer mBeanServer;
+    private volatile ThreadStateSampler threadStateSampler;
 
     VirtualMachineMetrics(MemoryMXBean memory,
                           List<MemoryPoolMXBean> memoryPools,
@@ -361,12 +363,53 @@ public class VirtualMachineMetrics {
         return Collections.emptySet();
     }
 
+    /**
+     * Starts sampling thread states in the background. Until {@link
+     * #stopThreadStateSampling()} is called, {@link #getThreadStatePercentages()} returns the
+     * distribution of thread states over the most recent {@code window} samples instead of
+     * inspecting every live thread on each call.
+     *
+     * @param period        the amount of time between samples
+     * @param unit          the unit of {@code period}
+     * @param maxThreads    the maximum number of randomly-chosen threads to inspect in each
+     *                      sample, or {@code 0} to inspect all live threads
+     * @param window        the number of samples over which the distribution is kept
+     */
+    public synchronized void startThreadStateSampling(long period, TimeUnit unit, int maxThreads, int window) {
+        stopThreadStateSampling();
+        final ThreadStateSampler sampler = new ThreadStateSampler(threads, maxThreads, window);
+        sampler.start(period, unit);
+        this.threadStateSampler = sampler;
+    }
+
+    /**
+     * Stops sampling thread states in the background.
+     */
+    public synchronized void stopThreadStateSampling() {
+        final ThreadStateSampler sampler = threadStateSampler;
+        if (sampler != null) {
+            sampler.stop();
+            this.threadStateSampler = null;
+        }
+    }
+
     /**
      * Returns a map of thread states to the percentage of all threads which are in that state.
+     * If thread states are being sampled in the background, returns the most recent sampled
+     * distribution.
      *
      * @return a map of thread states to percentages
+     * @see #startThreadStateSampling(long, TimeUnit, int, int)
      */
     public Map<State, Double> getThreadStatePercentages() {
+        final ThreadStateSampler sampler = threadStateSampler;
+        if (sampler != null) {
+            final Map<State, Double> percentages = sampler.getPercentages();
+            if (percentages != null) {
+                return percentages;
+            }
+        }
+
         final Map<State, Double> conditions = new HashMap<State, Double>();
         for (State state : State.values()) {
             conditions.put(state, 0.0);
@@ -395,71 +438,183 @@ public class VirtualMachineMetrics {
      * @param out an output stream
      */
     public void getThreadDump(OutputStream out) {
-        final ThreadInfo[] threads = this.threads.dumpAllThreads(true, true);
-        final PrintWriter writer = new PrintWriter(out, true);
-
-        for (int ti = threads.length - 1; ti >= 0; ti--) {
-            final ThreadInfo t = threads[ti];
-            writer.printf("%s id=%d state=%s",
-                          t.getThreadName(),
-                          t.getThreadId(),
-                          t.getThreadState());
-            final LockInfo lock = t.getLockInfo();
-            if (lock != null && t.getThreadState() != Thread.State.BLOCKED) {
-                writer.printf("\n    - waiting on <0x%08x> (a %s)",
-                              lock.getIdentityHashCode(),
-                              lock.getClassName());
-                writer.printf("\n    - locked <0x%08x> (a %s)",
-                              lock.getIdentityHashCode(),
-                              lock.getClassName());
-            } else if (lock != null && t.getThreadState() == Thread.State.BLOCKED) {
-                writer.printf("\n    - waiting to lock <0x%08x> (a %s)",
-                              lock.getIdentityHashCode(),
-                              lock.getClassName());
-            }
+        getThreadDump(out, Integer.MAX_VALUE, true, false);
+    }
 
-            if (t.isSuspended()) {
-                writer.print(" (suspended)");
+    /**
+     * Dumps the threads' current information to an output stream, {@value #THREAD_DUMP_CHUNK_SIZE}
+     * threads at a time. Each chunk of threads is written and flushed before the next is
+     * collected, so only one chunk of thread information is held in memory at once.
+     * <p/>
+     * If {@code groupIdenticalStacks} is {@code true}, threads with the same state and stack are
+     * written once, along with the names of all the threads sharing that stack, and lock
+     * information is omitted. The output is then only written once every chunk has been
+     * collected.
+     *
+     * @param out                     an output stream
+     * @param maxDepth                the maximum number of stack frames to write for each thread;
+     *                                negative depths are treated as zero
+     * @param includeLocks            whether or not to collect and write the monitors and
+     *                                synchronizers locked by each thread, which is considerably
+     *                                more expensive
+     * @param groupIdenticalStacks    whether or not to write threads with identical stacks once
+     */
+    public void getThreadDump(OutputStream out, int maxDepth, boolean includeLocks, boolean groupIdenticalStacks) {
+        final PrintWriter writer = new PrintWriter(out);
+        final Map<List<Object>, List<String>> groups = new LinkedHashMap<List<Object>, List<String>>();
+        final long[] ids = reverse(threads.getAllThreadIds());
+        final int depth = Math.max(0, maxDepth);
+
+        for (int offset = 0; offset < ids.length; offset += THREAD_DUMP_CHUNK_SIZE) {
+            final long[] chunk = Arrays.copyOfRange(ids, offset, Math.min(ids.length, offset + THREAD_DUMP_CHUNK_SIZE));
+            final ThreadInfo[] infos = (includeLocks && !groupIdenticalStacks) ?
+                    threads.getThreadInfo(chunk, true, true) :
+                    threads.getThreadInfo(chunk, depth);
+            for (ThreadInfo info : infos) {
+                if (info != null) {
+                    if (groupIdenticalStacks) {
+                        addToGroup(groups, info, depth);
+                    } else {
+                        writeThread(writer, info, depth);
+                    }
+                }
             }
+            writer.flush();
+        }
 
-            if (t.isInNative()) {
-                writer.print(" (running in native)");
-            }
+        for (Map.Entry<List<Object>, List<String>> group : groups.entrySet()) {
+            writeGroup(writer, group.getKey(), group.getValue());
+        }
 
-            writer.println();
-            if (t.getLockOwnerName() != null) {
-                writer.printf("     owned by %s id=%d\n", t.getLockOwnerName(), t.getLockOwnerId());
-            }
+        writer.println();
+        writer.flush();
+    }
+
+    // threads have always been dumped from the last to the first
+    private static long[] reverse(long[] ids) {
+        final long[] reversed = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            reversed[i] = ids[ids.length - 1 - i];
+        }
+        return reversed;
+    }
 
-            final StackTraceElement[] elements = t.getStackTrace();
-            final MonitorInfo[] monitors = t.getLockedMonitors();
+    private static void writeThread(PrintWriter writer, ThreadInfo t, int maxDepth) {
+        writer.append(t.getThreadName())
+              .append(" id=").append(Long.toString(t.getThreadId()))
+              .append(" state=").append(t.getThreadState().toString());
+        final LockInfo lock = t.getLockInfo();
+        if (lock != null && t.getThreadState() != Thread.State.BLOCKED) {
+            writer.append("\n    - waiting on ");
+            writeLock(writer, lock);
+            writer.append("\n    - locked ");
+            writeLock(writer, lock);
+        } else if (lock != null && t.getThreadState() == Thread.State.BLOCKED) {
+            writer.append("\n    - waiting to lock ");
+            writeLock(writer, lock);
+        }
+
+        if (t.isSuspended()) {
+            writer.print(" (suspended)");
+        }
+
+        if (t.isInNative()) {
+            writer.print(" (running in native)");
+        }
+
+        writer.println();
+        if (t.getLockOwnerName() != null) {
+            writer.append("     owned by ").append(t.getLockOwnerName())
+                  .append(" id=").append(Long.toString(t.getLockOwnerId())).append('\n');
+        }
 
-            for (int i = 0; i < elements.length; i++) {
-                final StackTraceElement element = elements[i];
-                writer.printf("    at %s\n", element);
-                for (int j = 1; j < monitors.length; j++) {
-                    final MonitorInfo monitor = monitors[j];
-                    if (monitor.getLockedStackDepth() == i) {
-                        writer.printf("      - locked %s\n", monitor);
+        final StackTraceElement[] elements = t.getStackTrace();
+        final MonitorInfo[] monitors = t.getLockedMonitors();
+        final int depth = Math.min(elements.length, maxDepth);
+
+        // index the locked monitors by stack depth, so each frame's monitors are found directly
+        final List<List<MonitorInfo>> monitorsByDepth = new ArrayList<List<MonitorInfo>>(depth);
+        if (monitors.length > 0) {
+            for (int i = 0; i < depth; i++) {
+                monitorsByDepth.add(null);
+            }
+            for (MonitorInfo monitor : monitors) {
+                final int frame = monitor.getLockedStackDepth();
+                if (frame >= 0 && frame < depth) {
+                    List<MonitorInfo> list = monitorsByDepth.get(frame);
+                    if (list == null) {
+                        list = new ArrayList<MonitorInfo>(1);
+                        monitorsByDepth.set(frame, list);
                     }
+                    list.add(monitor);
                 }
             }
-            writer.println();
+        }
 
-            final LockInfo[] locks = t.getLockedSynchronizers();
-            if (locks.length > 0) {
-                writer.printf("    Locked synchronizers: count = %d\n", locks.length);
-                for (LockInfo l : locks) {
-                    writer.printf("      - %s\n", l);
+        for (int i = 0; i < depth; i++) {
+            writer.append("    at ").append(elements[i].toString()).append('\n');
+            if (!monitorsByDepth.isEmpty() && monitorsByDepth.get(i) != null) {
+                for (MonitorInfo monitor : monitorsByDepth.get(i)) {
+                    writer.append("      - locked ").append(monitor.toString()).append('\n');
                 }
-                writer.println();
             }
         }
+        if (depth < elements.length) {
+            writer.append("    ...\n");
+        }
+        writer.println();
 
+        final LockInfo[] locks = t.getLockedSynchronizers();
+        if (locks.length > 0) {
+            writer.append("    Locked synchronizers: count = ")
+                  .append(Integer.toString(locks.length)).append('\n');
+            for (LockInfo l : locks) {
+                writer.append("      - ").append(l.toString()).append('\n');
+            }
+            writer.println();
+        }
+    }
+
+    private static void writeLock(PrintWriter writer, LockInfo lock) {
+        writer.append("<0x");
+        final String hash = Integer.toHexString(lock.getIdentityHashCode());
+        for (int i = hash.length(); i < 8; i++) {
+            writer.append('0');
+        }
+        writer.append(hash).append("> (a ").append(lock.getClassName()).append(')');
+    }
+
+    private static void addToGroup(Map<List<Object>, List<String>> groups, ThreadInfo t, int maxDepth) {
+        final StackTraceElement[] elements = t.getStackTrace();
+        final int depth = Math.min(elements.length, maxDepth);
+        final List<Object> key = new ArrayList<Object>(depth + 1);
+        key.add(t.getThreadState());
+        key.addAll(Arrays.asList(elements).subList(0, depth));
+        List<String> names = groups.get(key);
+        if (names == null) {
+            names = new ArrayList<String>();
+            groups.put(key, names);
+        }
+        names.add(t.getThreadName());
+    }
+
+    private static void writeGroup(PrintWriter writer, List<Object> key, List<String> names) {
+        writer.append(Integer.toString(names.size()))
+              .append(names.size() == 1 ? " thread" : " threads")
+              .append(" state=").append(key.get(0).toString()).append(": ");
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                writer.append(", ");
+            }
+            writer.append(names.get(i));
+        }
+        writer.println();
+        for (int i = 1; i < key.size(); i++) {
+            writer.append("    at ").append(key.get(i).toString()).append('\n');
+        }
         writer.println();
-        writer.flush();
     }
-    
+
     public Map<String, BufferPoolStats> getBufferPoolStats() {
         try {
             final String[] attributes = { "Count", "MemoryUsed", "TotalCapacity" };
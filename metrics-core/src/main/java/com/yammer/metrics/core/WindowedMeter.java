@@ -0,0 +1,152 @@
+package com.yammer.metrics.core;
+
+import com.yammer.metrics.stats.MovingAverages;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A meter metric which measures mean throughput and exponentially-weighted moving average
+ * throughputs over a set of windows chosen when it's created (e.g., ten seconds, one minute, and
+ * one hour), rather than {@link Meter}'s one, five, and fifteen minutes.
+ *
+ * @see MovingAverages
+ */
+public class WindowedMeter implements Metric {
+    private static final TimeUnit[] NAME_UNITS = {
+            TimeUnit.DAYS, TimeUnit.HOURS, TimeUnit.MINUTES, TimeUnit.SECONDS,
+            TimeUnit.MILLISECONDS, TimeUnit.MICROSECONDS
+    };
+    private static final String[] NAME_SUFFIXES = { "d", "h", "m", "s", "ms", "us" };
+
+    private final MovingAverages rates;
+    private final AtomicLong count = new AtomicLong();
+    private final long startTime;
+    private final TimeUnit rateUnit;
+    private final String eventType;
+    private final Clock clock;
+
+    /**
+     * Creates a new {@link WindowedMeter}.
+     *
+     * @param eventType     the plural name of the event the meter is measuring (e.g., {@code
+     *                      "requests"})
+     * @param rateUnit      the rate unit of the new meter
+     * @param clock         the clock to use for the meter ticks
+     * @param windowUnit    the unit of {@code windows}
+     * @param windows       the window of each moving average
+     */
+    WindowedMeter(String eventType, TimeUnit rateUnit, Clock clock, TimeUnit windowUnit, long... windows) {
+        this.rateUnit = rateUnit;
+        this.eventType = eventType;
+        this.clock = clock;
+        this.startTime = clock.getTick();
+        this.rates = new MovingAverages(clock, windowUnit, windows);
+    }
+
+    /**
+     * Returns the meter's rate unit.
+     *
+     * @return the meter's rate unit
+     */
+    public TimeUnit getRateUnit() {
+        return rateUnit;
+    }
+
+    /**
+     * Returns the type of events the meter is measuring.
+     *
+     * @return the meter's event type
+     */
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Mark the occurrence of an event.
+     */
+    public void mark() {
+        mark(1);
+    }
+
+    /**
+     * Mark the occurrence of a given number of events.
+     *
+     * @param n the number of events
+     */
+    public void mark(long n) {
+        rates.update(n);
+        count.addAndGet(n);
+    }
+
+    /**
+     * Returns the number of events which have been marked.
+     *
+     * @return the number of events which have been marked
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean rate at which events have occurred since the meter was created.
+     *
+     * @return the mean rate at which events have occurred since the meter was created
+     */
+    public double getMeanRate() {
+        if (getCount() == 0) {
+            return 0.0;
+        } else {
+            final long elapsed = (clock.getTick() - startTime);
+            return getCount() / (double) elapsed * (double) rateUnit.toNanos(1);
+        }
+    }
+
+    /**
+     * Returns the number of windows.
+     *
+     * @return the number of windows
+     */
+    public int getWindowCount() {
+        return rates.size();
+    }
+
+    /**
+     * Returns the length of the given window.
+     *
+     * @param index    the index of the window
+     * @param unit     the unit of the returned length
+     * @return the length of the window
+     */
+    public long getWindow(int index, TimeUnit unit) {
+        return rates.getWindow(index, unit);
+    }
+
+    /**
+     * Returns a short name for the given window, in the largest unit which divides it evenly
+     * (e.g., {@code "10s"}, {@code "1m"}, or {@code "1h"}).
+     *
+     * @param index    the index of the window
+     * @return the name of the window
+     */
+    public String getWindowName(int index) {
+        final long nanos = rates.getWindow(index, TimeUnit.NANOSECONDS);
+        for (int i = 0; i < NAME_UNITS.length; i++) {
+            final long unitNanos = NAME_UNITS[i].toNanos(1);
+            if (nanos % unitNanos == 0) {
+                return (nanos / unitNanos) + NAME_SUFFIXES[i];
+            }
+        }
+        return nanos + "ns";
+    }
+
+    /**
+     * Returns the exponentially-weighted moving average rate over the given window.
+     *
+     * @param index    the index of the window
+     * @return the rate at which events have occurred over the window
+     */
+    public double getRate(int index) {
+        return rates.getRate(index, rateUnit);
+    }
+}
@@ -1,43 +1,17 @@
 package com.yammer.metrics.reporting;
 
 import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.util.NamedThreadFactory;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An abstract base class for all reporter implementations which periodically poll registered
  * metrics (e.g., to send the data to another service).
  */
 public abstract class AbstractPollingReporter extends AbstractReporter implements Runnable {
-    /**
-     * A simple named thread factory.
-     */
-    private static class NamedThreadFactory implements ThreadFactory {
-        private final ThreadGroup group;
-        private final AtomicInteger threadNumber = new AtomicInteger(1);
-        private final String namePrefix;
-
-        private NamedThreadFactory(String name) {
-            final SecurityManager s = System.getSecurityManager();
-            this.group = (s != null) ? s.getThreadGroup() : Thread.currentThread().getThreadGroup();
-            this.namePrefix = "metrics-" + name + "-thread-";
-        }
-
-        @Override
-        public Thread newThread(Runnable r) {
-            final Thread t = new Thread(group, r, namePrefix + threadNumber.getAndIncrement(), 0);
-            t.setDaemon(true);
-            if (t.getPriority() != Thread.NORM_PRIORITY) {
-                t.setPriority(Thread.NORM_PRIORITY);
-            }
-            return t;
-        }
-    }
-
     private final ScheduledExecutorService executor;
 
     /**
@@ -78,4 +52,19 @@ public abstract class AbstractPollingReporter extends AbstractReporter implement
      */
     @Override
     public abstract void run();
+
+    /**
+     * Formats one of a {@link com.yammer.metrics.core.Timer}'s thresholds as part of a dotted
+     * metric name: e.g., {@code 200} for {@code 200.0}, and {@code 0_5} for {@code 0.5}, since
+     * dots separate the parts of the name.
+     *
+     * @param threshold    a threshold, in the timer's duration unit
+     * @return the threshold, without any dots
+     */
+    protected static String formatThreshold(double threshold) {
+        if (threshold == Math.rint(threshold)) {
+            return Long.toString((long) threshold);
+        }
+        return Double.toString(threshold).replace('.', '_');
+    }
 }
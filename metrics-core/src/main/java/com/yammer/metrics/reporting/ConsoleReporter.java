@@ -214,6 +214,59 @@ public class ConsoleReporter extends AbstractPollingReporter implements
         stream.printf(locale, "              98%% <= %2.2f%s\n", snapshot.get98thPercentile(), durationUnit);
         stream.printf(locale, "              99%% <= %2.2f%s\n", snapshot.get99thPercentile(), durationUnit);
         stream.printf(locale, "            99.9%% <= %2.2f%s\n", snapshot.get999thPercentile(), durationUnit);
+        if (timer.getServiceLevel() != null) {
+            stream.printf(locale, "             apdex = %2.2f\n", timer.getApdex());
+            stream.printf(locale, "  budget burn rate = %2.2f\n", timer.getErrorBudgetBurnRate());
+            final double[] thresholds = timer.getThresholds();
+            final long[] counts = timer.getThresholdCounts();
+            for (int i = 0; i < thresholds.length; i++) {
+                stream.printf(locale, "%18s = %d\n",
+                              String.format(locale, "<= %2.2f%s", thresholds[i], durationUnit),
+                              counts[i]);
+            }
+        }
+    }
+
+    @Override
+    public void processTopK(MetricName name, TopK topK, PrintStream stream) {
+        final String unit = abbrev(topK.getRateUnit());
+        for (TopK.Entry entry : topK.getTop()) {
+            stream.printf(locale, "    %s = %2.2f %s/%s\n",
+                          entry.getKey(),
+                          entry.getRate(),
+                          topK.getEventType(),
+                          unit);
+        }
+    }
+
+    @Override
+    public void processCardinality(MetricName name, Cardinality cardinality, PrintStream stream) {
+        stream.printf(locale, "    distinct = %d\n", cardinality.getCount());
+    }
+
+    @Override
+    public void processConcurrency(MetricName name, Concurrency concurrency, PrintStream stream) {
+        final Concurrency.Reading reading = concurrency.read(this);
+        stream.printf(locale, "    count = %d\n", reading.getCount());
+        stream.printf(locale, "      max = %d\n", reading.getMax());
+        stream.printf(locale, "     mean = %2.2f\n", reading.getMean());
+    }
+
+    @Override
+    public void processWindowedMeter(MetricName name, WindowedMeter meter, PrintStream stream) {
+        final String unit = abbrev(meter.getRateUnit());
+        stream.printf(locale, "             count = %d\n", meter.getCount());
+        stream.printf(locale, "         mean rate = %2.2f %s/%s\n",
+                      meter.getMeanRate(),
+                      meter.getEventType(),
+                      unit);
+        for (int i = 0; i < meter.getWindowCount(); i++) {
+            stream.printf(locale, "%18s = %2.2f %s/%s\n",
+                          meter.getWindowName(i) + " rate",
+                          meter.getRate(i),
+                          meter.getEventType(),
+                          unit);
+        }
     }
 
     private String abbrev(TimeUnit unit) {
@@ -214,7 +214,20 @@ public class CsvReporter extends AbstractPollingReporter implements
 
     @Override
     public void processTimer(MetricName name, Timer timer, Context context) throws IOException {
-        final PrintStream stream = context.getStream("# time,count,1 min rate,mean rate,5 min rate,15 min rate,min,max,mean,median,stddev,95%,99%,99.9%");
+        final StringBuilder header = new StringBuilder("# time,count,1 min rate,mean rate,5 min rate,15 min rate,min,max,mean,median,stddev,95%,99%,99.9%");
+        final StringBuilder serviceLevel = new StringBuilder();
+        if (timer.getServiceLevel() != null) {
+            header.append(",apdex,error budget burn rate");
+            serviceLevel.append(',').append(timer.getApdex())
+                        .append(',').append(timer.getErrorBudgetBurnRate());
+            final double[] thresholds = timer.getThresholds();
+            final long[] counts = timer.getThresholdCounts();
+            for (int i = 0; i < thresholds.length; i++) {
+                header.append(",<= ").append(thresholds[i]);
+                serviceLevel.append(',').append(counts[i]);
+            }
+        }
+        final PrintStream stream = context.getStream(header.toString());
         final Snapshot snapshot = timer.getSnapshot();
         stream.append(new StringBuilder()
                               .append(timer.getCount()).append(',')
@@ -229,7 +242,8 @@ public class CsvReporter extends AbstractPollingReporter implements
                               .append(timer.getStdDev()).append(',')
                               .append(snapshot.get95thPercentile()).append(',')
                               .append(snapshot.get99thPercentile()).append(',')
-                              .append(snapshot.get999thPercentile()).toString())
+                              .append(snapshot.get999thPercentile())
+                              .append(serviceLevel).toString())
                 .println();
         stream.flush();
     }
@@ -241,6 +255,54 @@ public class CsvReporter extends AbstractPollingReporter implements
         stream.flush();
     }
 
+    @Override
+    public void processTopK(MetricName name, TopK topK, Context context) throws IOException {
+        // one row per key, each of which starts with the time
+        for (TopK.Entry entry : topK.getTop()) {
+            final PrintStream stream = context.getStream("# time,key,rate,error");
+            stream.append(new StringBuilder()
+                                  .append('"').append(entry.getKey().replace("\"", "\"\"")).append('"').append(',')
+                                  .append(entry.getRate()).append(',')
+                                  .append(entry.getError()).toString())
+                  .println();
+            stream.flush();
+        }
+    }
+
+    @Override
+    public void processCardinality(MetricName name, Cardinality cardinality, Context context) throws IOException {
+        final PrintStream stream = context.getStream("# time,distinct");
+        stream.println(cardinality.getCount());
+        stream.flush();
+    }
+
+    @Override
+    public void processConcurrency(MetricName name, Concurrency concurrency, Context context) throws IOException {
+        final PrintStream stream = context.getStream("# time,count,max,mean");
+        final Concurrency.Reading reading = concurrency.read(this);
+        stream.append(new StringBuilder()
+                              .append(reading.getCount()).append(',')
+                              .append(reading.getMax()).append(',')
+                              .append(reading.getMean()).toString())
+              .println();
+        stream.flush();
+    }
+
+    @Override
+    public void processWindowedMeter(MetricName name, WindowedMeter meter, Context context) throws IOException {
+        final StringBuilder header = new StringBuilder("# time,count,mean rate");
+        final StringBuilder row = new StringBuilder()
+                .append(meter.getCount()).append(',')
+                .append(meter.getMeanRate());
+        for (int i = 0; i < meter.getWindowCount(); i++) {
+            header.append(',').append(meter.getWindowName(i)).append(" rate");
+            row.append(',').append(meter.getRate(i));
+        }
+        final PrintStream stream = context.getStream(header.toString());
+        stream.append(row.toString()).println();
+        stream.flush();
+    }
+
     @Override
     public void start(long period, TimeUnit unit) {
         this.startTime = clock.getTime();
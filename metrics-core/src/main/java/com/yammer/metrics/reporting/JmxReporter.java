@@ -1,23 +1,34 @@
 package com.yammer.metrics.reporting;
 
 import com.yammer.metrics.core.*;
+import com.yammer.metrics.stats.Snapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.management.*;
+import javax.management.openmbean.*;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
 import static javax.management.ObjectName.quote;
 
 /**
  * A reporter which exposes application metric as JMX MBeans.
+ * <p/>
+ * In addition to one MBean per metric, the reporter registers a single
+ * {@code com.yammer.metrics:type=Registry} MBean which returns all metrics (or those whose names
+ * match a regular expression) as a {@link TabularData} value in one call.
  */
 public class JmxReporter extends AbstractReporter implements MetricsRegistryListener,
                                                              MetricProcessor<JmxReporter.Context> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JmxReporter.class);
+    private static final long DEFAULT_SNAPSHOT_TTL = 1;
 
     // CHECKSTYLE:OFF
     @SuppressWarnings("UnusedDeclaration")
@@ -179,10 +190,13 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
     private static class Histogram implements HistogramMBean {
         private final ObjectName objectName;
         private final com.yammer.metrics.core.Histogram metric;
+        private final SnapshotCache snapshots;
 
-        private Histogram(com.yammer.metrics.core.Histogram metric, ObjectName objectName) {
+        private Histogram(com.yammer.metrics.core.Histogram metric, ObjectName objectName,
+                          SnapshotCache snapshots) {
             this.metric = metric;
             this.objectName = objectName;
+            this.snapshots = snapshots;
         }
 
         @Override
@@ -192,7 +206,7 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
 
         @Override
         public double get50thPercentile() {
-            return metric.getSnapshot().getMedian();
+            return snapshots.get().getMedian();
         }
 
         @Override
@@ -222,32 +236,32 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
 
         @Override
         public double get75thPercentile() {
-            return metric.getSnapshot().get75thPercentile();
+            return snapshots.get().get75thPercentile();
         }
 
         @Override
         public double get95thPercentile() {
-            return metric.getSnapshot().get95thPercentile();
+            return snapshots.get().get95thPercentile();
         }
 
         @Override
         public double get98thPercentile() {
-            return metric.getSnapshot().get98thPercentile();
+            return snapshots.get().get98thPercentile();
         }
 
         @Override
         public double get99thPercentile() {
-            return metric.getSnapshot().get99thPercentile();
+            return snapshots.get().get99thPercentile();
         }
 
         @Override
         public double get999thPercentile() {
-            return metric.getSnapshot().get999thPercentile();
+            return snapshots.get().get999thPercentile();
         }
 
         @Override
         public double[] values() {
-            return metric.getSnapshot().getValues();
+            return snapshots.get().getValues();
         }
     }
 
@@ -255,20 +269,84 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
     @SuppressWarnings("UnusedDeclaration")
     public interface TimerMBean extends MeterMBean, HistogramMBean {
         TimeUnit getLatencyUnit();
+
+        TabularData getSlowest();
+
+        double getApdex();
+
+        double getErrorBudgetBurnRate();
+
+        double[] getThresholds();
+
+        long[] getThresholdCounts();
     }
     // CHECKSTYLE:ON
 
     static class Timer extends Meter implements TimerMBean {
+        private static final String[] ITEM_NAMES = { "rank", "duration", "timestamp", "tag" };
+        private static final OpenType<?>[] ITEM_TYPES = {
+                SimpleType.INTEGER, SimpleType.DOUBLE, SimpleType.LONG, SimpleType.STRING
+        };
+
         private final com.yammer.metrics.core.Timer metric;
+        private final SnapshotCache snapshots;
+        private final CompositeType rowType;
+        private final TabularType tableType;
 
-        private Timer(com.yammer.metrics.core.Timer metric, ObjectName objectName) {
+        private Timer(com.yammer.metrics.core.Timer metric, ObjectName objectName,
+                      SnapshotCache snapshots) throws OpenDataException {
             super(metric, objectName);
             this.metric = metric;
+            this.snapshots = snapshots;
+            this.rowType = new CompositeType("exemplar", "One of the slowest durations",
+                                             ITEM_NAMES, ITEM_NAMES, ITEM_TYPES);
+            this.tableType = new TabularType("slowest", "The slowest durations",
+                                             rowType, new String[]{ "rank" });
+        }
+
+        @Override
+        public double getApdex() {
+            return metric.getApdex();
+        }
+
+        @Override
+        public double getErrorBudgetBurnRate() {
+            return metric.getErrorBudgetBurnRate();
+        }
+
+        @Override
+        public double[] getThresholds() {
+            return metric.getThresholds();
+        }
+
+        @Override
+        public long[] getThresholdCounts() {
+            return metric.getThresholdCounts();
+        }
+
+        @Override
+        public TabularData getSlowest() {
+            final List<Exemplar> slowest = metric.getSlowest();
+            final TabularDataSupport table = new TabularDataSupport(tableType, slowest.size(), 0.75f);
+            for (int i = 0; i < slowest.size(); i++) {
+                final Exemplar exemplar = slowest.get(i);
+                try {
+                    table.put(new CompositeDataSupport(rowType, ITEM_NAMES, new Object[]{
+                            i + 1,
+                            exemplar.getDuration(metric.getDurationUnit()),
+                            exemplar.getTimestamp(),
+                            exemplar.getTag()
+                    }));
+                } catch (OpenDataException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return table;
         }
 
         @Override
         public double get50thPercentile() {
-            return metric.getSnapshot().getMedian();
+            return snapshots.get().getMedian();
         }
 
         @Override
@@ -298,32 +376,507 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
 
         @Override
         public double get75thPercentile() {
-            return metric.getSnapshot().get75thPercentile();
+            return snapshots.get().get75thPercentile();
         }
 
         @Override
         public double get95thPercentile() {
-            return metric.getSnapshot().get95thPercentile();
+            return snapshots.get().get95thPercentile();
         }
 
         @Override
         public double get98thPercentile() {
-            return metric.getSnapshot().get98thPercentile();
+            return snapshots.get().get98thPercentile();
         }
 
         @Override
         public double get99thPercentile() {
-            return metric.getSnapshot().get99thPercentile();
+            return snapshots.get().get99thPercentile();
         }
 
         @Override
         public double get999thPercentile() {
-            return metric.getSnapshot().get999thPercentile();
+            return snapshots.get().get999thPercentile();
         }
 
         @Override
         public double[] values() {
-            return metric.getSnapshot().getValues();
+            return snapshots.get().getValues();
+        }
+    }
+
+    // CHECKSTYLE:OFF
+    @SuppressWarnings("UnusedDeclaration")
+    public interface TopKMBean extends MetricMBean {
+        String getEventType();
+
+        TimeUnit getRateUnit();
+
+        TabularData getTop();
+    }
+    // CHECKSTYLE:ON
+
+    private static class TopK extends AbstractBean implements TopKMBean {
+        private static final String[] ITEM_NAMES = { "key", "rate", "error" };
+        private static final OpenType<?>[] ITEM_TYPES = {
+                SimpleType.STRING, SimpleType.DOUBLE, SimpleType.DOUBLE
+        };
+
+        private final com.yammer.metrics.core.TopK metric;
+        private final CompositeType rowType;
+        private final TabularType tableType;
+
+        private TopK(com.yammer.metrics.core.TopK metric, ObjectName objectName) throws OpenDataException {
+            super(objectName);
+            this.metric = metric;
+            this.rowType = new CompositeType("key", "A key's estimated rate",
+                                             ITEM_NAMES, ITEM_NAMES, ITEM_TYPES);
+            this.tableType = new TabularType("top", "The keys with the highest rates",
+                                             rowType, new String[]{ "key" });
+        }
+
+        @Override
+        public String getEventType() {
+            return metric.getEventType();
+        }
+
+        @Override
+        public TimeUnit getRateUnit() {
+            return metric.getRateUnit();
+        }
+
+        @Override
+        public TabularData getTop() {
+            final List<com.yammer.metrics.core.TopK.Entry> entries = metric.getTop();
+            final TabularDataSupport table = new TabularDataSupport(tableType, entries.size(), 0.75f);
+            for (com.yammer.metrics.core.TopK.Entry entry : entries) {
+                try {
+                    table.put(new CompositeDataSupport(rowType, ITEM_NAMES, new Object[]{
+                            entry.getKey(), entry.getRate(), entry.getError()
+                    }));
+                } catch (OpenDataException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return table;
+        }
+    }
+
+    // CHECKSTYLE:OFF
+    @SuppressWarnings("UnusedDeclaration")
+    public interface CardinalityMBean extends MetricMBean {
+        long getCount();
+
+        int getPrecision();
+    }
+    // CHECKSTYLE:ON
+
+    private static class Cardinality extends AbstractBean implements CardinalityMBean {
+        private final com.yammer.metrics.core.Cardinality metric;
+
+        private Cardinality(com.yammer.metrics.core.Cardinality metric, ObjectName objectName) {
+            super(objectName);
+            this.metric = metric;
+        }
+
+        @Override
+        public long getCount() {
+            return metric.getCount();
+        }
+
+        @Override
+        public int getPrecision() {
+            return metric.getPrecision();
+        }
+    }
+
+    // CHECKSTYLE:OFF
+    @SuppressWarnings("UnusedDeclaration")
+    public interface ConcurrencyMBean extends MetricMBean {
+        long getCount();
+
+        long getMax();
+
+        double getMean();
+    }
+    // CHECKSTYLE:ON
+
+    private static class Concurrency extends AbstractBean implements ConcurrencyMBean {
+        private final com.yammer.metrics.core.Concurrency metric;
+
+        private Concurrency(com.yammer.metrics.core.Concurrency metric, ObjectName objectName) {
+            super(objectName);
+            this.metric = metric;
+        }
+
+        @Override
+        public long getCount() {
+            return metric.getCount();
+        }
+
+        @Override
+        public long getMax() {
+            return metric.getMax();
+        }
+
+        @Override
+        public double getMean() {
+            return metric.getMean();
+        }
+    }
+
+    // CHECKSTYLE:OFF
+    @SuppressWarnings("UnusedDeclaration")
+    public interface WindowedMeterMBean extends MetricMBean {
+        long getCount();
+
+        String getEventType();
+
+        TimeUnit getRateUnit();
+
+        double getMeanRate();
+
+        String[] getWindows();
+
+        double[] getRates();
+    }
+    // CHECKSTYLE:ON
+
+    private static class WindowedMeter extends AbstractBean implements WindowedMeterMBean {
+        private final com.yammer.metrics.core.WindowedMeter metric;
+
+        private WindowedMeter(com.yammer.metrics.core.WindowedMeter metric, ObjectName objectName) {
+            super(objectName);
+            this.metric = metric;
+        }
+
+        @Override
+        public long getCount() {
+            return metric.getCount();
+        }
+
+        @Override
+        public String getEventType() {
+            return metric.getEventType();
+        }
+
+        @Override
+        public TimeUnit getRateUnit() {
+            return metric.getRateUnit();
+        }
+
+        @Override
+        public double getMeanRate() {
+            return metric.getMeanRate();
+        }
+
+        @Override
+        public String[] getWindows() {
+            final String[] windows = new String[metric.getWindowCount()];
+            for (int i = 0; i < windows.length; i++) {
+                windows[i] = metric.getWindowName(i);
+            }
+            return windows;
+        }
+
+        @Override
+        public double[] getRates() {
+            final double[] rates = new double[metric.getWindowCount()];
+            for (int i = 0; i < rates.length; i++) {
+                rates[i] = metric.getRate(i);
+            }
+            return rates;
+        }
+    }
+
+    /**
+     * Caches a metric's {@link Snapshot} for a short period of time, so that reading all of a
+     * bean's percentiles copies and sorts the underlying sample only once.
+     */
+    private static class SnapshotCache {
+        private static class CachedSnapshot {
+            private final Snapshot snapshot;
+            private final long timestamp;
+
+            private CachedSnapshot(Snapshot snapshot, long timestamp) {
+                this.snapshot = snapshot;
+                this.timestamp = timestamp;
+            }
+        }
+
+        private final Sampling metric;
+        private final Clock clock;
+        private final long ttl;
+        private final ThreadLocal<Snapshot> pinned = new ThreadLocal<Snapshot>();
+        private volatile CachedSnapshot cached;
+
+        private SnapshotCache(Sampling metric, Clock clock, long ttl) {
+            this.metric = metric;
+            this.clock = clock;
+            this.ttl = ttl;
+        }
+
+        Snapshot get() {
+            final Snapshot snapshot = pinned.get();
+            if (snapshot != null) {
+                return snapshot;
+            }
+
+            final long now = clock.getTick();
+            final CachedSnapshot current = cached;
+            if (current != null && now - current.timestamp < ttl) {
+                return current.snapshot;
+            }
+
+            final CachedSnapshot fresh = new CachedSnapshot(metric.getSnapshot(), now);
+            this.cached = fresh;
+            return fresh.snapshot;
+        }
+
+        /**
+         * Serves all reads from the current thread from a single snapshot until {@link #unpin()}.
+         */
+        void pin() {
+            pinned.set(get());
+        }
+
+        void unpin() {
+            pinned.remove();
+        }
+    }
+
+    /**
+     * A {@link StandardMBean} which reads all the attributes of a {@link #getAttributes(String[])}
+     * call from a single snapshot.
+     */
+    private static class SnapshotBean<T> extends StandardMBean {
+        private final SnapshotCache snapshots;
+
+        private SnapshotBean(T bean, Class<T> mbeanInterface, SnapshotCache snapshots)
+                throws NotCompliantMBeanException {
+            super(bean, mbeanInterface);
+            this.snapshots = snapshots;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            snapshots.pin();
+            try {
+                return super.getAttributes(attributes);
+            } finally {
+                snapshots.unpin();
+            }
+        }
+    }
+
+    // CHECKSTYLE:OFF
+    @SuppressWarnings("UnusedDeclaration")
+    public interface RegistryMBean {
+        TabularData getMetrics();
+
+        TabularData queryMetrics(String pattern);
+    }
+    // CHECKSTYLE:ON
+
+    /**
+     * An aggregate bean which returns all the metrics of a registry as a single {@link
+     * TabularData} value, allowing a JMX client to read an entire registry in one round trip. Each
+     * metric's snapshot is taken only once per read.
+     */
+    private static class Registry implements RegistryMBean,
+                                             MetricProcessor<List<CompositeData>> {
+        private static final String[] ITEM_NAMES = {
+                "name", "type", "value", "count", "eventType", "rateUnit", "meanRate",
+                "oneMinuteRate", "fiveMinuteRate", "fifteenMinuteRate", "durationUnit", "min",
+                "max", "mean", "stdDev", "50thPercentile", "75thPercentile", "95thPercentile",
+                "98thPercentile", "99thPercentile", "999thPercentile", "apdex",
+                "errorBudgetBurnRate"
+        };
+        private static final OpenType<?>[] ITEM_TYPES = {
+                SimpleType.STRING, SimpleType.STRING, SimpleType.STRING, SimpleType.LONG,
+                SimpleType.STRING, SimpleType.STRING, SimpleType.DOUBLE, SimpleType.DOUBLE,
+                SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.STRING, SimpleType.DOUBLE,
+                SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE,
+                SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE,
+                SimpleType.DOUBLE, SimpleType.DOUBLE, SimpleType.DOUBLE
+        };
+        private static final int NAME = 0, TYPE = 1, VALUE = 2, COUNT = 3, EVENT_TYPE = 4,
+                RATE_UNIT = 5, MEAN_RATE = 6, M1_RATE = 7, M5_RATE = 8, M15_RATE = 9,
+                DURATION_UNIT = 10, MIN = 11, MAX = 12, MEAN = 13, STD_DEV = 14, P50 = 15,
+                P75 = 16, P95 = 17, P98 = 18, P99 = 19, P999 = 20, APDEX = 21, BURN_RATE = 22;
+
+        private final MetricsRegistry registry;
+        private final MetricDispatcher dispatcher = new MetricDispatcher();
+        private final CompositeType rowType;
+        private final TabularType tableType;
+
+        private Registry(MetricsRegistry registry) throws OpenDataException {
+            this.registry = registry;
+            this.rowType = new CompositeType("metric", "A metric's current values",
+                                             ITEM_NAMES, ITEM_NAMES, ITEM_TYPES);
+            this.tableType = new TabularType("metrics", "The metrics in a registry",
+                                             rowType, new String[]{ "name" });
+        }
+
+        @Override
+        public TabularData getMetrics() {
+            return getMetrics(MetricPredicate.ALL);
+        }
+
+        @Override
+        public TabularData queryMetrics(String pattern) {
+            final Pattern regex = Pattern.compile(pattern);
+            return getMetrics(new MetricPredicate() {
+                @Override
+                public boolean matches(MetricName name, Metric metric) {
+                    return regex.matcher(name.toString()).matches();
+                }
+            });
+        }
+
+        private TabularData getMetrics(MetricPredicate predicate) {
+            final List<CompositeData> rows = new ArrayList<CompositeData>();
+            for (Map.Entry<MetricName, Metric> entry : registry.getAllMetrics().entrySet()) {
+                if (predicate.matches(entry.getKey(), entry.getValue())) {
+                    try {
+                        dispatcher.dispatch(entry.getValue(), entry.getKey(), this, rows);
+                    } catch (Exception e) {
+                        LOGGER.warn("Error reading " + entry.getKey(), e);
+                    }
+                }
+            }
+            final TabularDataSupport table = new TabularDataSupport(tableType, rows.size(), 0.75f);
+            for (CompositeData row : rows) {
+                table.put(row);
+            }
+            return table;
+        }
+
+        @Override
+        public void processGauge(MetricName name, com.yammer.metrics.core.Gauge<?> gauge, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "gauge");
+            values[VALUE] = String.valueOf(gauge.getValue());
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processCounter(MetricName name, com.yammer.metrics.core.Counter counter, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "counter");
+            values[COUNT] = counter.getCount();
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processMeter(MetricName name, Metered meter, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "meter");
+            setMetered(values, meter);
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processHistogram(MetricName name, com.yammer.metrics.core.Histogram histogram, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "histogram");
+            values[COUNT] = histogram.getCount();
+            setSummarizable(values, histogram);
+            setSampling(values, histogram.getSnapshot());
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processTimer(MetricName name, com.yammer.metrics.core.Timer timer, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "timer");
+            setMetered(values, timer);
+            values[DURATION_UNIT] = timer.getDurationUnit().toString();
+            setSummarizable(values, timer);
+            setSampling(values, timer.getSnapshot());
+            if (timer.getServiceLevel() != null) {
+                values[APDEX] = timer.getApdex();
+                values[BURN_RATE] = timer.getErrorBudgetBurnRate();
+            }
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processTopK(MetricName name, com.yammer.metrics.core.TopK topK, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "topk");
+            final StringBuilder top = new StringBuilder();
+            for (com.yammer.metrics.core.TopK.Entry entry : topK.getTop()) {
+                if (top.length() > 0) {
+                    top.append(", ");
+                }
+                top.append(entry.getKey()).append('=').append(entry.getRate());
+            }
+            values[VALUE] = top.toString();
+            values[EVENT_TYPE] = topK.getEventType();
+            values[RATE_UNIT] = topK.getRateUnit().toString();
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processCardinality(MetricName name, com.yammer.metrics.core.Cardinality cardinality, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "cardinality");
+            values[COUNT] = cardinality.getCount();
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processConcurrency(MetricName name, com.yammer.metrics.core.Concurrency concurrency, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "concurrency");
+            values[COUNT] = concurrency.getCount();
+            values[MAX] = (double) concurrency.getMax();
+            values[MEAN] = concurrency.getMean();
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        @Override
+        public void processWindowedMeter(MetricName name, com.yammer.metrics.core.WindowedMeter meter, List<CompositeData> rows) throws Exception {
+            final Object[] values = newRow(name, "windowed_meter");
+            final StringBuilder rates = new StringBuilder();
+            for (int i = 0; i < meter.getWindowCount(); i++) {
+                if (rates.length() > 0) {
+                    rates.append(", ");
+                }
+                rates.append(meter.getWindowName(i)).append('=').append(meter.getRate(i));
+            }
+            values[VALUE] = rates.toString();
+            values[COUNT] = meter.getCount();
+            values[EVENT_TYPE] = meter.getEventType();
+            values[RATE_UNIT] = meter.getRateUnit().toString();
+            values[MEAN_RATE] = meter.getMeanRate();
+            rows.add(new CompositeDataSupport(rowType, ITEM_NAMES, values));
+        }
+
+        private static Object[] newRow(MetricName name, String type) {
+            final Object[] values = new Object[ITEM_NAMES.length];
+            values[NAME] = name.toString();
+            values[TYPE] = type;
+            return values;
+        }
+
+        private static void setMetered(Object[] values, Metered meter) {
+            values[COUNT] = meter.getCount();
+            values[EVENT_TYPE] = meter.getEventType();
+            values[RATE_UNIT] = meter.getRateUnit().toString();
+            values[MEAN_RATE] = meter.getMeanRate();
+            values[M1_RATE] = meter.getOneMinuteRate();
+            values[M5_RATE] = meter.getFiveMinuteRate();
+            values[M15_RATE] = meter.getFifteenMinuteRate();
+        }
+
+        private static void setSummarizable(Object[] values, Summarizable metric) {
+            values[MIN] = metric.getMin();
+            values[MAX] = metric.getMax();
+            values[MEAN] = metric.getMean();
+            values[STD_DEV] = metric.getStdDev();
+        }
+
+        private static void setSampling(Object[] values, Snapshot snapshot) {
+            values[P50] = snapshot.getMedian();
+            values[P75] = snapshot.get75thPercentile();
+            values[P95] = snapshot.get95thPercentile();
+            values[P98] = snapshot.get98thPercentile();
+            values[P99] = snapshot.get99thPercentile();
+            values[P999] = snapshot.get999thPercentile();
         }
     }
 
@@ -349,6 +902,8 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
     private final String registryName;
     private final MBeanServer server;
     private final MetricDispatcher dispatcher;
+    private final long snapshotTTL;
+    private ObjectName registryBeanName;
 
     /**
      * Creates a new {@link JmxReporter} for the given registry.
@@ -356,7 +911,20 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
      * @param registry    a {@link MetricsRegistry}
      */
     public JmxReporter(MetricsRegistry registry) {
+        this(registry, DEFAULT_SNAPSHOT_TTL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new {@link JmxReporter} for the given registry.
+     *
+     * @param registry           a {@link MetricsRegistry}
+     * @param snapshotTTL        how long histogram and timer beans may serve their attributes from
+     *                           the same snapshot
+     * @param snapshotTTLUnit    the time unit of {@code snapshotTTL}
+     */
+    public JmxReporter(MetricsRegistry registry, long snapshotTTL, TimeUnit snapshotTTLUnit) {
         super(registry);
+        this.snapshotTTL = snapshotTTLUnit.toNanos(snapshotTTL);
         this.registryName = registry.getName();
         this.registeredBeans = new ConcurrentHashMap<MetricName, ObjectName>(100);
         this.server = ManagementFactory.getPlatformMBeanServer();
@@ -417,14 +985,21 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
 
     @Override
     public void processHistogram(MetricName name, com.yammer.metrics.core.Histogram histogram, Context context) throws Exception {
+        final SnapshotCache snapshots = new SnapshotCache(histogram, Clock.defaultClock(), snapshotTTL);
         registerBean(context.getMetricName(),
-                     new Histogram(histogram, context.getObjectName()),
+                     new SnapshotBean<HistogramMBean>(new Histogram(histogram, context.getObjectName(), snapshots),
+                                                      HistogramMBean.class,
+                                                      snapshots),
                      context.getObjectName());
     }
 
     @Override
     public void processTimer(MetricName name, com.yammer.metrics.core.Timer timer, Context context) throws Exception {
-        registerBean(context.getMetricName(), new Timer(timer, context.getObjectName()),
+        final SnapshotCache snapshots = new SnapshotCache(timer, Clock.defaultClock(), snapshotTTL);
+        registerBean(context.getMetricName(),
+                     new SnapshotBean<TimerMBean>(new Timer(timer, context.getObjectName(), snapshots),
+                                                  TimerMBean.class,
+                                                  snapshots),
                      context.getObjectName());
     }
 
@@ -434,6 +1009,33 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
                      context.getObjectName());
     }
 
+    @Override
+    public void processTopK(MetricName name, com.yammer.metrics.core.TopK topK, Context context) throws Exception {
+        registerBean(context.getMetricName(), new TopK(topK, context.getObjectName()),
+                     context.getObjectName());
+    }
+
+    @Override
+    public void processCardinality(MetricName name, com.yammer.metrics.core.Cardinality cardinality, Context context) throws Exception {
+        registerBean(context.getMetricName(),
+                     new Cardinality(cardinality, context.getObjectName()),
+                     context.getObjectName());
+    }
+
+    @Override
+    public void processConcurrency(MetricName name, com.yammer.metrics.core.Concurrency concurrency, Context context) throws Exception {
+        registerBean(context.getMetricName(),
+                     new Concurrency(concurrency, context.getObjectName()),
+                     context.getObjectName());
+    }
+
+    @Override
+    public void processWindowedMeter(MetricName name, com.yammer.metrics.core.WindowedMeter meter, Context context) throws Exception {
+        registerBean(context.getMetricName(),
+                     new WindowedMeter(meter, context.getObjectName()),
+                     context.getObjectName());
+    }
+
     @Override
     public void shutdown() {
         getMetricsRegistry().removeListener(this);
@@ -441,6 +1043,10 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
             unregisterBean(name);
         }
         registeredBeans.clear();
+        if (registryBeanName != null) {
+            unregisterBean(registryBeanName);
+            registryBeanName = null;
+        }
     }
 
     /**
@@ -448,9 +1054,28 @@ public class JmxReporter extends AbstractReporter implements MetricsRegistryList
      */
     public final void start() {
         getMetricsRegistry().addListener(this);
+        registerRegistryBean();
+    }
+
+    private void registerRegistryBean() {
+        try {
+            final StringBuilder nameBuilder = new StringBuilder("com.yammer.metrics:type=Registry");
+            if (registryName != null) {
+                nameBuilder.append(",registry=");
+                nameBuilder.append(quote(registryName));
+            }
+            final ObjectName objectName = new ObjectName(nameBuilder.toString());
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new Registry(getMetricsRegistry()), objectName);
+            this.registryBeanName = objectName;
+        } catch (Exception e) {
+            LOGGER.warn("Error registering registry bean", e);
+        }
     }
 
-    private void registerBean(MetricName name, MetricMBean bean, ObjectName objectName)
+    private void registerBean(MetricName name, Object bean, ObjectName objectName)
             throws MBeanRegistrationException, OperationsException {
 
         if ( server.isRegistered(objectName) ){
@@ -14,6 +14,14 @@ public class MetricDispatcher {
             processor.processHistogram(name, (Histogram) metric, context);
         } else if (metric instanceof Timer) {
             processor.processTimer(name, (Timer) metric, context);
+        } else if (metric instanceof TopK) {
+            processor.processTopK(name, (TopK) metric, context);
+        } else if (metric instanceof Cardinality) {
+            processor.processCardinality(name, (Cardinality) metric, context);
+        } else if (metric instanceof WindowedMeter) {
+            processor.processWindowedMeter(name, (WindowedMeter) metric, context);
+        } else if (metric instanceof Concurrency) {
+            processor.processConcurrency(name, (Concurrency) metric, context);
         } else {
             throw new IllegalArgumentException("Unable to dispatch " + metric);
         }
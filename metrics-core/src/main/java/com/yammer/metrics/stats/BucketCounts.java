@@ -0,0 +1,105 @@
+package com.yammer.metrics.stats;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Exact counts of the values which fall into each of a fixed set of buckets, bounded by ascending
+ * thresholds: the first bucket holds values up to and including the first threshold, and the last
+ * holds values greater than the last threshold.
+ * <p/>
+ * The counts are striped across several rows of an {@link AtomicLongArray}, each row padded to a
+ * separate cache line, and a thread only increments the row picked by its ID, so concurrent
+ * updates rarely contend. Reading the counts sums the rows.
+ */
+public class BucketCounts {
+    // shared with the other striped counters in this package
+    static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+    static final int LONGS_PER_CACHE_LINE = 8;
+
+    private final long[] thresholds;
+    private final int rowLength;
+    private final AtomicLongArray counts;
+
+    /**
+     * Creates a new {@link BucketCounts}.
+     *
+     * @param thresholds    the ascending upper bounds of the buckets, not counting the last
+     */
+    public BucketCounts(long... thresholds) {
+        for (int i = 1; i < thresholds.length; i++) {
+            if (thresholds[i] <= thresholds[i - 1]) {
+                throw new IllegalArgumentException("thresholds must be ascending");
+            }
+        }
+        this.thresholds = Arrays.copyOf(thresholds, thresholds.length);
+        // round each row up to a whole number of cache lines, so that stripes don't share one
+        this.rowLength = (thresholds.length / LONGS_PER_CACHE_LINE + 1) * LONGS_PER_CACHE_LINE;
+        this.counts = new AtomicLongArray(rowLength * STRIPES);
+    }
+
+    /**
+     * Returns the number of buckets, which is one more than the number of thresholds.
+     *
+     * @return the number of buckets
+     */
+    public int size() {
+        return thresholds.length + 1;
+    }
+
+    /**
+     * Returns the upper bound of the given bucket.
+     *
+     * @param index    the index of a bucket other than the last
+     * @return the largest value counted in the bucket
+     */
+    public long getThreshold(int index) {
+        return thresholds[index];
+    }
+
+    /**
+     * Counts a value in its bucket.
+     *
+     * @param value    a value
+     */
+    public void update(long value) {
+        int bucket = Arrays.binarySearch(thresholds, value);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+        final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        counts.getAndIncrement(stripe * rowLength + bucket);
+    }
+
+    /**
+     * Returns the number of values counted in each bucket.
+     *
+     * @return the count of each bucket
+     */
+    public long[] getCounts() {
+        final long[] totals = new long[size()];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += counts.get(stripe * rowLength + i);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Resets every bucket's count to zero.
+     */
+    public void clear() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    private static int stripes(int processors) {
+        int stripes = 1;
+        while (stripes < processors && stripes < 64) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
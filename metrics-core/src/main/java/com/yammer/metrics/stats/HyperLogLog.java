@@ -0,0 +1,228 @@
+package com.yammer.metrics.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.Math.log;
+import static java.lang.Math.pow;
+import static java.lang.Math.round;
+
+/**
+ * A HyperLogLog sketch, which estimates the number of distinct values added to it using a fixed
+ * amount of memory: {@code 2^precision} one-byte registers, for a standard error of about
+ * {@code 1.04 / sqrt(2^precision)} (e.g., 0.8% with a precision of 14).
+ * <p/>
+ * Values may be added concurrently without locking. Sketches with the same precision can be
+ * merged, giving the same estimate as a single sketch of all their values, and serialized (see
+ * {@link #toBytes()}) in order to be merged elsewhere.
+ *
+ * @see <a href="http://algo.inria.fr/flajolet/Publications/FlFuGaMe07.pdf">Flajolet et al.
+ *      HyperLogLog: the analysis of a near-optimal cardinality estimation algorithm (2007)</a>
+ */
+public class HyperLogLog {
+    /**
+     * The smallest precision a sketch may have.
+     */
+    public static final int MIN_PRECISION = 4;
+
+    /**
+     * The largest precision a sketch may have.
+     */
+    public static final int MAX_PRECISION = 16;
+
+    private static final int REGISTERS_PER_WORD = 8;
+    private static final int BITS_PER_REGISTER = 8;
+    private static final long REGISTER_MASK = 0xFFL;
+
+    private final int precision;
+    private final int registerCount;
+    // the registers, packed into longs so that each can be updated with a compare-and-set
+    private final AtomicLongArray words;
+
+    /**
+     * Creates a new {@link HyperLogLog}.
+     *
+     * @param precision    the number of bits of each hash used to pick a register, from
+     *                     {@link #MIN_PRECISION} to {@link #MAX_PRECISION}
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("precision must be between " + MIN_PRECISION +
+                                                       " and " + MAX_PRECISION);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.words = new AtomicLongArray(registerCount / REGISTERS_PER_WORD);
+    }
+
+    /**
+     * Returns a sketch read from the given bytes, as written by {@link #toBytes()}.
+     *
+     * @param bytes    a serialized sketch
+     * @return the sketch
+     * @throws IllegalArgumentException if {@code bytes} isn't a serialized sketch
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new IllegalArgumentException("Empty sketch");
+        }
+        final HyperLogLog sketch = new HyperLogLog(bytes[0]);
+        if (bytes.length != sketch.registerCount + 1) {
+            throw new IllegalArgumentException("Expected " + sketch.registerCount +
+                                                       " registers but found " + (bytes.length - 1));
+        }
+        for (int i = 0; i < sketch.registerCount; i++) {
+            if (bytes[i + 1] < 0 || bytes[i + 1] > Long.SIZE - sketch.precision + 1) {
+                throw new IllegalArgumentException("Invalid register: " + i);
+            }
+            sketch.updateRegister(i, bytes[i + 1]);
+        }
+        return sketch;
+    }
+
+    /**
+     * Returns the sketch's precision.
+     *
+     * @return the number of bits of each hash used to pick a register
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value    a value
+     */
+    public void add(long value) {
+        addHash(mix(value));
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value    a value
+     */
+    public void add(String value) {
+        // FNV-1a over the characters, then mixed so that all the bits are well distributed
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        addHash(mix(hash));
+    }
+
+    /**
+     * Adds all the values of another sketch to this one.
+     *
+     * @param other    a sketch with the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Can't merge a sketch with a precision of " +
+                                                       other.precision + " into one of " +
+                                                       precision);
+        }
+        for (int i = 0; i < registerCount; i++) {
+            updateRegister(i, other.getRegister(i));
+        }
+    }
+
+    /**
+     * Returns the estimated number of distinct values added to the sketch.
+     *
+     * @return the estimated number of distinct values
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < registerCount; i++) {
+            final int register = getRegister(i);
+            sum += pow(2, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        final double estimate = alpha() * registerCount * registerCount / sum;
+        if (estimate <= 2.5 * registerCount && zeros > 0) {
+            // linear counting is more accurate for small cardinalities
+            return round(registerCount * log((double) registerCount / zeros));
+        }
+        return round(estimate);
+    }
+
+    /**
+     * Removes all values from the sketch.
+     */
+    public void clear() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the sketch as bytes: its precision, then each of its registers.
+     *
+     * @return the serialized sketch
+     * @see #fromBytes(byte[])
+     */
+    public byte[] toBytes() {
+        final byte[] bytes = new byte[registerCount + 1];
+        bytes[0] = (byte) precision;
+        for (int i = 0; i < registerCount; i++) {
+            bytes[i + 1] = (byte) getRegister(i);
+        }
+        return bytes;
+    }
+
+    private void addHash(long hash) {
+        final int index = (int) (hash >>> (Long.SIZE - precision));
+        // the position of the first set bit after the index bits, counting from 1
+        final int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        updateRegister(index, rank);
+    }
+
+    private int getRegister(int index) {
+        final int shift = (index % REGISTERS_PER_WORD) * BITS_PER_REGISTER;
+        return (int) ((words.get(index / REGISTERS_PER_WORD) >>> shift) & REGISTER_MASK);
+    }
+
+    private void updateRegister(int index, int value) {
+        final int word = index / REGISTERS_PER_WORD;
+        final int shift = (index % REGISTERS_PER_WORD) * BITS_PER_REGISTER;
+        while (true) {
+            final long current = words.get(word);
+            if (((current >>> shift) & REGISTER_MASK) >= value) {
+                return;
+            }
+            final long updated = (current & ~(REGISTER_MASK << shift)) | ((long) value << shift);
+            if (words.compareAndSet(word, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private double alpha() {
+        switch (registerCount) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / registerCount);
+        }
+    }
+
+    // the finalizer of MurmurHash3
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
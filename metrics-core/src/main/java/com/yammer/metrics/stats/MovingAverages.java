@@ -0,0 +1,137 @@
+package com.yammer.metrics.stats;
+
+import com.yammer.metrics.core.Clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.Math.exp;
+import static java.lang.Math.min;
+import static java.lang.Math.pow;
+
+/**
+ * A set of exponentially-weighted moving average rates over several windows of time (e.g., one,
+ * five, and fifteen minutes), which share a single count of uncounted events and a single tick.
+ * <p/>
+ * Each window's rate decays just as an {@link EWMA} with the same window would. The averages are
+ * ticked every five seconds, or more often if the shortest window is less than 25 seconds long,
+ * and catch up on missed ticks in constant time when they're next updated or read.
+ */
+public class MovingAverages {
+    private static final long MAX_TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+    private static final int MIN_TICKS_PER_WINDOW = 5;
+
+    private final long[] windows;
+    private final double[] alphas;
+    private final double[] rates;
+    private final long tickInterval;
+    private final AtomicLong uncounted = new AtomicLong();
+    private final AtomicLong lastTick;
+    private final Clock clock;
+    private boolean initialized;
+    // written after the rates are updated, and read before they are, to publish them
+    private volatile long ticks;
+
+    /**
+     * Creates a new {@link MovingAverages}.
+     *
+     * @param clock         the clock used to tick the averages
+     * @param windowUnit    the unit of {@code windows}
+     * @param windows       the window of each average
+     */
+    public MovingAverages(Clock clock, TimeUnit windowUnit, long... windows) {
+        if (windows.length == 0) {
+            throw new IllegalArgumentException("There must be at least one window");
+        }
+        this.windows = new long[windows.length];
+        long shortest = Long.MAX_VALUE;
+        for (int i = 0; i < windows.length; i++) {
+            this.windows[i] = windowUnit.toNanos(windows[i]);
+            if (this.windows[i] <= 0) {
+                throw new IllegalArgumentException("Windows must be positive");
+            }
+            shortest = min(shortest, this.windows[i]);
+        }
+        this.tickInterval = Math.max(1, min(MAX_TICK_INTERVAL, shortest / MIN_TICKS_PER_WINDOW));
+        this.alphas = new double[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            alphas[i] = 1 - exp(-tickInterval / (double) this.windows[i]);
+        }
+        this.rates = new double[windows.length];
+        this.clock = clock;
+        this.lastTick = new AtomicLong(clock.getTick());
+    }
+
+    /**
+     * Returns the number of windows.
+     *
+     * @return the number of windows
+     */
+    public int size() {
+        return windows.length;
+    }
+
+    /**
+     * Returns the length of the given window.
+     *
+     * @param index    the index of the window
+     * @param unit     the unit of the returned length
+     * @return the length of the window
+     */
+    public long getWindow(int index, TimeUnit unit) {
+        return unit.convert(windows[index], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the given number of events.
+     *
+     * @param n    the number of events
+     */
+    public void update(long n) {
+        tickIfNecessary();
+        uncounted.addAndGet(n);
+    }
+
+    /**
+     * Returns the rate of events over the given window.
+     *
+     * @param index       the index of the window
+     * @param rateUnit    the unit of time of the rate
+     * @return the rate of events per {@code rateUnit}
+     */
+    public double getRate(int index, TimeUnit rateUnit) {
+        tickIfNecessary();
+        if (ticks == 0) {
+            return 0.0;
+        }
+        return rates[index] * (double) rateUnit.toNanos(1);
+    }
+
+    private void tickIfNecessary() {
+        final long oldTick = lastTick.get();
+        final long newTick = clock.getTick();
+        final long age = newTick - oldTick;
+        if (age > tickInterval && lastTick.compareAndSet(oldTick, newTick)) {
+            tick(age / tickInterval);
+        }
+    }
+
+    private void tick(long requiredTicks) {
+        final double instantRate = uncounted.getAndSet(0) / (double) tickInterval;
+        for (int i = 0; i < rates.length; i++) {
+            double rate = rates[i];
+            if (initialized) {
+                rate += alphas[i] * (instantRate - rate);
+            } else {
+                rate = instantRate;
+            }
+            // no events were counted during the rest of the ticks, so the rate only decays
+            if (requiredTicks > 1) {
+                rate *= pow(1 - alphas[i], requiredTicks - 1);
+            }
+            rates[i] = rate;
+        }
+        this.initialized = true;
+        this.ticks += requiredTicks;
+    }
+}
@@ -19,6 +19,7 @@ public class Snapshot {
     private static final double P999_Q = 0.999;
 
     private final double[] values;
+    private final long[] weights;
 
     /**
      * Create a new {@link Snapshot} with the given values.
@@ -32,6 +33,7 @@ public class Snapshot {
             this.values[i] = (Long) copy[i];
         }
         Arrays.sort(this.values);
+        this.weights = null;
     }
 
     /**
@@ -43,6 +45,88 @@ public class Snapshot {
         this.values = new double[values.length];
         System.arraycopy(values, 0, this.values, 0, values.length);
         Arrays.sort(this.values);
+        this.weights = null;
+    }
+
+    /**
+     * Create a new weighted {@link Snapshot} with the given values, each of which stands for the
+     * number of observations given by its weight (e.g., the centroids of a {@link TDigestSample}).
+     *
+     * @param values     an unordered set of values
+     * @param weights    the weight of each value, or {@code null} if each value is a single
+     *                   observation
+     */
+    public Snapshot(final double[] values, long[] weights) {
+        if (weights == null) {
+            this.values = new double[values.length];
+            System.arraycopy(values, 0, this.values, 0, values.length);
+            Arrays.sort(this.values);
+            this.weights = null;
+        } else {
+            if (weights.length != values.length) {
+                throw new IllegalArgumentException("There must be one weight for each value");
+            }
+            final Integer[] order = new Integer[values.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return Double.compare(values[a], values[b]);
+                }
+            });
+            this.values = new double[values.length];
+            this.weights = new long[weights.length];
+            for (int i = 0; i < order.length; i++) {
+                this.values[i] = values[order[i]];
+                this.weights[i] = weights[order[i]];
+            }
+        }
+    }
+
+    /**
+     * Returns a weighted snapshot of the values of all of the given snapshots, in which each value
+     * of an unweighted snapshot counts as a single observation.
+     * <p/>
+     * Merging is only statistically valid for snapshots whose weights reflect the number of
+     * observations they summarize, such as those of {@link TDigestSample}s. The values of the
+     * reservoir samples stand for an unknown number of observations, so the quantiles of merged
+     * reservoirs are skewed towards the smaller populations, much as averaging their percentiles
+     * would be.
+     *
+     * @param snapshots    the snapshots to merge
+     * @return a weighted snapshot of all the snapshots' values
+     */
+    public static Snapshot merge(Snapshot... snapshots) {
+        return merge(Arrays.asList(snapshots));
+    }
+
+    /**
+     * Returns a weighted snapshot of the values of all of the given snapshots.
+     *
+     * @param snapshots    the snapshots to merge
+     * @return a weighted snapshot of all the snapshots' values
+     * @see #merge(Snapshot...)
+     */
+    public static Snapshot merge(Collection<Snapshot> snapshots) {
+        int size = 0;
+        for (Snapshot snapshot : snapshots) {
+            size += snapshot.values.length;
+        }
+        final double[] values = new double[size];
+        final long[] weights = new long[size];
+        int offset = 0;
+        for (Snapshot snapshot : snapshots) {
+            System.arraycopy(snapshot.values, 0, values, offset, snapshot.values.length);
+            if (snapshot.weights == null) {
+                Arrays.fill(weights, offset, offset + snapshot.values.length, 1);
+            } else {
+                System.arraycopy(snapshot.weights, 0, weights, offset, snapshot.weights.length);
+            }
+            offset += snapshot.values.length;
+        }
+        return new Snapshot(values, weights);
     }
 
     /**
@@ -60,6 +144,10 @@ public class Snapshot {
             return 0.0;
         }
 
+        if (weights != null) {
+            return getWeightedValue(quantile);
+        }
+
         final double pos = quantile * (values.length + 1);
 
         if (pos < 1) {
@@ -75,8 +163,37 @@ public class Snapshot {
         return lower + (pos - floor(pos)) * (upper - lower);
     }
 
+    /*
+     * Each value is taken to be at the middle of the observations it stands for, and values in
+     * between are interpolated.
+     */
+    private double getWeightedValue(double quantile) {
+        long total = 0;
+        for (long weight : weights) {
+            total += weight;
+        }
+        final double pos = quantile * total;
+
+        double center = weights[0] / 2.0;
+        if (pos <= center) {
+            return values[0];
+        }
+        double cumulative = weights[0];
+        for (int i = 1; i < values.length; i++) {
+            final double nextCenter = cumulative + weights[i] / 2.0;
+            if (pos <= nextCenter) {
+                return values[i - 1] + (pos - center) / (nextCenter - center) * (values[i] - values[i - 1]);
+            }
+            center = nextCenter;
+            cumulative += weights[i];
+        }
+        return values[values.length - 1];
+    }
+
     /**
-     * Returns the number of values in the snapshot.
+     * Returns the number of values in the snapshot. For a weighted snapshot, this is the number of
+     * weighted values (e.g., a digest's centroids) rather than the number of observations they
+     * stand for, which is the sum of {@link #getWeights()}.
      *
      * @return the number of values in the snapshot
      */
@@ -147,6 +264,15 @@ public class Snapshot {
         return Arrays.copyOf(values, values.length);
     }
 
+    /**
+     * Returns the weight of each of the snapshot's values, in the order of {@link #getValues()}.
+     *
+     * @return the weights of the values, or {@code null} if each value is a single observation
+     */
+    public long[] getWeights() {
+        return weights == null ? null : Arrays.copyOf(weights, weights.length);
+    }
+
     /**
      * Writes the values of the sample to the given file.
      *
@@ -0,0 +1,267 @@
+package com.yammer.metrics.stats;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.lang.Math.*;
+
+/**
+ * A sample of a stream of {@code long}s which summarizes the whole stream as a t-digest: a small,
+ * sorted set of weighted centroids, which are kept smallest near the ends of the distribution so
+ * that extreme quantiles stay accurate.
+ * <p/>
+ * Unlike the reservoir samples, digests can be merged: the digest of several streams merged
+ * together is as accurate as if it had been built from all of their values. This makes it
+ * possible to compute quantiles across many instances from their digests, which are compact
+ * enough to ship around (see {@link #toBytes()}). Their snapshots are weighted, and can be merged
+ * with {@link Snapshot#merge(Snapshot...)}.
+ *
+ * @see <a href="https://github.com/tdunning/t-digest/blob/master/docs/t-digest-paper/histo.pdf">
+ *      Dunning and Ertl. Computing Extremely Accurate Quantiles Using t-Digests (2014)</a>
+ */
+public class TDigestSample implements Sample {
+    private static final double DEFAULT_COMPRESSION = 100;
+    private static final double MAX_COMPRESSION = 10000;
+
+    private final double compression;
+    private final double[] bufferedValues;
+    private int bufferedCount;
+    private double[] means = new double[0];
+    private long[] weights = new long[0];
+    private long count;
+
+    /**
+     * Creates a new {@link TDigestSample} with a compression of 100, which keeps at most a few
+     * hundred centroids.
+     */
+    public TDigestSample() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a new {@link TDigestSample}.
+     *
+     * @param compression    how many centroids to keep, roughly, from 1 to 10,000; the higher
+     *                       this is, the more accurate and the larger the digest will be
+     * @throws IllegalArgumentException if {@code compression} is out of range or not a number
+     */
+    public TDigestSample(double compression) {
+        if (!(compression >= 1 && compression <= MAX_COMPRESSION)) {
+            throw new IllegalArgumentException("compression must be between 1 and " + MAX_COMPRESSION);
+        }
+        this.compression = compression;
+        this.bufferedValues = new double[(int) ceil(compression) * 5];
+    }
+
+    /**
+     * Returns a digest read from the given bytes, as written by {@link #toBytes()}.
+     *
+     * @param bytes    a serialized digest
+     * @return the digest
+     * @throws IllegalArgumentException if {@code bytes} isn't a serialized digest
+     */
+    public static TDigestSample fromBytes(byte[] bytes) {
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            final TDigestSample sample = new TDigestSample(buffer.getDouble());
+            final int size = buffer.getInt();
+            if (size < 0 || size > buffer.remaining() / 9) {
+                throw new IllegalArgumentException("Invalid number of centroids: " + size);
+            }
+            final double[] means = new double[size];
+            final long[] weights = new long[size];
+            for (int i = 0; i < size; i++) {
+                means[i] = buffer.getDouble();
+                weights[i] = readVarLong(buffer);
+                if (weights[i] <= 0 || (i > 0 && means[i] < means[i - 1])) {
+                    throw new IllegalArgumentException("Invalid centroid: " + i);
+                }
+            }
+            sample.add(means, weights, size);
+            return sample;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated digest", e);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.bufferedCount = 0;
+        this.means = new double[0];
+        this.weights = new long[0];
+        this.count = 0;
+    }
+
+    @Override
+    public int size() {
+        return (int) min(getCount(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the number of values recorded
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    @Override
+    public synchronized void update(long value) {
+        if (bufferedCount == bufferedValues.length) {
+            compress(null, null, 0);
+        }
+        bufferedValues[bufferedCount++] = value;
+        count++;
+    }
+
+    /**
+     * Adds all of the values summarized by another digest to this one.
+     *
+     * @param other    another digest
+     */
+    public void merge(TDigestSample other) {
+        final double[] otherMeans;
+        final long[] otherWeights;
+        synchronized (other) {
+            other.compress(null, null, 0);
+            otherMeans = other.means;
+            otherWeights = other.weights;
+        }
+        add(otherMeans, otherWeights, otherMeans.length);
+    }
+
+    /**
+     * Returns a weighted snapshot of the digest's centroids.
+     *
+     * @return a snapshot of the digest
+     */
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        compress(null, null, 0);
+        return new Snapshot(means, weights);
+    }
+
+    /**
+     * Returns the digest as bytes: its compression, then the mean and weight of each centroid.
+     *
+     * @return the serialized digest
+     * @see #fromBytes(byte[])
+     */
+    public synchronized byte[] toBytes() {
+        compress(null, null, 0);
+        final ByteBuffer buffer = ByteBuffer.allocate(12 + means.length * 18);
+        buffer.putDouble(compression);
+        buffer.putInt(means.length);
+        for (int i = 0; i < means.length; i++) {
+            buffer.putDouble(means[i]);
+            writeVarLong(buffer, weights[i]);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private synchronized void add(double[] addedMeans, long[] addedWeights, int addedCount) {
+        for (int i = 0; i < addedCount; i++) {
+            count += addedWeights[i];
+        }
+        compress(addedMeans, addedWeights, addedCount);
+    }
+
+    /*
+     * Merges the buffered values and the given sorted centroids into the digest's centroids, such
+     * that each centroid spans at most one unit of the scale function k(q) = δ/π · asin(2q - 1).
+     */
+    private void compress(double[] addedMeans, long[] addedWeights, int addedCount) {
+        if (bufferedCount == 0 && addedCount == 0) {
+            return;
+        }
+
+        Arrays.sort(bufferedValues, 0, bufferedCount);
+        final int total = means.length + bufferedCount + addedCount;
+        final double[] allMeans = new double[total];
+        final long[] allWeights = new long[total];
+        int size = mergeSorted(means, weights, means.length,
+                               bufferedValues, null, bufferedCount,
+                               allMeans, allWeights, 0);
+        if (addedCount > 0) {
+            final double[] sortedMeans = Arrays.copyOf(allMeans, size);
+            final long[] sortedWeights = Arrays.copyOf(allWeights, size);
+            size = mergeSorted(sortedMeans, sortedWeights, size,
+                               addedMeans, addedWeights, addedCount,
+                               allMeans, allWeights, 0);
+        }
+        this.bufferedCount = 0;
+
+        double totalWeight = 0;
+        for (int i = 0; i < size; i++) {
+            totalWeight += allWeights[i];
+        }
+
+        int last = 0;
+        double weightSoFar = 0;
+        double weightLimit = totalWeight * integratedQ(integratedLocation(0) + 1);
+        for (int i = 1; i < size; i++) {
+            if (weightSoFar + allWeights[last] + allWeights[i] <= weightLimit) {
+                allWeights[last] += allWeights[i];
+                allMeans[last] += (allMeans[i] - allMeans[last]) * allWeights[i] / allWeights[last];
+            } else {
+                weightSoFar += allWeights[last];
+                weightLimit = totalWeight * integratedQ(integratedLocation(weightSoFar / totalWeight) + 1);
+                last++;
+                allMeans[last] = allMeans[i];
+                allWeights[last] = allWeights[i];
+            }
+        }
+        this.means = Arrays.copyOf(allMeans, last + 1);
+        this.weights = Arrays.copyOf(allWeights, last + 1);
+    }
+
+    private double integratedLocation(double q) {
+        return compression * (asin(2 * q - 1) + PI / 2) / PI;
+    }
+
+    private double integratedQ(double k) {
+        return (sin(min(k, compression) * PI / compression - PI / 2) + 1) / 2;
+    }
+
+    private static int mergeSorted(double[] aMeans, long[] aWeights, int aCount,
+                                   double[] bMeans, long[] bWeights, int bCount,
+                                   double[] means, long[] weights, int offset) {
+        int a = 0, b = 0, i = offset;
+        while (a < aCount || b < bCount) {
+            if (b == bCount || (a < aCount && aMeans[a] <= bMeans[b])) {
+                means[i] = aMeans[a];
+                weights[i] = aWeights == null ? 1 : aWeights[a];
+                a++;
+            } else {
+                means[i] = bMeans[b];
+                weights[i] = bWeights == null ? 1 : bWeights[b];
+                b++;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid weight");
+    }
+}
@@ -0,0 +1,117 @@
+package com.yammer.metrics.stats;
+
+import com.yammer.metrics.core.Clock;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Exact counts of a few kinds of events (e.g., the durations which did and didn't meet a target)
+ * within a recent window of time, rather than since the beginning.
+ * <p/>
+ * As in {@link WindowedSummary}, the window is divided into five buckets, and the counts cover
+ * the last four fifths to all of the window. As in {@link BucketCounts}, each bucket's counts are
+ * striped across several rows of an {@link AtomicLongArray}, each row padded to a separate cache
+ * line, and a thread only writes to the row picked by its ID, so an update is a couple of array
+ * reads and an increment, and concurrent updates rarely contend. Each row starts with the epoch
+ * of the fifth of the window it holds, and is reset by the first thread to write to it after the
+ * window has moved on; an increment by another thread sharing the row while it's being reset may
+ * be lost.
+ */
+public class WindowedCounts {
+    private static final int BUCKETS = 5;
+
+    private final int size;
+    private final int rowLength;
+    private final long bucketLength;
+    private final Clock clock;
+    private final AtomicLongArray rows;
+
+    /**
+     * Creates a new {@link WindowedCounts}.
+     *
+     * @param size          the number of kinds of events to count
+     * @param window        the window of time to count events within
+     * @param windowUnit    the unit of {@code window}
+     * @param clock         the clock used to move the window
+     */
+    public WindowedCounts(int size, long window, TimeUnit windowUnit, Clock clock) {
+        this.bucketLength = windowUnit.toNanos(window) / BUCKETS;
+        if (bucketLength <= 0) {
+            throw new IllegalArgumentException("window is too short");
+        }
+        this.size = size;
+        this.clock = clock;
+        // the epoch and the counts, rounded up to a whole number of cache lines
+        this.rowLength = (size / BucketCounts.LONGS_PER_CACHE_LINE + 1) * BucketCounts.LONGS_PER_CACHE_LINE;
+        this.rows = new AtomicLongArray(rowLength * BucketCounts.STRIPES * BUCKETS);
+        clear();
+    }
+
+    /**
+     * Counts an event.
+     *
+     * @param index    the kind of event
+     */
+    public void increment(int index) {
+        add(index, 1);
+    }
+
+    /**
+     * Counts several events of the same kind.
+     *
+     * @param index    the kind of event
+     * @param delta    the number of events
+     */
+    public void add(int index, long delta) {
+        final long epoch = clock.getTick() / bucketLength;
+        final int stripe = (int) (Thread.currentThread().getId() & (BucketCounts.STRIPES - 1));
+        final int row = (index(epoch) * BucketCounts.STRIPES + stripe) * rowLength;
+        final long rowEpoch = rows.get(row);
+        if (rowEpoch != epoch) {
+            if (rowEpoch > epoch) {
+                // a writer which read the clock before a newer one reset the row; the event is
+                // too old to belong in it
+                return;
+            }
+            if (rows.compareAndSet(row, rowEpoch, epoch)) {
+                for (int i = 1; i <= size; i++) {
+                    rows.set(row + i, 0);
+                }
+            }
+        }
+        rows.getAndAdd(row + 1 + index, delta);
+    }
+
+    /**
+     * Returns the number of events of each kind counted within the window.
+     *
+     * @return the count of each kind of event
+     */
+    public long[] getCounts() {
+        final long epoch = clock.getTick() / bucketLength;
+        final long[] totals = new long[size];
+        for (int row = 0; row < rows.length(); row += rowLength) {
+            final long rowEpoch = rows.get(row);
+            if (rowEpoch <= epoch && rowEpoch > epoch - BUCKETS) {
+                for (int i = 0; i < size; i++) {
+                    totals[i] += rows.get(row + 1 + i);
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Forgets all counted events.
+     */
+    public void clear() {
+        for (int row = 0; row < rows.length(); row += rowLength) {
+            rows.set(row, Long.MIN_VALUE);
+        }
+    }
+
+    private static int index(long epoch) {
+        return (int) (((epoch % BUCKETS) + BUCKETS) % BUCKETS);
+    }
+}
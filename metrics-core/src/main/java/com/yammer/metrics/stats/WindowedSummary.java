@@ -0,0 +1,188 @@
+package com.yammer.metrics.stats;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Summarizable;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+/**
+ * The minimum, maximum, mean, standard deviation, and sum of the values recorded within a recent
+ * window of time, rather than since the beginning.
+ * <p/>
+ * The window is divided into five buckets, each of which is a slot in a set of primitive arrays.
+ * Values are recorded into the bucket for the current fifth of the window, which is reset when
+ * it's first written to after the window has moved on, so old values expire without anything
+ * having to clear them. The summary covers the last four fifths to all of the window, depending
+ * on how far into the current fifth it is.
+ * <p/>
+ * Since every writer at a given instant writes to the same bucket, each bucket is striped, as in
+ * {@link BucketCounts}: a thread only writes to the stripe picked by its ID, which has its own
+ * lock, and the stripes of a bucket are a cache line apart in each array. So only writers which
+ * share a stripe contend with each other. Reading the summary combines every stripe of every
+ * bucket in the window.
+ *
+ * @see <a href="http://www.johndcook.com/standard_deviation.html">Accurately computing running
+ *      variance</a>
+ */
+public class WindowedSummary implements Summarizable {
+    private static final int BUCKETS = 5;
+    private static final int STRIPES = Math.min(BucketCounts.STRIPES, 16);
+    // each stripe's buckets take up a cache line of each array
+    private static final int SLOTS = STRIPES * BucketCounts.LONGS_PER_CACHE_LINE;
+
+    private final long bucketLength;
+    private final Clock clock;
+    private final Object[] locks = new Object[SLOTS];
+    private final long[] epochs = new long[SLOTS];
+    private final long[] counts = new long[SLOTS];
+    private final long[] mins = new long[SLOTS];
+    private final long[] maxes = new long[SLOTS];
+    private final long[] sums = new long[SLOTS];
+    // the running mean and sum of squared differences from it, as in Histogram
+    private final double[] means = new double[SLOTS];
+    private final double[] squares = new double[SLOTS];
+
+    /**
+     * Creates a new {@link WindowedSummary}.
+     *
+     * @param window        the window of time to summarize
+     * @param windowUnit    the unit of {@code window}
+     * @param clock         the clock used to move the window
+     */
+    public WindowedSummary(long window, TimeUnit windowUnit, Clock clock) {
+        this.bucketLength = windowUnit.toNanos(window) / BUCKETS;
+        if (bucketLength <= 0) {
+            throw new IllegalArgumentException("window is too short");
+        }
+        this.clock = clock;
+        for (int i = 0; i < SLOTS; i++) {
+            locks[i] = new Object();
+            epochs[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value    a value
+     */
+    public void update(long value) {
+        final long epoch = clock.getTick() / bucketLength;
+        final int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        final int i = stripe * BucketCounts.LONGS_PER_CACHE_LINE + index(epoch);
+        synchronized (locks[i]) {
+            if (epochs[i] != epoch) {
+                if (epochs[i] > epoch) {
+                    // a writer which read the clock before a newer one reset the bucket; the
+                    // value is too old to belong in it
+                    return;
+                }
+                epochs[i] = epoch;
+                counts[i] = 0;
+                mins[i] = Long.MAX_VALUE;
+                maxes[i] = Long.MIN_VALUE;
+                sums[i] = 0;
+                means[i] = 0;
+                squares[i] = 0;
+            }
+            final long count = ++counts[i];
+            mins[i] = min(mins[i], value);
+            maxes[i] = max(maxes[i], value);
+            sums[i] += value;
+            final double oldMean = means[i];
+            means[i] = oldMean + (value - oldMean) / count;
+            squares[i] += (value - oldMean) * (value - means[i]);
+        }
+    }
+
+    /**
+     * Returns the number of values recorded within the window.
+     *
+     * @return the number of values recorded within the window
+     */
+    public long getCount() {
+        return summarize().count;
+    }
+
+    @Override
+    public double getMax() {
+        final Summary summary = summarize();
+        return summary.count > 0 ? summary.max : 0.0;
+    }
+
+    @Override
+    public double getMin() {
+        final Summary summary = summarize();
+        return summary.count > 0 ? summary.min : 0.0;
+    }
+
+    @Override
+    public double getMean() {
+        final Summary summary = summarize();
+        return summary.count > 0 ? summary.sum / (double) summary.count : 0.0;
+    }
+
+    @Override
+    public double getStdDev() {
+        final Summary summary = summarize();
+        return summary.count > 1 ? sqrt(summary.squares / (summary.count - 1)) : 0.0;
+    }
+
+    @Override
+    public double getSum() {
+        return summarize().sum;
+    }
+
+    /**
+     * Forgets all recorded values.
+     */
+    public void clear() {
+        for (int i = 0; i < SLOTS; i++) {
+            synchronized (locks[i]) {
+                epochs[i] = Long.MIN_VALUE;
+            }
+        }
+    }
+
+    private Summary summarize() {
+        final long epoch = clock.getTick() / bucketLength;
+        final Summary summary = new Summary();
+        for (int i = 0; i < SLOTS; i++) {
+            synchronized (locks[i]) {
+                if (epochs[i] <= epoch && epochs[i] > epoch - BUCKETS && counts[i] > 0) {
+                    summary.add(counts[i], mins[i], maxes[i], sums[i], means[i], squares[i]);
+                }
+            }
+        }
+        return summary;
+    }
+
+    private static int index(long epoch) {
+        return (int) (((epoch % BUCKETS) + BUCKETS) % BUCKETS);
+    }
+
+    private static class Summary {
+        private long count;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private long sum;
+        private double mean;
+        private double squares;
+
+        // combines the running variances of two sets of values (Chan et al.)
+        void add(long count, long min, long max, long sum, double mean, double squares) {
+            final long total = this.count + count;
+            final double delta = mean - this.mean;
+            this.squares += squares + delta * delta * this.count * count / total;
+            this.mean += delta * count / total;
+            this.count = total;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+            this.sum += sum;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.yammer.metrics.util;
+
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A set of timers keyed by some value, such as the route of a request, which are registered with
+ * the key's string form as their scope.
+ * <p/>
+ * A timer is created for each new key until a maximum number of keys is reached. After that, all
+ * unseen keys share a single overflow timer, so the number of timers stays bounded however many
+ * distinct keys there are. The map is sized up front and never resized, and looking up a known
+ * key is a single concurrent map read, which is cheapest when callers pass the same key instances
+ * (e.g., constants) every time.
+ *
+ * @param <K> the type of the keys
+ */
+public class BoundedTimerMap<K> {
+    /**
+     * The scope of the timer shared by keys seen after the maximum is reached.
+     */
+    public static final String OVERFLOW_SCOPE = "overflow";
+
+    private final MetricsRegistry registry;
+    private final Class<?> klass;
+    private final String name;
+    private final int maxKeys;
+    private final TimeUnit durationUnit;
+    private final TimeUnit rateUnit;
+    private final ConcurrentMap<K, Timer> timers;
+    private final Timer overflow;
+    private volatile boolean full;
+
+    /**
+     * Creates a new {@link BoundedTimerMap}.
+     *
+     * @param registry        the registry in which to create the timers
+     * @param klass           the class which owns the timers
+     * @param name            the name of the timers
+     * @param maxKeys         the maximum number of keys with their own timers
+     * @param durationUnit    the duration scale unit of the timers
+     * @param rateUnit        the rate unit of the timers
+     */
+    public BoundedTimerMap(MetricsRegistry registry, Class<?> klass, String name, int maxKeys,
+                           TimeUnit durationUnit, TimeUnit rateUnit) {
+        if (maxKeys < 0) {
+            throw new IllegalArgumentException("maxKeys must not be negative");
+        }
+        this.registry = registry;
+        this.klass = klass;
+        this.name = name;
+        this.maxKeys = maxKeys;
+        this.durationUnit = durationUnit;
+        this.rateUnit = rateUnit;
+        this.timers = new ConcurrentHashMap<K, Timer>(maxKeys * 4 / 3 + 1);
+        this.overflow = registry.newTimer(new MetricName(klass, name, OVERFLOW_SCOPE), durationUnit, rateUnit);
+        this.full = maxKeys == 0;
+    }
+
+    /**
+     * Returns the timer for the given key, creating it if the maximum number of keys hasn't been
+     * reached, or the overflow timer if it has.
+     *
+     * @param key    the key
+     * @return the key's timer
+     */
+    public Timer get(K key) {
+        final Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        if (full) {
+            return overflow;
+        }
+        return add(key);
+    }
+
+    /**
+     * Returns the number of keys which have their own timers.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Returns the scope of the given key's timer. By default, this is the key's string form.
+     *
+     * @param key    the key
+     * @return the scope of the key's timer
+     */
+    protected String getScope(K key) {
+        return key.toString();
+    }
+
+    private synchronized Timer add(K key) {
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            if (timers.size() >= maxKeys) {
+                this.full = true;
+                return overflow;
+            }
+            timer = registry.newTimer(new MetricName(klass, name, getScope(key)), durationUnit, rateUnit);
+            timers.put(key, timer);
+        }
+        return timer;
+    }
+}
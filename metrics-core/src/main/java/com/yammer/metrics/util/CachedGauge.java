@@ -0,0 +1,137 @@
+package com.yammer.metrics.util;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A gauge which caches its value for a period of time, for use when the value is expensive to
+ * compute (e.g., a JMX attribute or a statistic which takes a lock).
+ * <p/>
+ * By default the value is reloaded by the first reader to see an expired value, while concurrent
+ * readers are served the previous value. Once {@link #start(ScheduledExecutorService, long,
+ * TimeUnit)} is called, the value is instead reloaded in the background and readers never call
+ * {@link #loadValue()} themselves.
+ * Either way, the very first value is loaded by the first reader, and any readers which arrive
+ * while it's loading wait for it rather than seeing {@code null}.
+ *
+ * @param <T> the type of the gauge's value
+ */
+public abstract class CachedGauge<T> extends Gauge<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedGauge.class);
+
+    private final Clock clock;
+    private final long timeout;
+    private final AtomicLong reloadAt;
+    private volatile ScheduledFuture<?> refresh;
+    private volatile boolean loaded;
+    private volatile T value;
+
+    /**
+     * Creates a new {@link CachedGauge} which reloads its value after the given timeout.
+     *
+     * @param timeout        the amount of time the value is cached for
+     * @param timeoutUnit    the unit of {@code timeout}
+     */
+    protected CachedGauge(long timeout, TimeUnit timeoutUnit) {
+        this(Clock.defaultClock(), timeout, timeoutUnit);
+    }
+
+    /**
+     * Creates a new {@link CachedGauge} which reloads its value after the given timeout.
+     *
+     * @param clock          the clock used to measure the timeout
+     * @param timeout        the amount of time the value is cached for
+     * @param timeoutUnit    the unit of {@code timeout}
+     */
+    protected CachedGauge(Clock clock, long timeout, TimeUnit timeoutUnit) {
+        this.clock = clock;
+        this.timeout = timeoutUnit.toNanos(timeout);
+        this.reloadAt = new AtomicLong(clock.getTick());
+    }
+
+    /**
+     * Loads the value which will be cached.
+     *
+     * @return the new value
+     */
+    protected abstract T loadValue();
+
+    @Override
+    public T getValue() {
+        if (!loaded) {
+            loadFirstValue();
+        } else if (refresh == null && shouldReload()) {
+            reload();
+        }
+        return value;
+    }
+
+    /**
+     * Starts reloading the value in the background at the given period, after which readers are
+     * served the most recently loaded value. Since {@link #loadValue()} may then be called from
+     * another thread, this should only be called once the gauge is fully constructed.
+     *
+     * @param executor      the executor on which the value will be reloaded
+     * @param period        the period between reloads
+     * @param periodUnit    the unit of {@code period}
+     * @throws IllegalStateException if the gauge has already been started
+     */
+    public synchronized void start(ScheduledExecutorService executor, long period, TimeUnit periodUnit) {
+        if (refresh != null) {
+            throw new IllegalStateException("The gauge has already been started");
+        }
+        this.refresh = executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Error reloading gauge", e);
+                }
+            }
+        }, period, period, periodUnit);
+    }
+
+    /**
+     * Stops reloading the value in the background, if the gauge has been started, after which
+     * readers reload it again once it expires.
+     */
+    public synchronized void stop() {
+        if (refresh != null) {
+            refresh.cancel(false);
+            this.refresh = null;
+        }
+    }
+
+    private synchronized void loadFirstValue() {
+        if (!loaded) {
+            reloadAt.set(clock.getTick() + timeout);
+            reload();
+        }
+    }
+
+    private void reload() {
+        this.value = loadValue();
+        this.loaded = true;
+    }
+
+    private boolean shouldReload() {
+        while (true) {
+            final long now = clock.getTick();
+            final long current = reloadAt.get();
+            if (now - current < 0) {
+                return false;
+            }
+            if (reloadAt.compareAndSet(current, now + timeout)) {
+                return true;
+            }
+        }
+    }
+}
@@ -1,16 +1,16 @@
 package com.yammer.metrics.util;
 
-import com.yammer.metrics.core.Gauge;
-
 import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
- * A gauge which exposes an attribute of a JMX MBean.
+ * A gauge which exposes an attribute of a JMX MBean, optionally caching it for a period of time
+ * since each read is an {@link MBeanServer#getAttribute(ObjectName, String)} call.
  */
-public class JmxGauge extends Gauge<Object> {
+public class JmxGauge extends CachedGauge<Object> {
     private static final MBeanServer SERVER = ManagementFactory.getPlatformMBeanServer();
     private final ObjectName objectName;
     private final String attribute;
@@ -34,12 +34,44 @@ public class JmxGauge extends Gauge<Object> {
      * @param attribute     the MBean attribute's name
      */
     public JmxGauge(ObjectName objectName, String attribute) {
+        this(objectName, attribute, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a new {@link JmxGauge} for the given attribute of the given MBean, which caches the
+     * attribute's value for the given timeout.
+     *
+     * @param objectName     the string value of the MBean's {@link ObjectName}
+     * @param attribute      the MBean attribute's name
+     * @param timeout        the amount of time the value is cached for
+     * @param timeoutUnit    the unit of {@code timeout}
+     *
+     * @throws MalformedObjectNameException if {@code objectName} is malformed
+     */
+    public JmxGauge(String objectName,
+                    String attribute,
+                    long timeout,
+                    TimeUnit timeoutUnit) throws MalformedObjectNameException {
+        this(new ObjectName(objectName), attribute, timeout, timeoutUnit);
+    }
+
+    /**
+     * Creates a new {@link JmxGauge} for the given attribute of the given MBean, which caches the
+     * attribute's value for the given timeout.
+     *
+     * @param objectName     the MBean's {@link ObjectName}
+     * @param attribute      the MBean attribute's name
+     * @param timeout        the amount of time the value is cached for
+     * @param timeoutUnit    the unit of {@code timeout}
+     */
+    public JmxGauge(ObjectName objectName, String attribute, long timeout, TimeUnit timeoutUnit) {
+        super(timeout, timeoutUnit);
         this.objectName = objectName;
         this.attribute = attribute;
     }
 
     @Override
-    public Object getValue() {
+    protected Object loadValue() {
         try {
             return SERVER.getAttribute(objectName, attribute);
         } catch (Exception e) {
@@ -0,0 +1,138 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.CachedHealthCheckRegistry;
+import com.yammer.metrics.core.HealthCheck;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.yammer.metrics.core.HealthCheck.Result;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class CachedHealthCheckRegistryTest {
+    private final CachedHealthCheckRegistry registry = new CachedHealthCheckRegistry(2, 10, 1, TimeUnit.SECONDS);
+
+    private final HealthCheck hc1 = mock(HealthCheck.class);
+    private final Result r1 = mock(Result.class);
+
+    @Before
+    public void setUp() throws Exception {
+        when(hc1.getName()).thenReturn("hc1");
+        when(hc1.execute()).thenReturn(r1);
+
+        registry.register(hc1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.shutdown();
+    }
+
+    @Test
+    public void servesCachedResults() throws Exception {
+        registry.runHealthChecks();
+
+        final Map<String, Result> results = registry.runHealthChecks();
+
+        assertThat(results,
+                   hasEntry("hc1", r1));
+
+        verify(hc1, times(1)).execute();
+    }
+
+    @Test
+    public void refreshesResultsInTheBackground() throws Exception {
+        registry.start(10, TimeUnit.MILLISECONDS);
+
+        verify(hc1, timeout(1000).atLeast(3)).execute();
+    }
+
+    @Test
+    public void doesNotRerunAHealthCheckWhichIsStillRunning() throws Exception {
+        final CachedHealthCheckRegistry stuck = new CachedHealthCheckRegistry(1, 1, 10, TimeUnit.MILLISECONDS);
+        final StuckHealthCheck healthCheck = new StuckHealthCheck("stuck");
+        stuck.register(healthCheck);
+        try {
+            assertThat(stuck.runHealthChecks().get("stuck").isHealthy(),
+                       is(false));
+
+            stuck.start(10, TimeUnit.MILLISECONDS);
+            Thread.sleep(100);
+
+            assertThat(stuck.runHealthChecks().get("stuck").getMessage(),
+                       is("The previous run has not finished"));
+
+            assertThat(healthCheck.runs,
+                       is(1));
+
+            healthCheck.release.countDown();
+            Thread.sleep(100);
+
+            assertThat(stuck.runHealthChecks().get("stuck").isHealthy(),
+                       is(true));
+        } finally {
+            healthCheck.release.countDown();
+            stuck.shutdown();
+        }
+    }
+
+    @Test
+    public void reportsHealthChecksWhichDoNotFitInTheQueueAsUnhealthy() throws Exception {
+        final CachedHealthCheckRegistry small = new CachedHealthCheckRegistry(1, 1, 10, TimeUnit.MILLISECONDS);
+        final StuckHealthCheck[] healthChecks = {
+                new StuckHealthCheck("a"), new StuckHealthCheck("b"), new StuckHealthCheck("c")
+        };
+        for (StuckHealthCheck healthCheck : healthChecks) {
+            small.register(healthCheck);
+        }
+        try {
+            int rejected = 0;
+            for (Result result : small.runHealthChecks().values()) {
+                assertThat(result.isHealthy(),
+                           is(false));
+                if (result.getError() instanceof RejectedExecutionException) {
+                    rejected++;
+                }
+            }
+
+            assertThat(rejected,
+                       is(1));
+        } finally {
+            for (StuckHealthCheck healthCheck : healthChecks) {
+                healthCheck.release.countDown();
+            }
+            small.shutdown();
+        }
+    }
+
+    // a health check which ignores being interrupted, as one blocked in I/O would
+    private static class StuckHealthCheck extends HealthCheck {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile int runs;
+
+        private StuckHealthCheck(String name) {
+            super(name);
+        }
+
+        @Override
+        protected Result check() throws Exception {
+            runs++;
+            while (release.getCount() > 0) {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                    // keep waiting
+                }
+            }
+            return Result.healthy();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.Cardinality;
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.stats.HyperLogLog;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CardinalityTest {
+    private final Clock clock = mock(Clock.class);
+    private final MetricsRegistry registry = new MetricsRegistry(clock);
+
+    @Test
+    public void countsDistinctValues() throws Exception {
+        final Cardinality cardinality = registry.newCardinality(CardinalityTest.class, "users");
+        cardinality.add("alice");
+        cardinality.add("bob");
+        cardinality.add("alice");
+
+        assertThat(cardinality.getCount(),
+                   is(2L));
+    }
+
+    @Test
+    public void countsDistinctValuesWithinAWindow() throws Exception {
+        final Cardinality cardinality = registry.newCardinality(new MetricName(CardinalityTest.class, "ips"),
+                                                                12,
+                                                                5,
+                                                                TimeUnit.MINUTES);
+        cardinality.add("10.0.0.1");
+
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(2));
+        cardinality.add("10.0.0.2");
+
+        assertThat(cardinality.getCount(),
+                   is(2L));
+
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(5));
+
+        assertThat("values from the start of the window have expired",
+                   cardinality.getCount(),
+                   is(1L));
+
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(7));
+        cardinality.add("10.0.0.3");
+
+        assertThat("the old buckets have been reused",
+                   cardinality.getCount(),
+                   is(1L));
+    }
+
+    @Test
+    public void mergesSketches() throws Exception {
+        final Cardinality cardinality = registry.newCardinality(CardinalityTest.class, "sessions");
+        final HyperLogLog sketch = new HyperLogLog(14);
+        sketch.add("a");
+        sketch.add("b");
+        cardinality.add("b");
+        cardinality.add("c");
+
+        cardinality.merge(HyperLogLog.fromBytes(sketch.toBytes()));
+
+        assertThat(cardinality.getCount(),
+                   is(3L));
+
+        assertThat(cardinality.getSketch().estimate(),
+                   is(3L));
+    }
+}
@@ -4,8 +4,10 @@ import com.yammer.metrics.core.Clock;
 import org.junit.Test;
 
 import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -33,6 +35,26 @@ public class ClockTest {
                    is(closeTo(System.nanoTime(), 100000)));
     }
 
+    @Test
+    public void cachedClock() throws Exception {
+        final Clock.CachedClock clock = new Clock.CachedClock(1, TimeUnit.MILLISECONDS);
+        try {
+            final long start = clock.getTick();
+            Thread.sleep(50);
+
+            assertThat(clock.getTick(),
+                       is(greaterThan(start)));
+
+            assertThat((double) clock.getTick(),
+                       is(closeTo(System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(40))));
+
+            assertThat((double) clock.getTime(),
+                       is(closeTo(System.currentTimeMillis(), 40)));
+        } finally {
+            clock.stop();
+        }
+    }
+
     @Test
     public void defaultsToUserTime() throws Exception {
         assertThat(Clock.defaultClock(),
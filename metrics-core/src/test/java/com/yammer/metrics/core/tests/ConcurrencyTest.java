@@ -0,0 +1,203 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Concurrency;
+import com.yammer.metrics.core.MetricsRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConcurrencyTest {
+    private final Clock clock = mock(Clock.class);
+    private final MetricsRegistry registry = new MetricsRegistry(clock);
+    private final Concurrency concurrency = registry.newConcurrency(ConcurrencyTest.class,
+                                                                    "requests");
+    private final Object reader = new Object();
+
+    @Test
+    public void startsAtZero() throws Exception {
+        assertThat(concurrency.getCount(),
+                   is(0L));
+
+        assertThat(concurrency.getMax(),
+                   is(0L));
+
+        assertThat(concurrency.getMean(),
+                   is(closeTo(0.0, 0.001)));
+    }
+
+    @Test
+    public void tracksTheMostInFlightAtOnce() throws Exception {
+        concurrency.inc();
+        concurrency.inc();
+        concurrency.inc();
+        concurrency.dec();
+        concurrency.dec();
+
+        assertThat(concurrency.getCount(),
+                   is(1L));
+
+        assertThat(concurrency.getMax(),
+                   is(3L));
+    }
+
+    @Test
+    public void weightsTheMeanByTime() throws Exception {
+        // 2 in flight for 1s, then 1 in flight for 3s
+        concurrency.inc();
+        concurrency.inc();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(1));
+        concurrency.dec();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(4));
+
+        assertThat(concurrency.getMean(),
+                   is(closeTo(1.25, 0.001)));
+    }
+
+    @Test
+    public void countsWhatWasInFlightBeforeTheInterval() throws Exception {
+        concurrency.inc();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(1));
+        concurrency.read(reader);
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(3));
+        concurrency.dec();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(5));
+
+        assertThat(concurrency.read(reader).getMean(),
+                   is(closeTo(0.5, 0.001)));
+    }
+
+    @Test
+    public void startsANewIntervalWhenRead() throws Exception {
+        concurrency.inc();
+        concurrency.inc();
+        concurrency.inc();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(2));
+        concurrency.dec();
+        concurrency.dec();
+
+        final Concurrency.Reading reading = concurrency.read(reader);
+
+        assertThat(reading.getCount(),
+                   is(1L));
+
+        assertThat(reading.getMax(),
+                   is(3L));
+
+        assertThat(reading.getMean(),
+                   is(closeTo(3.0, 0.001)));
+
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(4));
+
+        final Concurrency.Reading next = concurrency.read(reader);
+
+        assertThat(next.getMax(),
+                   is(1L));
+
+        assertThat(next.getMean(),
+                   is(closeTo(1.0, 0.001)));
+    }
+
+    @Test
+    public void keepsASeparateIntervalForEachReader() throws Exception {
+        final Object other = new Object();
+        // 3 in flight for 2s, then 1 in flight for 2s
+        concurrency.inc();
+        concurrency.inc();
+        concurrency.inc();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(2));
+        concurrency.dec();
+        concurrency.dec();
+        concurrency.read(reader);
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(4));
+
+        final Concurrency.Reading reading = concurrency.read(other);
+
+        assertThat("the other reader's interval isn't reset by the first's read",
+                   reading.getMax(),
+                   is(3L));
+
+        assertThat(reading.getMean(),
+                   is(closeTo(2.0, 0.001)));
+
+        final Concurrency.Reading first = concurrency.read(reader);
+
+        assertThat(first.getMax(),
+                   is(1L));
+
+        assertThat(first.getMean(),
+                   is(closeTo(1.0, 0.001)));
+    }
+
+    @Test
+    public void isNotResetByItsGetters() throws Exception {
+        concurrency.inc();
+        concurrency.inc();
+        concurrency.dec();
+        concurrency.read(reader);
+        concurrency.getMax();
+        concurrency.getMean();
+
+        assertThat(concurrency.getMax(),
+                   is(2L));
+    }
+
+    @Test
+    public void readsASteadyLoadBackAsItsMean() throws Exception {
+        final int inFlight = 4;
+        final Concurrency steady = new MetricsRegistry().newConcurrency(ConcurrencyTest.class,
+                                                                        "steady");
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CountDownLatch started = new CountDownLatch(inFlight);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < inFlight; i++) {
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    steady.inc();
+                    started.countDown();
+                    while (running.get()) {
+                        // each thread is in flight while it sleeps, then briefly finishes and
+                        // starts again, so there are always about the same number in flight
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        steady.dec();
+                        steady.inc();
+                    }
+                    steady.dec();
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        started.await();
+        steady.read(reader);
+        try {
+            for (int i = 0; i < 20; i++) {
+                Thread.sleep(10);
+                final Concurrency.Reading reading = steady.read(reader);
+
+                assertThat(reading.getMean(),
+                           is(closeTo(inFlight, 0.5)));
+            }
+        } finally {
+            running.set(false);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+}
@@ -6,9 +6,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static com.yammer.metrics.core.HealthCheck.Result;
 import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
@@ -58,4 +62,33 @@ public class HealthCheckRegistryTest {
         assertThat(results,
                    hasEntry("hc2", r2));
     }
+
+    @Test
+    public void reportsHealthChecksWhichTimeOutAsUnhealthy() throws Exception {
+        registry.register(new HealthCheck("slow") {
+            @Override
+            protected Result check() throws Exception {
+                Thread.sleep(10000);
+                return Result.healthy();
+            }
+        });
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Map<String, HealthCheck.Result> results = registry.runHealthChecks(executor,
+                                                                                     100,
+                                                                                     TimeUnit.MILLISECONDS);
+
+            assertThat(results,
+                       hasEntry("hc1", r1));
+
+            assertThat(results,
+                       hasEntry("hc2", r2));
+
+            assertThat(results.get("slow"),
+                       is(Result.unhealthy("Timed out after 100 milliseconds")));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
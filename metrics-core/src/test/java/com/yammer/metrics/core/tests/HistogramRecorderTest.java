@@ -0,0 +1,87 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.HistogramRecorder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class HistogramRecorderTest {
+    private final HistogramRecorder recorder = new HistogramRecorder();
+
+    @Test
+    public void reportsEachIntervalSeparately() throws Exception {
+        recorder.update(1000);
+        recorder.update(2000);
+
+        final Histogram first = recorder.getIntervalHistogram();
+
+        recorder.update(10);
+
+        final Histogram second = recorder.getIntervalHistogram();
+
+        assertThat(first.getCount(),
+                   is(2L));
+
+        assertThat(first.getMax(),
+                   is(closeTo(2000.0, 0.0001)));
+
+        assertThat(second.getCount(),
+                   is(1L));
+
+        assertThat(second.getMax(),
+                   is(closeTo(10.0, 0.0001)));
+
+        assertThat(second.getSnapshot().size(),
+                   is(1));
+    }
+
+    @Test
+    public void anEmptyInterval() throws Exception {
+        assertThat(recorder.getIntervalHistogram().getCount(),
+                   is(0L));
+    }
+
+    @Test
+    public void losesNoValuesToConcurrentUpdates() throws Exception {
+        final int threads = 4;
+        final int updates = 100000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < updates; j++) {
+                        recorder.update(j);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+
+        final List<Histogram> intervals = new ArrayList<Histogram>();
+        while (done.getCount() > 0) {
+            intervals.add(recorder.getIntervalHistogram());
+        }
+        intervals.add(recorder.getIntervalHistogram());
+
+        long count = 0;
+        double sum = 0;
+        for (Histogram interval : intervals) {
+            count += interval.getCount();
+            sum += interval.getSum();
+        }
+
+        assertThat(count,
+                   is((long) threads * updates));
+
+        assertThat(sum,
+                   is(closeTo(threads * (updates - 1) * (double) updates / 2, 0.1)));
+    }
+}
@@ -1,13 +1,19 @@
 package com.yammer.metrics.core.tests;
 
+import com.yammer.metrics.core.Clock;
 import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.MetricName;
 import com.yammer.metrics.core.MetricsRegistry;
 import com.yammer.metrics.stats.Snapshot;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class HistogramTest {
     private final MetricsRegistry registry = new MetricsRegistry();
@@ -106,4 +112,61 @@ public class HistogramTest {
                    snapshot.size(),
                    is(1000));
     }
+
+    @Test
+    public void aWindowedHistogramSummarizesOnlyRecentValues() throws Exception {
+        final Clock clock = mock(Clock.class);
+        final Histogram windowed = new MetricsRegistry(clock).newHistogram(
+                new MetricName(HistogramTest.class, "windowed"), false, 1, TimeUnit.MINUTES);
+
+        windowed.update(1000);
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(2));
+        windowed.update(10);
+
+        assertThat("the histogram still counts every value",
+                   windowed.getCount(),
+                   is(2L));
+
+        assertThat("the histogram's max is only of the last minute",
+                   windowed.getMax(),
+                   is(closeTo(10.0, 0.0001)));
+
+        assertThat(windowed.getMean(),
+                   is(closeTo(10.0, 0.0001)));
+
+        assertThat("the histogram's sample still has every value",
+                   windowed.getSnapshot().size(),
+                   is(2));
+    }
+
+    @Test
+    public void backFillsValuesMissedDuringAStall() throws Exception {
+        histogram.update(10, 100);
+        histogram.update(450, 100);
+
+        assertThat("the stall is recorded along with the three values it delayed",
+                   histogram.getCount(),
+                   is(5L));
+
+        assertThat(histogram.getSum(),
+                   is(closeTo(10 + 450 + 350 + 250 + 150, 0.1)));
+
+        assertThat(histogram.getMin(),
+                   is(closeTo(10.0, 0.0001)));
+    }
+
+    @Test
+    public void capsTheValuesBackFilledForAStall() throws Exception {
+        histogram.update(1000000, 1);
+
+        assertThat(histogram.getCount(),
+                   is(1L + Histogram.MAX_BACKFILLED_VALUES));
+
+        assertThat("the back-filled values are spread over the whole stall",
+                   histogram.getMin(),
+                   is(closeTo(1.0, 0.0001)));
+
+        assertThat(histogram.getSnapshot().getValues()[Histogram.MAX_BACKFILLED_VALUES - 1],
+                   is(closeTo(999999.0, 0.0001)));
+    }
 }
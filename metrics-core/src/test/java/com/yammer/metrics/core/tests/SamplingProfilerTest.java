@@ -0,0 +1,123 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.SamplingProfiler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class SamplingProfilerTest {
+    private static class Spinner extends Thread {
+        private volatile boolean running = true;
+
+        @Override
+        public void run() {
+            spin(4);
+        }
+
+        // spin a few calls deep, so that there are stacks to truncate
+        private void spin(int depth) {
+            if (depth > 0) {
+                spin(depth - 1);
+            } else {
+                while (running) {
+                    Math.sqrt(System.nanoTime());
+                }
+            }
+        }
+    }
+
+    private final Spinner spinner = new Spinner();
+
+    @Before
+    public void setUp() throws Exception {
+        spinner.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        spinner.running = false;
+        spinner.join();
+    }
+
+    @Test
+    public void writesSampledStacksInCollapsedFormat() throws Exception {
+        final SamplingProfiler profiler = new SamplingProfiler(ManagementFactory.getThreadMXBean(), 128, 10000);
+        for (int i = 0; i < 10; i++) {
+            profiler.sample();
+        }
+
+        final StringWriter output = new StringWriter();
+        profiler.writeCollapsedStacks(output);
+
+        assertThat(output.toString(),
+                   containsString("SamplingProfilerTest$Spinner.run"));
+    }
+
+    @Test
+    public void rootsTruncatedStacksAtATruncatedFrame() throws Exception {
+        final SamplingProfiler profiler = new SamplingProfiler(ManagementFactory.getThreadMXBean(), 2, 10000);
+        for (int i = 0; i < 10; i++) {
+            profiler.sample();
+        }
+
+        final StringWriter output = new StringWriter();
+        profiler.writeCollapsedStacks(output);
+
+        assertThat(output.toString(),
+                   containsString("[truncated];"));
+
+        assertThat(output.toString(),
+                   not(containsString("SamplingProfilerTest$Spinner.run;")));
+    }
+
+    @Test
+    public void doesNotKeepMoreThanTheMaximumNumberOfCallPaths() throws Exception {
+        final SamplingProfiler profiler = new SamplingProfiler(ManagementFactory.getThreadMXBean(), 128, 4);
+        for (int i = 0; i < 10; i++) {
+            profiler.sample();
+        }
+
+        final StringWriter output = new StringWriter();
+        profiler.writeCollapsedStacks(output);
+
+        final Set<String> paths = new HashSet<String>();
+        for (String line : output.toString().split("\n")) {
+            if (line.length() > 0) {
+                final String path = line.substring(0, line.lastIndexOf(' '));
+                int end = path.indexOf(';');
+                while (end >= 0) {
+                    paths.add(path.substring(0, end));
+                    end = path.indexOf(';', end + 1);
+                }
+                paths.add(path);
+            }
+        }
+
+        assertThat(paths.size(),
+                   is(lessThanOrEqualTo(4)));
+    }
+
+    @Test
+    public void discardsTheProfileOnReset() throws Exception {
+        final SamplingProfiler profiler = new SamplingProfiler(ManagementFactory.getThreadMXBean(), 128, 10000);
+        profiler.sample();
+        profiler.reset();
+
+        final StringWriter output = new StringWriter();
+        profiler.writeCollapsedStacks(output);
+
+        assertThat(output.toString(),
+                   is(""));
+    }
+}
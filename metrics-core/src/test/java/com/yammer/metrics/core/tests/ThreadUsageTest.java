@@ -0,0 +1,43 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.ThreadUsage;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class ThreadUsageTest {
+    @Test
+    public void measuresTheCurrentThreadsCpuTime() throws Exception {
+        assumeTrue(ThreadUsage.isCpuTimeSupported());
+
+        final long start = ThreadUsage.getCpuTime();
+        double x = 0;
+        for (int i = 0; i < 100000; i++) {
+            x += Math.sqrt(i);
+        }
+
+        assertThat(x,
+                   is(greaterThan(0.0)));
+
+        assertThat(ThreadUsage.getCpuTime(),
+                   is(greaterThanOrEqualTo(start)));
+    }
+
+    @Test
+    public void measuresTheCurrentThreadsAllocatedBytes() throws Exception {
+        assumeTrue(ThreadUsage.isAllocatedBytesSupported());
+
+        final long start = ThreadUsage.getAllocatedBytes();
+        final byte[] bytes = new byte[1024 * 1024];
+
+        assertThat(bytes.length,
+                   is(1024 * 1024));
+
+        assertThat(ThreadUsage.getAllocatedBytes() - start,
+                   is(greaterThanOrEqualTo(1024L * 1024)));
+    }
+}
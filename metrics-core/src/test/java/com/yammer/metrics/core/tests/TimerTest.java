@@ -1,11 +1,19 @@
 package com.yammer.metrics.core.tests;
 
 import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Exemplar;
+import com.yammer.metrics.core.Exemplars;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.MetricName;
 import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.ServiceLevel;
 import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.core.TimerOptions;
 import com.yammer.metrics.stats.Snapshot;
+import com.yammer.metrics.stats.TDigestSample;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
@@ -187,4 +195,244 @@ public class TimerTest {
                    timer.getMax(),
                    is(closeTo(50.0, 0.001)));
     }
+
+    @Test
+    public void keepsNoExemplarsByDefault() throws Exception {
+        timer.update(10, TimeUnit.SECONDS, "a");
+
+        assertThat(timer.getSlowest().isEmpty(),
+                   is(true));
+    }
+
+    @Test
+    public void keepsTheSlowestDurationsWithTheirTags() throws Exception {
+        final Timer slow = registry.newTimer(new MetricName(TimerTest.class, "slow"),
+                                             TimeUnit.MILLISECONDS,
+                                             TimeUnit.SECONDS,
+                                             new TimerOptions().slowest(2));
+        slow.update(30, TimeUnit.MILLISECONDS, "a");
+        slow.update(10, TimeUnit.MILLISECONDS, "b");
+        slow.update(50, TimeUnit.MILLISECONDS, "c");
+        slow.update(20, TimeUnit.MILLISECONDS, "d");
+
+        final List<Exemplar> slowest = slow.getSlowest();
+
+        assertThat(slowest.size(),
+                   is(2));
+
+        assertThat(slowest.get(0).getTag(),
+                   is("c"));
+
+        assertThat(slowest.get(0).getDuration(TimeUnit.MILLISECONDS),
+                   is(closeTo(50.0, 0.001)));
+
+        assertThat(slowest.get(1).getTag(),
+                   is("a"));
+
+        assertThat("all the durations are still recorded",
+                   slow.getCount(),
+                   is(4L));
+    }
+
+    @Test
+    public void tagsDurationsWithTheThreadsTag() throws Exception {
+        final Timer slow = registry.newTimer(new MetricName(TimerTest.class, "slow"),
+                                             TimeUnit.MILLISECONDS,
+                                             TimeUnit.SECONDS,
+                                             new TimerOptions().slowest(2));
+        Exemplars.setTag("request-1");
+        try {
+            slow.update(30, TimeUnit.MILLISECONDS);
+        } finally {
+            Exemplars.clearTag();
+        }
+
+        assertThat(slow.getSlowest().get(0).getTag(),
+                   is("request-1"));
+    }
+
+    @Test
+    public void forgetsTheSlowestDurationsOfOldWindows() throws Exception {
+        final ManualClock clock = new ManualClock();
+        final Timer slow = new MetricsRegistry(clock).newTimer(new MetricName(TimerTest.class, "slow"),
+                                                               TimeUnit.MILLISECONDS,
+                                                               TimeUnit.SECONDS,
+                                                               new TimerOptions().slowest(1));
+        slow.update(10, TimeUnit.SECONDS, "spike");
+
+        clock.tick = TimeUnit.SECONDS.toNanos(90);
+        slow.update(100, TimeUnit.MILLISECONDS, "later");
+
+        assertThat("the previous window's spike is still reported",
+                   slow.getSlowest().get(0).getTag(),
+                   is("spike"));
+
+        clock.tick = TimeUnit.SECONDS.toNanos(150);
+
+        assertThat("a later duration is kept after the spike",
+                   slow.getSlowest().get(0).getTag(),
+                   is("later"));
+
+        clock.tick = TimeUnit.SECONDS.toNanos(300);
+
+        assertThat(slow.getSlowest().isEmpty(),
+                   is(true));
+    }
+
+    @Test
+    public void truncatesLongTags() throws Exception {
+        final Timer slow = registry.newTimer(new MetricName(TimerTest.class, "slow"),
+                                             TimeUnit.MILLISECONDS,
+                                             TimeUnit.SECONDS,
+                                             new TimerOptions().slowest(1));
+        final StringBuilder tag = new StringBuilder();
+        for (int i = 0; i < Exemplars.MAX_TAG_LENGTH + 10; i++) {
+            tag.append('x');
+        }
+        slow.update(30, TimeUnit.MILLISECONDS, tag.toString());
+
+        assertThat(slow.getSlowest().get(0).getTag(),
+                   is(tag.substring(0, Exemplars.MAX_TAG_LENGTH)));
+    }
+
+    @Test
+    public void countsDurationsAgainstItsServiceLevel() throws Exception {
+        final Timer slo = registry.newTimer(new MetricName(TimerTest.class, "slo"),
+                                            TimeUnit.MILLISECONDS,
+                                            TimeUnit.SECONDS,
+                                            new TimerOptions().serviceLevel(
+                                                    new ServiceLevel(100, 0.9, TimeUnit.MILLISECONDS, 50)));
+        for (int i = 0; i < 7; i++) {
+            slo.update(40, TimeUnit.MILLISECONDS);
+        }
+        slo.update(100, TimeUnit.MILLISECONDS);
+        slo.update(300, TimeUnit.MILLISECONDS);
+        slo.update(1, TimeUnit.SECONDS);
+
+        assertThat(slo.getThresholds(),
+                   is(new double[]{ 50, 100, 400 }));
+
+        assertThat(slo.getThresholdCounts(),
+                   is(new long[]{ 7, 8, 9 }));
+
+        assertThat("eight are satisfied and one is tolerating",
+                   slo.getApdex(),
+                   is(closeTo(0.85, 0.0001)));
+
+        assertThat("two missed the target where only one was allowed to",
+                   slo.getErrorBudgetBurnRate(),
+                   is(closeTo(2.0, 0.0001)));
+    }
+
+    @Test
+    public void burnsItsErrorBudgetAtTheRateOfTheWindow() throws Exception {
+        final ManualClock clock = new ManualClock();
+        final ServiceLevel serviceLevel = new ServiceLevel(100, 0.9, TimeUnit.MILLISECONDS)
+                .withBurnRateWindow(1, TimeUnit.MINUTES);
+        final Timer slo = new MetricsRegistry(clock).newTimer(new MetricName(TimerTest.class, "slo"),
+                                                              TimeUnit.MILLISECONDS,
+                                                              TimeUnit.SECONDS,
+                                                              new TimerOptions().serviceLevel(serviceLevel));
+        for (int i = 0; i < 10; i++) {
+            slo.update(1, TimeUnit.SECONDS);
+        }
+
+        assertThat("every duration missed the target",
+                   slo.getErrorBudgetBurnRate(),
+                   is(closeTo(10.0, 0.0001)));
+
+        clock.tick = TimeUnit.MINUTES.toNanos(2);
+        slo.update(40, TimeUnit.MILLISECONDS);
+
+        assertThat("the misses have left the window",
+                   slo.getErrorBudgetBurnRate(),
+                   is(closeTo(0.0, 0.0001)));
+
+        assertThat("but still count towards the Apdex score",
+                   slo.getApdex(),
+                   is(closeTo(1 / 11.0, 0.0001)));
+    }
+
+    @Test
+    public void combinesItsOptions() throws Exception {
+        final Timer combined = registry.newTimer(new MetricName(TimerTest.class, "combined"),
+                                                 TimeUnit.MILLISECONDS,
+                                                 TimeUnit.SECONDS,
+                                                 new TimerOptions().sample(new TDigestSample())
+                                                                   .slowest(1)
+                                                                   .serviceLevel(new ServiceLevel(100, 0.9, TimeUnit.MILLISECONDS)));
+        combined.update(300, TimeUnit.MILLISECONDS, "a");
+
+        assertThat(combined.getSnapshot().getMedian(),
+                   is(closeTo(300.0, 0.001)));
+
+        assertThat(combined.getSlowest().get(0).getTag(),
+                   is("a"));
+
+        assertThat(combined.getThresholdCounts(),
+                   is(new long[]{ 0, 1 }));
+    }
+
+    @Test
+    public void hasNoServiceLevelByDefault() throws Exception {
+        timer.update(1, TimeUnit.SECONDS);
+
+        assertThat(timer.getThresholdCounts().length,
+                   is(0));
+
+        assertThat(timer.getApdex(),
+                   is(closeTo(1.0, 0.0001)));
+    }
+
+    @Test
+    public void correctsForCoordinatedOmission() throws Exception {
+        timer.update(2, 1, TimeUnit.SECONDS);
+
+        assertThat("the two-second stall hid one operation",
+                   timer.getSnapshot().size(),
+                   is(2));
+
+        assertThat(timer.getMin(),
+                   is(closeTo(1000.0, 0.001)));
+
+        assertThat("only the operation actually timed is counted",
+                   timer.getCount(),
+                   is(1L));
+    }
+
+    @Test
+    public void capsTheDurationsBackFilledForAStall() throws Exception {
+        timer.update(TimeUnit.HOURS.toNanos(1), 1, TimeUnit.NANOSECONDS);
+
+        assertThat(timer.getSnapshot().size(),
+                   is(1 + Histogram.MAX_BACKFILLED_VALUES));
+
+        assertThat(timer.getCount(),
+                   is(1L));
+
+        assertThat("the back-filled durations still span the stall",
+                   timer.getMin(),
+                   is(closeTo(0.0, 0.001)));
+    }
+
+    @Test
+    public void contextsCorrectForCoordinatedOmission() throws Exception {
+        // the clock advances 50ms between starting and stopping
+        timer.time().stop(20, TimeUnit.MILLISECONDS);
+
+        assertThat(timer.getSnapshot().size(),
+                   is(2));
+
+        assertThat(timer.getMin(),
+                   is(closeTo(30.0, 0.001)));
+    }
+
+    private static class ManualClock extends Clock {
+        private long tick;
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
 }
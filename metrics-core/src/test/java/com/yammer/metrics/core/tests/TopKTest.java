@@ -0,0 +1,158 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.TopK;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TopKTest {
+    private final Clock clock = mock(Clock.class);
+    private final MetricsRegistry registry = new MetricsRegistry(clock);
+    private final TopK topK = registry.newTopK(new MetricName(TopKTest.class, "queries"),
+                                               "queries",
+                                               2,
+                                               1,
+                                               TimeUnit.MINUTES,
+                                               TimeUnit.SECONDS);
+
+    @Test
+    public void startsEmpty() throws Exception {
+        assertThat(topK.getTop().isEmpty(),
+                   is(true));
+    }
+
+    @Test
+    public void reportsTheMostFrequentKeysInOrder() throws Exception {
+        topK.update("b", 20);
+        topK.update("c", 10);
+        topK.update("a", 30);
+
+        final List<TopK.Entry> top = topK.getTop();
+
+        assertThat(top.size(),
+                   is(2));
+
+        assertThat(top.get(0).getKey(),
+                   is("a"));
+
+        assertThat(top.get(1).getKey(),
+                   is("b"));
+    }
+
+    @Test
+    public void ratesDecayLikeAMovingAverage() throws Exception {
+        topK.update("a", 60);
+
+        assertThat("sixty events in a one-minute window are one per second",
+                   topK.getTop().get(0).getRate(),
+                   is(closeTo(1.0, 0.001)));
+
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(1));
+
+        assertThat("a window later, the rate has decayed by a factor of e",
+                   topK.getTop().get(0).getRate(),
+                   is(closeTo(0.3679, 0.001)));
+    }
+
+    @Test
+    public void findsAFrequentKeyAmongManyRareOnes() throws Exception {
+        for (int i = 0; i < 10000; i++) {
+            topK.update("rare-" + i);
+            if (i % 4 == 0) {
+                topK.update("hot");
+            }
+        }
+
+        assertThat(topK.getTop().get(0).getKey(),
+                   is("hot"));
+    }
+
+    @Test
+    public void countsKeysExactlyWhileTheyAllHaveCounters() throws Exception {
+        final Random random = new Random(42);
+        final long[] counts = new long[8];
+        for (int i = 0; i < 10000; i++) {
+            final int key = random.nextInt(counts.length);
+            final int n = 1 + random.nextInt(3);
+            counts[key] += n;
+            topK.update("key-" + key, n);
+        }
+
+        long first = 0, second = 0;
+        for (long count : counts) {
+            if (count > first) {
+                second = first;
+                first = count;
+            } else if (count > second) {
+                second = count;
+            }
+        }
+
+        final List<TopK.Entry> top = topK.getTop();
+
+        assertThat(top.get(0).getRate(),
+                   is(closeTo(first / 60.0, 0.001)));
+
+        assertThat(top.get(1).getRate(),
+                   is(closeTo(second / 60.0, 0.001)));
+
+        assertThat(top.get(0).getError(),
+                   is(closeTo(0.0, 0.001)));
+    }
+
+    @Test
+    public void keysWhichReplaceOthersInheritTheirCountsAsErrors() throws Exception {
+        for (int i = 0; i < 8; i++) {
+            topK.update("key-" + i, 60 + i);
+        }
+        topK.update("new", 60);
+
+        final TopK.Entry entry = topK.getTop().get(0);
+
+        assertThat(entry.getKey(),
+                   is("new"));
+
+        assertThat(entry.getRate(),
+                   is(closeTo(2.0, 0.001)));
+
+        assertThat(entry.getError(),
+                   is(closeTo(1.0, 0.001)));
+    }
+
+    @Test
+    public void keepsCountingAfterManyWindows() throws Exception {
+        topK.update("old", 60);
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(100));
+        topK.update("new", 60);
+
+        final List<TopK.Entry> top = topK.getTop();
+
+        assertThat(top.get(0).getKey(),
+                   is("new"));
+
+        assertThat(top.get(0).getRate(),
+                   is(closeTo(1.0, 0.001)));
+
+        assertThat(top.get(1).getRate(),
+                   is(closeTo(0.0, 0.001)));
+    }
+
+    @Test
+    public void canBeCleared() throws Exception {
+        topK.update("a");
+        topK.clear();
+
+        assertThat(topK.getTop().isEmpty(),
+                   is(true));
+    }
+}
@@ -4,21 +4,29 @@ import com.sun.management.UnixOperatingSystemMXBean;
 import com.yammer.metrics.core.VMMFactory;
 import com.yammer.metrics.core.VirtualMachineMetrics;
 import com.yammer.metrics.core.VirtualMachineMetrics.GarbageCollectorStats;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
 import org.junit.Before;
 import org.junit.Test;
 
 import javax.management.*;
+import java.io.ByteArrayOutputStream;
 import java.lang.management.*;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static java.util.Arrays.asList;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -265,4 +273,112 @@ public class VirtualMachineMetricsTest {
 
     // TODO: 1/13/12 <coda> -- test thread state percentages
     // TODO: 1/13/12 <coda> -- test thread dumps
+
+    @Test
+    public void servesSampledThreadStatesWhenSampling() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Thread waiting = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException ignored) {
+                    // do nothing
+                }
+            }
+        };
+        waiting.start();
+        try {
+            final ThreadMXBean realThreads = ManagementFactory.getThreadMXBean();
+            while (waiting.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            final ThreadInfo runnable = realThreads.getThreadInfo(Thread.currentThread().getId());
+            final ThreadInfo waitingInfo = realThreads.getThreadInfo(waiting.getId());
+
+            when(threads.getAllThreadIds()).thenReturn(new long[]{ 1, 2, 3 });
+            when(threads.getThreadInfo(argThat(new ArrayOfLength(3)))).thenReturn(new ThreadInfo[]{ waitingInfo });
+            when(threads.getThreadInfo(argThat(new ArrayOfLength(2)))).thenReturn(new ThreadInfo[]{ runnable });
+
+            assertThat(vmm.getThreadStatePercentages(),
+                       hasEntry(Thread.State.WAITING, 1.0));
+
+            vmm.startThreadStateSampling(1, TimeUnit.HOURS, 2, 10);
+            try {
+                final long deadline = System.currentTimeMillis() + 5000;
+                while (vmm.getThreadStatePercentages().get(Thread.State.RUNNABLE) == 0.0 &&
+                        System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+
+                assertThat(vmm.getThreadStatePercentages(),
+                           hasEntry(Thread.State.RUNNABLE, 1.0));
+
+                assertThat(vmm.getThreadStatePercentages(),
+                           hasEntry(Thread.State.WAITING, 0.0));
+            } finally {
+                vmm.stopThreadStateSampling();
+            }
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void dumpsThreadsWithABoundedDepth() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VirtualMachineMetrics.getInstance().getThreadDump(output, 1, true, false);
+
+        final String dump = output.toString();
+        assertThat(dump,
+                   containsString(Thread.currentThread().getName() + " id=" + Thread.currentThread().getId() + " state=RUNNABLE"));
+        assertThat(dump,
+                   containsString("    ...\n"));
+    }
+
+    @Test
+    public void dumpsThreadsFromTheLastToTheFirst() throws Exception {
+        final ThreadInfo[] infos = ManagementFactory.getThreadMXBean().dumpAllThreads(true, true);
+        final ThreadInfo first = infos[0];
+        final ThreadInfo second = infos[1];
+
+        when(threads.getAllThreadIds()).thenReturn(new long[]{ first.getThreadId(), second.getThreadId() });
+        when(threads.getThreadInfo(aryEq(new long[]{ second.getThreadId(), first.getThreadId() }),
+                                   eq(true),
+                                   eq(true))).thenReturn(new ThreadInfo[]{ second, first });
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        vmm.getThreadDump(output);
+
+        final String dump = output.toString();
+        assertThat(dump.indexOf(" id=" + second.getThreadId() + " ") < dump.indexOf(" id=" + first.getThreadId() + " "),
+                   is(true));
+    }
+
+    @Test
+    public void groupsThreadsWithIdenticalStacks() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        VirtualMachineMetrics.getInstance().getThreadDump(output, 100, false, true);
+
+        assertThat(output.toString(),
+                   containsString(" state=RUNNABLE: " + Thread.currentThread().getName() + "\n"));
+    }
+
+    private static class ArrayOfLength extends BaseMatcher<long[]> {
+        private final int length;
+
+        private ArrayOfLength(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public boolean matches(Object item) {
+            return item instanceof long[] && ((long[]) item).length == length;
+        }
+
+        @Override
+        public void describeTo(Description description) {
+            description.appendText("an array of length ").appendValue(length);
+        }
+    }
 }
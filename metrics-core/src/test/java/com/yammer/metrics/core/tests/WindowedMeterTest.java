@@ -0,0 +1,78 @@
+package com.yammer.metrics.core.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.WindowedMeter;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WindowedMeterTest {
+    private final Clock clock = mock(Clock.class);
+    private final MetricsRegistry registry = new MetricsRegistry(clock);
+    private final WindowedMeter meter = registry.newWindowedMeter(WindowedMeterTest.class,
+                                                                  "things",
+                                                                  "things",
+                                                                  TimeUnit.SECONDS,
+                                                                  TimeUnit.SECONDS,
+                                                                  10, 60, 3600);
+
+    @Test
+    public void aBlankMeter() throws Exception {
+        assertThat(meter.getCount(),
+                   is(0L));
+
+        assertThat(meter.getMeanRate(),
+                   is(closeTo(0.0, 0.001)));
+
+        assertThat(meter.getRate(0),
+                   is(closeTo(0.0, 0.001)));
+    }
+
+    @Test
+    public void namesItsWindows() throws Exception {
+        assertThat(meter.getWindowCount(),
+                   is(3));
+
+        assertThat(meter.getWindowName(0),
+                   is("10s"));
+
+        assertThat(meter.getWindowName(1),
+                   is("1m"));
+
+        assertThat(meter.getWindowName(2),
+                   is("1h"));
+    }
+
+    @Test
+    public void aMeterWithEvents() throws Exception {
+        meter.mark(4);
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(3));
+
+        assertThat(meter.getCount(),
+                   is(4L));
+
+        assertThat(meter.getMeanRate(),
+                   is(closeTo(1.333, 0.001)));
+
+        assertThat("four events in the first two-second tick are two per second in every window",
+                   meter.getRate(2),
+                   is(closeTo(2.0, 0.001)));
+
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(63));
+
+        assertThat("the ten-second window has all but forgotten them",
+                   meter.getRate(0),
+                   is(closeTo(0.005, 0.001)));
+
+        assertThat("the hour window still remembers them",
+                   meter.getRate(2),
+                   is(closeTo(1.967, 0.001)));
+    }
+}
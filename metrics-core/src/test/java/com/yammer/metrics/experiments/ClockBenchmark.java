@@ -0,0 +1,80 @@
+package com.yammer.metrics.experiments;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of reading {@link Clock.UserTimeClock} and {@link Clock.CachedClock}, and of
+ * marking meters and updating timers in registries using each as their rate clock.
+ */
+public class ClockBenchmark {
+    private static final int WARMUP_ITERATIONS = 10000000;
+    private static final int ITERATIONS = 50000000;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        final Clock userTime = Clock.defaultClock();
+        final Clock.CachedClock cached = new Clock.CachedClock(1, TimeUnit.MILLISECONDS);
+        try {
+            final MetricsRegistry precise = new MetricsRegistry("precise", userTime);
+            final MetricsRegistry coarse = new MetricsRegistry("coarse", userTime, cached);
+
+            for (int round = 0; round < 3; round++) {
+                System.out.println("round " + (round + 1));
+                run("UserTimeClock.getTick", tick(userTime));
+                run("CachedClock.getTick", tick(cached));
+                run("Meter.mark (precise)", mark(precise.newMeter(ClockBenchmark.class, "meter", "events", TimeUnit.SECONDS)));
+                run("Meter.mark (coarse)", mark(coarse.newMeter(ClockBenchmark.class, "meter", "events", TimeUnit.SECONDS)));
+                run("Timer.update (precise)", update(precise.newTimer(ClockBenchmark.class, "timer")));
+                run("Timer.update (coarse)", update(coarse.newTimer(ClockBenchmark.class, "timer")));
+            }
+        } finally {
+            cached.stop();
+        }
+        System.out.println(sink);
+    }
+
+    private static void run(String name, Runnable op) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            op.run();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("  %-24s %6.1f ns/op%n", name, elapsed / (double) ITERATIONS);
+    }
+
+    private static Runnable tick(final Clock clock) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                sink += clock.getTick();
+            }
+        };
+    }
+
+    private static Runnable mark(final Meter meter) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                meter.mark();
+            }
+        };
+    }
+
+    private static Runnable update(final Timer timer) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                timer.update(1, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package com.yammer.metrics.reporting.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.TopK;
+import com.yammer.metrics.reporting.JmxReporter;
+import com.yammer.metrics.stats.Snapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+public class JmxReporterTest {
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final MetricsRegistry registry = new MetricsRegistry("jmx-reporter-test");
+    private final JmxReporter reporter = new JmxReporter(registry);
+    private ObjectName registryName;
+
+    @Before
+    public void setUp() throws Exception {
+        final Counter counter = registry.newCounter(JmxReporterTest.class, "counter");
+        counter.inc(12);
+
+        final Histogram histogram = registry.newHistogram(JmxReporterTest.class, "histogram");
+        for (int i = 1; i <= 100; i++) {
+            histogram.update(i);
+        }
+
+        reporter.start();
+        this.registryName = new ObjectName("com.yammer.metrics:type=Registry,registry=\"jmx-reporter-test\"");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        reporter.shutdown();
+    }
+
+    @Test
+    public void returnsAllMetricsInOneTable() throws Exception {
+        final TabularData metrics = (TabularData) server.getAttribute(registryName, "Metrics");
+
+        assertThat(metrics.size(),
+                   is(2));
+
+        final CompositeData counter = metrics.get(new Object[]{ "com.yammer.metrics.reporting.tests.JmxReporterTest.counter" });
+        assertThat(counter.get("type"),
+                   is((Object) "counter"));
+        assertThat(counter.get("count"),
+                   is((Object) 12L));
+
+        final CompositeData histogram = metrics.get(new Object[]{ "com.yammer.metrics.reporting.tests.JmxReporterTest.histogram" });
+        assertThat(histogram.get("count"),
+                   is((Object) 100L));
+        assertThat(histogram.get("max"),
+                   is((Object) 100.0));
+        assertThat(histogram.get("50thPercentile"),
+                   is((Object) 50.5));
+    }
+
+    @Test
+    public void filtersMetricsByName() throws Exception {
+        final TabularData metrics = (TabularData) server.invoke(registryName,
+                                                                 "queryMetrics",
+                                                                 new Object[]{ ".*\\.counter" },
+                                                                 new String[]{ String.class.getName() });
+
+        assertThat(metrics.size(),
+                   is(1));
+        assertThat(metrics.containsKey(new Object[]{ "com.yammer.metrics.reporting.tests.JmxReporterTest.counter" }),
+                   is(true));
+    }
+
+    @Test
+    public void readsAllHistogramAttributesFromASingleSnapshot() throws Exception {
+        final TestMetricsRegistry registry = new TestMetricsRegistry();
+        final JmxReporter reporter = new JmxReporter(registry, 0, TimeUnit.SECONDS);
+        final Histogram histogram = mock(Histogram.class);
+        when(histogram.getSnapshot()).thenReturn(new Snapshot(new double[]{ 1, 2, 3, 4, 5 }));
+        registry.add(new MetricName("jmx-reporter-test", "snapshots", "histogram"), histogram);
+        reporter.start();
+        try {
+            final AttributeList attributes = server.getAttributes(
+                    new ObjectName("jmx-reporter-test:type=\"snapshots\",name=\"histogram\""),
+                    new String[]{ "50thPercentile", "75thPercentile", "95thPercentile",
+                                  "98thPercentile", "99thPercentile", "999thPercentile" });
+
+            assertThat(attributes.size(),
+                       is(6));
+            assertThat(((Attribute) attributes.get(0)).getValue(),
+                       is((Object) 3.0));
+
+            verify(histogram, times(1)).getSnapshot();
+        } finally {
+            reporter.shutdown();
+        }
+    }
+
+    @Test
+    public void exposesTheTopKeysOfATopK() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry("jmx-reporter-topk-test", mock(Clock.class));
+        final JmxReporter reporter = new JmxReporter(registry);
+        final TopK topK = registry.newTopK(new MetricName("jmx-reporter-test", "topk", "queries"),
+                                           "queries", 2, 5, TimeUnit.MINUTES, TimeUnit.SECONDS);
+        topK.update("a", 3);
+        topK.update("b", 6);
+        reporter.start();
+        try {
+            final ObjectName topKName = new ObjectName("jmx-reporter-test:type=\"topk\",name=\"queries\"," +
+                                                               "registry=\"jmx-reporter-topk-test\"");
+            final TabularData top = (TabularData) server.getAttribute(topKName, "Top");
+
+            assertThat(top.size(),
+                       is(2));
+            assertThat((Double) top.get(new Object[]{ "b" }).get("rate"),
+                       is(closeTo(0.02, 0.0001)));
+            assertThat((Double) top.get(new Object[]{ "a" }).get("rate"),
+                       is(closeTo(0.01, 0.0001)));
+
+            final TabularData metrics = (TabularData) server.getAttribute(
+                    new ObjectName("com.yammer.metrics:type=Registry,registry=\"jmx-reporter-topk-test\""),
+                    "Metrics");
+            final CompositeData row = metrics.get(new Object[]{ "jmx-reporter-test.topk.queries" });
+
+            assertThat(row.get("type"),
+                       is((Object) "topk"));
+            assertThat(row.get("value"),
+                       is((Object) "b=0.02, a=0.01"));
+            assertThat(row.get("eventType"),
+                       is((Object) "queries"));
+        } finally {
+            reporter.shutdown();
+        }
+    }
+
+    @Test
+    public void unregistersTheRegistryBeanOnShutdown() throws Exception {
+        reporter.shutdown();
+
+        assertThat(server.isRegistered(registryName),
+                   is(false));
+    }
+
+    private static class TestMetricsRegistry extends MetricsRegistry {
+        public <T extends Metric> T add(MetricName name, T metric) {
+            return getOrAdd(name, metric);
+        }
+    }
+}
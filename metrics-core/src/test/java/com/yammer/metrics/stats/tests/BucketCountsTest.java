@@ -0,0 +1,64 @@
+package com.yammer.metrics.stats.tests;
+
+import com.yammer.metrics.stats.BucketCounts;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BucketCountsTest {
+    private final BucketCounts counts = new BucketCounts(10, 100);
+
+    @Test
+    public void countsValuesInTheirBuckets() throws Exception {
+        counts.update(1);
+        counts.update(10);
+        counts.update(11);
+        counts.update(100);
+        counts.update(101);
+        counts.update(1000);
+
+        assertThat(counts.size(),
+                   is(3));
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 2, 2, 2 }));
+    }
+
+    @Test
+    public void canBeCleared() throws Exception {
+        counts.update(1);
+        counts.clear();
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 0, 0, 0 }));
+    }
+
+    @Test
+    public void countsEveryConcurrentUpdate() throws Exception {
+        final int threads = 4;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counts.update(j % 200);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 2200, 18000, 19800 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresAscendingThresholds() throws Exception {
+        new BucketCounts(100, 10);
+    }
+}
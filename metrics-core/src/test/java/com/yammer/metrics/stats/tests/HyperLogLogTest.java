@@ -0,0 +1,90 @@
+package com.yammer.metrics.stats.tests;
+
+import com.yammer.metrics.stats.HyperLogLog;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class HyperLogLogTest {
+    private final HyperLogLog sketch = new HyperLogLog(14);
+
+    @Test
+    public void startsEmpty() throws Exception {
+        assertThat(sketch.estimate(),
+                   is(0L));
+    }
+
+    @Test
+    public void countsSmallNumbersOfValuesExactly() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            sketch.add("user-" + i);
+            sketch.add("user-" + i);
+        }
+
+        assertThat(sketch.estimate(),
+                   is(100L));
+    }
+
+    @Test
+    public void estimatesLargeNumbersOfValues() throws Exception {
+        for (long i = 0; i < 1000000; i++) {
+            sketch.add(i);
+        }
+
+        assertThat((double) sketch.estimate(),
+                   is(closeTo(1000000, 20000)));
+    }
+
+    @Test
+    public void mergedSketchesCountTheUnionOfTheirValues() throws Exception {
+        final HyperLogLog other = new HyperLogLog(14);
+        for (long i = 0; i < 100000; i++) {
+            sketch.add(i);
+            other.add(i + 50000);
+        }
+
+        sketch.merge(other);
+
+        assertThat((double) sketch.estimate(),
+                   is(closeTo(150000, 3000)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void doesNotMergeSketchesOfDifferentPrecisions() throws Exception {
+        sketch.merge(new HyperLogLog(12));
+    }
+
+    @Test
+    public void roundTripsThroughBytes() throws Exception {
+        for (long i = 0; i < 10000; i++) {
+            sketch.add(i);
+        }
+
+        final HyperLogLog copy = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(copy.getPrecision(),
+                   is(14));
+
+        assertThat(copy.estimate(),
+                   is(sketch.estimate()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedBytes() throws Exception {
+        final byte[] bytes = sketch.toBytes();
+        final byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        HyperLogLog.fromBytes(truncated);
+    }
+
+    @Test
+    public void canBeCleared() throws Exception {
+        sketch.add("a");
+        sketch.clear();
+
+        assertThat(sketch.estimate(),
+                   is(0L));
+    }
+}
@@ -0,0 +1,78 @@
+package com.yammer.metrics.stats.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.stats.MovingAverages;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MovingAveragesTest {
+    private final Clock clock = mock(Clock.class);
+    private final MovingAverages averages = new MovingAverages(clock, TimeUnit.MINUTES, 1, 5, 15);
+
+    @Test
+    public void hasNoRateBeforeTheFirstTick() throws Exception {
+        averages.update(3);
+
+        assertThat(averages.getRate(0, TimeUnit.SECONDS),
+                   is(closeTo(0.0, 0.000001)));
+    }
+
+    @Test
+    public void decaysEachWindowLikeAnEWMA() throws Exception {
+        averages.update(3);
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(6));
+
+        assertThat("each window has a rate of 0.6 events/sec after the first tick",
+                   averages.getRate(0, TimeUnit.SECONDS),
+                   is(closeTo(0.6, 0.000001)));
+
+        assertThat(averages.getRate(2, TimeUnit.SECONDS),
+                   is(closeTo(0.6, 0.000001)));
+
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(66));
+
+        assertThat("the one-minute window has a rate of 0.22072766 events/sec after 1 minute",
+                   averages.getRate(0, TimeUnit.SECONDS),
+                   is(closeTo(0.22072766, 0.000001)));
+
+        assertThat("the five-minute window has a rate of 0.49123845 events/sec after 1 minute",
+                   averages.getRate(1, TimeUnit.SECONDS),
+                   is(closeTo(0.49123845, 0.000001)));
+
+        assertThat("the fifteen-minute window has a rate of 0.56130419 events/sec after 1 minute",
+                   averages.getRate(2, TimeUnit.SECONDS),
+                   is(closeTo(0.56130419, 0.000001)));
+    }
+
+    @Test
+    public void ticksShortWindowsMoreOften() throws Exception {
+        final MovingAverages fast = new MovingAverages(clock, TimeUnit.SECONDS, 1);
+        fast.update(2);
+        when(clock.getTick()).thenReturn(TimeUnit.MILLISECONDS.toNanos(250));
+
+        assertThat("two events in the first fifth of a second are ten per second",
+                   fast.getRate(0, TimeUnit.SECONDS),
+                   is(closeTo(10.0, 0.000001)));
+    }
+
+    @Test
+    public void reportsItsWindows() throws Exception {
+        assertThat(averages.size(),
+                   is(3));
+
+        assertThat(averages.getWindow(1, TimeUnit.SECONDS),
+                   is(300L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresAWindow() throws Exception {
+        new MovingAverages(clock, TimeUnit.MINUTES);
+    }
+}
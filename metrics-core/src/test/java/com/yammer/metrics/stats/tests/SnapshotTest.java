@@ -9,6 +9,7 @@ import java.util.List;
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -115,4 +116,53 @@ public class SnapshotTest {
         assertThat(other.getValues(),
                    is(new double[]{ 1.0, 2.0, 3.0, 4.0, 5.0 }));
     }
+
+    @Test
+    public void isUnweightedByDefault() throws Exception {
+        assertThat(snapshot.getWeights(),
+                   is(nullValue()));
+    }
+
+    @Test
+    public void weightedSnapshotsSortTheirValuesWithTheirWeights() throws Exception {
+        final Snapshot weighted = new Snapshot(new double[]{ 3, 1, 2 }, new long[]{ 1, 1, 2 });
+
+        assertThat(weighted.getValues(),
+                   is(new double[]{ 1, 2, 3 }));
+
+        assertThat(weighted.getWeights(),
+                   is(new long[]{ 1, 2, 1 }));
+    }
+
+    @Test
+    public void weightedSnapshotsInterpolateBetweenTheMiddlesOfTheirValues() throws Exception {
+        final Snapshot weighted = new Snapshot(new double[]{ 1, 2, 3 }, new long[]{ 1, 2, 1 });
+
+        assertThat(weighted.getValue(0.0),
+                   is(closeTo(1, 0.01)));
+
+        assertThat(weighted.getValue(0.25),
+                   is(closeTo(1.33, 0.01)));
+
+        assertThat(weighted.getMedian(),
+                   is(closeTo(2, 0.01)));
+
+        assertThat(weighted.getValue(1.0),
+                   is(closeTo(3, 0.01)));
+    }
+
+    @Test
+    public void mergesSnapshotsByWeight() throws Exception {
+        final Snapshot merged = Snapshot.merge(new Snapshot(new double[]{ 2, 1 }),
+                                               new Snapshot(new double[]{ 3 }, new long[]{ 2 }));
+
+        assertThat(merged.getValues(),
+                   is(new double[]{ 1, 2, 3 }));
+
+        assertThat(merged.getWeights(),
+                   is(new long[]{ 1, 1, 2 }));
+
+        assertThat(merged.getMedian(),
+                   is(closeTo(2.33, 0.01)));
+    }
 }
@@ -0,0 +1,157 @@
+package com.yammer.metrics.stats.tests;
+
+import com.yammer.metrics.stats.Snapshot;
+import com.yammer.metrics.stats.TDigestSample;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class TDigestSampleTest {
+    private final TDigestSample sample = new TDigestSample();
+
+    @Test
+    public void startsEmpty() throws Exception {
+        assertThat(sample.size(),
+                   is(0));
+
+        assertThat(sample.getSnapshot().getMedian(),
+                   is(0.0));
+    }
+
+    @Test
+    public void estimatesQuantilesOfUniformValues() throws Exception {
+        for (int i = 1; i <= 100000; i++) {
+            sample.update(i);
+        }
+
+        final Snapshot snapshot = sample.getSnapshot();
+
+        assertThat("the sample counts every value",
+                   sample.size(),
+                   is(100000));
+
+        assertThat("the digest is much smaller than the stream",
+                   snapshot.size(),
+                   is(lessThan(500)));
+
+        assertThat(snapshot.getMedian(),
+                   is(closeTo(50000, 500)));
+
+        assertThat(snapshot.get99thPercentile(),
+                   is(closeTo(99000, 100)));
+
+        assertThat(snapshot.get999thPercentile(),
+                   is(closeTo(99900, 20)));
+    }
+
+    @Test
+    public void mergedDigestsAreAsAccurateAsOneDigest() throws Exception {
+        final Random random = new Random(1);
+        final TDigestSample other = new TDigestSample();
+        for (int i = 0; i < 50000; i++) {
+            sample.update(random.nextInt(1000));
+            other.update(1000 + random.nextInt(9000));
+        }
+
+        sample.merge(other);
+
+        assertThat(sample.getCount(),
+                   is(100000L));
+
+        final Snapshot snapshot = sample.getSnapshot();
+
+        assertThat(snapshot.getMedian(),
+                   is(closeTo(1000, 50)));
+
+        assertThat(snapshot.get99thPercentile(),
+                   is(closeTo(9820, 50)));
+    }
+
+    @Test
+    public void mergedSnapshotsAreWeightedByCount() throws Exception {
+        final TDigestSample other = new TDigestSample();
+        for (int i = 0; i < 9000; i++) {
+            sample.update(100);
+        }
+        for (int i = 0; i < 1000; i++) {
+            other.update(1000);
+        }
+
+        final Snapshot merged = Snapshot.merge(sample.getSnapshot(), other.getSnapshot());
+
+        assertThat(merged.getMedian(),
+                   is(closeTo(100, 0.1)));
+
+        assertThat(merged.get95thPercentile(),
+                   is(closeTo(1000, 0.1)));
+    }
+
+    @Test
+    public void roundTripsThroughBytes() throws Exception {
+        for (int i = 1; i <= 10000; i++) {
+            sample.update(i * 3);
+        }
+
+        final byte[] bytes = sample.toBytes();
+        final TDigestSample copy = TDigestSample.fromBytes(bytes);
+
+        assertThat(copy.getCount(),
+                   is(10000L));
+
+        assertThat(copy.getSnapshot().getValues(),
+                   is(sample.getSnapshot().getValues()));
+
+        assertThat(copy.getSnapshot().getWeights(),
+                   is(sample.getSnapshot().getWeights()));
+
+        assertThat("the digest takes a few kilobytes at most",
+                   bytes.length,
+                   is(lessThan(5000)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedBytes() throws Exception {
+        sample.update(1);
+        sample.update(2);
+
+        final byte[] bytes = sample.toBytes();
+        final byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+        TDigestSample.fromBytes(truncated);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANaNCompression() throws Exception {
+        new TDigestSample(Double.NaN);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAHugeCompression() throws Exception {
+        new TDigestSample(1e12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBytesWithANaNCompression() throws Exception {
+        final byte[] bytes = sample.toBytes();
+        ByteBuffer.wrap(bytes).putDouble(0, Double.NaN);
+
+        TDigestSample.fromBytes(bytes);
+    }
+
+    @Test
+    public void canBeCleared() throws Exception {
+        sample.update(1);
+        sample.clear();
+
+        assertThat(sample.size(),
+                   is(0));
+
+        assertThat(sample.getSnapshot().size(),
+                   is(0));
+    }
+}
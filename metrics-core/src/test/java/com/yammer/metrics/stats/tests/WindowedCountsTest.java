@@ -0,0 +1,88 @@
+package com.yammer.metrics.stats.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.stats.WindowedCounts;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WindowedCountsTest {
+    private final Clock clock = mock(Clock.class);
+    private final WindowedCounts counts = new WindowedCounts(2, 5, TimeUnit.MINUTES, clock);
+
+    @Test
+    public void startsAtZero() throws Exception {
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 0, 0 }));
+    }
+
+    @Test
+    public void countsEventsFromEveryBucketInTheWindow() throws Exception {
+        for (int i = 0; i < 240; i++) {
+            when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(i));
+            counts.increment(i % 3 == 0 ? 1 : 0);
+        }
+        counts.add(1, 10);
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 160, 90 }));
+    }
+
+    @Test
+    public void forgetsEventsOutsideTheWindow() throws Exception {
+        counts.increment(0);
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(3));
+        counts.increment(1);
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(6));
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 0, 1 }));
+
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(10));
+        counts.increment(0);
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 1, 0 }));
+    }
+
+    @Test
+    public void canBeCleared() throws Exception {
+        counts.increment(0);
+        counts.clear();
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 0, 0 }));
+    }
+
+    @Test
+    public void countsEveryConcurrentUpdate() throws Exception {
+        final int threads = 4;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counts.increment(j % 2);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        assertThat(counts.getCounts(),
+                   is(new long[]{ 20000, 20000 }));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresAWindowOfAtLeastFiveNanoseconds() throws Exception {
+        new WindowedCounts(2, 4, TimeUnit.NANOSECONDS, clock);
+    }
+}
@@ -0,0 +1,126 @@
+package com.yammer.metrics.stats.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.stats.WindowedSummary;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WindowedSummaryTest {
+    private final Clock clock = mock(Clock.class);
+    private final WindowedSummary summary = new WindowedSummary(5, TimeUnit.MINUTES, clock);
+
+    @Test
+    public void anEmptySummary() throws Exception {
+        assertThat(summary.getCount(),
+                   is(0L));
+
+        assertThat(summary.getMax(),
+                   is(closeTo(0.0, 0.0001)));
+
+        assertThat(summary.getMin(),
+                   is(closeTo(0.0, 0.0001)));
+
+        assertThat(summary.getStdDev(),
+                   is(closeTo(0.0, 0.0001)));
+    }
+
+    @Test
+    public void combinesValuesFromEveryBucketInTheWindow() throws Exception {
+        for (int i = 1; i <= 1000; i++) {
+            // spread the values over the first four minutes
+            when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(i * 240 / 1000));
+            summary.update(i);
+        }
+
+        assertThat(summary.getCount(),
+                   is(1000L));
+
+        assertThat(summary.getMin(),
+                   is(closeTo(1.0, 0.0001)));
+
+        assertThat(summary.getMax(),
+                   is(closeTo(1000.0, 0.0001)));
+
+        assertThat(summary.getMean(),
+                   is(closeTo(500.5, 0.0001)));
+
+        assertThat(summary.getStdDev(),
+                   is(closeTo(288.8194360957494, 0.0001)));
+
+        assertThat(summary.getSum(),
+                   is(closeTo(500500, 0.1)));
+    }
+
+    @Test
+    public void forgetsValuesOutsideTheWindow() throws Exception {
+        summary.update(1000);
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(4));
+        summary.update(10);
+        summary.update(20);
+
+        assertThat(summary.getMax(),
+                   is(closeTo(1000.0, 0.0001)));
+
+        when(clock.getTick()).thenReturn(TimeUnit.MINUTES.toNanos(5));
+
+        assertThat("the spike has expired",
+                   summary.getMax(),
+                   is(closeTo(20.0, 0.0001)));
+
+        assertThat(summary.getMean(),
+                   is(closeTo(15.0, 0.0001)));
+
+        summary.update(30);
+
+        assertThat("values recorded into a reused bucket replace its old ones",
+                   summary.getCount(),
+                   is(3L));
+    }
+
+    @Test
+    public void canBeCleared() throws Exception {
+        summary.update(10);
+        summary.clear();
+
+        assertThat(summary.getCount(),
+                   is(0L));
+    }
+
+    @Test
+    public void combinesEveryConcurrentUpdate() throws Exception {
+        final int threads = 4;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 1; j <= 10000; j++) {
+                        summary.update(j);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        assertThat(summary.getCount(),
+                   is(40000L));
+
+        assertThat(summary.getMin(),
+                   is(closeTo(1.0, 0.0001)));
+
+        assertThat(summary.getMax(),
+                   is(closeTo(10000.0, 0.0001)));
+
+        assertThat(summary.getMean(),
+                   is(closeTo(5000.5, 0.0001)));
+    }
+}
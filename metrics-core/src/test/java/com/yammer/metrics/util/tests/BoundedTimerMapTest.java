@@ -0,0 +1,77 @@
+package com.yammer.metrics.util.tests;
+
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.util.BoundedTimerMap;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class BoundedTimerMapTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final BoundedTimerMap<String> timers = new BoundedTimerMap<String>(registry, BoundedTimerMapTest.class, "routes", 2,
+                                                                               TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+
+    @Test
+    public void registersATimerForEachKeyScopedByTheKey() throws Exception {
+        final Timer timer = timers.get("/users");
+
+        assertThat("the same key returns the same timer",
+                   timers.get("/users"),
+                   is(sameInstance(timer)));
+
+        assertThat("the timer is registered with the key as its scope",
+                   registry.getAllMetrics().get(new MetricName(BoundedTimerMapTest.class, "routes", "/users")),
+                   is(sameInstance((Object) timer)));
+
+        assertThat(timers.size(),
+                   is(1));
+    }
+
+    @Test
+    public void sharesTheOverflowTimerOnceFull() throws Exception {
+        final Timer first = timers.get("/users");
+        final Timer second = timers.get("/posts");
+        final Timer overflow = timers.get("/comments");
+
+        assertThat("the keys seen before the maximum have their own timers",
+                   first,
+                   is(not(sameInstance(second))));
+
+        assertThat("keys seen after the maximum share the overflow timer",
+                   timers.get("/tags"),
+                   is(sameInstance(overflow)));
+
+        assertThat("the overflow timer is registered with the overflow scope",
+                   registry.getAllMetrics().get(new MetricName(BoundedTimerMapTest.class, "routes",
+                                                               BoundedTimerMap.OVERFLOW_SCOPE)),
+                   is(sameInstance((Object) overflow)));
+
+        assertThat("keys seen before the maximum keep their timers",
+                   timers.get("/users"),
+                   is(sameInstance(first)));
+
+        assertThat(timers.size(),
+                   is(2));
+    }
+
+    @Test
+    public void usesTheScopeOfTheKey() throws Exception {
+        final BoundedTimerMap<Integer> ports = new BoundedTimerMap<Integer>(registry, BoundedTimerMapTest.class, "ports", 2,
+                                                                            TimeUnit.MILLISECONDS, TimeUnit.SECONDS) {
+            @Override
+            protected String getScope(Integer key) {
+                return "port-" + key;
+            }
+        };
+
+        final Timer timer = ports.get(8080);
+
+        assertThat(registry.getAllMetrics().get(new MetricName(BoundedTimerMapTest.class, "ports", "port-8080")),
+                   is(sameInstance((Object) timer)));
+    }
+}
@@ -0,0 +1,128 @@
+package com.yammer.metrics.util.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.util.CachedGauge;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CachedGaugeTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Clock clock = mock(Clock.class);
+
+    @Test
+    public void cachesTheValueUntilTheTimeoutPasses() throws Exception {
+        when(clock.getTick()).thenReturn(0L);
+        final CachedGauge<Integer> gauge = new CachedGauge<Integer>(clock, 100, TimeUnit.NANOSECONDS) {
+            @Override
+            protected Integer loadValue() {
+                return loads.incrementAndGet();
+            }
+        };
+
+        assertThat(gauge.getValue(),
+                   is(1));
+
+        when(clock.getTick()).thenReturn(99L);
+
+        assertThat(gauge.getValue(),
+                   is(1));
+
+        when(clock.getTick()).thenReturn(100L);
+
+        assertThat(gauge.getValue(),
+                   is(2));
+    }
+
+    @Test
+    public void concurrentFirstReadersAllSeeTheFirstValue() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CachedGauge<Integer> gauge = new CachedGauge<Integer>(clock, 100, TimeUnit.NANOSECONDS) {
+            @Override
+            protected Integer loadValue() {
+                loading.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return loads.incrementAndGet();
+            }
+        };
+
+        final AtomicReference<Integer> first = new AtomicReference<Integer>();
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                first.set(gauge.getValue());
+            }
+        };
+        thread.start();
+        loading.await();
+
+        assertThat(gauge.getValue(),
+                   is(1));
+
+        thread.join();
+
+        assertThat(first.get(),
+                   is(1));
+
+        assertThat(loads.get(),
+                   is(1));
+    }
+
+    @Test
+    public void reloadsTheValueInTheBackground() throws Exception {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final CachedGauge<Integer> gauge = new CachedGauge<Integer>(clock, 1, TimeUnit.DAYS) {
+                @Override
+                protected Integer loadValue() {
+                    return loads.incrementAndGet();
+                }
+            };
+            gauge.start(executor, 10, TimeUnit.MILLISECONDS);
+
+            final int first = gauge.getValue();
+
+            Thread.sleep(100);
+
+            assertThat(gauge.getValue(),
+                       is(greaterThan(first)));
+
+            gauge.stop();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void canOnlyBeStartedOnce() throws Exception {
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        final CachedGauge<Integer> gauge = new CachedGauge<Integer>(clock, 1, TimeUnit.DAYS) {
+            @Override
+            protected Integer loadValue() {
+                return loads.incrementAndGet();
+            }
+        };
+        try {
+            gauge.start(executor, 10, TimeUnit.MILLISECONDS);
+            gauge.start(executor, 10, TimeUnit.MILLISECONDS);
+        } finally {
+            gauge.stop();
+            executor.shutdownNow();
+        }
+    }
+}
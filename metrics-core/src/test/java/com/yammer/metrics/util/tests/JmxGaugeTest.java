@@ -1,20 +1,47 @@
 package com.yammer.metrics.util.tests;
 
 import com.yammer.metrics.util.JmxGauge;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
 import static java.lang.management.ManagementFactory.getCompilationMXBean;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
 public class JmxGaugeTest {
+    public interface ValueMBean {
+        int getValue();
+    }
+
+    public static class Value implements ValueMBean {
+        private volatile int value;
+
+        @Override
+        public int getValue() {
+            return value;
+        }
+    }
+
+    private final Value value = new Value();
+    private ObjectName valueName;
     private JmxGauge gauge;
 
     @Before
     public void setUp() throws Exception {
         this.gauge = new JmxGauge("java.lang:type=Compilation",
                                   "CompilationTimeMonitoringSupported");
+        this.valueName = new ObjectName("com.yammer.metrics.util.tests:type=JmxGaugeTest");
+        ManagementFactory.getPlatformMBeanServer().registerMBean(value, valueName);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(valueName);
     }
 
     @Test
@@ -22,4 +49,30 @@ public class JmxGaugeTest {
         assertThat(gauge.getValue(),
                    is((Object) getCompilationMXBean().isCompilationTimeMonitoringSupported()));
     }
+
+    @Test
+    public void isUncachedByDefault() throws Exception {
+        final JmxGauge uncached = new JmxGauge(valueName, "Value");
+
+        assertThat(uncached.getValue(),
+                   is((Object) 0));
+
+        value.value = 1;
+
+        assertThat(uncached.getValue(),
+                   is((Object) 1));
+    }
+
+    @Test
+    public void cachesTheAttributeForTheTimeout() throws Exception {
+        final JmxGauge cached = new JmxGauge(valueName, "Value", 1, TimeUnit.HOURS);
+
+        assertThat(cached.getValue(),
+                   is((Object) 0));
+
+        value.value = 1;
+
+        assertThat(cached.getValue(),
+                   is((Object) 0));
+    }
 }
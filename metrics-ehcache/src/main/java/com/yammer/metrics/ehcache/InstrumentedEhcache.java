@@ -5,6 +5,7 @@ import com.yammer.metrics.core.Gauge;
 import com.yammer.metrics.core.MetricsRegistry;
 import com.yammer.metrics.core.Timer;
 import com.yammer.metrics.core.TimerContext;
+import com.yammer.metrics.util.CachedGauge;
 import net.sf.ehcache.CacheException;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
@@ -18,6 +19,8 @@ import java.util.concurrent.TimeUnit;
  * An instrumented {@link Ehcache} instance.
  */
 public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
+    private static final long STATISTICS_TIMEOUT = 1;
+
     /**
      * Instruments the given {@link Ehcache} instance with get and put timers
      * and a set of gauges for Ehcache's built-in statistics:
@@ -209,20 +212,53 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
      *
      * <b>N.B.: This enables Ehcache's sampling statistics with an accuracy
      * level of "none."</b>
+     * <p/>
+     * All of the gauges are read from a single {@link Statistics} snapshot,
+     * which is taken at most once every {@value #STATISTICS_TIMEOUT} second.
      *
      * @param cache       an {@link Ehcache} instance
      * @param registry    a {@link MetricsRegistry}
      * @return an instrumented decorator for {@code cache}
      * @see Statistics
      */
-    public static Ehcache instrument(MetricsRegistry registry, final Ehcache cache) {
+    public static Ehcache instrument(MetricsRegistry registry, Ehcache cache) {
+        return instrument(registry, cache, 1);
+    }
+
+    /**
+     * Instruments the given {@link Ehcache} instance with the same gauges as
+     * {@link #instrument(MetricsRegistry, Ehcache)}, but only times one in
+     * every {@code timingSampleRate} gets and puts.
+     * <p/>
+     * Each thread times every {@code timingSampleRate}-th get and put it makes,
+     * so the overhead of timing a very hot cache is bounded without any shared
+     * state between threads. The counts and rates of the {@code get} and
+     * {@code put} timers will reflect only the sampled calls.
+     *
+     * @param registry            a {@link MetricsRegistry}
+     * @param cache               an {@link Ehcache} instance
+     * @param timingSampleRate    time one in every {@code timingSampleRate} gets and puts
+     * @return an instrumented decorator for {@code cache}
+     */
+    public static Ehcache instrument(MetricsRegistry registry, final Ehcache cache, int timingSampleRate) {
+        if (timingSampleRate < 1) {
+            throw new IllegalArgumentException("timingSampleRate must be at least 1");
+        }
+
         cache.setSampledStatisticsEnabled(true);
         cache.setStatisticsAccuracy(Statistics.STATISTICS_ACCURACY_NONE);
 
+        final CachedGauge<Statistics> statistics = new CachedGauge<Statistics>(STATISTICS_TIMEOUT, TimeUnit.SECONDS) {
+            @Override
+            protected Statistics loadValue() {
+                return cache.getStatistics();
+            }
+        };
+
         registry.newGauge(cache.getClass(), "hits", cache.getName(), new Gauge<Long>() {
             @Override
             public Long getValue() {
-                return cache.getStatistics().getCacheHits();
+                return statistics.getValue().getCacheHits();
             }
         });
 
@@ -232,7 +268,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getInMemoryHits();
+                                         return statistics.getValue().getInMemoryHits();
                                      }
                                  });
 
@@ -242,7 +278,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getOffHeapHits();
+                                         return statistics.getValue().getOffHeapHits();
                                      }
                                  });
 
@@ -252,14 +288,14 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getOnDiskHits();
+                                         return statistics.getValue().getOnDiskHits();
                                      }
                                  });
 
         registry.newGauge(cache.getClass(), "misses", cache.getName(), new Gauge<Long>() {
             @Override
             public Long getValue() {
-                return cache.getStatistics().getCacheMisses();
+                return statistics.getValue().getCacheMisses();
             }
         });
 
@@ -269,7 +305,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getInMemoryMisses();
+                                         return statistics.getValue().getInMemoryMisses();
                                      }
                                  });
 
@@ -279,7 +315,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getOffHeapMisses();
+                                         return statistics.getValue().getOffHeapMisses();
                                      }
                                  });
 
@@ -289,14 +325,14 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getOnDiskMisses();
+                                         return statistics.getValue().getOnDiskMisses();
                                      }
                                  });
 
         registry.newGauge(cache.getClass(), "objects", cache.getName(), new Gauge<Long>() {
             @Override
             public Long getValue() {
-                return cache.getStatistics().getObjectCount();
+                return statistics.getValue().getObjectCount();
             }
         });
 
@@ -306,7 +342,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getMemoryStoreObjectCount();
+                                         return statistics.getValue().getMemoryStoreObjectCount();
                                      }
                                  });
 
@@ -316,7 +352,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getOffHeapStoreObjectCount();
+                                         return statistics.getValue().getOffHeapStoreObjectCount();
                                      }
                                  });
 
@@ -326,7 +362,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getDiskStoreObjectCount();
+                                         return statistics.getValue().getDiskStoreObjectCount();
                                      }
                                  });
 
@@ -336,7 +372,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Float>() {
                                      @Override
                                      public Float getValue() {
-                                         return cache.getStatistics().getAverageGetTime();
+                                         return statistics.getValue().getAverageGetTime();
                                      }
                                  });
 
@@ -346,7 +382,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getAverageSearchTime();
+                                         return statistics.getValue().getAverageSearchTime();
                                      }
                                  });
 
@@ -356,7 +392,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getEvictionCount();
+                                         return statistics.getValue().getEvictionCount();
                                      }
                                  });
 
@@ -366,7 +402,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getSearchesPerSecond();
+                                         return statistics.getValue().getSearchesPerSecond();
                                      }
                                  });
 
@@ -376,7 +412,7 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<Long>() {
                                      @Override
                                      public Long getValue() {
-                                         return cache.getStatistics().getWriterQueueSize();
+                                         return statistics.getValue().getWriterQueueSize();
                                      }
                                  });
 
@@ -386,68 +422,97 @@ public class InstrumentedEhcache extends EhcacheDecoratorAdapter {
                                  new Gauge<String>() {
                                      @Override
                                      public String getValue() {
-                                         return cache.getStatistics()
+                                         return statistics.getValue()
                                                      .getStatisticsAccuracyDescription();
                                      }
                                  });
 
-        return new InstrumentedEhcache(registry, cache);
+        return new InstrumentedEhcache(registry, cache, timingSampleRate);
     }
 
+    private static final int GET = 0;
+    private static final int PUT = 1;
+
     private final Timer getTimer, putTimer;
+    private final int timingSampleRate;
+    private final ThreadLocal<int[]> calls = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[2];
+        }
+    };
 
-    private InstrumentedEhcache(MetricsRegistry registry, Ehcache cache) {
+    private InstrumentedEhcache(MetricsRegistry registry, Ehcache cache, int timingSampleRate) {
         super(cache);
         this.getTimer = registry.newTimer(cache.getClass(), "get", cache.getName(), TimeUnit.MICROSECONDS, TimeUnit.SECONDS);
         this.putTimer = registry.newTimer(cache.getClass(), "put", cache.getName(), TimeUnit.MICROSECONDS, TimeUnit.SECONDS);
+        this.timingSampleRate = timingSampleRate;
     }
 
     @Override
     public Element get(Object key) throws IllegalStateException, CacheException {
-        final TimerContext ctx = getTimer.time();
+        final TimerContext ctx = time(getTimer, GET);
         try {
             return underlyingCache.get(key);
         } finally {
-            ctx.stop();
+            stop(ctx);
         }
     }
 
     @Override
     public Element get(Serializable key) throws IllegalStateException, CacheException {
-        final TimerContext ctx = getTimer.time();
+        final TimerContext ctx = time(getTimer, GET);
         try {
             return underlyingCache.get(key);
         } finally {
-            ctx.stop();
+            stop(ctx);
         }
     }
 
     @Override
     public void put(Element element) throws IllegalArgumentException, IllegalStateException, CacheException {
-        final TimerContext ctx = putTimer.time();
+        final TimerContext ctx = time(putTimer, PUT);
         try {
             underlyingCache.put(element);
         } finally {
-            ctx.stop();
+            stop(ctx);
         }
     }
 
     @Override
     public void put(Element element, boolean doNotNotifyCacheReplicators) throws IllegalArgumentException, IllegalStateException, CacheException {
-        final TimerContext ctx = putTimer.time();
+        final TimerContext ctx = time(putTimer, PUT);
         try {
             underlyingCache.put(element, doNotNotifyCacheReplicators);
         } finally {
-            ctx.stop();
+            stop(ctx);
         }
     }
 
     @Override
     public Element putIfAbsent(Element element) throws NullPointerException {
-        final TimerContext ctx = putTimer.time();
+        final TimerContext ctx = time(putTimer, PUT);
         try {
             return underlyingCache.putIfAbsent(element);
         } finally {
+            stop(ctx);
+        }
+    }
+
+    private TimerContext time(Timer timer, int operation) {
+        if (timingSampleRate == 1) {
+            return timer.time();
+        }
+        final int[] counts = calls.get();
+        if (++counts[operation] < timingSampleRate) {
+            return null;
+        }
+        counts[operation] = 0;
+        return timer.time();
+    }
+
+    private static void stop(TimerContext ctx) {
+        if (ctx != null) {
             ctx.stop();
         }
     }
@@ -1,20 +1,36 @@
 package com.yammer.metrics.ehcache;
 
+import com.yammer.metrics.Metrics;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.constructs.CacheDecoratorFactory;
 
 import java.util.Properties;
 
+/**
+ * A {@link CacheDecoratorFactory} which instruments caches with {@link InstrumentedEhcache}. If the
+ * {@code timingSampleRate} property is set, only one in every {@code timingSampleRate} gets and
+ * puts is timed.
+ */
 public class InstrumentedEhcacheFactory extends CacheDecoratorFactory {
+    private static final String TIMING_SAMPLE_RATE = "timingSampleRate";
 
     @Override
     public Ehcache createDecoratedEhcache(Ehcache cache, Properties properties) {
-        return InstrumentedEhcache.instrument(cache);
+        return instrument(cache, properties);
     }
 
     @Override
     public Ehcache createDefaultDecoratedEhcache(Ehcache cache, Properties properties) {
-        return InstrumentedEhcache.instrument(cache);
+        return instrument(cache, properties);
     }
 
+    private static Ehcache instrument(Ehcache cache, Properties properties) {
+        final String rate = properties == null ? null : properties.getProperty(TIMING_SAMPLE_RATE);
+        if (rate == null) {
+            return InstrumentedEhcache.instrument(cache);
+        }
+        return InstrumentedEhcache.instrument(Metrics.defaultRegistry(),
+                                              cache,
+                                              Integer.parseInt(rate.trim()));
+    }
 }
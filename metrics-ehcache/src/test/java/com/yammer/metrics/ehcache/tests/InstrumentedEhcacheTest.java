@@ -1,6 +1,9 @@
 package com.yammer.metrics.ehcache.tests;
 
 import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricsRegistry;
 import com.yammer.metrics.core.Timer;
 import com.yammer.metrics.ehcache.InstrumentedEhcache;
 import net.sf.ehcache.Cache;
@@ -8,12 +11,18 @@ import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.config.CacheConfiguration;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 public class InstrumentedEhcacheTest {
@@ -28,6 +37,13 @@ public class InstrumentedEhcacheTest {
         this.cache = InstrumentedEhcache.instrument(c);
     }
 
+    @After
+    public void tearDown() throws Exception {
+        MANAGER.removeCache("test");
+        MANAGER.removeCache("sampled");
+        MANAGER.removeCache("concurrent");
+    }
+
     @Test
     public void measuresGetsAndPuts() throws Exception {
         cache.get("woo");
@@ -52,4 +68,73 @@ public class InstrumentedEhcacheTest {
         assertThat(puts.getCount(),
                    is(1L));
     }
+
+    @Test
+    public void timesOneInEveryNGetsAndPutsWhenSampled() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final Cache c = new Cache(new CacheConfiguration("sampled", 100));
+        MANAGER.addCache(c);
+        final Ehcache sampled = InstrumentedEhcache.instrument(registry, c, 4);
+
+        for (int i = 0; i < 8; i++) {
+            sampled.get("woo");
+        }
+        sampled.put(new Element("woo", "whee"));
+
+        final Timer gets = registry.newTimer(Cache.class,
+                                             "get",
+                                             "sampled",
+                                             TimeUnit.MILLISECONDS,
+                                             TimeUnit.SECONDS);
+
+        assertThat(gets.getCount(),
+                   is(2L));
+
+        final Timer puts = registry.newTimer(Cache.class,
+                                             "put",
+                                             "sampled",
+                                             TimeUnit.MILLISECONDS,
+                                             TimeUnit.SECONDS);
+
+        assertThat(puts.getCount(),
+                   is(0L));
+    }
+
+    @Test
+    public void concurrentFirstPollsOfTheGaugesAllSeeStatistics() throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final Cache c = new Cache(new CacheConfiguration("concurrent", 100));
+        MANAGER.addCache(c);
+        InstrumentedEhcache.instrument(registry, c, 1);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 8; i++) {
+            final Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (Metric metric : registry.getAllMetrics().values()) {
+                            if (metric instanceof Gauge) {
+                                ((Gauge<?>) metric).getValue();
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(failure.get(),
+                   is(nullValue()));
+    }
 }
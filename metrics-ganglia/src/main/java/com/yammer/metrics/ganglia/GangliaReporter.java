@@ -413,6 +413,50 @@ public class GangliaReporter extends AbstractPollingReporter implements MetricPr
         printDoubleField(sanitizedName + ".98percentile", snapshot.get98thPercentile(), "timer", durationUnit);
         printDoubleField(sanitizedName + ".99percentile", snapshot.get99thPercentile(), "timer", durationUnit);
         printDoubleField(sanitizedName + ".999percentile", snapshot.get999thPercentile(), "timer", durationUnit);
+        if (timer.getServiceLevel() != null) {
+            printDoubleField(sanitizedName + ".apdex", timer.getApdex(), "timer");
+            printDoubleField(sanitizedName + ".errorBudgetBurnRate", timer.getErrorBudgetBurnRate(), "timer");
+            final double[] thresholds = timer.getThresholds();
+            final long[] counts = timer.getThresholdCounts();
+            for (int i = 0; i < thresholds.length; i++) {
+                printLongField(sanitizedName + ".within" + formatThreshold(thresholds[i]), counts[i], "timer", "calls");
+            }
+        }
+    }
+
+    @Override
+    public void processCardinality(MetricName name, Cardinality cardinality, String x) throws IOException {
+        printLongField(sanitizeName(name) + ".distinct", cardinality.getCount(), "cardinality");
+    }
+
+    @Override
+    public void processTopK(MetricName name, TopK topK, String x) throws IOException {
+        // the keys change over time, and each one would become a separate metric in Ganglia
+    }
+
+    @Override
+    public void processConcurrency(MetricName name, Concurrency concurrency, String x) throws IOException {
+        final String sanitizedName = sanitizeName(name);
+        final Concurrency.Reading reading = concurrency.read(this);
+        printLongField(sanitizedName + ".count", reading.getCount(), "concurrency");
+        printLongField(sanitizedName + ".max", reading.getMax(), "concurrency");
+        printDoubleField(sanitizedName + ".mean", reading.getMean(), "concurrency");
+    }
+
+    @Override
+    public void processWindowedMeter(MetricName name, WindowedMeter meter, String x) throws IOException {
+        final String sanitizedName = sanitizeName(name);
+        final String rateUnits = meter.getRateUnit().name();
+        final String rateUnit = rateUnits.substring(0, rateUnits.length() - 1).toLowerCase(Locale.US);
+        final String unit = meter.getEventType() + '/' + rateUnit;
+        printLongField(sanitizedName + ".count", meter.getCount(), "metered", meter.getEventType());
+        printDoubleField(sanitizedName + ".meanRate", meter.getMeanRate(), "metered", unit);
+        for (int i = 0; i < meter.getWindowCount(); i++) {
+            printDoubleField(sanitizedName + "." + meter.getWindowName(i) + "Rate",
+                             meter.getRate(i),
+                             "metered",
+                             unit);
+        }
     }
 
     private void printDoubleField(String name, double value, String groupName, String units) {
@@ -335,6 +335,44 @@ public class GraphiteReporter extends AbstractPollingReporter implements MetricP
         final String sanitizedName = sanitizeName(name);
         sendSummarizable(epoch, sanitizedName, timer);
         sendSampling(epoch, sanitizedName, timer);
+        if (timer.getServiceLevel() != null) {
+            sendFloat(epoch, sanitizedName, "apdex", timer.getApdex());
+            sendFloat(epoch, sanitizedName, "errorBudgetBurnRate", timer.getErrorBudgetBurnRate());
+            final double[] thresholds = timer.getThresholds();
+            final long[] counts = timer.getThresholdCounts();
+            for (int i = 0; i < thresholds.length; i++) {
+                sendInt(epoch, sanitizedName, "within" + formatThreshold(thresholds[i]), counts[i]);
+            }
+        }
+    }
+
+    @Override
+    public void processCardinality(MetricName name, Cardinality cardinality, Long epoch) throws IOException {
+        sendInt(epoch, sanitizeName(name), "distinct", cardinality.getCount());
+    }
+
+    @Override
+    public void processTopK(MetricName name, TopK topK, Long epoch) throws IOException {
+        // the keys change over time, and each one would become a separate series in Graphite
+    }
+
+    @Override
+    public void processConcurrency(MetricName name, Concurrency concurrency, Long epoch) throws IOException {
+        final String sanitizedName = sanitizeName(name);
+        final Concurrency.Reading reading = concurrency.read(this);
+        sendInt(epoch, sanitizedName, "count", reading.getCount());
+        sendInt(epoch, sanitizedName, "max", reading.getMax());
+        sendFloat(epoch, sanitizedName, "mean", reading.getMean());
+    }
+
+    @Override
+    public void processWindowedMeter(MetricName name, WindowedMeter meter, Long epoch) throws IOException {
+        final String sanitizedName = sanitizeName(name);
+        sendInt(epoch, sanitizedName, "count", meter.getCount());
+        sendFloat(epoch, sanitizedName, "meanRate", meter.getMeanRate());
+        for (int i = 0; i < meter.getWindowCount(); i++) {
+            sendFloat(epoch, sanitizedName, meter.getWindowName(i) + "Rate", meter.getRate(i));
+        }
     }
 
     protected void sendSummarizable(long epoch, String sanitizedName, Summarizable metric) throws IOException {
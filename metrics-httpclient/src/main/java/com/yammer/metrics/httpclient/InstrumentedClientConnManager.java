@@ -1,21 +1,97 @@
 package com.yammer.metrics.httpclient;
 
 import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Clock;
 import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
 import com.yammer.metrics.core.MetricsRegistry;
-import org.apache.http.conn.ClientConnectionManager;
-import org.apache.http.conn.DnsResolver;
+import com.yammer.metrics.core.Timer;
+import org.apache.http.conn.*;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.scheme.SchemeRegistry;
 import org.apache.http.impl.conn.PoolingClientConnectionManager;
 import org.apache.http.impl.conn.SchemeRegistryFactory;
 import org.apache.http.impl.conn.SystemDefaultDnsResolver;
 
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * A {@link ClientConnectionManager} which monitors the number of open connections.
+ * A {@link ClientConnectionManager} which monitors its connection pool: how long requests wait to
+ * lease a connection, how many lease attempts time out, and the numbers of leased, available, and
+ * pending connections.
+ * <p/>
+ * The connection counts are kept up to date as connections are requested, leased, and released,
+ * so reading them never takes the pool's lock. The number of available connections is
+ * approximate: stale connections which the pool discards are only accounted for when idle or
+ * expired connections are closed (e.g., by an idle connection monitor).
  */
 public class InstrumentedClientConnManager extends PoolingClientConnectionManager {
+    /**
+     * Times how long a request waits for a connection, and counts it as pending until it gets one,
+     * times out, or is aborted.
+     */
+    private class InstrumentedConnectionRequest implements ClientConnectionRequest {
+        private final ClientConnectionRequest request;
+        private final AtomicBoolean pending = new AtomicBoolean(true);
+
+        private InstrumentedConnectionRequest(ClientConnectionRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public ManagedClientConnection getConnection(long timeout, TimeUnit tunit)
+                throws InterruptedException, ConnectionPoolTimeoutException {
+            final long start = clock.getTick();
+            try {
+                final ManagedClientConnection connection = request.getConnection(timeout, tunit);
+                if (leased.add(connection)) {
+                    leasedConnections.incrementAndGet();
+                    // an open connection was taken from the available ones
+                    if (connection.isOpen()) {
+                        availableConnections.decrementAndGet();
+                    }
+                }
+                return connection;
+            } catch (ConnectionPoolTimeoutException e) {
+                leaseTimeouts.mark();
+                throw e;
+            } finally {
+                leaseWait.update(clock.getTick() - start, TimeUnit.NANOSECONDS);
+                done();
+            }
+        }
+
+        @Override
+        public void abortRequest() {
+            try {
+                request.abortRequest();
+            } finally {
+                done();
+            }
+        }
+
+        private void done() {
+            if (pending.compareAndSet(true, false)) {
+                pendingConnections.decrementAndGet();
+            }
+        }
+    }
+
+    private final AtomicInteger availableConnections = new AtomicInteger();
+    private final AtomicInteger leasedConnections = new AtomicInteger();
+    private final AtomicInteger pendingConnections = new AtomicInteger();
+    private final Set<ManagedClientConnection> leased =
+            Collections.newSetFromMap(new ConcurrentHashMap<ManagedClientConnection, Boolean>());
+    private volatile int maxConnections;
+    private final Clock clock;
+    private final Timer leaseWait;
+    private final Meter leaseTimeouts;
+
     public InstrumentedClientConnManager() {
         this(SchemeRegistryFactory.createDefault());
     }
@@ -42,14 +118,34 @@ public class InstrumentedClientConnManager extends PoolingClientConnectionManage
                                          long connTTL,
                                          TimeUnit connTTLTimeUnit,
                                          DnsResolver dnsResolver) {
+        this(metricsRegistry, schemeRegistry, connTTL, connTTLTimeUnit, dnsResolver, Clock.defaultClock());
+    }
+
+    public InstrumentedClientConnManager(MetricsRegistry metricsRegistry,
+                                         SchemeRegistry schemeRegistry,
+                                         long connTTL,
+                                         TimeUnit connTTLTimeUnit,
+                                         DnsResolver dnsResolver,
+                                         Clock clock) {
         super(schemeRegistry, connTTL, connTTLTimeUnit, dnsResolver);
+        this.clock = clock;
+        // this acquires a lock on the connection pool, so we only do it once and then keep track
+        // of changes ourselves
+        this.maxConnections = super.getMaxTotal();
+        this.leaseWait = metricsRegistry.newTimer(ClientConnectionManager.class,
+                                                  "lease-wait",
+                                                  TimeUnit.MILLISECONDS,
+                                                  TimeUnit.SECONDS);
+        this.leaseTimeouts = metricsRegistry.newMeter(ClientConnectionManager.class,
+                                                      "lease-timeouts",
+                                                      "timeouts",
+                                                      TimeUnit.SECONDS);
         metricsRegistry.newGauge(ClientConnectionManager.class,
                                  "available-connections",
                                  new Gauge<Integer>() {
                                      @Override
                                      public Integer getValue() {
-                                         // this acquires a lock on the connection pool; remove if contention sucks
-                                         return getTotalStats().getAvailable();
+                                         return Math.max(0, availableConnections.get());
                                      }
                                  });
         metricsRegistry.newGauge(ClientConnectionManager.class,
@@ -57,8 +153,7 @@ public class InstrumentedClientConnManager extends PoolingClientConnectionManage
                                  new Gauge<Integer>() {
                                      @Override
                                      public Integer getValue() {
-                                         // this acquires a lock on the connection pool; remove if contention sucks
-                                         return getTotalStats().getLeased();
+                                         return leasedConnections.get();
                                      }
                                  });
         metricsRegistry.newGauge(ClientConnectionManager.class,
@@ -66,8 +161,7 @@ public class InstrumentedClientConnManager extends PoolingClientConnectionManage
                                  new Gauge<Integer>() {
                                      @Override
                                      public Integer getValue() {
-                                         // this acquires a lock on the connection pool; remove if contention sucks
-                                         return getTotalStats().getMax();
+                                         return maxConnections;
                                      }
                                  });
         metricsRegistry.newGauge(ClientConnectionManager.class,
@@ -75,9 +169,56 @@ public class InstrumentedClientConnManager extends PoolingClientConnectionManage
                                  new Gauge<Integer>() {
                                      @Override
                                      public Integer getValue() {
-                                         // this acquires a lock on the connection pool; remove if contention sucks
-                                         return getTotalStats().getPending();
+                                         return pendingConnections.get();
                                      }
                                  });
     }
+
+    @Override
+    public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+        pendingConnections.incrementAndGet();
+        return new InstrumentedConnectionRequest(super.requestConnection(route, state));
+    }
+
+    @Override
+    public void releaseConnection(ManagedClientConnection conn, long keepalive, TimeUnit tunit) {
+        final boolean kept = conn.isOpen() && conn.isMarkedReusable();
+        try {
+            super.releaseConnection(conn, keepalive, tunit);
+        } finally {
+            if (leased.remove(conn)) {
+                leasedConnections.decrementAndGet();
+                if (kept) {
+                    availableConnections.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void closeIdleConnections(long idleTimeout, TimeUnit tunit) {
+        super.closeIdleConnections(idleTimeout, tunit);
+        resyncAvailableConnections();
+    }
+
+    @Override
+    public void closeExpiredConnections() {
+        super.closeExpiredConnections();
+        resyncAvailableConnections();
+    }
+
+    @Override
+    public void setMaxTotal(int max) {
+        super.setMaxTotal(max);
+        this.maxConnections = max;
+    }
+
+    /*
+     * The pool also discards stale connections when they're leased, which we can't see, so we
+     * correct our count whenever it evicts connections. This takes the pool's lock, but so does
+     * the eviction.
+     */
+    private void resyncAvailableConnections() {
+        availableConnections.set(getTotalStats().getAvailable());
+    }
 }
@@ -2,6 +2,7 @@ package com.yammer.metrics.httpclient;
 
 import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.util.BoundedTimerMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.ConnectionReuseStrategy;
@@ -14,16 +15,42 @@ import org.apache.http.params.HttpParams;
 import org.apache.http.protocol.HttpProcessor;
 import org.apache.http.protocol.HttpRequestExecutor;
 
+import java.util.concurrent.TimeUnit;
+
 public class InstrumentedHttpClient extends DefaultHttpClient {
     private final Log log = LogFactory.getLog(getClass());
 
     private final MetricsRegistry registry;
+    private final BoundedTimerMap<String> routeTimers;
+
+    /**
+     * Creates a new {@link InstrumentedHttpClient} which, in addition to timing requests by
+     * method, times them by target host and port. Each target gets its own
+     * {@code route-requests} timer, scoped by {@code host:port} (with the host in lower case and
+     * the scheme's default port filled in), until {@code maxRoutes} targets have been seen;
+     * requests to any other targets are timed by a shared overflow timer.
+     *
+     * @param registry     the registry for the metrics
+     * @param manager      the connection manager
+     * @param params       the client's parameters
+     * @param maxRoutes    the maximum number of targets to time separately
+     */
+    public InstrumentedHttpClient(MetricsRegistry registry,
+                                  InstrumentedClientConnManager manager,
+                                  HttpParams params,
+                                  int maxRoutes) {
+        super(manager, params);
+        this.registry = registry;
+        this.routeTimers = new BoundedTimerMap<String>(registry, HttpClient.class, "route-requests", maxRoutes,
+                                                       TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+    }
 
     public InstrumentedHttpClient(MetricsRegistry registry,
                                   InstrumentedClientConnManager manager,
                                   HttpParams params) {
         super(manager, params);
         this.registry = registry;
+        this.routeTimers = null;
     }
 
     public InstrumentedHttpClient(InstrumentedClientConnManager manager, HttpParams params) {
@@ -53,6 +80,7 @@ public class InstrumentedHttpClient extends DefaultHttpClient {
                                                           HttpParams params) {
         return new InstrumentedRequestDirector(
                 registry,
+                routeTimers,
                 log,
                 requestExec,
                 conman,
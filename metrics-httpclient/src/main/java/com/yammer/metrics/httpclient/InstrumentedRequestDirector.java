@@ -3,6 +3,7 @@ package com.yammer.metrics.httpclient;
 import com.yammer.metrics.core.MetricsRegistry;
 import com.yammer.metrics.core.Timer;
 import com.yammer.metrics.core.TimerContext;
+import com.yammer.metrics.util.BoundedTimerMap;
 import org.apache.commons.logging.Log;
 import org.apache.http.*;
 import org.apache.http.client.*;
@@ -16,6 +17,8 @@ import org.apache.http.protocol.HttpProcessor;
 import org.apache.http.protocol.HttpRequestExecutor;
 
 import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 class InstrumentedRequestDirector extends DefaultRequestDirector {
     private final static String GET = "GET", POST = "POST", HEAD = "HEAD", PUT = "PUT",
@@ -33,8 +36,10 @@ class InstrumentedRequestDirector extends DefaultRequestDirector {
     private final Timer moveTimer;
     private final Timer patchTimer;
     private final Timer otherTimer;
+    private final BoundedTimerMap<String> routeTimers;
 
     InstrumentedRequestDirector(MetricsRegistry registry,
+                                BoundedTimerMap<String> routeTimers,
                                 Log log,
                                 HttpRequestExecutor requestExec,
                                 ClientConnectionManager conman,
@@ -72,6 +77,7 @@ class InstrumentedRequestDirector extends DefaultRequestDirector {
         moveTimer = registry.newTimer(HttpClient.class, "move-requests");
         patchTimer = registry.newTimer(HttpClient.class, "patch-requests");
         otherTimer = registry.newTimer(HttpClient.class, "other-requests");
+        this.routeTimers = routeTimers;
     }
 
     @Override
@@ -80,10 +86,25 @@ class InstrumentedRequestDirector extends DefaultRequestDirector {
         try {
             return super.execute(target, request, context);
         } finally {
-            timerContext.stop();
+            final long duration = timerContext.stop();
+            if (routeTimers != null && target != null) {
+                routeTimers.get(getRoute(target)).update(duration, TimeUnit.NANOSECONDS);
+            }
         }
     }
 
+    // targets which differ only in the case of their host or in whether their port is explicit
+    // are the same route
+    private static String getRoute(HttpHost target) {
+        final int port;
+        if (target.getPort() >= 0) {
+            port = target.getPort();
+        } else {
+            port = "https".equalsIgnoreCase(target.getSchemeName()) ? 443 : 80;
+        }
+        return target.getHostName().toLowerCase(Locale.ENGLISH) + ':' + port;
+    }
+
     private Timer timer(HttpRequest request) {
         final String method = request.getRequestLine().getMethod();
         if (GET.equalsIgnoreCase(method)) {
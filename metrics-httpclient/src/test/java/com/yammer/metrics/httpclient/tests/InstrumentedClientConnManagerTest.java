@@ -0,0 +1,120 @@
+package com.yammer.metrics.httpclient.tests;
+
+import com.yammer.metrics.core.*;
+import com.yammer.metrics.httpclient.InstrumentedClientConnManager;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class InstrumentedClientConnManagerTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final InstrumentedClientConnManager manager =
+            new InstrumentedClientConnManager(registry, SchemeRegistryFactory.createDefault(),
+                                              -1, TimeUnit.MILLISECONDS, new SystemDefaultDnsResolver());
+    private final HttpRoute route = new HttpRoute(new HttpHost("example.com", 80));
+
+    @After
+    public void tearDown() throws Exception {
+        manager.shutdown();
+    }
+
+    @Test
+    public void countsLeasedConnectionsUntilTheyAreReleased() throws Exception {
+        final ManagedClientConnection connection = manager.requestConnection(route, null)
+                                                          .getConnection(1, TimeUnit.SECONDS);
+
+        assertThat(gauge("leased-connections"),
+                   is((Object) 1));
+
+        assertThat(gauge("available-connections"),
+                   is((Object) 0));
+
+        assertThat(gauge("pending-connections"),
+                   is((Object) 0));
+
+        assertThat("the lease wait has been timed",
+                   ((Timer) registry.getAllMetrics().get(name("lease-wait"))).getCount(),
+                   is(1L));
+
+        manager.releaseConnection(connection, 1, TimeUnit.SECONDS);
+        manager.releaseConnection(connection, 1, TimeUnit.SECONDS);
+
+        assertThat("releasing a connection twice only counts once",
+                   gauge("leased-connections"),
+                   is((Object) 0));
+
+        assertThat("the unopened connection isn't kept as available",
+                   gauge("available-connections"),
+                   is((Object) 0));
+    }
+
+    @Test
+    public void timesLeaseWaitsWithTheClock() throws Exception {
+        final Clock clock = mock(Clock.class);
+        when(clock.getTick()).thenReturn(0L, TimeUnit.MILLISECONDS.toNanos(5));
+        final MetricsRegistry registry = new MetricsRegistry();
+        final InstrumentedClientConnManager manager =
+                new InstrumentedClientConnManager(registry, SchemeRegistryFactory.createDefault(),
+                                                  -1, TimeUnit.MILLISECONDS,
+                                                  new SystemDefaultDnsResolver(), clock);
+        try {
+            manager.requestConnection(route, null).getConnection(1, TimeUnit.SECONDS);
+
+            assertThat(((Timer) registry.getAllMetrics().get(name("lease-wait"))).getMax(),
+                       is(closeTo(5.0, 0.001)));
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    public void tracksTheMaximumNumberOfConnections() throws Exception {
+        manager.setMaxTotal(7);
+
+        assertThat(gauge("max-connections"),
+                   is((Object) 7));
+    }
+
+    @Test
+    public void metersLeaseTimeouts() throws Exception {
+        manager.setMaxTotal(1);
+        manager.requestConnection(route, null).getConnection(1, TimeUnit.SECONDS);
+        try {
+            manager.requestConnection(route, null).getConnection(10, TimeUnit.MILLISECONDS);
+            fail("should have timed out");
+        } catch (ConnectionPoolTimeoutException e) {
+            assertThat(((Meter) registry.getAllMetrics().get(name("lease-timeouts"))).getCount(),
+                       is(1L));
+        }
+
+        assertThat("the timed out request is no longer pending",
+                   gauge("pending-connections"),
+                   is((Object) 0));
+
+        assertThat(gauge("leased-connections"),
+                   is((Object) 1));
+    }
+
+    private Object gauge(String name) {
+        return ((Gauge<?>) registry.getAllMetrics().get(name(name))).getValue();
+    }
+
+    private static MetricName name(String name) {
+        return new MetricName(ClientConnectionManager.class, name);
+    }
+}
@@ -1,10 +1,25 @@
 package com.yammer.metrics.httpclient.tests;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
 import com.yammer.metrics.httpclient.InstrumentedClientConnManager;
 import com.yammer.metrics.httpclient.InstrumentedHttpClient;
+import com.yammer.metrics.util.BoundedTimerMap;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.util.EntityUtils;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -18,4 +33,47 @@ public class InstrumentedHttpClientTest {
         assertThat(client.getConnectionManager(),
                    is(instanceOf(InstrumentedClientConnManager.class)));
     }
+
+    @Test
+    public void timesRequestsByTarget() throws Exception {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        final MetricsRegistry registry = new MetricsRegistry();
+        final InstrumentedClientConnManager manager =
+                new InstrumentedClientConnManager(registry, SchemeRegistryFactory.createDefault(),
+                                                  -1, TimeUnit.MILLISECONDS);
+        final HttpClient client = new InstrumentedHttpClient(registry, manager, new BasicHttpParams(), 1);
+        try {
+            final int port = server.getAddress().getPort();
+            get(client, "http://localhost:" + port + "/");
+            get(client, "http://LOCALHOST:" + port + "/things");
+
+            final Timer timer = (Timer) registry.getAllMetrics().get(
+                    new MetricName(HttpClient.class, "route-requests", "localhost:" + port));
+
+            assertThat(timer.getCount(),
+                       is(2L));
+
+            final Timer overflow = (Timer) registry.getAllMetrics().get(
+                    new MetricName(HttpClient.class, "route-requests", BoundedTimerMap.OVERFLOW_SCOPE));
+
+            assertThat("the same target in a different case shares the target's timer",
+                       overflow.getCount(),
+                       is(0L));
+        } finally {
+            manager.shutdown();
+            server.stop(0);
+        }
+    }
+
+    private static void get(HttpClient client, String uri) throws IOException {
+        EntityUtils.consume(client.execute(new HttpGet(uri)).getEntity());
+    }
 }
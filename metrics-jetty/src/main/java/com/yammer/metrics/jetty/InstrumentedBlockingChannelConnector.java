@@ -1,7 +1,7 @@
 package com.yammer.metrics.jetty;
 
 import com.yammer.metrics.Metrics;
-import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Concurrency;
 import com.yammer.metrics.core.Meter;
 import com.yammer.metrics.core.MetricsRegistry;
 import com.yammer.metrics.core.Timer;
@@ -14,7 +14,7 @@ import java.util.concurrent.TimeUnit;
 public class InstrumentedBlockingChannelConnector extends BlockingChannelConnector {
     private final Timer duration;
     private final Meter accepts, connects, disconnects;
-    private final Counter connections;
+    private final Concurrency connections;
 
     public InstrumentedBlockingChannelConnector(int port) {
         this(Metrics.defaultRegistry(), port);
@@ -44,9 +44,9 @@ public class InstrumentedBlockingChannelConnector extends BlockingChannelConnect
                                              Integer.toString(port),
                                              "connections",
                                              TimeUnit.SECONDS);
-        this.connections = registry.newCounter(BlockingChannelConnector.class,
-                                               "active-connections",
-                                               Integer.toString(port));
+        this.connections = registry.newConcurrency(BlockingChannelConnector.class,
+                                                   "active-connections",
+                                                   Integer.toString(port));
     }
 
     @Override
@@ -2,9 +2,12 @@ package com.yammer.metrics.jetty;
 
 import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Histogram;
 import com.yammer.metrics.core.Meter;
 import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.ThreadUsage;
 import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.util.BoundedTimerMap;
 import com.yammer.metrics.util.RatioGauge;
 import org.eclipse.jetty.continuation.Continuation;
 import org.eclipse.jetty.continuation.ContinuationListener;
@@ -44,6 +47,12 @@ public class InstrumentedHandler extends HandlerWrapper {
             putRequests, deleteRequests, optionsRequests, traceRequests,
             connectRequests, patchRequests, otherRequests;
 
+    private final Histogram cpuTime;
+    private final Histogram allocatedBytes;
+
+    private final RouteExtractor routeExtractor;
+    private final BoundedTimerMap<String> routeRequests;
+
     private final ContinuationListener listener;
 
     /**
@@ -62,6 +71,36 @@ public class InstrumentedHandler extends HandlerWrapper {
      * @param registry the registry for the metrics
      */
     public InstrumentedHandler(Handler underlying, MetricsRegistry registry) {
+        this(underlying, registry, false);
+    }
+
+    /**
+     * Create a new instrumented handler using a given metrics registry, optionally recording the
+     * CPU time (in nanoseconds) and the number of bytes allocated by each dispatch, where the VM
+     * supports measuring them.
+     *
+     * @param underlying the handler about which metrics will be collected
+     * @param registry the registry for the metrics
+     * @param recordResourceUsage whether or not to record each dispatch's CPU time and allocations
+     */
+    public InstrumentedHandler(Handler underlying, MetricsRegistry registry, boolean recordResourceUsage) {
+        this(underlying, registry, recordResourceUsage, null, 0);
+    }
+
+    /**
+     * Create a new instrumented handler using a given metrics registry which, in addition to
+     * timing requests by method, times them by route. Each route gets its own
+     * {@code route-requests} timer, scoped by the route, until {@code maxRoutes} routes have been
+     * seen; requests for any other routes are timed by a shared overflow timer.
+     *
+     * @param underlying the handler about which metrics will be collected
+     * @param registry the registry for the metrics
+     * @param recordResourceUsage whether or not to record each dispatch's CPU time and allocations
+     * @param routeExtractor the extractor of each request's route, or {@code null} to not time requests by route
+     * @param maxRoutes the maximum number of routes to time separately
+     */
+    public InstrumentedHandler(Handler underlying, MetricsRegistry registry, boolean recordResourceUsage,
+                               RouteExtractor routeExtractor, int maxRoutes) {
         super();
         this.dispatches = registry.newTimer(underlying.getClass(), "dispatches", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
         this.requests = registry.newMeter(underlying.getClass(), "requests", "requests", TimeUnit.SECONDS);
@@ -180,6 +219,16 @@ public class InstrumentedHandler extends HandlerWrapper {
         this.patchRequests = registry.newTimer(underlying.getClass(), "patch-requests", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
         this.otherRequests = registry.newTimer(underlying.getClass(), "other-requests", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
 
+        this.cpuTime = recordResourceUsage && ThreadUsage.isCpuTimeSupported() ?
+                registry.newHistogram(underlying.getClass(), "dispatch-cpu-time", true) : null;
+        this.allocatedBytes = recordResourceUsage && ThreadUsage.isAllocatedBytesSupported() ?
+                registry.newHistogram(underlying.getClass(), "dispatch-allocated-bytes", true) : null;
+
+        this.routeExtractor = routeExtractor;
+        this.routeRequests = routeExtractor == null ? null :
+                new BoundedTimerMap<String>(registry, underlying.getClass(), "route-requests", maxRoutes,
+                                            TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+
         setHandler(underlying);
     }
 
@@ -207,17 +256,29 @@ public class InstrumentedHandler extends HandlerWrapper {
             start = System.nanoTime();
         }
 
+        final long startCpuTime = cpuTime == null ? 0 : ThreadUsage.getCpuTime();
+        final long startAllocatedBytes = allocatedBytes == null ? 0 : ThreadUsage.getAllocatedBytes();
+
         try {
             super.handle(target, request, httpRequest, httpResponse);
         } finally {
+            if (cpuTime != null) {
+                cpuTime.update(ThreadUsage.getCpuTime() - startCpuTime);
+            }
+            if (allocatedBytes != null) {
+                allocatedBytes.update(ThreadUsage.getAllocatedBytes() - startAllocatedBytes);
+            }
+
             if (isMilliseconds) {
                 final long duration = System.currentTimeMillis() - start;
                 dispatches.update(duration, TimeUnit.MILLISECONDS);
                 requestTimer(request.getMethod()).update(duration, TimeUnit.MILLISECONDS);
+                updateRouteTimer(httpRequest, duration, TimeUnit.MILLISECONDS);
             } else {
                 final long duration = System.nanoTime() - start;
                 dispatches.update(duration, TimeUnit.NANOSECONDS);
                 requestTimer(request.getMethod()).update(duration, TimeUnit.NANOSECONDS);
+                updateRouteTimer(httpRequest, duration, TimeUnit.NANOSECONDS);
             }
 
             activeDispatches.dec();
@@ -256,6 +317,15 @@ public class InstrumentedHandler extends HandlerWrapper {
         return otherRequests;
     }
 
+    private void updateRouteTimer(HttpServletRequest request, long duration, TimeUnit unit) {
+        if (routeExtractor != null) {
+            final String route = routeExtractor.getRoute(request);
+            if (route != null) {
+                routeRequests.get(route).update(duration, unit);
+            }
+        }
+    }
+
     private void updateResponses(Request request) {
         final int response = request.getResponse().getStatus() / 100;
         if (response >= 1 && response <= 5) {
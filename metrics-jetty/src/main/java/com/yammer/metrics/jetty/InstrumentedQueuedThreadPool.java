@@ -1,5 +1,8 @@
 package com.yammer.metrics.jetty;
 
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.Timer;
 import com.yammer.metrics.util.RatioGauge;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
@@ -7,13 +10,59 @@ import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.Gauge;
 import com.yammer.metrics.core.MetricsRegistry;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Jetty {@link QueuedThreadPool} which records how long jobs wait in its queue for a thread, how
+ * long they take to run, the size of its queue, and how many jobs it rejects.
+ * <p/>
+ * The {@code max-queued-jobs} gauge is the most jobs queued since it was last read, so that a
+ * reporter polling it sees each interval's peak rather than the largest queue there has ever been.
+ */
 public class InstrumentedQueuedThreadPool extends QueuedThreadPool {
+    /**
+     * A dispatched job and the time at which it was queued. This is the only allocation made per
+     * job; its timestamps are kept as primitives and its durations are recorded directly.
+     */
+    private static class QueuedJob implements Runnable {
+        private final Runnable job;
+        private final long queuedAt;
+
+        private QueuedJob(Runnable job, long queuedAt) {
+            this.job = job;
+            this.queuedAt = queuedAt;
+        }
+
+        @Override
+        public void run() {
+            job.run();
+        }
+
+        @Override
+        public String toString() {
+            return job.toString();
+        }
+    }
+
+    private final Clock clock;
+    private final Timer queueWait;
+    private final Timer jobs;
+    private final Meter rejectedJobs;
+    private final AtomicInteger maxQueuedJobs = new AtomicInteger();
+
     public InstrumentedQueuedThreadPool() {
         this(Metrics.defaultRegistry());
     }
 
     public InstrumentedQueuedThreadPool(MetricsRegistry registry) {
+        this(registry, Clock.defaultClock());
+    }
+
+    public InstrumentedQueuedThreadPool(MetricsRegistry registry, Clock clock) {
         super();
+        this.clock = clock;
         registry.newGauge(QueuedThreadPool.class, "percent-idle", new RatioGauge() {
             @Override
             protected double getNumerator() {
@@ -37,5 +86,63 @@ public class InstrumentedQueuedThreadPool extends QueuedThreadPool {
                 return getIdleThreads();
             }
         });
+        registry.newGauge(QueuedThreadPool.class, "queued-jobs", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return getQueuedJobs();
+            }
+        });
+        registry.newGauge(QueuedThreadPool.class, "max-queued-jobs", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                // start the next interval at the current queue size
+                final int queued = getQueuedJobs();
+                return Math.max(maxQueuedJobs.getAndSet(queued), queued);
+            }
+        });
+        this.queueWait = registry.newTimer(QueuedThreadPool.class, "queue-wait", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+        this.jobs = registry.newTimer(QueuedThreadPool.class, "jobs", TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+        this.rejectedJobs = registry.newMeter(QueuedThreadPool.class, "rejected-jobs", "jobs", TimeUnit.SECONDS);
+    }
+
+    @Override
+    public boolean dispatch(Runnable job) {
+        final boolean dispatched = super.dispatch(new QueuedJob(job, clock.getTick()));
+        // a rejection means the queue is full, so it's sampled then too
+        updateMaxQueuedJobs(getQueuedJobs());
+        if (!dispatched) {
+            rejectedJobs.mark();
+        }
+        return dispatched;
+    }
+
+    @Override
+    protected void runJob(Runnable job) {
+        if (!(job instanceof QueuedJob)) {
+            super.runJob(job);
+            return;
+        }
+        final long start = clock.getTick();
+        queueWait.update(start - ((QueuedJob) job).queuedAt, TimeUnit.NANOSECONDS);
+        try {
+            super.runJob(job);
+        } finally {
+            jobs.update(clock.getTick() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private int getQueuedJobs() {
+        final BlockingQueue<Runnable> queue = getQueue();
+        return queue == null ? 0 : queue.size();
+    }
+
+    private void updateMaxQueuedJobs(int queued) {
+        int max = maxQueuedJobs.get();
+        while (queued > max) {
+            if (maxQueuedJobs.compareAndSet(max, queued)) {
+                return;
+            }
+            max = maxQueuedJobs.get();
+        }
     }
 }
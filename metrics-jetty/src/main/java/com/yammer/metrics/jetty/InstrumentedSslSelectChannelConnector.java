@@ -1,7 +1,7 @@
 package com.yammer.metrics.jetty;
 
 import com.yammer.metrics.Metrics;
-import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Concurrency;
 import com.yammer.metrics.core.Meter;
 import com.yammer.metrics.core.MetricsRegistry;
 import com.yammer.metrics.core.Timer;
@@ -15,7 +15,7 @@ import java.util.concurrent.TimeUnit;
 public class InstrumentedSslSelectChannelConnector extends SslSelectChannelConnector {
     private final Timer duration;
     private final Meter accepts, connects, disconnects;
-    private final Counter connections;
+    private final Concurrency connections;
 
     public InstrumentedSslSelectChannelConnector(int port) {
         this(Metrics.defaultRegistry(), port);
@@ -48,9 +48,9 @@ public class InstrumentedSslSelectChannelConnector extends SslSelectChannelConne
                                              Integer.toString(port),
                                              "connections",
                                              TimeUnit.SECONDS);
-        this.connections = registry.newCounter(SslSelectChannelConnector.class,
-                                               "active-connections",
-                                               Integer.toString(port));
+        this.connections = registry.newConcurrency(SslSelectChannelConnector.class,
+                                                   "active-connections",
+                                                   Integer.toString(port));
 
     }
 
@@ -78,9 +78,9 @@ public class InstrumentedSslSelectChannelConnector extends SslSelectChannelConne
                                              Integer.toString(port),
                                              "connections",
                                              TimeUnit.SECONDS);
-        this.connections = registry.newCounter(SslSelectChannelConnector.class,
-                                               "active-connections",
-                                               Integer.toString(port));
+        this.connections = registry.newConcurrency(SslSelectChannelConnector.class,
+                                                   "active-connections",
+                                                   Integer.toString(port));
 
     }
 
@@ -0,0 +1,21 @@
+package com.yammer.metrics.jetty;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Determines the route of a request, such as {@code /users/{id}}, for per-route timing in
+ * {@link InstrumentedHandler}.
+ * <p/>
+ * Routes should come from a small, fixed set, and implementations should return the same
+ * {@link String} instance for each route every time (e.g., a constant) so that timers can be
+ * looked up cheaply.
+ */
+public interface RouteExtractor {
+    /**
+     * Returns the route of the given request.
+     *
+     * @param request    an HTTP request
+     * @return the request's route, or {@code null} if it doesn't match any route
+     */
+    String getRoute(HttpServletRequest request);
+}
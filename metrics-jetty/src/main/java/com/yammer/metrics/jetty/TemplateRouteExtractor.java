@@ -0,0 +1,102 @@
+package com.yammer.metrics.jetty;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+
+/**
+ * A {@link RouteExtractor} which matches request URIs against a set of path templates, such as
+ * {@code /users/{id}/posts}, in which a segment in braces matches any single path segment.
+ * <p/>
+ * Literal segments take precedence over variable ones, so {@code /users/me} matches
+ * {@code /users/me} rather than {@code /users/{id}} if both are given. Empty segments are ignored.
+ * Matching doesn't allocate, and the route returned is the template itself.
+ */
+public class TemplateRouteExtractor implements RouteExtractor {
+    private static class Node {
+        private String[] segments = new String[0];
+        private Node[] children = new Node[0];
+        private Node variable;
+        private String route;
+
+        private Node child(String segment) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (variable == null) {
+                    this.variable = new Node();
+                }
+                return variable;
+            }
+            for (int i = 0; i < segments.length; i++) {
+                if (segments[i].equals(segment)) {
+                    return children[i];
+                }
+            }
+            this.segments = Arrays.copyOf(segments, segments.length + 1);
+            this.children = Arrays.copyOf(children, children.length + 1);
+            segments[segments.length - 1] = segment;
+            children[children.length - 1] = new Node();
+            return children[children.length - 1];
+        }
+    }
+
+    private final Node root = new Node();
+
+    /**
+     * Creates a new {@link TemplateRouteExtractor}.
+     *
+     * @param templates    the path templates of the routes
+     */
+    public TemplateRouteExtractor(String... templates) {
+        for (String template : templates) {
+            Node node = root;
+            for (String segment : template.split("/")) {
+                if (!segment.isEmpty()) {
+                    node = node.child(segment);
+                }
+            }
+            if (node.route == null) {
+                node.route = template;
+            }
+        }
+    }
+
+    @Override
+    public String getRoute(HttpServletRequest request) {
+        return getRoute(request.getRequestURI());
+    }
+
+    /**
+     * Returns the template which matches the given path.
+     *
+     * @param path    a request path
+     * @return the matching template, or {@code null} if no template matches
+     */
+    public String getRoute(String path) {
+        return path == null ? null : match(root, path, 0);
+    }
+
+    private static String match(Node node, String path, int start) {
+        int begin = start;
+        while (begin < path.length() && path.charAt(begin) == '/') {
+            begin++;
+        }
+        if (begin == path.length()) {
+            return node.route;
+        }
+
+        int end = path.indexOf('/', begin);
+        if (end < 0) {
+            end = path.length();
+        }
+        final int length = end - begin;
+        for (int i = 0; i < node.segments.length; i++) {
+            final String segment = node.segments[i];
+            if (segment.length() == length && path.regionMatches(begin, segment, 0, length)) {
+                final String route = match(node.children[i], path, end);
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+        return node.variable == null ? null : match(node.variable, path, end);
+    }
+}
@@ -0,0 +1,106 @@
+package com.yammer.metrics.jetty.experiments;
+
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.jetty.TemplateRouteExtractor;
+import com.yammer.metrics.util.BoundedTimerMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-request cost of timing requests by route in
+ * {@link com.yammer.metrics.jetty.InstrumentedHandler}: extracting the route from the request
+ * path, looking up the route's timer, and updating it, compared to updating a single timer.
+ */
+public class RouteTimerBenchmark {
+    private static final int WARMUP_ITERATIONS = 10000000;
+    private static final int ITERATIONS = 50000000;
+
+    private static final String[] TEMPLATES = {
+            "/", "/login", "/logout", "/users", "/users/me", "/users/{id}", "/users/{id}/posts",
+            "/users/{id}/posts/{post}", "/users/{id}/followers", "/posts", "/posts/{id}",
+            "/posts/{id}/comments", "/posts/{id}/comments/{comment}", "/search", "/tags/{tag}",
+            "/admin/metrics", "/admin/healthcheck", "/admin/threads", "/static/{file}", "/feed"
+    };
+
+    private static final String[] PATHS = {
+            "/users/1234", "/posts/99/comments", "/users/me", "/search", "/users/42/posts/7",
+            "/tags/java", "/static/app.js", "/unknown/path"
+    };
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final TemplateRouteExtractor extractor = new TemplateRouteExtractor(TEMPLATES);
+        final BoundedTimerMap<String> routes = new BoundedTimerMap<String>(registry, RouteTimerBenchmark.class,
+                                                                           "route-requests", 100,
+                                                                           TimeUnit.MILLISECONDS, TimeUnit.SECONDS);
+        final Timer requests = registry.newTimer(RouteTimerBenchmark.class, "get-requests");
+
+        for (int round = 0; round < 3; round++) {
+            System.out.println("round " + (round + 1));
+            run("Timer.update", update(requests));
+            run("getRoute", extract(extractor));
+            run("get + Timer.update", lookup(routes));
+            run("getRoute + get + update", extractAndUpdate(extractor, routes));
+        }
+        System.out.println(sink);
+    }
+
+    private static void run(String name, Op op) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            op.run(i);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run(i);
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("  %-24s %6.1f ns/op%n", name, elapsed / (double) ITERATIONS);
+    }
+
+    private interface Op {
+        void run(int i);
+    }
+
+    private static Op update(final Timer timer) {
+        return new Op() {
+            @Override
+            public void run(int i) {
+                timer.update(1, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+
+    private static Op extract(final TemplateRouteExtractor extractor) {
+        return new Op() {
+            @Override
+            public void run(int i) {
+                final String route = extractor.getRoute(PATHS[i & 7]);
+                sink += route == null ? 0 : route.length();
+            }
+        };
+    }
+
+    private static Op lookup(final BoundedTimerMap<String> routes) {
+        return new Op() {
+            @Override
+            public void run(int i) {
+                routes.get(TEMPLATES[i & 15]).update(1, TimeUnit.MILLISECONDS);
+            }
+        };
+    }
+
+    private static Op extractAndUpdate(final TemplateRouteExtractor extractor, final BoundedTimerMap<String> routes) {
+        return new Op() {
+            @Override
+            public void run(int i) {
+                final String route = extractor.getRoute(PATHS[i & 7]);
+                if (route != null) {
+                    routes.get(route).update(1, TimeUnit.MILLISECONDS);
+                }
+            }
+        };
+    }
+}
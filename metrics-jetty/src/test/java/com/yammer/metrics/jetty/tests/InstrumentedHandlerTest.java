@@ -0,0 +1,157 @@
+package com.yammer.metrics.jetty.tests;
+
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.ThreadUsage;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.jetty.InstrumentedHandler;
+import com.yammer.metrics.jetty.TemplateRouteExtractor;
+import com.yammer.metrics.util.BoundedTimerMap;
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class InstrumentedHandlerTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Server server = new Server();
+    private final LocalConnector connector = new LocalConnector();
+    private final Handler underlying = new AbstractHandler() {
+        @Override
+        public void handle(String target, Request baseRequest,
+                           HttpServletRequest request, HttpServletResponse response) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            baseRequest.setHandled(true);
+        }
+    };
+
+    @After
+    public void tearDown() throws Exception {
+        server.stop();
+    }
+
+    @Test
+    public void timesRequests() throws Exception {
+        start(new InstrumentedHandler(underlying, registry));
+
+        assertThat(get("/things"),
+                   containsString("204"));
+
+        assertThat(((Timer) metric("get-requests")).getCount(),
+                   is(1L));
+
+        assertThat(registry.getAllMetrics().containsKey(name("dispatch-cpu-time")),
+                   is(false));
+    }
+
+    @Test
+    public void recordsEachDispatchsCpuTime() throws Exception {
+        assumeTrue(ThreadUsage.isCpuTimeSupported());
+        start(new InstrumentedHandler(underlying, registry, true));
+
+        get("/things");
+
+        final Histogram cpuTime = (Histogram) metric("dispatch-cpu-time");
+
+        assertThat(cpuTime.getCount(),
+                   is(1L));
+
+        assertThat(cpuTime.getMin(),
+                   is(greaterThanOrEqualTo(0.0)));
+    }
+
+    @Test
+    public void recordsEachDispatchsAllocatedBytes() throws Exception {
+        assumeTrue(ThreadUsage.isAllocatedBytesSupported());
+        start(new InstrumentedHandler(underlying, registry, true));
+
+        get("/things");
+
+        final Histogram allocatedBytes = (Histogram) metric("dispatch-allocated-bytes");
+
+        assertThat(allocatedBytes.getCount(),
+                   is(1L));
+
+        assertThat(allocatedBytes.getMin(),
+                   is(greaterThanOrEqualTo(0.0)));
+    }
+
+    @Test
+    public void timesRequestsByRoute() throws Exception {
+        start(new InstrumentedHandler(underlying, registry, false,
+                                      new TemplateRouteExtractor("/users/{id}", "/posts/{id}"), 10));
+
+        get("/users/1");
+        get("/users/2");
+        get("/posts/1");
+        get("/other");
+
+        assertThat(((Timer) metric("route-requests", "/users/{id}")).getCount(),
+                   is(2L));
+
+        assertThat(((Timer) metric("route-requests", "/posts/{id}")).getCount(),
+                   is(1L));
+
+        assertThat(((Timer) metric("route-requests", BoundedTimerMap.OVERFLOW_SCOPE)).getCount(),
+                   is(0L));
+    }
+
+    @Test
+    public void timesRoutesPastTheMaximumWithTheOverflowTimer() throws Exception {
+        start(new InstrumentedHandler(underlying, registry, false,
+                                      new TemplateRouteExtractor("/users/{id}", "/posts/{id}"), 1));
+
+        get("/users/1");
+        get("/posts/1");
+        get("/posts/2");
+
+        assertThat(((Timer) metric("route-requests", "/users/{id}")).getCount(),
+                   is(1L));
+
+        assertThat(registry.getAllMetrics().containsKey(name("route-requests", "/posts/{id}")),
+                   is(false));
+
+        assertThat(((Timer) metric("route-requests", BoundedTimerMap.OVERFLOW_SCOPE)).getCount(),
+                   is(2L));
+    }
+
+    private void start(Handler handler) throws Exception {
+        server.addConnector(connector);
+        server.setHandler(handler);
+        server.start();
+    }
+
+    private String get(String uri) throws Exception {
+        return connector.getResponses("GET " + uri + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n");
+    }
+
+    private Metric metric(String name) {
+        return registry.getAllMetrics().get(name(name));
+    }
+
+    private Metric metric(String name, String scope) {
+        return registry.getAllMetrics().get(name(name, scope));
+    }
+
+    private MetricName name(String name) {
+        return new MetricName(underlying.getClass(), name);
+    }
+
+    private MetricName name(String name, String scope) {
+        return new MetricName(underlying.getClass(), name, scope);
+    }
+}
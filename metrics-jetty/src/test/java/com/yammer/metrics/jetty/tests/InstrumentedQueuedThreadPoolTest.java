@@ -0,0 +1,139 @@
+package com.yammer.metrics.jetty.tests;
+
+import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Meter;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.jetty.InstrumentedQueuedThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class InstrumentedQueuedThreadPoolTest {
+    private static class ManualClock extends Clock {
+        private volatile long tick;
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final ManualClock clock = new ManualClock();
+    private final InstrumentedQueuedThreadPool pool = new InstrumentedQueuedThreadPool(registry, clock);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final Runnable blocker = new Runnable() {
+        @Override
+        public void run() {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+    private final Runnable noop = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        pool.setMinThreads(1);
+        pool.setMaxThreads(1);
+        pool.setMaxQueued(1);
+        pool.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        pool.stop();
+    }
+
+    @Test
+    public void timesQueueWaitsAndJobs() throws Exception {
+        assertThat(pool.dispatch(blocker),
+                   is(true));
+        started.await();
+
+        assertThat(pool.dispatch(noop),
+                   is(true));
+
+        clock.tick = TimeUnit.MILLISECONDS.toNanos(5);
+        release.countDown();
+
+        final Timer jobs = (Timer) metric("jobs");
+        awaitCount(jobs, 2);
+
+        assertThat(jobs.getMax(),
+                   is(closeTo(5.0, 0.001)));
+
+        assertThat(((Timer) metric("queue-wait")).getMax(),
+                   is(closeTo(5.0, 0.001)));
+    }
+
+    @Test
+    public void countsRejectedJobsAndTheMostQueued() throws Exception {
+        pool.dispatch(blocker);
+        started.await();
+
+        assertThat(pool.dispatch(noop),
+                   is(true));
+
+        assertThat(pool.dispatch(noop),
+                   is(false));
+
+        assertThat(((Meter) metric("rejected-jobs")).getCount(),
+                   is(1L));
+
+        assertThat(((Gauge<?>) metric("max-queued-jobs")).getValue(),
+                   is((Object) 1));
+
+        assertThat(((Gauge<?>) metric("queued-jobs")).getValue(),
+                   is((Object) 1));
+    }
+
+    @Test
+    public void resetsTheMostQueuedWhenItIsRead() throws Exception {
+        pool.dispatch(blocker);
+        started.await();
+        pool.dispatch(noop);
+        release.countDown();
+        awaitCount((Timer) metric("jobs"), 2);
+
+        final Gauge<?> maxQueuedJobs = (Gauge<?>) metric("max-queued-jobs");
+
+        assertThat(maxQueuedJobs.getValue(),
+                   is((Object) 1));
+
+        assertThat("the queue has been empty since the last read",
+                   maxQueuedJobs.getValue(),
+                   is((Object) 0));
+    }
+
+    private Metric metric(String name) {
+        return registry.getAllMetrics().get(new MetricName(QueuedThreadPool.class, name));
+    }
+
+    private static void awaitCount(Timer timer, long count) throws InterruptedException {
+        for (int i = 0; i < 500 && timer.getCount() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.yammer.metrics.jetty.tests;
+
+import com.yammer.metrics.jetty.TemplateRouteExtractor;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TemplateRouteExtractorTest {
+    private final TemplateRouteExtractor extractor = new TemplateRouteExtractor("/users/{id}",
+                                                                                "/users/me",
+                                                                                "/users/me/settings",
+                                                                                "/users/{id}/posts",
+                                                                                "/");
+
+    @Test
+    public void matchesVariableSegments() throws Exception {
+        assertThat(extractor.getRoute("/users/12"),
+                   is("/users/{id}"));
+
+        assertThat(extractor.getRoute("/users/12/posts"),
+                   is("/users/{id}/posts"));
+    }
+
+    @Test
+    public void prefersLiteralSegmentsToVariableOnes() throws Exception {
+        assertThat(extractor.getRoute("/users/me"),
+                   is("/users/me"));
+
+        assertThat(extractor.getRoute("/users/me/settings"),
+                   is("/users/me/settings"));
+    }
+
+    @Test
+    public void backtracksToVariableSegmentsWhenLiteralOnesDontMatch() throws Exception {
+        assertThat(extractor.getRoute("/users/me/posts"),
+                   is("/users/{id}/posts"));
+    }
+
+    @Test
+    public void onlyMatchesWholeSegments() throws Exception {
+        assertThat(extractor.getRoute("/users/meh"),
+                   is("/users/{id}"));
+
+        assertThat(extractor.getRoute("/user/12"),
+                   is(nullValue()));
+    }
+
+    @Test
+    public void ignoresTrailingAndRepeatedSlashes() throws Exception {
+        assertThat(extractor.getRoute("/users/12/"),
+                   is("/users/{id}"));
+
+        assertThat(extractor.getRoute("//users//me"),
+                   is("/users/me"));
+    }
+
+    @Test
+    public void matchesTheRoot() throws Exception {
+        assertThat(extractor.getRoute("/"),
+                   is("/"));
+
+        assertThat(extractor.getRoute(""),
+                   is("/"));
+    }
+
+    @Test
+    public void returnsNullForUnmatchedPaths() throws Exception {
+        assertThat(extractor.getRoute("/posts"),
+                   is(nullValue()));
+
+        assertThat(extractor.getRoute("/users"),
+                   is(nullValue()));
+
+        assertThat(extractor.getRoute("/users/12/posts/3"),
+                   is(nullValue()));
+
+        assertThat(extractor.getRoute((String) null),
+                   is(nullValue()));
+    }
+
+    @Test
+    public void returnsTheTemplateInstance() throws Exception {
+        assertThat(extractor.getRoute("/users/1") == extractor.getRoute("/users/2"),
+                   is(true));
+    }
+
+    @Test
+    public void keepsTheFirstOfEquivalentTemplates() throws Exception {
+        final TemplateRouteExtractor extractor = new TemplateRouteExtractor("/users/{id}",
+                                                                            "/users/{name}");
+
+        assertThat(extractor.getRoute("/users/12"),
+                   is("/users/{id}"));
+    }
+
+    @Test
+    public void matchesTheRequestUri() throws Exception {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/users/12/posts");
+
+        assertThat(extractor.getRoute(request),
+                   is("/users/{id}/posts"));
+    }
+}
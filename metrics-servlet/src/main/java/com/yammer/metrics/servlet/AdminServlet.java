@@ -25,6 +25,7 @@ public class AdminServlet extends HttpServlet {
                                            "    <li><a href=\"{2}{3}\">Ping</a></li>\n" +
                                            "    <li><a href=\"{4}{5}\">Threads</a></li>\n" +
                                            "    <li><a href=\"{6}{7}\">Healthcheck</a></li>\n" +
+                                           "    <li><a href=\"{9}{10}\">Profile</a></li>\n" +
                                            "  </ul>\n" +
                                            "</body>\n" +
                                            "</html>";
@@ -33,23 +34,26 @@ public class AdminServlet extends HttpServlet {
     public static final String DEFAULT_METRICS_URI = "/metrics";
     public static final String DEFAULT_PING_URI = "/ping";
     public static final String DEFAULT_THREADS_URI = "/threads";
+    public static final String DEFAULT_PROFILE_URI = "/profile";
     private static final String CONTENT_TYPE = "text/html";
 
     private final HealthCheckServlet healthCheckServlet;
     private final MetricsServlet metricsServlet;
     private final PingServlet pingServlet;
     private final ThreadDumpServlet threadDumpServlet;
+    private final ProfileServlet profileServlet;
 
     private String metricsUri;
     private String pingUri;
     private String threadsUri;
     private String healthcheckUri;
+    private String profileUri;
     private String serviceName;
 
     public AdminServlet() {
         this(new HealthCheckServlet(), new MetricsServlet(), new PingServlet(),
-             new ThreadDumpServlet(), DEFAULT_HEALTHCHECK_URI, DEFAULT_METRICS_URI,
-             DEFAULT_PING_URI, DEFAULT_THREADS_URI);
+             new ThreadDumpServlet(), new ProfileServlet(), DEFAULT_HEALTHCHECK_URI,
+             DEFAULT_METRICS_URI, DEFAULT_PING_URI, DEFAULT_THREADS_URI, DEFAULT_PROFILE_URI);
     }
 
     public AdminServlet(HealthCheckServlet healthCheckServlet,
@@ -60,15 +64,32 @@ public class AdminServlet extends HttpServlet {
                         String metricsUri,
                         String pingUri,
                         String threadsUri) {
+        this(healthCheckServlet, metricsServlet, pingServlet, threadDumpServlet,
+             new ProfileServlet(), healthcheckUri, metricsUri, pingUri, threadsUri,
+             DEFAULT_PROFILE_URI);
+    }
+
+    public AdminServlet(HealthCheckServlet healthCheckServlet,
+                        MetricsServlet metricsServlet,
+                        PingServlet pingServlet,
+                        ThreadDumpServlet threadDumpServlet,
+                        ProfileServlet profileServlet,
+                        String healthcheckUri,
+                        String metricsUri,
+                        String pingUri,
+                        String threadsUri,
+                        String profileUri) {
         this.healthCheckServlet = healthCheckServlet;
         this.metricsServlet = metricsServlet;
         this.pingServlet = pingServlet;
         this.threadDumpServlet = threadDumpServlet;
+        this.profileServlet = profileServlet;
 
         this.metricsUri = metricsUri;
         this.pingUri = pingUri;
         this.threadsUri = threadsUri;
         this.healthcheckUri = healthcheckUri;
+        this.profileUri = profileUri;
     }
 
     @Override
@@ -78,15 +99,23 @@ public class AdminServlet extends HttpServlet {
         metricsServlet.init(config);
         pingServlet.init(config);
         threadDumpServlet.init(config);
+        profileServlet.init(config);
 
         //final ServletContext context = config.getServletContext();
         this.metricsUri = getParam(config.getInitParameter("metrics-uri"), this.metricsUri);
         this.pingUri = getParam(config.getInitParameter("ping-uri"), this.pingUri);
         this.threadsUri = getParam(config.getInitParameter("threads-uri"), this.threadsUri);
         this.healthcheckUri = getParam(config.getInitParameter("healthcheck-uri"), this.healthcheckUri);
+        this.profileUri = getParam(config.getInitParameter("profile-uri"), this.profileUri);
         this.serviceName = getParam(config.getInitParameter("service-name"), this.serviceName);
     }
     
+    @Override
+    public void destroy() {
+        profileServlet.destroy();
+        super.destroy();
+    }
+
     public void setServiceName(String serviceName) {
         this.serviceName = serviceName;
     }
@@ -103,7 +132,8 @@ public class AdminServlet extends HttpServlet {
             try {
                 writer.println(MessageFormat.format(TEMPLATE, path, metricsUri, path, pingUri, path,
                                                     threadsUri, path, healthcheckUri,
-                                                    serviceName == null ? "" : " (" + serviceName + ")"));
+                                                    serviceName == null ? "" : " (" + serviceName + ")",
+                                                    path, profileUri));
             } finally {
                 writer.close();
             }
@@ -115,6 +145,8 @@ public class AdminServlet extends HttpServlet {
             pingServlet.service(req, resp);
         } else if (uri.equals(threadsUri)) {
             threadDumpServlet.service(req, resp);
+        } else if (uri.equals(profileUri)) {
+            profileServlet.service(req, resp);
         } else {
             resp.sendError(HttpServletResponse.SC_NOT_FOUND);
         }
@@ -18,6 +18,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.concurrent.TimeUnit;
@@ -57,7 +58,8 @@ import java.util.concurrent.TimeUnit;
  *         <code>full-samples</code> determines whether or not the JSON which is returned will
  *         include the full content of histograms' and timers' reservoir samples. If you're
  *         aggregating across hosts, you may want to do this to allow for more accurate quantile
- *         calculations.
+ *         calculations. Samples with weighted values, such as the centroids of t-digests, also
+ *         include the <code>weights</code> of their values.
  *     </dd>
  * </dl>
  */
@@ -316,7 +318,7 @@ public class MetricsServlet extends HttpServlet implements MetricProcessor<Metri
             writeSampling(histogram, json);
 
             if (context.showFullSamples) {
-                json.writeObjectField("values", histogram.getSnapshot().getValues());
+                writeFullSample(histogram.getSnapshot(), json);
             }
         }
         json.writeEndObject();
@@ -369,7 +371,7 @@ public class MetricsServlet extends HttpServlet implements MetricProcessor<Metri
                 writeSummarizable(timer, json);
                 writeSampling(timer, json);
                 if (context.showFullSamples) {
-                    json.writeObjectField("values", timer.getSnapshot().getValues());
+                    writeFullSample(timer.getSnapshot(), json);
                 }
             }
             json.writeEndObject();
@@ -380,6 +382,108 @@ public class MetricsServlet extends HttpServlet implements MetricProcessor<Metri
                 writeMeteredFields(timer, json);
             }
             json.writeEndObject();
+
+            if (timer.getServiceLevel() != null) {
+                json.writeFieldName("service_level");
+                json.writeStartObject();
+                {
+                    json.writeNumberField("apdex", timer.getApdex());
+                    json.writeNumberField("burn_rate", timer.getErrorBudgetBurnRate());
+                    json.writeFieldName("within");
+                    json.writeStartObject();
+                    {
+                        final double[] thresholds = timer.getThresholds();
+                        final long[] counts = timer.getThresholdCounts();
+                        for (int i = 0; i < thresholds.length; i++) {
+                            json.writeNumberField(Double.toString(thresholds[i]), counts[i]);
+                        }
+                    }
+                    json.writeEndObject();
+                }
+                json.writeEndObject();
+            }
+
+            final List<Exemplar> slowest = timer.getSlowest();
+            if (!slowest.isEmpty()) {
+                json.writeFieldName("slowest");
+                json.writeStartArray();
+                for (Exemplar exemplar : slowest) {
+                    json.writeStartObject();
+                    json.writeNumberField("duration", exemplar.getDuration(timer.getDurationUnit()));
+                    json.writeNumberField("timestamp", exemplar.getTimestamp());
+                    json.writeStringField("tag", exemplar.getTag());
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+            }
+        }
+        json.writeEndObject();
+    }
+
+    @Override
+    public void processTopK(MetricName name, TopK topK, Context context) throws Exception {
+        final JsonGenerator json = context.json;
+        json.writeStartObject();
+        {
+            json.writeStringField("type", "topk");
+            json.writeStringField("event_type", topK.getEventType());
+            json.writeStringField("unit", topK.getRateUnit().toString().toLowerCase());
+            json.writeFieldName("top");
+            json.writeStartArray();
+            for (TopK.Entry entry : topK.getTop()) {
+                json.writeStartObject();
+                json.writeStringField("key", entry.getKey());
+                json.writeNumberField("rate", entry.getRate());
+                json.writeNumberField("error", entry.getError());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+    }
+
+    @Override
+    public void processCardinality(MetricName name, Cardinality cardinality, Context context) throws Exception {
+        final JsonGenerator json = context.json;
+        json.writeStartObject();
+        {
+            json.writeStringField("type", "cardinality");
+            json.writeNumberField("distinct", cardinality.getCount());
+        }
+        json.writeEndObject();
+    }
+
+    @Override
+    public void processConcurrency(MetricName name, Concurrency concurrency, Context context) throws Exception {
+        final JsonGenerator json = context.json;
+        json.writeStartObject();
+        {
+            json.writeStringField("type", "concurrency");
+            json.writeNumberField("count", concurrency.getCount());
+            json.writeNumberField("max", concurrency.getMax());
+            json.writeNumberField("mean", concurrency.getMean());
+        }
+        json.writeEndObject();
+    }
+
+    @Override
+    public void processWindowedMeter(MetricName name, WindowedMeter meter, Context context) throws Exception {
+        final JsonGenerator json = context.json;
+        json.writeStartObject();
+        {
+            json.writeStringField("type", "windowed_meter");
+            json.writeStringField("event_type", meter.getEventType());
+            json.writeStringField("unit", meter.getRateUnit().toString().toLowerCase());
+            json.writeNumberField("count", meter.getCount());
+            json.writeNumberField("mean", meter.getMeanRate());
+            json.writeFieldName("rates");
+            json.writeStartObject();
+            {
+                for (int i = 0; i < meter.getWindowCount(); i++) {
+                    json.writeNumberField(meter.getWindowName(i), meter.getRate(i));
+                }
+            }
+            json.writeEndObject();
         }
         json.writeEndObject();
     }
@@ -400,6 +504,14 @@ public class MetricsServlet extends HttpServlet implements MetricProcessor<Metri
         json.writeNumberField("std_dev", metric.getStdDev());
     }
 
+    private static void writeFullSample(Snapshot snapshot, JsonGenerator json) throws IOException {
+        json.writeObjectField("values", snapshot.getValues());
+        final long[] weights = snapshot.getWeights();
+        if (weights != null) {
+            json.writeObjectField("weights", weights);
+        }
+    }
+
     private static void writeSampling(Sampling metric, JsonGenerator json) throws IOException {
         final Snapshot snapshot = metric.getSnapshot();
         json.writeNumberField("median", snapshot.getMedian());
@@ -0,0 +1,80 @@
+package com.yammer.metrics.servlet;
+
+import com.yammer.metrics.core.SamplingProfiler;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An HTTP servlet which outputs a {@code text/plain} profile of the VM's runnable threads in the
+ * collapsed-stack format used by flame graph tools. Only responds to {@code GET} requests. If the
+ * {@code reset} parameter is {@code true}, the profile is discarded after being written.
+ * <p/>
+ * If the {@code profile-period} init parameter is set, the servlet starts the profiler sampling
+ * at that period (in milliseconds) when it is initialized and stops it when it is destroyed.
+ * Otherwise, the profiler must be started elsewhere.
+ */
+public class ProfileServlet extends HttpServlet {
+    private static final long serialVersionUID = -2359826463584402402L;
+    private static final String CONTENT_TYPE = "text/plain";
+
+    private final SamplingProfiler profiler;
+    private boolean started;
+
+    /**
+     * Creates a new {@link ProfileServlet}.
+     */
+    public ProfileServlet() {
+        this(SamplingProfiler.getInstance());
+    }
+
+    /**
+     * Creates a new {@link ProfileServlet} with the given {@link SamplingProfiler} instance.
+     *
+     * @param profiler    a {@link SamplingProfiler} instance
+     */
+    public ProfileServlet(SamplingProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        final String period = config.getInitParameter("profile-period");
+        if (period != null && !profiler.isRunning()) {
+            profiler.start(Long.parseLong(period), TimeUnit.MILLISECONDS);
+            this.started = true;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (started) {
+            profiler.stop();
+        }
+        super.destroy();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req,
+                         HttpServletResponse resp) throws ServletException, IOException {
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType(CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
+        final PrintWriter writer = resp.getWriter();
+        try {
+            profiler.writeCollapsedStacks(writer);
+            if (Boolean.parseBoolean(req.getParameter("reset"))) {
+                profiler.reset();
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
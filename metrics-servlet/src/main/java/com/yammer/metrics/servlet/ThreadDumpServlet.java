@@ -12,6 +12,16 @@ import java.io.OutputStream;
 /**
  * An HTTP servlet which outputs a {@code text/plain} dump of all threads in the VM. Only responds
  * to {@code GET} requests.
+ * <p/>
+ * The dump can be made cheaper with the following parameters:
+ * <ul>
+ * <li>{@code depth}: the maximum number of stack frames to write for each thread (negative
+ * depths are treated as zero). Unless {@code locks} is {@code false} or {@code group} is
+ * {@code true}, full stacks are still collected, since the frames which hold each lock are only
+ * available then, and the depth only shortens the output.</li>
+ * <li>{@code locks}: if {@code false}, locked monitors and synchronizers are not collected</li>
+ * <li>{@code group}: if {@code true}, threads with identical stacks are written once</li>
+ * </ul>
  */
 public class ThreadDumpServlet extends HttpServlet {
     private static final String CONTENT_TYPE = "text/plain";
@@ -43,9 +53,29 @@ public class ThreadDumpServlet extends HttpServlet {
         resp.setHeader("Cache-Control", "must-revalidate,no-cache,no-store");
         final OutputStream output = resp.getOutputStream();
         try {
-            vm.getThreadDump(output);
+            vm.getThreadDump(output,
+                             Math.max(0, getIntParameter(req, "depth", Integer.MAX_VALUE)),
+                             getBooleanParameter(req, "locks", true),
+                             getBooleanParameter(req, "group", false));
         } finally {
             output.close();
         }
     }
+
+    private static int getIntParameter(HttpServletRequest req, String name, int defaultValue) {
+        final String value = req.getParameter(name);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException ignored) {
+                // use the default
+            }
+        }
+        return defaultValue;
+    }
+
+    private static boolean getBooleanParameter(HttpServletRequest req, String name, boolean defaultValue) {
+        final String value = req.getParameter(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
 }
@@ -24,6 +24,7 @@ public class AdminServletTest {
     private final HealthCheckServlet healthCheckServlet = mock(HealthCheckServlet.class);
     private final ThreadDumpServlet threadDumpServlet = mock(ThreadDumpServlet.class);
     private final PingServlet pingServlet = mock(PingServlet.class);
+    private final ProfileServlet profileServlet = mock(ProfileServlet.class);
 
     private final ServletConfig config = mock(ServletConfig.class);
     private final ServletContext context = mock(ServletContext.class);
@@ -35,10 +36,12 @@ public class AdminServletTest {
 
     private final AdminServlet servlet = new AdminServlet(healthCheckServlet,metricsServlet,
                                                            pingServlet, threadDumpServlet,
+                                                          profileServlet,
                                                           "/healthcheck",
                                                           "/metrics",
                                                           "/ping",
-                                                          "/threads");
+                                                          "/threads",
+                                                          "/profile");
 
     @Before
     public void setUp() throws Exception {
@@ -58,6 +61,7 @@ public class AdminServletTest {
         verify(metricsServlet).init(config);
         verify(pingServlet).init(config);
         verify(threadDumpServlet).init(config);
+        verify(profileServlet).init(config);
     }
 
     @Test
@@ -77,7 +81,8 @@ public class AdminServletTest {
                               "<li><a href=\"/context/admin/metrics?pretty=true\">Metrics</a></li>\n    " +
                               "<li><a href=\"/context/admin/ping\">Ping</a></li>\n    " +
                               "<li><a href=\"/context/admin/threads\">Threads</a></li>\n    " +
-                              "<li><a href=\"/context/admin/healthcheck\">Healthcheck</a></li>\n  " +
+                              "<li><a href=\"/context/admin/healthcheck\">Healthcheck</a></li>\n    " +
+                              "<li><a href=\"/context/admin/profile\">Profile</a></li>\n  " +
                               "</ul>\n</body>\n</html>\n"));
     }
 
@@ -98,7 +103,8 @@ public class AdminServletTest {
                               "<li><a href=\"/context/admin/metrics?pretty=true\">Metrics</a></li>\n    " +
                               "<li><a href=\"/context/admin/ping\">Ping</a></li>\n    " +
                               "<li><a href=\"/context/admin/threads\">Threads</a></li>\n    " +
-                              "<li><a href=\"/context/admin/healthcheck\">Healthcheck</a></li>\n  " +
+                              "<li><a href=\"/context/admin/healthcheck\">Healthcheck</a></li>\n    " +
+                              "<li><a href=\"/context/admin/profile\">Profile</a></li>\n  " +
                               "</ul>\n</body>\n</html>\n"));
     }
 
@@ -121,7 +127,8 @@ public class AdminServletTest {
                               "<li><a href=\"/context/admin/metrics?pretty=true\">Metrics</a></li>\n    " +
                               "<li><a href=\"/context/admin/ping\">Ping</a></li>\n    " +
                               "<li><a href=\"/context/admin/threads\">Threads</a></li>\n    " +
-                              "<li><a href=\"/context/admin/healthcheck\">Healthcheck</a></li>\n  " +
+                              "<li><a href=\"/context/admin/healthcheck\">Healthcheck</a></li>\n    " +
+                              "<li><a href=\"/context/admin/profile\">Profile</a></li>\n  " +
                               "</ul>\n</body>\n</html>\n"));
     }
 
@@ -161,6 +168,15 @@ public class AdminServletTest {
         verify(threadDumpServlet).service(request, response);
     }
 
+    @Test
+    public void forwardsToProfile() throws Exception {
+        when(request.getPathInfo()).thenReturn("/profile");
+
+        servlet.service(request, response);
+
+        verify(profileServlet).service(request, response);
+    }
+
     @Test
     public void everythingElseIsNotFound() throws Exception {
         when(request.getPathInfo()).thenReturn("/wobble");
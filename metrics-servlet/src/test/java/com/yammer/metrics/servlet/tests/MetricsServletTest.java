@@ -4,10 +4,16 @@ import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yammer.metrics.core.Cardinality;
 import com.yammer.metrics.core.Clock;
+import com.yammer.metrics.core.Concurrency;
 import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.MetricName;
 import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.ServiceLevel;
+import com.yammer.metrics.core.TimerOptions;
 import com.yammer.metrics.core.VirtualMachineMetrics;
+import com.yammer.metrics.core.WindowedMeter;
 import com.yammer.metrics.servlet.MetricsServlet;
 import org.junit.Before;
 import org.junit.Test;
@@ -200,6 +206,118 @@ public class MetricsServletTest {
                               "\"m15\":0.0}}}}"));
     }
 
+    @Test
+    public void generatesTopKs() throws Exception {
+        registry.newTopK(MetricsServletTest.class, "topk", "queries", 2).update("a", 300);
+
+        servlet.service(request, response);
+
+        assertThat(json.toString(),
+                   is("{\"com.yammer.metrics.servlet.tests.MetricsServletTest\":" +
+                              "{\"topk\":{\"type\":\"topk\",\"event_type\":\"queries\"," +
+                              "\"unit\":\"seconds\",\"top\":[{\"key\":\"a\",\"rate\":1.0," +
+                              "\"error\":0.0}]}}}"));
+    }
+
+    @Test
+    public void generatesCardinalities() throws Exception {
+        final Cardinality cardinality = registry.newCardinality(MetricsServletTest.class, "cardinality");
+        cardinality.add("a");
+        cardinality.add("b");
+
+        servlet.service(request, response);
+
+        assertThat(json.toString(),
+                   is("{\"com.yammer.metrics.servlet.tests.MetricsServletTest\":" +
+                              "{\"cardinality\":{\"type\":\"cardinality\",\"distinct\":2}}}"));
+    }
+
+    @Test
+    public void generatesTimersWithTheirSlowestDurations() throws Exception {
+        when(clock.getTick()).thenReturn(100000L, 110000L);
+        when(clock.getTime()).thenReturn(12345678L);
+
+        registry.newTimer(new MetricName(MetricsServletTest.class, "timer"),
+                          TimeUnit.MILLISECONDS,
+                          TimeUnit.SECONDS,
+                          new TimerOptions().slowest(1))
+                .update(100, TimeUnit.MILLISECONDS, "request-1");
+
+        servlet.service(request, response);
+
+        assertThat(json.toString(),
+                   is("{\"com.yammer.metrics.servlet.tests.MetricsServletTest\":{\"timer\":" +
+                              "{\"type\":\"timer\",\"duration\":{\"unit\":\"milliseconds\"," +
+                              "\"min\":100.0,\"max\":100.0,\"mean\":100.0,\"std_dev\":0.0," +
+                              "\"median\":100.0,\"p75\":100.0,\"p95\":100.0,\"p98\":100.0," +
+                              "\"p99\":100.0,\"p999\":100.0},\"rate\":{\"unit\":\"seconds\"," +
+                              "\"count\":1,\"mean\":100000.0,\"m1\":0.0,\"m5\":0.0," +
+                              "\"m15\":0.0},\"slowest\":[{\"duration\":100.0," +
+                              "\"timestamp\":12345678,\"tag\":\"request-1\"}]}}}"));
+    }
+
+    @Test
+    public void generatesTimersWithTheirServiceLevels() throws Exception {
+        when(clock.getTick()).thenReturn(100000L, 110000L);
+
+        registry.newTimer(new MetricName(MetricsServletTest.class, "timer"),
+                          TimeUnit.MILLISECONDS,
+                          TimeUnit.SECONDS,
+                          new TimerOptions().serviceLevel(
+                                  new ServiceLevel(200, 0.99, TimeUnit.MILLISECONDS)))
+                .update(100, TimeUnit.MILLISECONDS);
+
+        servlet.service(request, response);
+
+        assertThat(json.toString(),
+                   is("{\"com.yammer.metrics.servlet.tests.MetricsServletTest\":{\"timer\":" +
+                              "{\"type\":\"timer\",\"duration\":{\"unit\":\"milliseconds\"," +
+                              "\"min\":100.0,\"max\":100.0,\"mean\":100.0,\"std_dev\":0.0," +
+                              "\"median\":100.0,\"p75\":100.0,\"p95\":100.0,\"p98\":100.0," +
+                              "\"p99\":100.0,\"p999\":100.0},\"rate\":{\"unit\":\"seconds\"," +
+                              "\"count\":1,\"mean\":100000.0,\"m1\":0.0,\"m5\":0.0," +
+                              "\"m15\":0.0},\"service_level\":{\"apdex\":1.0,\"burn_rate\":0.0," +
+                              "\"within\":{\"200.0\":1,\"800.0\":1}}}}}"));
+    }
+
+    @Test
+    public void generatesWindowedMeters() throws Exception {
+        final WindowedMeter meter = registry.newWindowedMeter(MetricsServletTest.class,
+                                                              "meter",
+                                                              "things",
+                                                              TimeUnit.SECONDS,
+                                                              TimeUnit.SECONDS,
+                                                              10, 60);
+        meter.mark(6);
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(3));
+
+        servlet.service(request, response);
+
+        assertThat(json.toString(),
+                   is("{\"com.yammer.metrics.servlet.tests.MetricsServletTest\":" +
+                              "{\"meter\":{\"type\":\"windowed_meter\",\"event_type\":\"things\"," +
+                              "\"unit\":\"seconds\",\"count\":6,\"mean\":2.0," +
+                              "\"rates\":{\"10s\":3.0,\"1m\":3.0}}}}"));
+    }
+
+    @Test
+    public void generatesConcurrencies() throws Exception {
+        final Concurrency concurrency = registry.newConcurrency(MetricsServletTest.class,
+                                                                "concurrency");
+        concurrency.inc();
+        concurrency.inc();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(1));
+        concurrency.dec();
+        when(clock.getTick()).thenReturn(TimeUnit.SECONDS.toNanos(2));
+
+        servlet.service(request, response);
+
+        assertThat(json.toString(),
+                   is("{\"com.yammer.metrics.servlet.tests.MetricsServletTest\":" +
+                              "{\"concurrency\":{\"type\":\"concurrency\",\"count\":1," +
+                              "\"max\":2,\"mean\":1.5}}}"));
+    }
+
     // TODO: 1/19/12 <coda> -- test class prefix
     // TODO: 1/19/12 <coda> -- test pretty printing
     // TODO: 1/19/12 <coda> -- test full sample dumping
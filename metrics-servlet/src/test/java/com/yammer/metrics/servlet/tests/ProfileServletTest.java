@@ -0,0 +1,54 @@
+package com.yammer.metrics.servlet.tests;
+
+import com.yammer.metrics.core.SamplingProfiler;
+import com.yammer.metrics.servlet.ProfileServlet;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.PrintWriter;
+
+import static org.mockito.Mockito.*;
+
+public class ProfileServletTest {
+    private final SamplingProfiler profiler = mock(SamplingProfiler.class);
+    private final ProfileServlet servlet = new ProfileServlet(profiler);
+
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    private final PrintWriter writer = mock(PrintWriter.class);
+
+    @Before
+    public void setUp() throws Exception {
+        when(request.getMethod()).thenReturn("GET");
+
+        when(response.getWriter()).thenReturn(writer);
+    }
+
+    @Test
+    public void printsTheProfileOnGET() throws Exception {
+        servlet.service(request, response);
+
+        final InOrder inOrder = inOrder(response, writer, profiler);
+        inOrder.verify(response).setStatus(200);
+        inOrder.verify(response).setContentType("text/plain");
+        inOrder.verify(profiler).writeCollapsedStacks(writer);
+        inOrder.verify(writer).close();
+
+        verify(profiler, never()).reset();
+    }
+
+    @Test
+    public void resetsTheProfileIfAsked() throws Exception {
+        when(request.getParameter("reset")).thenReturn("true");
+
+        servlet.service(request, response);
+
+        final InOrder inOrder = inOrder(profiler);
+        inOrder.verify(profiler).writeCollapsedStacks(writer);
+        inOrder.verify(profiler).reset();
+    }
+}
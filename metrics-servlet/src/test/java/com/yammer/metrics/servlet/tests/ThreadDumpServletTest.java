@@ -35,7 +35,28 @@ public class ThreadDumpServletTest {
         final InOrder inOrder = inOrder(response, output, vm);
         inOrder.verify(response).setStatus(200);
         inOrder.verify(response).setContentType("text/plain");
-        inOrder.verify(vm).getThreadDump(output);
+        inOrder.verify(vm).getThreadDump(output, Integer.MAX_VALUE, true, false);
         inOrder.verify(output).close();
     }
+
+    @Test
+    public void passesTheDumpOptionsThrough() throws Exception {
+        when(request.getParameter("depth")).thenReturn("10");
+        when(request.getParameter("locks")).thenReturn("false");
+        when(request.getParameter("group")).thenReturn("true");
+
+        servlet.service(request, response);
+
+        verify(vm).getThreadDump(output, 10, false, true);
+    }
+
+    @Test
+    public void treatsANegativeDepthAsZero() throws Exception {
+        when(request.getParameter("depth")).thenReturn("-1");
+
+        servlet.service(request, response);
+
+        verify(response).setStatus(200);
+        verify(vm).getThreadDump(output, 0, true, false);
+    }
 }
@@ -4,6 +4,7 @@ import com.yammer.metrics.Metrics;
 import com.yammer.metrics.core.*;
 
 import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
@@ -16,8 +17,21 @@ import java.util.concurrent.TimeUnit;
 /**
  * {@link Filter} implementation which captures request information and a breakdown of the response
  * codes being returned.
+ * <p/>
+ * If the {@code record-resource-usage} init parameter is {@code true}, the filter also records the
+ * CPU time (in nanoseconds) and the number of bytes allocated by each request's thread, where the
+ * VM supports measuring them.
+ * <p/>
+ * If the {@code slowest-requests} init parameter is set to a number, the request timer keeps that
+ * many of the slowest requests as {@link Exemplar}s, tagged with the request's {@code
+ * X-Request-Id} header or, if it has none, its method and URI, truncated to {@value
+ * Exemplars#MAX_TAG_LENGTH} characters. The tag is set as the thread's {@link
+ * Exemplars#setTag(String) exemplar tag} for the length of the request, so timers updated while
+ * handling it are tagged too.
  */
 public abstract class WebappMetricsFilter implements Filter {
+    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+
     private final String otherMetricName;
     private final Map<Integer, String> meterNamesByStatusCode;
     private final String registryAttribute;
@@ -25,9 +39,11 @@ public abstract class WebappMetricsFilter implements Filter {
     // initialized after call of init method
     private ConcurrentMap<Integer, Meter> metersByStatusCode;
     private Meter otherMeter;
-    private Counter activeRequests;
+    private Concurrency activeRequests;
     private Timer requestTimer;
-
+    private Histogram cpuTime;
+    private Histogram allocatedBytes;
+    private boolean tagRequests;
 
     /**
      * Creates a new instance of the filter.
@@ -61,12 +77,29 @@ public abstract class WebappMetricsFilter implements Filter {
                 otherMetricName,
                 "responses",
                 TimeUnit.SECONDS);
-        this.activeRequests = metricsRegistry.newCounter(WebappMetricsFilter.class, "activeRequests");
-        this.requestTimer = metricsRegistry.newTimer(WebappMetricsFilter.class,
-                "requests",
-                TimeUnit.MILLISECONDS,
-                TimeUnit.SECONDS);
+        this.activeRequests = metricsRegistry.newConcurrency(WebappMetricsFilter.class, "activeRequests");
+        final String slowestRequests = filterConfig.getInitParameter("slowest-requests");
+        if (slowestRequests != null) {
+            this.tagRequests = true;
+            this.requestTimer = metricsRegistry.newTimer(new MetricName(WebappMetricsFilter.class, "requests"),
+                    TimeUnit.MILLISECONDS,
+                    TimeUnit.SECONDS,
+                    new TimerOptions().slowest(Integer.parseInt(slowestRequests)));
+        } else {
+            this.requestTimer = metricsRegistry.newTimer(WebappMetricsFilter.class,
+                    "requests",
+                    TimeUnit.MILLISECONDS,
+                    TimeUnit.SECONDS);
+        }
 
+        if (Boolean.parseBoolean(filterConfig.getInitParameter("record-resource-usage"))) {
+            if (ThreadUsage.isCpuTimeSupported()) {
+                this.cpuTime = metricsRegistry.newHistogram(WebappMetricsFilter.class, "requestCpuTime", true);
+            }
+            if (ThreadUsage.isAllocatedBytesSupported()) {
+                this.allocatedBytes = metricsRegistry.newHistogram(WebappMetricsFilter.class, "requestAllocatedBytes", true);
+            }
+        }
     }
 
     private MetricsRegistry getMetricsFactory(FilterConfig filterConfig) {
@@ -93,16 +126,38 @@ public abstract class WebappMetricsFilter implements Filter {
         final StatusExposingServletResponse wrappedResponse =
                 new StatusExposingServletResponse((HttpServletResponse) response);
         activeRequests.inc();
+        if (tagRequests) {
+            Exemplars.setTag(getRequestTag((HttpServletRequest) request));
+        }
+        final long startCpuTime = cpuTime == null ? 0 : ThreadUsage.getCpuTime();
+        final long startAllocatedBytes = allocatedBytes == null ? 0 : ThreadUsage.getAllocatedBytes();
         final TimerContext context = requestTimer.time();
         try {
             chain.doFilter(request, wrappedResponse);
         } finally {
             context.stop();
+            if (cpuTime != null) {
+                cpuTime.update(ThreadUsage.getCpuTime() - startCpuTime);
+            }
+            if (allocatedBytes != null) {
+                allocatedBytes.update(ThreadUsage.getAllocatedBytes() - startAllocatedBytes);
+            }
+            if (tagRequests) {
+                Exemplars.clearTag();
+            }
             activeRequests.dec();
             markMeterForStatusCode(wrappedResponse.getStatus());
         }
     }
 
+    private static String getRequestTag(HttpServletRequest request) {
+        final String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId != null) {
+            return requestId;
+        }
+        return request.getMethod() + ' ' + request.getRequestURI();
+    }
+
     private void markMeterForStatusCode(int status) {
         final Meter metric = metersByStatusCode.get(status);
         if (metric != null) {
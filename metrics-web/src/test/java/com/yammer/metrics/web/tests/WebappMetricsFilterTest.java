@@ -0,0 +1,166 @@
+package com.yammer.metrics.web.tests;
+
+import com.yammer.metrics.core.Exemplars;
+import com.yammer.metrics.core.Histogram;
+import com.yammer.metrics.core.MetricName;
+import com.yammer.metrics.core.MetricsRegistry;
+import com.yammer.metrics.core.ThreadUsage;
+import com.yammer.metrics.core.Timer;
+import com.yammer.metrics.web.DefaultWebappMetricsFilter;
+import com.yammer.metrics.web.WebappMetricsFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebappMetricsFilterTest {
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final ServletContext context = mock(ServletContext.class);
+    private final FilterConfig config = mock(FilterConfig.class);
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+    private final FilterChain chain = mock(FilterChain.class);
+    private final DefaultWebappMetricsFilter filter = new DefaultWebappMetricsFilter();
+
+    @Before
+    public void setUp() throws Exception {
+        when(config.getServletContext()).thenReturn(context);
+        when(context.getAttribute(DefaultWebappMetricsFilter.REGISTRY_ATTRIBUTE)).thenReturn(registry);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/things");
+    }
+
+    @Test
+    public void doesNotRecordResourceUsageByDefault() throws Exception {
+        filter.init(config);
+        filter.doFilter(request, response, chain);
+
+        assertThat(registry.getAllMetrics().containsKey(name("requestCpuTime")),
+                   is(false));
+
+        assertThat(registry.getAllMetrics().containsKey(name("requestAllocatedBytes")),
+                   is(false));
+    }
+
+    @Test
+    public void recordsEachRequestsCpuTime() throws Exception {
+        assumeTrue(ThreadUsage.isCpuTimeSupported());
+        when(config.getInitParameter("record-resource-usage")).thenReturn("true");
+
+        filter.init(config);
+        filter.doFilter(request, response, chain);
+
+        final Histogram cpuTime = (Histogram) registry.getAllMetrics().get(name("requestCpuTime"));
+
+        assertThat(cpuTime.getCount(),
+                   is(1L));
+
+        assertThat(cpuTime.getMin(),
+                   is(greaterThanOrEqualTo(0.0)));
+    }
+
+    @Test
+    public void recordsEachRequestsAllocatedBytes() throws Exception {
+        assumeTrue(ThreadUsage.isAllocatedBytesSupported());
+        when(config.getInitParameter("record-resource-usage")).thenReturn("true");
+
+        filter.init(config);
+        filter.doFilter(request, response, chain);
+
+        final Histogram allocatedBytes = (Histogram) registry.getAllMetrics().get(name("requestAllocatedBytes"));
+
+        assertThat(allocatedBytes.getCount(),
+                   is(1L));
+
+        assertThat(allocatedBytes.getMin(),
+                   is(greaterThanOrEqualTo(0.0)));
+    }
+
+    @Test
+    public void doesNotTagRequestsByDefault() throws Exception {
+        filter.init(config);
+
+        assertThat(doFilterAndGetTag(),
+                   is(nullValue()));
+    }
+
+    @Test
+    public void tagsTheSlowestRequestsWithTheirRequestIds() throws Exception {
+        when(config.getInitParameter("slowest-requests")).thenReturn("1");
+        when(request.getHeader("X-Request-Id")).thenReturn("request-1");
+
+        filter.init(config);
+
+        assertThat(doFilterAndGetTag(),
+                   is("request-1"));
+
+        assertThat("the tag is cleared after the request",
+                   Exemplars.getTag(),
+                   is(nullValue()));
+
+        final Timer requests = (Timer) registry.getAllMetrics().get(name("requests"));
+
+        assertThat(requests.getSlowest().get(0).getTag(),
+                   is("request-1"));
+    }
+
+    @Test
+    public void tagsRequestsWithoutRequestIdsWithTheirMethodsAndUris() throws Exception {
+        when(config.getInitParameter("slowest-requests")).thenReturn("1");
+
+        filter.init(config);
+
+        assertThat(doFilterAndGetTag(),
+                   is("GET /things"));
+    }
+
+    @Test
+    public void truncatesLongRequestIds() throws Exception {
+        final StringBuilder requestId = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            requestId.append('x');
+        }
+        when(config.getInitParameter("slowest-requests")).thenReturn("1");
+        when(request.getHeader("X-Request-Id")).thenReturn(requestId.toString());
+
+        filter.init(config);
+
+        assertThat(doFilterAndGetTag(),
+                   is(requestId.substring(0, Exemplars.MAX_TAG_LENGTH)));
+    }
+
+    private String doFilterAndGetTag() throws Exception {
+        final String[] tag = new String[1];
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                tag[0] = Exemplars.getTag();
+                return null;
+            }
+        }).when(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+        filter.doFilter(request, response, chain);
+        return tag[0];
+    }
+
+    private static MetricName name(String name) {
+        return new MetricName(WebappMetricsFilter.class, name);
+    }
+}